@@ -26,7 +26,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import org.nanoframework.commons.format.ClassCast;
 import org.nanoframework.commons.util.CollectionUtils;
 import org.nanoframework.commons.util.StringUtils;
 
@@ -44,21 +43,26 @@ public abstract class BaseEntity implements Cloneable, Serializable {
     private static final long serialVersionUID = 3188627488044889912L;
     private static final transient List<String> FILTER_FIELD_NAMES = Lists.newArrayList("names", "cls", "methods", "fields");
 
+    /** 实体类方法列表，同一实体类的所有实例共享的只读映射. */
     protected final transient Map<String, Method> methods = paramMethods();
+    /** 实体类属性列表，同一实体类的所有实例共享的只读映射. */
     protected final transient Map<String, Field> fields = paramFields();
-    private transient String[] names;
+
+    /**
+     * 获取实体类元数据，反序列化后的实例同样可用.
+     * @return 实体类元数据
+     * @since 1.4.11
+     */
+    protected EntityMetadata metadata() {
+        return EntityMetadata.of(getClass());
+    }
 
     /**
      * 获取所有属性名.
      * @return 返回属性数组
      */
     public String[] attributeNames() {
-        if (names != null) {
-            return names;
-        }
-
-        names = fields.keySet().toArray(new String[fields.size()]);
-        return names;
+        return metadata().names();
     }
 
     /**
@@ -73,21 +77,16 @@ public abstract class BaseEntity implements Cloneable, Serializable {
             throw new IllegalArgumentException("属性名不能为空");
         }
 
+        final EntityMetadata.Property property = metadata().property(fieldName);
         try {
-            if (fields.containsKey(fieldName)) {
-                final Field field = fields.get(fieldName);
-                final String fieldGetName = parGetName(field.getName());
-                if (hasMethodName(fieldGetName)) {
-                    return (T) methods.get(fieldGetName).invoke(this);
-                }
-            } else {
+            if (property == null) {
                 throw new NoSuchFieldException("无效的属性名称: " + fieldName);
             }
+
+            return (T) property.get(this);
         } catch (final Throwable e) {
             throw new EntityException(e.getMessage(), e);
         }
-
-        return null;
     }
 
     /**
@@ -115,41 +114,25 @@ public abstract class BaseEntity implements Cloneable, Serializable {
      * 设置属性值.
      * @param fieldName 属性名
      * @param value 属性值
-     * @param isCase 区分大小写，true时区分大小写，默认false
+     * @param isCase 区分大小写，true时区分大小写，默认false. 属性名查找本身区分大小写，此参数仅为兼容保留
      */
     public void setAttributeValue(final String fieldName, final Object value, final boolean isCase) {
         if (StringUtils.isEmpty(fieldName)) {
             throw new IllegalArgumentException("属性名不能为空");
         }
         
+        final EntityMetadata.Property property = metadata().property(fieldName);
         try {
-            if (fields.containsKey(fieldName)) {
-                final Field field = fields.get(fieldName);
-                if ((!isCase && fieldName.toUpperCase().equals(field.getName().toUpperCase())) || (isCase && fieldName.equals(field.getName()))) {
-                    final String fieldSetName = parSetName(field.getName());
-                    if (hasMethodName(fieldSetName)) {
-                        final String typeName = field.getType().getName();
-                        methods.get(fieldSetName).invoke(this, ClassCast.cast(value, typeName));
-                    }
-                }
-            } else {
+            if (property == null) {
                 throw new NoSuchFieldException("无效的属性名: " + fieldName);
             }
+
+            property.set(this, value);
         } catch (final Throwable e) {
             throw new EntityException(e.getMessage(), e);
         }
     }
 
-    /**
-     * 检查是否有方法.
-     * @param methods 方法集
-     * @param methodName 方法名
-     * @return boolean 
-     */
-    private boolean hasMethodName(final String methodName) {
-        return methods.containsKey(methodName);
-    }
-
     /**
      * get+属性名.
      * @param fieldName 属性名
@@ -261,7 +244,7 @@ public abstract class BaseEntity implements Cloneable, Serializable {
      * @return 实体类方法列表
      */
     protected Map<String, Method> paramMethods() {
-        return paramMethods(getClass());
+        return metadata().methods();
     }
 
     /**
@@ -307,7 +290,7 @@ public abstract class BaseEntity implements Cloneable, Serializable {
      * @return 实体类属性列表
      */
     protected Map<String, Field> paramFields() {
-        return paramFields(getClass());
+        return metadata().fields();
     }
 
     /**
@@ -330,11 +313,11 @@ public abstract class BaseEntity implements Cloneable, Serializable {
     }
     
     public Collection<Method> methods() {
-        return methods.values();
+        return metadata().methods().values();
     }
     
     public Collection<Field> fields() {
-        return fields.values();
+        return metadata().fields().values();
     }
     
     @Override
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.commons.entity;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+
+/**
+ * 实体类属性访问器工厂.
+ * 优先使用 {@link LambdaMetafactory} 生成直接调用getter/setter的访问器，
+ * 无法生成时(非public方法、实体类对当前类加载器不可见等)依次降级为 {@link MethodHandle} 和反射调用.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+final class EntityAccessors {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityAccessors.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private EntityAccessors() {
+
+    }
+
+    /**
+     * 属性值获取器.
+     */
+    @FunctionalInterface
+    interface Getter {
+        Object get(Object instance) throws Throwable;
+    }
+
+    /**
+     * 属性值设置器.
+     */
+    @FunctionalInterface
+    interface Setter {
+        void set(Object instance, Object value) throws Throwable;
+    }
+
+    static Getter getter(final Method method) {
+        if (method == null) {
+            return instance -> null;
+        }
+
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (generable(method)) {
+            try {
+                final MethodHandle impl = lookup.unreflect(method);
+                return (Getter) LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Getter.class), GETTER_TYPE, impl,
+                        MethodType.methodType(Object.class, method.getDeclaringClass())).getTarget().invokeExact();
+            } catch (final Throwable e) {
+                LOGGER.debug("Generate getter failure, use MethodHandle instead: {}, {}", method, e.getMessage());
+            }
+        }
+
+        final MethodHandle handle = unreflect(lookup, method, GETTER_TYPE);
+        if (handle != null) {
+            return instance -> (Object) handle.invokeExact(instance);
+        }
+
+        return instance -> method.invoke(instance);
+    }
+
+    static Setter setter(final Method method) {
+        if (method == null) {
+            return (instance, value) -> { };
+        }
+
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (generable(method)) {
+            try {
+                final MethodHandle impl = lookup.unreflect(method);
+                final Class<?> type = MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType();
+                return (Setter) LambdaMetafactory.metafactory(lookup, "set", MethodType.methodType(Setter.class), SETTER_TYPE, impl,
+                        MethodType.methodType(void.class, method.getDeclaringClass(), type)).getTarget().invokeExact();
+            } catch (final Throwable e) {
+                LOGGER.debug("Generate setter failure, use MethodHandle instead: {}, {}", method, e.getMessage());
+            }
+        }
+
+        final MethodHandle handle = unreflect(lookup, method, SETTER_TYPE);
+        if (handle != null) {
+            return (instance, value) -> {
+                handle.invokeExact(instance, value);
+            };
+        }
+
+        return (instance, value) -> method.invoke(instance, value);
+    }
+
+    /**
+     * 生成的访问器定义在当前类的类加载器中，需要public方法及对当前类加载器可见的实体类.
+     */
+    private static boolean generable(final Method method) {
+        final Class<?> declaring = method.getDeclaringClass();
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(declaring.getModifiers())) {
+            return false;
+        }
+
+        for (final Class<?> type : method.getParameterTypes()) {
+            if (!visible(type)) {
+                return false;
+            }
+        }
+
+        return visible(declaring) && visible(method.getReturnType());
+    }
+
+    private static boolean visible(final Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        if (type.isArray()) {
+            return visible(type.getComponentType());
+        }
+
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+
+        try {
+            return Class.forName(type.getName(), false, EntityAccessors.class.getClassLoader()) == type;
+        } catch (final Throwable e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle unreflect(final MethodHandles.Lookup lookup, final Method method, final MethodType type) {
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+
+            return lookup.unreflect(method).asType(type);
+        } catch (final Throwable e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.commons.entity;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+import org.nanoframework.commons.entity.EntityAccessors.Getter;
+import org.nanoframework.commons.entity.EntityAccessors.Setter;
+import org.nanoframework.commons.format.ClassCast;
+import org.nanoframework.commons.format.TypeConverter;
+
+import com.google.common.collect.Maps;
+
+/**
+ * 实体类元数据，按Class缓存实体类的方法、属性及属性的getter/setter.
+ * 同一实体类的所有实例共享元数据，实例化时不再进行反射查找.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class EntityMetadata {
+    private static final ClassValue<EntityMetadata> METADATA = new ClassValue<EntityMetadata>() {
+        @Override
+        protected EntityMetadata computeValue(final Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, Method> methods;
+    private final Map<String, Field> fields;
+    private final Map<String, Property> properties;
+    private final String[] names;
+
+    private EntityMetadata(final Class<?> type) {
+        this.type = type;
+        this.methods = Collections.unmodifiableMap(BaseEntity.paramMethods(type));
+        this.fields = Collections.unmodifiableMap(BaseEntity.paramFields(type));
+        this.names = fields.keySet().toArray(new String[fields.size()]);
+
+        final Map<String, Property> properties = Maps.newLinkedHashMap();
+        fields.forEach((name, field) -> properties.put(name, new Property(field, methods.get(getterName(name)), methods.get(setterName(name)))));
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     *
+     * @param type 实体类
+     * @return 实体类元数据
+     */
+    public static EntityMetadata of(final Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     *
+     * @return 方法名与方法的只读映射，同名方法仅保留其一
+     */
+    public Map<String, Method> methods() {
+        return methods;
+    }
+
+    /**
+     *
+     * @return 属性名与属性的只读映射
+     */
+    public Map<String, Field> fields() {
+        return fields;
+    }
+
+    /**
+     *
+     * @return 属性名数组，调用方不应修改此数组
+     */
+    public String[] names() {
+        return names;
+    }
+
+    /**
+     *
+     * @param name 属性名
+     * @return 属性，不存在时返回null
+     */
+    public Property property(final String name) {
+        return properties.get(name);
+    }
+
+    public Map<String, Property> properties() {
+        return properties;
+    }
+
+    static String getterName(final String fieldName) {
+        return "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+    }
+
+    static String setterName(final String fieldName) {
+        return "set" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+    }
+
+    /**
+     * 实体类属性，持有预先生成的getter/setter访问器及属性类型转换器.
+     *
+     * @author yanghe
+     * @since 1.4.11
+     */
+    public static final class Property {
+        private final Field field;
+        private final Method getter;
+        private final Method setter;
+        private final Getter getterAccessor;
+        private final Setter setterAccessor;
+        private final TypeConverter converter;
+
+        private Property(final Field field, final Method getter, final Method setter) {
+            this.field = field;
+            this.getter = getter;
+            this.setter = setter;
+            this.getterAccessor = EntityAccessors.getter(getter);
+            this.setterAccessor = EntityAccessors.setter(setter);
+            this.converter = ClassCast.converter(field.getType());
+        }
+
+        public String getName() {
+            return field.getName();
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public Method getGetter() {
+            return getter;
+        }
+
+        public Method getSetter() {
+            return setter;
+        }
+
+        /**
+         *
+         * @param instance 实体类实例
+         * @return 属性值，没有getter时返回null
+         * @throws Throwable 调用异常
+         */
+        public Object get(final Object instance) throws Throwable {
+            return getterAccessor.get(instance);
+        }
+
+        /**
+         * 将值转换为属性类型后调用setter，没有setter时忽略.
+         * @param instance 实体类实例
+         * @param value 属性值
+         * @throws Throwable 调用异常
+         */
+        public void set(final Object instance, final Object value) throws Throwable {
+            if (setter != null) {
+                setterAccessor.set(instance, converter.convert(value));
+            }
+        }
+
+        /**
+         * 不进行类型转换直接调用setter，没有setter时忽略.
+         * @param instance 实体类实例
+         * @param value 与属性类型一致的属性值
+         * @throws Throwable 调用异常
+         */
+        public void assign(final Object instance, final Object value) throws Throwable {
+            if (setter != null) {
+                setterAccessor.set(instance, value);
+            }
+        }
+    }
+}
@@ -139,13 +139,7 @@ public final class ClassCast {
         try {
             switch (typeName) {
                 case INTEGER_OBJ:
-                    if (value instanceof Integer) {
-                        return value;
-                    } else if (value instanceof BigDecimal) {
-                        return ((BigDecimal) value).intValue();
-                    } else {
-                        return new BigDecimal(String.valueOf(value)).intValue();
-                    }
+                    return castInteger(value);
                 case L_INTEGER_OBJ:
                     Object[] values = ObjectUtils.toObjectArray(value);
                     final Integer[] ints = new Integer[values.length];
@@ -159,13 +153,7 @@ public final class ClassCast {
 
                     return ints;
                 case LONG_OBJ:
-                    if (value instanceof Long) {
-                        return value;
-                    } else if (value instanceof BigDecimal) {
-                        return ((BigDecimal) value).longValue();
-                    } else {
-                        return new BigDecimal(String.valueOf(value)).longValue();
-                    }
+                    return castLong(value);
                 case L_LONG_OBJ:
                     values = ObjectUtils.toObjectArray(value);
                     final Long[] longs = new Long[values.length];
@@ -179,13 +167,7 @@ public final class ClassCast {
 
                     return longs;
                 case DOUBLE_OBJ:
-                    if (value instanceof Double) {
-                        return value;
-                    } else if (value instanceof BigDecimal) {
-                        return ((BigDecimal) value).doubleValue();
-                    } else {
-                        return new BigDecimal(String.valueOf(value)).doubleValue();
-                    }
+                    return castDouble(value);
                 case L_DOUBLE_OBJ:
                     values = ObjectUtils.toObjectArray(value);
                     final Double[] doubles = new Double[values.length];
@@ -199,13 +181,7 @@ public final class ClassCast {
 
                     return doubles;
                 case FLOAT_OBJ:
-                    if (value instanceof Float) {
-                        return value;
-                    } else if (value instanceof BigDecimal) {
-                        return ((BigDecimal) value).floatValue();
-                    } else {
-                        return new BigDecimal(String.valueOf(value)).floatValue();
-                    }
+                    return castFloat(value);
                 case L_FLOAT_OBJ:
                     values = ObjectUtils.toObjectArray(value);
                     final Float[] floats = new Float[values.length];
@@ -219,11 +195,7 @@ public final class ClassCast {
 
                     return floats;
                 case BOOLEAN_OBJ:
-                    if (value instanceof Boolean) {
-                        return value;
-                    } else {
-                        return Boolean.valueOf(String.valueOf(value));
-                    }
+                    return castBoolean(value);
                 case L_BOOLEAN_OBJ:
                     values = ObjectUtils.toObjectArray(value);
                     final Boolean[] booleans = new Boolean[values.length];
@@ -286,16 +258,7 @@ public final class ClassCast {
 
                         return objs;
                     } else if (value instanceof String) {
-                        final Class<?> cls = Class.forName(typeName);
-                        if (cls == String.class) {
-                            return value;
-                        }
-
-                        try {
-                            return JSON.parseObject((String) value, cls);
-                        } catch (final Throwable e) {
-                            LoggerFactory.getLogger(ClassCast.class).error("ClassCast value error: " + value, e);
-                        }
+                        return castObject((String) value, Class.forName(typeName));
                     }
 
                     return value;
@@ -305,6 +268,129 @@ public final class ClassCast {
         }
     }
 
+    /**
+     * 根据类型预先解析转换器，转换规则与 {@link #cast(Object, String)} 一致.
+     * 常用的包装类型、String及JSON对象类型在解析时确定转换逻辑，调用时不再按类型名进行匹配.
+     * @param type 类型
+     * @return 类型转换器
+     * @since 1.4.11
+     */
+    public static final TypeConverter converter(final Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("类型不能为空");
+        }
+
+        final String typeName = type.getName();
+        switch (typeName) {
+            case INTEGER_OBJ:
+                return wrap(ClassCast::castInteger);
+            case LONG_OBJ:
+                return wrap(ClassCast::castLong);
+            case DOUBLE_OBJ:
+                return wrap(ClassCast::castDouble);
+            case FLOAT_OBJ:
+                return wrap(ClassCast::castFloat);
+            case BOOLEAN_OBJ:
+                return wrap(ClassCast::castBoolean);
+            case STRING:
+                return value -> value instanceof String[] ? cast(value, typeName) : value;
+            case DATE_UTIL:
+            case DATE_SQL:
+            case TIMESTAMP:
+                return value -> cast(value, typeName);
+            default:
+                if (type.isPrimitive() || type.isArray()) {
+                    return value -> cast(value, typeName);
+                }
+
+                return value -> {
+                    if (value instanceof String) {
+                        return castObject((String) value, type);
+                    } else if (value instanceof String[]) {
+                        return cast(value, typeName);
+                    }
+
+                    return value;
+                };
+        }
+    }
+
+    private static TypeConverter wrap(final TypeConverter converter) {
+        return value -> {
+            if (value == null) {
+                return null;
+            }
+
+            try {
+                return converter.convert(value);
+            } catch (final Throwable e) {
+                throw new org.nanoframework.commons.exception.ClassCastException(e.getMessage(), e);
+            }
+        };
+    }
+
+    private static Object castInteger(final Object value) {
+        if (value instanceof Integer) {
+            return value;
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).intValue();
+        } else {
+            return new BigDecimal(String.valueOf(value)).intValue();
+        }
+    }
+
+    private static Object castLong(final Object value) {
+        if (value instanceof Long) {
+            return value;
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).longValue();
+        } else {
+            return new BigDecimal(String.valueOf(value)).longValue();
+        }
+    }
+
+    private static Object castDouble(final Object value) {
+        if (value instanceof Double) {
+            return value;
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).doubleValue();
+        } else {
+            return new BigDecimal(String.valueOf(value)).doubleValue();
+        }
+    }
+
+    private static Object castFloat(final Object value) {
+        if (value instanceof Float) {
+            return value;
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).floatValue();
+        } else {
+            return new BigDecimal(String.valueOf(value)).floatValue();
+        }
+    }
+
+    private static Object castBoolean(final Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        } else {
+            return Boolean.valueOf(String.valueOf(value));
+        }
+    }
+
+    private static Object castObject(final String value, final Class<?> cls) {
+        if (cls == String.class) {
+            return value;
+        }
+
+        try {
+            return JSON.parseObject(value, cls);
+        } catch (final Throwable e) {
+            LoggerFactory.getLogger(ClassCast.class).error("ClassCast value error: " + value, e);
+        }
+
+        return value;
+    }
+
     /**
      * 
      * @param date 时间格式字符串
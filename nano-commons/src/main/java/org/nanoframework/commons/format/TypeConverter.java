@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.commons.format;
+
+/**
+ * 类型转换器.
+ * @author yanghe
+ * @since 1.4.11
+ * @see ClassCast#converter(Class)
+ */
+@FunctionalInterface
+public interface TypeConverter {
+
+    /**
+     * 
+     * @param value 值
+     * @return 返回转换后的值
+     */
+    Object convert(Object value);
+}
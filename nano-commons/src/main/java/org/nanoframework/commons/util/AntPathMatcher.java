@@ -386,7 +386,7 @@ public class AntPathMatcher implements PathMatcher {
         return new AntPatternComparator(path);
     }
 
-    protected static class AntPathStringMatcher {
+    public static class AntPathStringMatcher {
 
         private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
 
@@ -456,7 +456,7 @@ public class AntPathMatcher implements PathMatcher {
         }
     }
 
-    protected static class AntPatternComparator implements Comparator<String> {
+    public static class AntPatternComparator implements Comparator<String> {
 
         private final String path;
 
@@ -466,8 +466,12 @@ public class AntPathMatcher implements PathMatcher {
 
         @Override
         public int compare(String pattern1, String pattern2) {
-            PatternInfo info1 = new PatternInfo(pattern1);
-            PatternInfo info2 = new PatternInfo(pattern2);
+            return compare(new PatternInfo(pattern1), new PatternInfo(pattern2));
+        }
+
+        public int compare(PatternInfo info1, PatternInfo info2) {
+            String pattern1 = info1.getPattern();
+            String pattern2 = info2.getPattern();
 
             if (info1.isLeastSpecific() && info2.isLeastSpecific()) {
                 return 0;
@@ -516,7 +520,7 @@ public class AntPathMatcher implements PathMatcher {
             return 0;
         }
 
-        private static class PatternInfo {
+        public static class PatternInfo {
 
             private final String pattern;
 
@@ -566,6 +570,10 @@ public class AntPathMatcher implements PathMatcher {
                 }
             }
 
+            public String getPattern() {
+                return this.pattern;
+            }
+
             public int getUriVars() {
                 return this.uriVars;
             }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.commons.entity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.nanoframework.commons.format.ClassCast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 属性读写性能对比：反射调用并按类型名转换(reflect)、MethodHandle调用(handle)、生成的访问器(generated)及BaseEntity按属性名读写(attribute).
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityAccessorsBenchmark {
+    private final UseEntity entity = new UseEntity();
+    private Method getter;
+    private Method setter;
+    private String typeName;
+    private MethodHandle getterHandle;
+    private MethodHandle setterHandle;
+    private EntityMetadata.Property property;
+
+    @Setup
+    public void setup() throws Throwable {
+        getter = UseEntity.class.getMethod("getName");
+        setter = UseEntity.class.getMethod("setName", String.class);
+        typeName = String.class.getName();
+        getterHandle = MethodHandles.lookup().unreflect(getter).asType(MethodType.methodType(Object.class, Object.class));
+        setterHandle = MethodHandles.lookup().unreflect(setter).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        property = EntityMetadata.of(UseEntity.class).property("name");
+    }
+
+    @Benchmark
+    public Object reflect() throws Throwable {
+        setter.invoke(entity, ClassCast.cast("nano", typeName));
+        return getter.invoke(entity);
+    }
+
+    @Benchmark
+    public Object handle() throws Throwable {
+        setterHandle.invokeExact((Object) entity, ClassCast.cast("nano", typeName));
+        return (Object) getterHandle.invokeExact((Object) entity);
+    }
+
+    @Benchmark
+    public Object generated() throws Throwable {
+        property.set(entity, "nano");
+        return property.get(entity);
+    }
+
+    @Benchmark
+    public Object attribute() {
+        entity.setAttributeValue("name", "nano");
+        return entity.attributeValue("name");
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EntityAccessorsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
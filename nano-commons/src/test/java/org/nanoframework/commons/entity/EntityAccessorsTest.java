@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.commons.entity;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class EntityAccessorsTest {
+
+    @Test
+    public void generatedTest() throws Throwable {
+        final EntityAccessors.Getter getter = EntityAccessors.getter(FluentEntity.class.getMethod("getCount"));
+        final EntityAccessors.Setter setter = EntityAccessors.setter(FluentEntity.class.getMethod("setCount", int.class));
+
+        final FluentEntity entity = new FluentEntity();
+        setter.set(entity, 10);
+        Assert.assertEquals(getter.get(entity), Integer.valueOf(10));
+    }
+
+    @Test
+    public void attributeTest() {
+        final FluentEntity entity = new FluentEntity();
+        entity.setCount(12);
+        entity.setAttributeValue("name", "nano");
+        Assert.assertEquals(entity.attributeValue("count"), Integer.valueOf(12));
+        Assert.assertEquals(entity.getName(), "nano");
+
+        entity.setAttributeValue("name", null);
+        Assert.assertNull(entity.attributeValue("name"));
+    }
+
+    @Test(expected = EntityException.class)
+    public void primitiveTest() {
+        new FluentEntity().setAttributeValue("count", 1);
+    }
+
+    @Test
+    public void fallbackTest() {
+        final HiddenEntity entity = new HiddenEntity();
+        entity.setAttributeValue("value", "9");
+        Assert.assertEquals(entity.attributeValue("value"), Long.valueOf(9));
+    }
+
+    public static class FluentEntity extends BaseEntity {
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+        private String name;
+
+        public int getCount() {
+            return count;
+        }
+
+        public FluentEntity setCount(final int count) {
+            this.count = count;
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    private static class HiddenEntity extends BaseEntity {
+        private static final long serialVersionUID = 1L;
+
+        private Long value;
+
+        @SuppressWarnings("unused")
+        public Long getValue() {
+            return value;
+        }
+
+        @SuppressWarnings("unused")
+        public void setValue(final Long value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.commons.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class EntityMetadataTest {
+
+    @Test
+    public void sharedTest() {
+        final UseEntity entity0 = new UseEntity();
+        final UseEntity entity1 = new UseEntity();
+        Assert.assertSame(EntityMetadata.of(UseEntity.class), EntityMetadata.of(UseEntity.class));
+        Assert.assertSame(entity0.fields, entity1.fields);
+        Assert.assertSame(entity0.methods, entity1.methods);
+        Assert.assertEquals(EntityMetadata.of(UseEntity.class).fields().keySet(), BaseEntity.paramFields(UseEntity.class).keySet());
+        Assert.assertEquals(EntityMetadata.of(UseEntity.class).methods().keySet(), BaseEntity.paramMethods(UseEntity.class).keySet());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readonlyTest() {
+        new UseEntity().fields.clear();
+    }
+
+    @Test
+    public void propertyTest() throws Throwable {
+        final EntityMetadata.Property property = EntityMetadata.of(UseEntity.class).property("id");
+        Assert.assertNotNull(property.getGetter());
+        Assert.assertNotNull(property.getSetter());
+
+        final UseEntity entity = new UseEntity();
+        property.set(entity, "100");
+        Assert.assertEquals(property.get(entity), "100");
+        Assert.assertNull(EntityMetadata.of(UseEntity.class).property("none"));
+    }
+
+    @Test
+    public void deserializeTest() throws IOException, ClassNotFoundException {
+        final UseEntity entity = new UseEntity();
+        entity.setId("id0");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(entity);
+        }
+
+        try (final ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final UseEntity copy = (UseEntity) input.readObject();
+            Assert.assertEquals(copy.attributeValue("id"), "id0");
+            copy.setAttributeValue("name", "name0");
+            Assert.assertEquals(copy.getName(), "name0");
+        }
+    }
+}
@@ -34,11 +34,13 @@ import org.nanoframework.core.component.exception.BindRequestParamException;
 import org.nanoframework.core.component.exception.ComponentInvokeException;
 import org.nanoframework.core.component.scan.ClassScanner;
 import org.nanoframework.core.component.stereotype.Component;
+import org.nanoframework.core.component.stereotype.bind.MethodInvoker;
 import org.nanoframework.core.component.stereotype.bind.PathVariable;
 import org.nanoframework.core.component.stereotype.bind.RequestMapper;
 import org.nanoframework.core.component.stereotype.bind.RequestMapping;
 import org.nanoframework.core.component.stereotype.bind.RequestMethod;
 import org.nanoframework.core.component.stereotype.bind.RequestParam;
+import org.nanoframework.core.component.stereotype.bind.RouteMatch;
 import org.nanoframework.core.component.stereotype.bind.Routes;
 import org.nanoframework.core.component.stereotype.bind.ValueConstants;
 import org.nanoframework.core.context.ApplicationContext;
@@ -189,6 +191,41 @@ public final class Components {
         return null;
     }
     
+    /**
+     * 组件服务调用.
+     * @param match 路由匹配结果
+     * @return 返回调用结果
+     */
+    public static Object invoke(final RouteMatch match) {
+        return invoke(match, Maps.newHashMap());
+    }
+
+    /**
+     * 组件服务调用，路由匹配结果中的路径参数将与请求参数合并后进行参数绑定.
+     * @param match 路由匹配结果
+     * @param parameter 参数列表
+     * @param objs 附加参数列表
+     * @return 返回调用结果
+     */
+    public static final Object invoke(final RouteMatch match, final Map<String, Object> parameter, final Object... objs) {
+        if (match == null) {
+            throw new ComponentInvokeException("Not found resources!");
+        }
+
+        final Map<String, String> variables = match.getVariables();
+        if (variables.isEmpty()) {
+            return invoke(match.getMapper(), parameter, objs);
+        }
+
+        final Map<String, Object> params = Maps.newHashMapWithExpectedSize((parameter == null ? 0 : parameter.size()) + variables.size());
+        if (parameter != null) {
+            params.putAll(parameter);
+        }
+
+        params.putAll(variables);
+        return invoke(match.getMapper(), params, objs);
+    }
+
     /**
      * 组件服务调用.
      * @param mapper 组件映射
@@ -208,15 +245,13 @@ public final class Components {
     public static final Object invoke(final RequestMapper mapper, final Map<String, Object> parameter, final Object... objs) {
         if (mapper != null) {
             try {
-                final Map<String, String> param = mapper.getParam();
-                if (!CollectionUtils.isEmpty(param)) {
-                    parameter.putAll(param);
+                final MethodInvoker invoker = mapper.invoker();
+                if (invoker == null) {
+                    throw new ComponentInvokeException("Not found method of resources!");
                 }
-                
-                final Object obj = mapper.getInstance();
-                final Method method = (Method) mapper.getMethod();
-                final Object[] bind = Components.bindParam(method, parameter, objs);
-                return method.invoke(obj, bind);
+
+                final Object[] bind = invoker.bind(parameter, objs);
+                return invoker.invoke(mapper.getInstance(), bind);
             } catch (Exception e) {
                 LOGGER.error(e.getMessage());
                 if (e instanceof ComponentInvokeException) {
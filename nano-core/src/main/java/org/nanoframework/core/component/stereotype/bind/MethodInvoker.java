@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.Map;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.commons.util.Assert;
+
+/**
+ * 组件方法调用器，在组件注册时预先解析参数绑定器，并将方法转换为 {@link MethodHandle}.
+ * 无法创建MethodHandle时使用反射调用.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class MethodInvoker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodInvoker.class);
+
+    private final Method method;
+    private final ParameterBinder[] binders;
+    private final MethodHandle handle;
+
+    private MethodInvoker(final Method method) {
+        this.method = method;
+        final Parameter[] parameters = method.getParameters();
+        this.binders = new ParameterBinder[parameters.length];
+        for (int idx = 0; idx < parameters.length; idx++) {
+            binders[idx] = ParameterBinder.create(parameters[idx]);
+        }
+
+        this.handle = unreflect(method);
+    }
+
+    public static MethodInvoker create(final Method method) {
+        Assert.notNull(method, "Method must not be null");
+        return new MethodInvoker(method);
+    }
+
+    private static MethodHandle unreflect(final Method method) {
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+
+            final int count = method.getParameterCount();
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            return handle.asType(MethodType.genericMethodType(count + 1)).asSpreader(Object[].class, count);
+        } catch (final Throwable e) {
+            LOGGER.warn("Cannot create MethodHandle for {}, use reflection instead: {}", method, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 绑定参数.
+     * @param params 请求参数列表
+     * @param objs 附加参数列表
+     * @return 返回绑定结果
+     */
+    public Object[] bind(final Map<String, Object> params, final Object... objs) {
+        if (binders.length == 0) {
+            return ArrayUtils.EMPTY_OBJECT_ARRAY;
+        }
+
+        final Object[] args = new Object[binders.length];
+        for (int idx = 0; idx < binders.length; idx++) {
+            args[idx] = binders[idx].bind(params, objs);
+        }
+
+        return args;
+    }
+
+    /**
+     * 调用方法，方法抛出的Error与反射调用一致，包装为 {@link InvocationTargetException}.
+     * @param instance 组件实例
+     * @param args 已绑定的参数
+     * @return 返回调用结果
+     * @throws Exception 调用异常
+     */
+    public Object invoke(final Object instance, final Object[] args) throws Exception {
+        if (handle == null) {
+            return method.invoke(instance, args);
+        }
+
+        try {
+            return (Object) handle.invokeExact(instance, args);
+        } catch (final Exception e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public int getParameterCount() {
+        return binders.length;
+    }
+}
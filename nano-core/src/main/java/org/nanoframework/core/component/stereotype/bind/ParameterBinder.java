@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.lang.reflect.Parameter;
+import java.util.Map;
+
+import org.nanoframework.commons.format.ClassCast;
+import org.nanoframework.commons.format.TypeConverter;
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.commons.util.StringUtils;
+import org.nanoframework.core.component.exception.BindRequestParamException;
+import org.nanoframework.core.component.exception.ComponentInvokeException;
+
+/**
+ * 方法参数绑定器，在组件注册时根据参数的注解和类型解析，请求时不再进行注解查找和类型匹配.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public abstract class ParameterBinder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParameterBinder.class);
+
+    protected final Class<?> type;
+
+    protected ParameterBinder(final Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * 根据方法参数创建绑定器.
+     * @param parameter 方法参数
+     * @return 参数绑定器
+     */
+    public static ParameterBinder create(final Parameter parameter) {
+        final Class<?> type = parameter.getType();
+        final RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
+        if (requestParam != null) {
+            return new RequestParamBinder(type, requestParam);
+        }
+
+        final PathVariable pathVariable = parameter.getAnnotation(PathVariable.class);
+        if (pathVariable != null) {
+            return new PathVariableBinder(type, pathVariable);
+        }
+
+        return new ContextBinder(type);
+    }
+
+    /**
+     *
+     * @param params 请求参数列表，参数名需为小写，未找到时再忽略大小写进行查找
+     * @param objs 附加参数列表
+     * @return 绑定后的参数值
+     */
+    public abstract Object bind(Map<String, Object> params, Object[] objs);
+
+    protected Object cast(final TypeConverter converter, final Object param) {
+        try {
+            return converter.convert(param);
+        } catch (final org.nanoframework.commons.exception.ClassCastException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new BindRequestParamException("类型转换异常: 数据类型 [ " + type.getName() + " ], 值 [ " + param + " ]");
+        }
+    }
+
+    protected static Object get(final Map<String, Object> params, final String name) {
+        if (params == null || params.isEmpty()) {
+            return null;
+        }
+
+        final Object value = params.get(name);
+        if (value != null) {
+            return value;
+        }
+
+        for (final Map.Entry<String, Object> entry : params.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+
+        return null;
+    }
+
+    protected static class RequestParamBinder extends ParameterBinder {
+        private final String name;
+        private final String key;
+        private final String defaultValue;
+        private final boolean required;
+        private final TypeConverter converter;
+
+        @SuppressWarnings("deprecation")
+        protected RequestParamBinder(final Class<?> type, final RequestParam requestParam) {
+            super(type);
+            final String value = requestParam.value();
+            this.name = StringUtils.isBlank(value) ? requestParam.name() : value;
+            this.key = name.toLowerCase();
+            this.defaultValue = StringUtils.equals(requestParam.defaultValue(), ValueConstants.DEFAULT_NONE) ? null : requestParam.defaultValue();
+            this.required = requestParam.required();
+            this.converter = ClassCast.converter(type);
+        }
+
+        @Override
+        public Object bind(final Map<String, Object> params, final Object[] objs) {
+            Object param = get(params, key);
+            if (param == null) {
+                param = defaultValue;
+            }
+
+            /** 空字符参数现在也将被判定为空，在必填的情况下也将抛出绑定参数异常 by yanghe on 2015-07-01 19:08 */
+            if (required && (param == null || (param instanceof String && StringUtils.isEmpty((String) param)))) {
+                throw new BindRequestParamException("参数:[" + name + "]为必填项，但是获取的参数值为空.");
+            }
+
+            return cast(converter, param);
+        }
+    }
+
+    protected static class PathVariableBinder extends ParameterBinder {
+        private final String name;
+        private final TypeConverter converter;
+
+        protected PathVariableBinder(final Class<?> type, final PathVariable pathVariable) {
+            super(type);
+            this.name = pathVariable.value().toLowerCase();
+            this.converter = ClassCast.converter(type);
+        }
+
+        @Override
+        public Object bind(final Map<String, Object> params, final Object[] objs) {
+            final Object param = get(params, name);
+            if (param == null) {
+                throw new BindRequestParamException("Restful风格参数:[" + name + "]为必填项，但是获取的参数值为空.");
+            }
+
+            return cast(converter, param);
+        }
+    }
+
+    protected static class ContextBinder extends ParameterBinder {
+
+        protected ContextBinder(final Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        public Object bind(final Map<String, Object> params, final Object[] objs) {
+            if (objs != null) {
+                for (final Object obj : objs) {
+                    if (type.isInstance(obj)) {
+                        return obj;
+                    }
+                }
+            }
+
+            throw new ComponentInvokeException("Not found parameter of type: " + type.getName());
+        }
+    }
+}
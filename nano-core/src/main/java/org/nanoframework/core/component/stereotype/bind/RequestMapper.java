@@ -34,6 +34,7 @@ public class RequestMapper extends BaseEntity {
     private Object instance;
     private Class<?> cls;
     private Method method;
+    private transient MethodInvoker invoker;
 
     /** @since 1.2 */
     private RequestMethod[] requestMethods = new RequestMethod[] { RequestMethod.GET, RequestMethod.POST };
@@ -71,9 +72,19 @@ public class RequestMapper extends BaseEntity {
 
     public RequestMapper setMethod(final Method method) {
         this.method = method;
+        this.invoker = method == null ? null : MethodInvoker.create(method);
         return this;
     }
 
+    /**
+     * 
+     * @return 注册时预先解析的方法调用器
+     * @since 1.4.11
+     */
+    public MethodInvoker invoker() {
+        return invoker;
+    }
+
     public RequestMethod[] getRequestMethods() {
         return requestMethods;
     }
@@ -109,10 +120,21 @@ public class RequestMapper extends BaseEntity {
         return true;
     }
 
+    /**
+     * @return 路径参数
+     * @deprecated 组件映射为所有请求共享的单例，路径参数请使用 {@link RouteMatch#getVariables()}
+     */
+    @Deprecated
     public Map<String, String> getParam() {
         return param;
     }
 
+    /**
+     * @param param 路径参数
+     * @return RequestMapper
+     * @deprecated 组件映射为所有请求共享的单例，路径参数请使用 {@link RouteMatch#getVariables()}
+     */
+    @Deprecated
     public RequestMapper setParam(final Map<String, String> param) {
         this.param = param;
         return this;
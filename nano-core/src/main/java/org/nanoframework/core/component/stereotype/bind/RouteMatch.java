@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.nanoframework.commons.util.Assert;
+import org.nanoframework.commons.util.CollectionUtils;
+
+/**
+ * 路由匹配结果，每次请求查找时创建，包含命中的组件映射及本次请求的Restful风格路径参数.
+ * 不修改共享的 {@link RequestMapper}，因此可以在并发请求间安全使用.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class RouteMatch {
+    private final RequestMapper mapper;
+    private final Map<String, String> variables;
+
+    private RouteMatch(final RequestMapper mapper, final Map<String, String> variables) {
+        Assert.notNull(mapper, "RequestMapper must not be null");
+        this.mapper = mapper;
+        this.variables = CollectionUtils.isEmpty(variables) ? Collections.emptyMap() : Collections.unmodifiableMap(variables);
+    }
+
+    public static RouteMatch create(final RequestMapper mapper) {
+        return new RouteMatch(mapper, null);
+    }
+
+    public static RouteMatch create(final RequestMapper mapper, final Map<String, String> variables) {
+        return new RouteMatch(mapper, variables);
+    }
+
+    public RequestMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     *
+     * @return 路径参数，不可修改
+     */
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteMatch [mapper=" + mapper.getCls() + '.' + (mapper.getMethod() == null ? null : mapper.getMethod().getName())
+                + ", variables=" + variables + ']';
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nanoframework.commons.util.AntPathMatcher;
+import org.nanoframework.commons.util.AntPathMatcher.AntPathStringMatcher;
+import org.nanoframework.commons.util.AntPathMatcher.AntPatternComparator;
+import org.nanoframework.commons.util.AntPathMatcher.AntPatternComparator.PatternInfo;
+import org.nanoframework.commons.util.StringUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * 路由前缀树，组件加载时将Restful风格的路由按路径段编译为静态段、{var}、{var:regex}、*、**等类型节点.
+ * 查找时按路径深度逐段匹配，匹配结果的优先级与 {@link AntPathMatcher} 的排序规则保持一致.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+class RouteTrie {
+    private static final String SEPARATOR = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+    private static final String WILDCARD_SEGMENT = "*";
+    private static final String DOUBLE_WILDCARD_SEGMENT = "**";
+
+    private Node root = new Node(NodeType.ROOT, null);
+    private int order;
+
+    public void insert(final String pattern) {
+        Node node = root;
+        boolean doubleWildcard = false;
+        for (final String segment : tokenize(pattern)) {
+            node = node.child(segment);
+            doubleWildcard |= node.type == NodeType.DOUBLE_WILDCARD;
+        }
+
+        node.entries.add(new Entry(pattern, order++, doubleWildcard));
+    }
+
+    public void clear() {
+        root = new Node(NodeType.ROOT, null);
+        order = 0;
+    }
+
+    /**
+     * 查找与路径匹配的最优路由.
+     * @param path 请求路径
+     * @return 匹配结果，未匹配时返回null
+     */
+    public Match match(final String path) {
+        final Lookup lookup = new Lookup(path, tokenize(path));
+        collect(root, 0, lookup);
+        final List<Candidate> candidates = lookup.candidates;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        if (candidates.size() == 1) {
+            final Candidate candidate = candidates.get(0);
+            return new Match(candidate.entry.pattern, candidate.variables());
+        }
+
+        final AntPatternComparator comparator = new AntPatternComparator(path);
+        Candidate best = null;
+        for (final Candidate candidate : candidates) {
+            if (best == null) {
+                best = candidate;
+                continue;
+            }
+
+            final int cmp = comparator.compare(candidate.entry.info, best.entry.info);
+            if (cmp < 0 || (cmp == 0 && candidate.entry.order < best.entry.order)) {
+                best = candidate;
+            }
+        }
+
+        final List<Candidate> equivalents = Lists.newArrayListWithCapacity(candidates.size());
+        for (final Candidate candidate : candidates) {
+            if (comparator.compare(candidate.entry.info, best.entry.info) == 0) {
+                equivalents.add(candidate);
+            }
+        }
+
+        if (equivalents.size() > 1) {
+            Collections.sort(equivalents, (before, after) -> Integer.compare(before.entry.order, after.entry.order));
+        }
+
+        final Map<String, String> variables = Maps.newLinkedHashMap();
+        equivalents.forEach(candidate -> variables.putAll(candidate.variables()));
+        return new Match(best.entry.pattern, variables);
+    }
+
+    private void collect(final Node node, final int index, final Lookup lookup) {
+        final String[] tokens = lookup.tokens;
+        if (index == tokens.length) {
+            lookup.accept(node, false);
+            if (lookup.endsWithSeparator && node.wildcard != null) {
+                lookup.accept(node.wildcard, true);
+            }
+
+            if (node.doubleWildcard != null) {
+                collect(node.doubleWildcard, index, lookup);
+            }
+
+            return;
+        }
+
+        final String token = tokens[index];
+        if (node.statics != null) {
+            final Node child = node.statics.get(StringUtils.lowerCase(token));
+            if (child != null) {
+                collect(child, index + 1, lookup);
+            }
+        }
+
+        if (node.variables != null) {
+            for (final Node child : node.variables) {
+                lookup.push(child.name, token);
+                collect(child, index + 1, lookup);
+                lookup.pop(1);
+            }
+        }
+
+        if (node.patterns != null) {
+            for (final Node child : node.patterns) {
+                final Map<String, String> variables = new LinkedHashMap<>();
+                if (child.matcher.matchStrings(child.lowerCase ? StringUtils.lowerCase(token) : token, variables)) {
+                    variables.forEach(lookup::push);
+                    collect(child, index + 1, lookup);
+                    lookup.pop(variables.size());
+                }
+            }
+        }
+
+        if (node.wildcard != null) {
+            collect(node.wildcard, index + 1, lookup);
+        }
+
+        if (node.doubleWildcard != null) {
+            for (int next = index; next <= tokens.length; next++) {
+                collect(node.doubleWildcard, next, lookup);
+            }
+        }
+    }
+
+    private static String[] tokenize(final String path) {
+        return StringUtils.tokenizeToStringArray(path, SEPARATOR, true, true);
+    }
+
+    private enum NodeType {
+        ROOT, STATIC, VARIABLE, PATTERN, WILDCARD, DOUBLE_WILDCARD;
+
+        static NodeType of(final String segment) {
+            if (DOUBLE_WILDCARD_SEGMENT.equals(segment)) {
+                return DOUBLE_WILDCARD;
+            }
+
+            if (WILDCARD_SEGMENT.equals(segment)) {
+                return WILDCARD;
+            }
+
+            if (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1 && segment.indexOf('}') == -1) {
+                return STATIC;
+            }
+
+            if (segment.startsWith("{") && segment.endsWith("}") && segment.indexOf(':') == -1
+                    && segment.indexOf('{', 1) == -1 && segment.indexOf('}') == segment.length() - 1) {
+                return VARIABLE;
+            }
+
+            return PATTERN;
+        }
+    }
+
+    private static class Node {
+        private final NodeType type;
+        private final String name;
+        private final boolean lowerCase;
+        private final AntPathStringMatcher matcher;
+        private final List<Entry> entries = new ArrayList<>(1);
+        private Map<String, Node> statics;
+        private List<Node> variables;
+        private List<Node> patterns;
+        private Node wildcard;
+        private Node doubleWildcard;
+
+        Node(final NodeType type, final String segment) {
+            this.type = type;
+            switch (type) {
+                case VARIABLE:
+                    this.name = segment.substring(1, segment.length() - 1);
+                    this.matcher = null;
+                    break;
+                case PATTERN:
+                    this.name = segment;
+                    this.matcher = new AntPathStringMatcher(segment);
+                    break;
+                default:
+                    this.name = segment;
+                    this.matcher = null;
+                    break;
+            }
+
+            this.lowerCase = segment != null && !segment.startsWith("{") && !segment.endsWith("}");
+        }
+
+        Node child(final String segment) {
+            final NodeType type = NodeType.of(segment);
+            switch (type) {
+                case STATIC:
+                    if (statics == null) {
+                        statics = Maps.newHashMap();
+                    }
+
+                    return statics.computeIfAbsent(segment, key -> new Node(NodeType.STATIC, key));
+                case VARIABLE:
+                    if (variables == null) {
+                        variables = Lists.newArrayList();
+                    }
+
+                    return find(variables, type, segment);
+                case PATTERN:
+                    if (patterns == null) {
+                        patterns = Lists.newArrayList();
+                    }
+
+                    return find(patterns, type, segment);
+                case WILDCARD:
+                    if (wildcard == null) {
+                        wildcard = new Node(type, segment);
+                    }
+
+                    return wildcard;
+                case DOUBLE_WILDCARD:
+                    if (doubleWildcard == null) {
+                        doubleWildcard = new Node(type, segment);
+                    }
+
+                    return doubleWildcard;
+                default:
+                    throw new IllegalArgumentException("Invalid route segment: " + segment);
+            }
+        }
+
+        private Node find(final List<Node> nodes, final NodeType type, final String segment) {
+            final String name = type == NodeType.VARIABLE ? segment.substring(1, segment.length() - 1) : segment;
+            for (final Node node : nodes) {
+                if (node.name.equals(name)) {
+                    return node;
+                }
+            }
+
+            final Node node = new Node(type, segment);
+            nodes.add(node);
+            return node;
+        }
+    }
+
+    private static class Entry {
+        private final String pattern;
+        private final PatternInfo info;
+        private final int order;
+        private final boolean absolute;
+        private final boolean endsWithSeparator;
+        private final boolean doubleWildcard;
+
+        Entry(final String pattern, final int order, final boolean doubleWildcard) {
+            this.pattern = pattern;
+            this.info = new PatternInfo(pattern);
+            // 预先计算路由长度，避免在请求时执行正则替换
+            this.info.getLength();
+            this.order = order;
+            this.absolute = pattern.startsWith(SEPARATOR);
+            this.endsWithSeparator = pattern.endsWith(SEPARATOR);
+            this.doubleWildcard = doubleWildcard;
+        }
+    }
+
+    private static class Lookup {
+        private final String[] tokens;
+        private final boolean absolute;
+        private final boolean endsWithSeparator;
+        private final List<String> stack = new ArrayList<>();
+        private final List<Candidate> candidates = new ArrayList<>(2);
+
+        Lookup(final String path, final String[] tokens) {
+            this.tokens = tokens;
+            this.absolute = path.startsWith(SEPARATOR);
+            this.endsWithSeparator = path.endsWith(SEPARATOR);
+        }
+
+        void push(final String name, final String value) {
+            stack.add(name);
+            stack.add(value);
+        }
+
+        void pop(final int size) {
+            for (int idx = 0; idx < size; idx++) {
+                stack.remove(stack.size() - 1);
+                stack.remove(stack.size() - 1);
+            }
+        }
+
+        /**
+         * 接受节点上的路由，规则与AntPathMatcher.doMatch一致：不含**的路由需要结尾分隔符一致，
+         * 以*结尾的路由在路径以分隔符结尾时也可匹配.
+         */
+        void accept(final Node node, final boolean trailingWildcard) {
+            for (final Entry entry : node.entries) {
+                if (entry.absolute != absolute) {
+                    continue;
+                }
+
+                if (trailingWildcard) {
+                    if (entry.doubleWildcard) {
+                        continue;
+                    }
+                } else if (!entry.doubleWildcard && entry.endsWithSeparator != endsWithSeparator) {
+                    continue;
+                }
+
+                if (!contains(entry)) {
+                    candidates.add(new Candidate(entry, stack.toArray(new String[stack.size()])));
+                }
+            }
+        }
+
+        private boolean contains(final Entry entry) {
+            for (final Candidate candidate : candidates) {
+                if (candidate.entry == entry) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private static class Candidate {
+        private final Entry entry;
+        private final String[] variables;
+
+        Candidate(final Entry entry, final String[] variables) {
+            this.entry = entry;
+            this.variables = variables;
+        }
+
+        Map<String, String> variables() {
+            final Map<String, String> vars = new LinkedHashMap<>(variables.length);
+            for (int idx = 0; idx < variables.length; idx += 2) {
+                vars.put(variables[idx], variables[idx + 1]);
+            }
+
+            return vars;
+        }
+    }
+
+    /**
+     * 路由匹配结果.
+     */
+    public static class Match {
+        private final String pattern;
+        private final Map<String, String> variables;
+
+        Match(final String pattern, final Map<String, String> variables) {
+            this.pattern = pattern;
+            this.variables = variables;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public Map<String, String> getVariables() {
+            return variables;
+        }
+    }
+}
@@ -18,8 +18,6 @@ package org.nanoframework.core.component.stereotype.bind;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,10 +26,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.nanoframework.commons.entity.BaseEntity;
 import org.nanoframework.commons.support.logging.Logger;
 import org.nanoframework.commons.support.logging.LoggerFactory;
-import org.nanoframework.commons.util.AntPathMatcher;
 import org.nanoframework.commons.util.Assert;
 import org.nanoframework.commons.util.CollectionUtils;
-import org.nanoframework.commons.util.PathMatcher;
 import org.nanoframework.core.component.exception.ComponentServiceRepeatException;
 
 import com.google.common.collect.Lists;
@@ -46,7 +42,7 @@ public class Routes {
     private static final Logger LOGGER = LoggerFactory.getLogger(Routes.class);
     private static final Routes INSTANCE = new Routes();
     private final Map<String, Map<RequestMethod, RequestMapper>> mappers = Maps.newLinkedHashMap();
-    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final RouteTrie trie = new RouteTrie();
     private final UrlPathHelper urlPathHelper = new UrlPathHelper();
 
     private Routes() {
@@ -57,64 +53,42 @@ public class Routes {
         return INSTANCE;
     }
 
-    public RequestMapper lookup(final String url, final RequestMethod requestMethod) {
+    /**
+     * 查找路由，每次调用返回新的匹配结果，不会修改已注册的组件映射.
+     * @param url 请求路径
+     * @param requestMethod 请求类型
+     * @return 路由匹配结果，未匹配时返回null
+     */
+    public RouteMatch lookup(final String url, final RequestMethod requestMethod) {
         final Map<RequestMethod, RequestMapper> mappers = this.mappers.get(url);
         if (!CollectionUtils.isEmpty(mappers)) {
             final RequestMapper mapper = mappers.get(requestMethod);
             if (mapper != null) {
-                return mapper;
+                return RouteMatch.create(mapper);
             }
         }
 
-        final List<String> matchingPatterns = Lists.newArrayList();
-        this.mappers.keySet().stream().filter(registeredPattern -> pathMatcher.match(registeredPattern, url))
-                .forEach(registeredPattern -> matchingPatterns.add(registeredPattern));
-
-        final Comparator<String> patternComparator = pathMatcher.getPatternComparator(url);
-        String bestPatternMatch = null;
-        if (!matchingPatterns.isEmpty()) {
-            Collections.sort(matchingPatterns, patternComparator);
-            LOGGER.debug("Matching patterns for request [{}] are {}", url, matchingPatterns);
-            bestPatternMatch = matchingPatterns.get(0);
+        final RouteTrie.Match match = trie.match(url);
+        if (match == null) {
+            return null;
         }
 
-        return lookup(url, requestMethod, bestPatternMatch, matchingPatterns, patternComparator);
+        LOGGER.debug("Best matching pattern for request [{}] is {}", url, match.getPattern());
+        return lookup(requestMethod, match);
     }
-    
-    protected RequestMapper lookup(final String url, final RequestMethod requestMethod, final String bestPatternMatch, 
-            final List<String> matchingPatterns, final Comparator<String> patternComparator) {
-        if (bestPatternMatch != null) {
-            Map<RequestMethod, RequestMapper> mappers = this.mappers.get(bestPatternMatch);
-            if (mappers == null) {
-                if (!bestPatternMatch.endsWith("/")) {
-                    return null;
-                }
-
-                mappers = this.mappers.get(bestPatternMatch.substring(0, bestPatternMatch.length() - 1));
-                if (mappers == null) {
-                    return null;
-                }
-            }
 
-            final RequestMapper mapper = mappers.get(requestMethod);
-            if (mapper == null) {
-                return null;
-            }
-
-            final Map<String, String> uriTemplateVariables = Maps.newLinkedHashMap();
-            for (final String matchingPattern : matchingPatterns) {
-                if (patternComparator.compare(bestPatternMatch, matchingPattern) == 0) {
-                    final Map<String, String> vars = pathMatcher.extractUriTemplateVariables(matchingPattern, url);
-                    final Map<String, String> decodedVars = urlPathHelper.decodePathVariables(vars);
-                    uriTemplateVariables.putAll(decodedVars);
-                }
-            }
+    private RouteMatch lookup(final RequestMethod requestMethod, final RouteTrie.Match match) {
+        final Map<RequestMethod, RequestMapper> mappers = this.mappers.get(match.getPattern());
+        if (mappers == null) {
+            return null;
+        }
 
-            mapper.setParam(uriTemplateVariables);
-            return mapper;
+        final RequestMapper mapper = mappers.get(requestMethod);
+        if (mapper == null) {
+            return null;
         }
-        
-        return null;
+
+        return RouteMatch.create(mapper, urlPathHelper.decodePathVariables(match.getVariables()));
     }
 
     public void register(final String url, final Map<RequestMethod, RequestMapper> mappers) {
@@ -123,7 +97,7 @@ public class Routes {
         }
         
         mappers.keySet().forEach(requestMethod -> {
-            final RequestMapper mapped = lookup(url, requestMethod);
+            final RouteMatch mapped = lookup(url, requestMethod);
             if (mapped != null) {
                 throw new ComponentServiceRepeatException("Duplicate Restful-style URL definition: " + url);
             }
@@ -140,11 +114,13 @@ public class Routes {
             });
         } else {
             this.mappers.put(url, mappers);
+            trie.insert(url);
         }
     }
 
     public void clear() {
         this.mappers.clear();
+        trie.clear();
     }
 
     public Map<String, Map<RequestMethod, RequestMapper>> matchers(final Object instance, final Method[] methods,
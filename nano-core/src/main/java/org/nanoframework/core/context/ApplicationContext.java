@@ -118,6 +118,26 @@ public final class ApplicationContext {
         public static final String SHUTDOWN_TIMEOUT = "context.scheduler.shutdown.timeout";
     }
 
+    /**
+     * Web请求处理属性列表
+     * @author yanghe
+     * @since 1.4.11
+     */
+    public static final class Web {
+        /** 表单请求体最大字节数属性，小于等于0时不限制 */
+        public static final String FORM_MAX_SIZE = "context.web.form.max-size";
+        /** 表单最大参数个数属性，小于等于0时不限制 */
+        public static final String FORM_MAX_KEYS = "context.web.form.max-keys";
+        /** 请求体(ReadStream)最大字节数属性，小于等于0时不限制 */
+        public static final String BODY_MAX_SIZE = "context.web.body.max-size";
+        /** 组件返回CompletionStage时的异步调用超时时间(ms)属性，小于等于0时不超时 */
+        public static final String ASYNC_TIMEOUT = "context.web.async.timeout";
+        /** 组件调用模式属性: platform(容器线程中调用，默认) / virtual(每个请求使用一个虚拟线程调用) */
+        public static final String INVOKE_MODE = "context.web.invoke.mode";
+        /** virtual模式下是否输出虚拟线程被固定(pinned)的调用栈属性 */
+        public static final String INVOKE_TRACE_PINNED = "context.web.invoke.trace-pinned";
+    }
+
     /** WebSocket服务扫描属性 */
     public static final String WEBSOCKET_BASE_PACKAGE = "context.websocket-scan.base-package";
 
@@ -28,6 +28,7 @@ import org.nanoframework.core.component.aop.BeforeAOP;
 import org.nanoframework.core.component.exception.ComponentInvokeException;
 import org.nanoframework.core.component.stereotype.bind.RequestMapper;
 import org.nanoframework.core.component.stereotype.bind.RequestMethod;
+import org.nanoframework.core.component.stereotype.bind.RouteMatch;
 import org.nanoframework.core.component.stereotype.bind.Routes;
 
 import com.alibaba.fastjson.JSON;
@@ -43,7 +44,7 @@ public class ComponentsTest extends PluginLoaderInit {
 
     @Test
     public void componentTest() throws LoaderException, IOException {
-        final RequestMapper mapper = Routes.route().lookup("/v1/test", RequestMethod.GET);
+        final RequestMapper mapper = Routes.route().lookup("/v1/test", RequestMethod.GET).getMapper();
         Assert.assertNotNull(mapper);
         final RequestMethod[] requestMethods = mapper.getRequestMethods();
         final List<RequestMethod> methods = Lists.asList(requestMethods[0], requestMethods);
@@ -60,7 +61,7 @@ public class ComponentsTest extends PluginLoaderInit {
     @Test
     public void reloadTest() throws LoaderException, IOException {
         Components.reload();
-        final RequestMapper mapper = Routes.route().lookup("/v1/reload", RequestMethod.POST);
+        final RequestMapper mapper = Routes.route().lookup("/v1/reload", RequestMethod.POST).getMapper();
         Assert.assertNotNull(mapper);
         final Object reload = Components.invoke(mapper, null);
         Assert.assertEquals(reload, "Reload");
@@ -68,24 +69,25 @@ public class ComponentsTest extends PluginLoaderInit {
 
     @Test
     public void hasParamTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/param/hello", RequestMethod.GET);
-        Assert.assertNotNull(mapper);
-        final Object hasParam = Components.invoke(mapper, MapBuilder.<String, Object> builder().put("param1", "world").build());
+        final RouteMatch match = Routes.route().lookup("/v1/param/hello", RequestMethod.GET);
+        Assert.assertNotNull(match);
+        Assert.assertEquals(match.getVariables().get("param0"), "hello");
+        final Object hasParam = Components.invoke(match, MapBuilder.<String, Object> builder().put("param1", "world").build());
         Assert.assertEquals(hasParam, "hello=world");
     }
 
     @Test
     public void notFoundRouteTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/param/hello", RequestMethod.POST);
-        Assert.assertEquals(mapper, null);
+        final RouteMatch match = Routes.route().lookup("/v1/param/hello", RequestMethod.POST);
+        Assert.assertEquals(match, null);
     }
 
     @Test
     public void emptyParamTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/param/hello", RequestMethod.GET);
-        Assert.assertNotNull(mapper);
+        final RouteMatch match = Routes.route().lookup("/v1/param/hello", RequestMethod.GET);
+        Assert.assertNotNull(match);
         try {
-            Components.invoke(mapper, null);
+            Components.invoke(match, null);
         } catch (final Throwable e) {
             Assert.assertEquals(e instanceof ComponentInvokeException, true);
         }
@@ -93,7 +95,7 @@ public class ComponentsTest extends PluginLoaderInit {
 
     @Test
     public void beforeAopTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/aop/before", RequestMethod.PUT);
+        final RequestMapper mapper = Routes.route().lookup("/v1/aop/before", RequestMethod.PUT).getMapper();
         Assert.assertNotNull(mapper);
         final Object ret = Components.invoke(mapper, MapBuilder.<String, Object> builder().put("param", "before").build());
         Assert.assertEquals(ret, "before");
@@ -103,7 +105,7 @@ public class ComponentsTest extends PluginLoaderInit {
 
     @Test
     public void afterAopTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/aop/after", RequestMethod.PUT);
+        final RequestMapper mapper = Routes.route().lookup("/v1/aop/after", RequestMethod.PUT).getMapper();
         Assert.assertNotNull(mapper);
         Components.invoke(mapper, null);
         Assert.assertEquals(AfterAOP.RESULT, "OK");
@@ -112,7 +114,7 @@ public class ComponentsTest extends PluginLoaderInit {
 
     @Test
     public void afterAopErrorTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/aop/after/error", RequestMethod.PUT);
+        final RequestMapper mapper = Routes.route().lookup("/v1/aop/after/error", RequestMethod.PUT).getMapper();
         Assert.assertNotNull(mapper);
         try {
             Components.invoke(mapper, null);
@@ -127,7 +129,7 @@ public class ComponentsTest extends PluginLoaderInit {
 
     @Test
     public void arrayTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/array", RequestMethod.PUT);
+        final RequestMapper mapper = Routes.route().lookup("/v1/array", RequestMethod.PUT).getMapper();
         final String[] array = { "1", "2", "3" };
         Object value = Components.invoke(mapper, MapBuilder.<String, Object> builder().put("ARRAY[]", array).build());
         Assert.assertNotNull(value);
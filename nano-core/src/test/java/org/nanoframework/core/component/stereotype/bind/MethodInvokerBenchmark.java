@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.nanoframework.core.component.Components;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.Maps;
+
+/**
+ * 组件调用性能对比：注解查找+反射调用与预编译参数绑定+MethodHandle调用.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodInvokerBenchmark {
+    @Param({ "0", "3", "10" })
+    private int parameters;
+
+    private final Handler handler = new Handler();
+    private final Map<String, Object> params = Maps.newHashMap();
+    private Method method;
+    private MethodInvoker invoker;
+
+    @Setup
+    public void setup() {
+        for (final Method method : Handler.class.getMethods()) {
+            if (method.getName().equals("handle" + parameters)) {
+                this.method = method;
+            }
+        }
+
+        invoker = MethodInvoker.create(method);
+        for (int idx = 0; idx < 10; idx++) {
+            params.put("p" + idx, String.valueOf(idx));
+        }
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return method.invoke(handler, Components.bindParam(method, params));
+    }
+
+    @Benchmark
+    public Object methodInvoker() throws Exception {
+        return invoker.invoke(handler, invoker.bind(params));
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MethodInvokerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    public static class Handler {
+        public Object handle0() {
+            return Boolean.TRUE;
+        }
+
+        public Object handle3(@RequestParam("p0") final String p0, @RequestParam("p1") final Integer p1, @RequestParam("p2") final Long p2) {
+            return p0;
+        }
+
+        public Object handle10(@RequestParam("p0") final String p0, @RequestParam("p1") final Integer p1, @RequestParam("p2") final Long p2,
+                @RequestParam("p3") final String p3, @RequestParam("p4") final Integer p4, @RequestParam("p5") final Long p5,
+                @RequestParam("p6") final String p6, @RequestParam("p7") final Integer p7, @RequestParam("p8") final Long p8,
+                @RequestParam("p9") final Boolean p9) {
+            return p0;
+        }
+    }
+}
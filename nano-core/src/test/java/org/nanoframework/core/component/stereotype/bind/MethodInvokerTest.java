@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.commons.util.MapBuilder;
+import org.nanoframework.core.component.Components;
+import org.nanoframework.core.component.exception.BindRequestParamException;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class MethodInvokerTest {
+
+    @Test
+    public void bindAndInvokeTest() throws Exception {
+        final Method method = Handler.class.getMethod("handle", String.class, Integer.class, Long.class, StringBuilder.class);
+        final MethodInvoker invoker = MethodInvoker.create(method);
+        Assert.assertEquals(invoker.getParameterCount(), 4);
+
+        final Map<String, Object> params = MapBuilder.<String, Object> builder().put("NAME", "nano").put("id", "10").build();
+        final StringBuilder builder = new StringBuilder("ctx");
+        final Object[] args = invoker.bind(params, new Object(), builder);
+        Assert.assertArrayEquals(Components.bindParam(method, params, new Object(), builder), args);
+        Assert.assertEquals(invoker.invoke(new Handler(), args), "nano:10:100:ctx");
+    }
+
+    @Test
+    public void requiredTest() {
+        final MethodInvoker invoker = MethodInvoker.create(findMethod("handle"));
+        try {
+            invoker.bind(MapBuilder.<String, Object> builder().put("name", "").build(), new StringBuilder());
+            Assert.fail();
+        } catch (final BindRequestParamException e) {
+            Assert.assertTrue(e.getMessage().contains("name"));
+        }
+    }
+
+    @Test
+    public void castErrorTest() {
+        final MethodInvoker invoker = MethodInvoker.create(findMethod("handle"));
+        try {
+            invoker.bind(MapBuilder.<String, Object> builder().put("name", "nano").put("id", "abc").build(), new StringBuilder());
+            Assert.fail();
+        } catch (final BindRequestParamException e) {
+            Assert.assertTrue(e.getMessage().contains(Integer.class.getName()));
+        }
+    }
+
+    @Test
+    public void noParameterTest() throws Exception {
+        final MethodInvoker invoker = MethodInvoker.create(findMethod("none"));
+        Assert.assertEquals(invoker.invoke(new Handler(), invoker.bind(null)), "none");
+    }
+
+    @Test
+    public void errorTest() throws Exception {
+        final MethodInvoker invoker = MethodInvoker.create(findMethod("error"));
+        try {
+            invoker.invoke(new Handler(), invoker.bind(null));
+            Assert.fail();
+        } catch (final InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof AssertionError);
+        }
+    }
+
+    private Method findMethod(final String name) {
+        for (final Method method : Handler.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+
+        throw new IllegalArgumentException(name);
+    }
+
+    public static class Handler {
+        public String handle(@RequestParam("name") final String name, @PathVariable("id") final Integer id,
+                @RequestParam(value = "size", required = false, defaultValue = "100") final Long size, final StringBuilder builder) {
+            return name + ':' + id + ':' + size + ':' + builder;
+        }
+
+        public String none() {
+            return "none";
+        }
+
+        public void error() {
+            throw new AssertionError("error");
+        }
+    }
+}
@@ -28,13 +28,13 @@ public class RequestMapperTest extends PluginLoaderInit {
 
     @Test
     public void hasMapperTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/test", RequestMethod.GET);
+        final RequestMapper mapper = Routes.route().lookup("/v1/test", RequestMethod.GET).getMapper();
         Assert.assertEquals(mapper.hasMethod(RequestMethod.POST), true);
     }
     
     @Test
     public void requestMethodStrsTest() {
-        final RequestMapper mapper = Routes.route().lookup("/v1/test", RequestMethod.GET);
+        final RequestMapper mapper = Routes.route().lookup("/v1/test", RequestMethod.GET).getMapper();
         final String[] methods = mapper.getRequestMethodStrs();
         Assert.assertEquals(methods.length, 2);
         Assert.assertEquals(methods[0], RequestMethod.GET.name());
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.util.AntPathMatcher;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class RouteTrieTest {
+    private static final List<String> PATTERNS = Lists.newArrayList(
+            "/v1/users",
+            "/v1/users/{id}",
+            "/v1/users/{id:\\d+}",
+            "/v1/users/{id}/orders",
+            "/v1/users/{id}/orders/{orderid}",
+            "/v1/users/admin/orders/{orderid}",
+            "/v1/{module}/{id}/orders",
+            "/v1/files/*",
+            "/v1/files/*.json",
+            "/v1/files/{name}.xml",
+            "/v1/static/**",
+            "/v1/static/**/index",
+            "/v1/**/health",
+            "/v1/trailing/{id}/",
+            "/**");
+
+    private static final List<String> PATHS = Lists.newArrayList(
+            "/v1/users",
+            "/V1/Users",
+            "/v1/users/",
+            "/v1/users/123",
+            "/v1/users/abc",
+            "/v1/users/123/orders",
+            "/v1/users/admin/orders",
+            "/v1/users/admin/orders/9",
+            "/v1/users/Admin/orders/9",
+            "/v1/goods/1/orders",
+            "/v1/files/a.txt",
+            "/v1/files/a.json",
+            "/v1/files/A.JSON",
+            "/v1/files/a.xml",
+            "/v1/files/",
+            "/v1/files",
+            "/v1/static",
+            "/v1/static/css/app.css",
+            "/v1/static/a/b/index",
+            "/v1/static/index",
+            "/v1/x/y/health",
+            "/v1/health",
+            "/v1/trailing/1/",
+            "/v1/trailing/1",
+            "/other/path",
+            "relative/path");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final RouteTrie trie = new RouteTrie();
+
+    @Before
+    public void init() {
+        PATTERNS.forEach(trie::insert);
+    }
+
+    @Test
+    public void consistentWithAntPathMatcherTest() {
+        for (final String path : PATHS) {
+            final RouteTrie.Match match = trie.match(path);
+            final List<String> matchingPatterns = PATTERNS.stream().filter(pattern -> pathMatcher.match(pattern, path))
+                    .collect(Collectors.toList());
+            if (matchingPatterns.isEmpty()) {
+                Assert.assertNull(path, match);
+                continue;
+            }
+
+            final Comparator<String> comparator = pathMatcher.getPatternComparator(path);
+            Collections.sort(matchingPatterns, comparator);
+            final String bestPattern = matchingPatterns.get(0);
+            final Map<String, String> variables = Maps.newLinkedHashMap();
+            matchingPatterns.stream().filter(pattern -> comparator.compare(bestPattern, pattern) == 0)
+                    .forEach(pattern -> variables.putAll(pathMatcher.extractUriTemplateVariables(pattern, path)));
+
+            Assert.assertNotNull(path, match);
+            Assert.assertEquals(path, bestPattern, match.getPattern());
+            Assert.assertEquals(path, variables, match.getVariables());
+        }
+    }
+
+    @Test
+    public void clearTest() {
+        trie.clear();
+        Assert.assertNull(trie.match("/v1/users/123"));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.core.component.stereotype.bind;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.nanoframework.commons.util.AntPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * 路由查找性能对比：AntPathMatcher线性扫描排序与路由前缀树.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutesBenchmark {
+    @Param({ "100", "800" })
+    private int routes;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> patterns = Lists.newArrayList();
+    private final RouteTrie trie = new RouteTrie();
+    private String path;
+
+    @Setup
+    public void setup() {
+        for (int idx = 0; idx < routes; idx++) {
+            final String module = "module" + (idx % 20);
+            final String resource = "resource" + idx;
+            patterns.add("/v1/" + module + '/' + resource + "/{id}");
+            patterns.add("/v1/" + module + '/' + resource + "/{id:\\d+}/items/{item}");
+        }
+
+        patterns.forEach(trie::insert);
+        path = "/v1/module7/resource" + (routes - 13) + "/12345/items/67";
+    }
+
+    @Benchmark
+    public Map<String, String> antPathMatcher() {
+        final List<String> matchingPatterns = Lists.newArrayList();
+        patterns.stream().filter(pattern -> pathMatcher.match(pattern, path)).forEach(matchingPatterns::add);
+        final Comparator<String> comparator = pathMatcher.getPatternComparator(path);
+        Collections.sort(matchingPatterns, comparator);
+        final String bestPattern = matchingPatterns.get(0);
+        final Map<String, String> variables = Maps.newLinkedHashMap();
+        for (final String pattern : matchingPatterns) {
+            if (comparator.compare(bestPattern, pattern) == 0) {
+                variables.putAll(pathMatcher.extractUriTemplateVariables(pattern, path));
+            }
+        }
+
+        return variables;
+    }
+
+    @Benchmark
+    public Map<String, String> routeTrie() {
+        return trie.match(path).getVariables();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RoutesBenchmark.class.getSimpleName()).build()).run();
+    }
+}
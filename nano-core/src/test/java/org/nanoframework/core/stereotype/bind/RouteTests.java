@@ -17,12 +17,14 @@ package org.nanoframework.core.stereotype.bind;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.Map;
 
 import org.junit.Test;
 import org.nanoframework.core.component.stereotype.bind.RequestMapper;
 import org.nanoframework.core.component.stereotype.bind.RequestMethod;
+import org.nanoframework.core.component.stereotype.bind.RouteMatch;
 import org.nanoframework.core.component.stereotype.bind.Routes;
 import org.nanoframework.core.context.ApplicationContext;
 
@@ -45,8 +47,14 @@ public class RouteTests {
         Routes.route().register("/jetty/test/{hello}/put", mapper);
         Routes.route().register("/jetty/test/{hello}/put/{id}", mapper);
         Routes.route().register("/jetty/test/hello/put/{id:\\d+}/", mapper);
-        RequestMapper rm = Routes.route().lookup("/jetty/test/hello/put/123", RequestMethod.GET);
-        assertNotNull(rm);
-        assertEquals("123", rm.getParam().get("id"));
+        RouteMatch match = Routes.route().lookup("/jetty/test/hello/put/123", RequestMethod.GET);
+        assertNotNull(match);
+        assertEquals("123", match.getVariables().get("id"));
+        assertEquals("hello", match.getVariables().get("hello"));
+
+        RouteMatch other = Routes.route().lookup("/jetty/test/world/put/456", RequestMethod.GET);
+        assertSame(match.getMapper(), other.getMapper());
+        assertEquals("123", match.getVariables().get("id"));
+        assertEquals("456", other.getVariables().get("id"));
     }
 }
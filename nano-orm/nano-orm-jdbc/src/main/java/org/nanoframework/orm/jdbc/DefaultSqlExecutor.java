@@ -19,6 +19,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 
+import org.nanoframework.orm.jdbc.cursor.RowHandler;
 import org.nanoframework.orm.jdbc.jstl.Result;
 
 /**
@@ -37,6 +38,8 @@ public interface DefaultSqlExecutor {
     
     Result executeQuery(String sql, List<Object> values, Connection conn) throws SQLException;
     
+    int executeQuery(String sql, List<Object> values, int fetchSize, RowHandler handler, Connection conn) throws SQLException;
+    
     int executeUpdate(String sql, List<Object> values, Connection conn) throws SQLException;
     
     int[] executeBatchUpdate(String sql, List<List<Object>> batchValues, Connection conn) throws SQLException;
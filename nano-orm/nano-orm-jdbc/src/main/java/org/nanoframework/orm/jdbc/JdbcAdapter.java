@@ -24,21 +24,36 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.lang3.StringUtils;
 import org.nanoframework.commons.support.logging.Logger;
 import org.nanoframework.commons.support.logging.LoggerFactory;
 import org.nanoframework.commons.util.Assert;
 import org.nanoframework.commons.util.CollectionUtils;
 import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.binding.StatementOptions;
 import org.nanoframework.orm.jdbc.config.JdbcConfig;
+import org.nanoframework.orm.jdbc.cursor.Cursor;
+import org.nanoframework.orm.jdbc.cursor.ResultSetCursor;
+import org.nanoframework.orm.jdbc.cursor.RowHandler;
+import org.nanoframework.orm.jdbc.cursor.RowMapper;
 import org.nanoframework.orm.jdbc.jstl.Result;
 import org.nanoframework.orm.jdbc.jstl.ResultSupport;
 import org.nanoframework.orm.jdbc.pool.C3P0Pool;
 import org.nanoframework.orm.jdbc.pool.DruidPool;
 import org.nanoframework.orm.jdbc.pool.Pool;
+import org.nanoframework.orm.jdbc.pool.PoolMetrics;
 import org.nanoframework.orm.jdbc.pool.TomcatJdbcPool;
+import org.nanoframework.orm.jdbc.record.cache.EntityCache;
+import org.nanoframework.orm.jdbc.routing.ReplicaRouter;
+import org.nanoframework.orm.jdbc.routing.RoutingStrategy;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
@@ -50,10 +65,39 @@ import com.alibaba.fastjson.serializer.SerializerFeature;
  * @since 1.3.6
  */
 public class JdbcAdapter implements DefaultSqlExecutor {
+    /** 流式查询默认每次从数据库读取的行数. */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    /** 当前线程没有设置 {@link StatementOptions} 时使用的超时时间(秒). */
+    public static final int DEFAULT_QUERY_TIMEOUT = 60;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcAdapter.class);
     private static final Object LOCK = new Object();
     private static final AtomicBoolean INIT = new AtomicBoolean(false);
     private static JdbcAdapter INSTANCE;
+
+    /** 按参数类型缓存的参数设置方法，规则与类型判断顺序与1.4.11之前的instanceof判断一致. */
+    private static final ClassValue<ValueBinder> BINDERS = new ClassValue<ValueBinder>() {
+        @Override
+        protected ValueBinder computeValue(final Class<?> type) {
+            if (Integer.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setInt(idx, (Integer) value);
+            } else if (Long.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setLong(idx, (Long) value);
+            } else if (String.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setString(idx, (String) value);
+            } else if (Double.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setDouble(idx, (Double) value);
+            } else if (Float.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setFloat(idx, (Float) value);
+            } else if (Timestamp.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setTimestamp(idx, (Timestamp) value);
+            } else if (java.util.Date.class.isAssignableFrom(type)) {
+                return (pstmt, idx, value) -> pstmt.setDate(idx, new Date(((java.util.Date) value).getTime()));
+            }
+
+            return PreparedStatement::setObject;
+        }
+    };
     
     /**
      * 
@@ -63,6 +107,7 @@ public class JdbcAdapter implements DefaultSqlExecutor {
     public static JdbcAdapter ADAPTER;
     
     private Pool pool;
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
 
     private JdbcAdapter(final Collection<JdbcConfig> configs, final PoolType poolType) throws PropertyVetoException, SQLException {
         Assert.notNull(poolType);
@@ -84,9 +129,40 @@ public class JdbcAdapter implements DefaultSqlExecutor {
                 throw new DataSourceException("无效的PoolType");
         }
 
+        routeReplicas(configs);
         INIT.set(true);
     }
 
+    /**
+     * 将设置了JDBC.replica.of的数据源注册为主库的读副本.
+     */
+    private void routeReplicas(final Collection<JdbcConfig> configs) {
+        final Map<String, JdbcConfig> primaries = new HashMap<>();
+        configs.forEach(config -> primaries.put(config.getEnvironmentId(), config));
+        for (final JdbcConfig config : configs) {
+            final String primaryId = config.getReplicaOf();
+            if (StringUtils.isBlank(primaryId)) {
+                continue;
+            }
+
+            final JdbcConfig primary = primaries.get(primaryId);
+            if (primary == null || StringUtils.isNotBlank(primary.getReplicaOf())) {
+                throw new DataSourceException("读副本[ " + config.getEnvironmentId() + " ]的主库数据源[ " + primaryId + " ]不存在或不是主库");
+            }
+
+            final JdbcManager manager = GlobalJdbcManager.get(primaryId);
+            ReplicaRouter router = manager.getReplicaRouter();
+            if (router == null) {
+                router = new ReplicaRouter(RoutingStrategy.of(primary.getReplicaStrategy()), primary.getReplicaEjectionFailures(),
+                        primary.getReplicaEjectionMillis());
+                manager.setReplicaRouter(router);
+            }
+
+            router.add(config.getEnvironmentId(), pool.getPool(config.getEnvironmentId()), config.getReplicaWeight());
+            LOGGER.info("Route reads of [ {} ] to replica [ {} ], weight: {}", primaryId, config.getEnvironmentId(), config.getReplicaWeight());
+        }
+    }
+
     protected static final JdbcAdapter newInstance(final Collection<JdbcConfig> configs, final PoolType poolType, final Object obj) {
         try {
             Assert.notNull(obj);
@@ -112,7 +188,7 @@ public class JdbcAdapter implements DefaultSqlExecutor {
 
     public Connection getConnection(final String dataSource) throws SQLException {
         try {
-            return pool.getPool(dataSource).getConnection();
+            return PoolMetrics.connect(dataSource, pool.getPool(dataSource));
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
@@ -120,6 +196,16 @@ public class JdbcAdapter implements DefaultSqlExecutor {
         return null;
     }
 
+    /**
+     * 
+     * @param dataSource 数据源名称
+     * @return 连接池统计，数据源不存在时返回null
+     * @since 1.4.11
+     */
+    public PoolMetrics getPoolMetrics(final String dataSource) {
+        return pool.getMetrics(dataSource);
+    }
+
     public void commit(final Connection conn) throws SQLException {
         Assert.notNull(conn);
         if (isTxInit(conn)) {
@@ -154,14 +240,74 @@ public class JdbcAdapter implements DefaultSqlExecutor {
     public final PreparedStatement getPreparedStmtForBatch(final Connection conn, final String sql, final List<List<Object>> batchValues) throws SQLException {
         Assert.notNull(conn);
         final PreparedStatement pstmt = conn.prepareStatement(sql);
+        addBatch(pstmt, batchValues);
+        return pstmt;
+    }
+
+    private void addBatch(final PreparedStatement pstmt, final List<List<Object>> batchValues) throws SQLException {
         if (batchValues != null && batchValues.size() > 0) {
             for (List<Object> values : batchValues) {
                 setValues(pstmt, values);
                 pstmt.addBatch();
             }
         }
+    }
 
-        return pstmt;
+    /**
+     * 为Session的连接开启PreparedStatement缓存，Session内重复执行相同的SQL时不再重新创建PreparedStatement.
+     * 
+     * @param conn Session的连接
+     * @since 1.4.11
+     */
+    public void enableStatementCache(final Connection conn) {
+        Assert.notNull(conn);
+        statementCaches.putIfAbsent(conn, new StatementCache(conn));
+    }
+
+    /**
+     * 关闭连接缓存的所有PreparedStatement，需要在释放连接前调用.
+     * 
+     * @param conn Session的连接
+     * @since 1.4.11
+     */
+    public void disableStatementCache(final Connection conn) {
+        if (conn != null) {
+            final StatementCache cache = statementCaches.remove(conn);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param conn 连接
+     * @return 连接已缓存的PreparedStatement数量，未开启缓存时返回-1
+     * @since 1.4.11
+     */
+    public int cachedStatementSize(final Connection conn) {
+        final StatementCache cache = statementCaches.get(conn);
+        return cache == null ? -1 : cache.size();
+    }
+
+    private PreparedStatement prepareStatement(final Connection conn, final String sql) throws SQLException {
+        final StatementCache cache = statementCaches.get(conn);
+        if (cache != null) {
+            return cache.prepare(sql);
+        }
+
+        return conn.prepareStatement(sql);
+    }
+
+    private boolean isCached(final Connection conn, final String sql, final PreparedStatement pstmt) {
+        final StatementCache cache = statementCaches.get(conn);
+        return cache != null && cache.contains(sql, pstmt);
+    }
+
+    private void release(final Connection conn, final String sql, final PreparedStatement pstmt) {
+        if (!isCached(conn, sql, pstmt)) {
+            close(pstmt);
+        }
     }
 
     public Result executeQuery(final String sql, final Connection conn) throws SQLException {
@@ -173,9 +319,8 @@ public class JdbcAdapter implements DefaultSqlExecutor {
 
         try {
             stmt = getStatement(conn);
-            stmt.setQueryTimeout(60);
+            configure(stmt, true);
             rs = stmt.executeQuery(sql);
-            rs.setFetchSize(rs.getRow());
             result = ResultSupport.toResult(rs);
         } finally {
             close(rs, stmt);
@@ -194,7 +339,7 @@ public class JdbcAdapter implements DefaultSqlExecutor {
         Statement stmt = null;
         try {
             stmt = getStatement(conn);
-            stmt.setQueryTimeout(60);
+            configure(stmt, false);
             result = stmt.executeUpdate(sql);
         } finally {
             close(stmt);
@@ -213,13 +358,14 @@ public class JdbcAdapter implements DefaultSqlExecutor {
         ResultSet rs = null;
         PreparedStatement pstmt = null;
         try {
-            pstmt = getPreparedStmt(conn, sql, values);
-            pstmt.setQueryTimeout(60);
+            pstmt = prepareStatement(conn, sql);
+            setValues(pstmt, values);
+            configure(pstmt, true);
             rs = pstmt.executeQuery();
-            rs.setFetchSize(rs.getRow());
             result = ResultSupport.toResult(rs);
         } finally {
-            close(rs, pstmt);
+            close(rs);
+            release(conn, sql, pstmt);
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("[ Execute Query SQL ]: {} [cost {}ms ]", sql, System.currentTimeMillis() - start);
                 LOGGER.debug("[ Execute Parameter ]: {}", JSON.toJSONString(values, SerializerFeature.WriteDateUseDateFormat));
@@ -229,17 +375,105 @@ public class JdbcAdapter implements DefaultSqlExecutor {
         return result;
     }
 
+    /**
+     * 流式查询，逐行处理结果集，不缓存查询结果.
+     * 不同驱动对fetchSize的处理不同，如MySQL需要设置为Integer.MIN_VALUE或在连接参数中开启useCursorFetch，
+     * PostgreSQL需要在非自动提交的事务中执行.
+     * 
+     * @param sql SQL
+     * @param values 参数
+     * @param fetchSize 每次从数据库读取的行数
+     * @param handler 行处理
+     * @param conn 连接
+     * @return 处理的行数
+     * @throws SQLException 查询异常
+     */
+    @Override
+    public int executeQuery(final String sql, final List<Object> values, final int fetchSize, final RowHandler handler, final Connection conn)
+            throws SQLException {
+        Assert.notNull(conn);
+        Assert.notNull(handler);
+        final long start = System.currentTimeMillis();
+        int rows = 0;
+        ResultSet rs = null;
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = getPreparedStmtForCursor(conn, sql, values, fetchSize);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                handler.handle(rs);
+                rows++;
+            }
+        } finally {
+            close(rs, pstmt);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("[ Execute Query SQL ]: {} [cost {}ms, rows {} ]", sql, System.currentTimeMillis() - start, rows);
+                LOGGER.debug("[ Execute Parameter ]: {}", JSON.toJSONString(values, SerializerFeature.WriteDateUseDateFormat));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * 游标查询，返回的游标在读取时逐行映射结果，使用完毕后必须关闭.
+     * 
+     * @param <T> 行映射结果类型
+     * @param sql SQL
+     * @param values 参数
+     * @param fetchSize 每次从数据库读取的行数
+     * @param mapper 行映射
+     * @param conn 连接，游标关闭前不能关闭
+     * @param closeHandler 游标关闭后的处理，如释放连接，可为null
+     * @return 游标
+     * @throws SQLException 查询异常
+     */
+    public <T> Cursor<T> executeCursor(final String sql, final List<Object> values, final int fetchSize, final RowMapper<T> mapper,
+            final Connection conn, final Runnable closeHandler) throws SQLException {
+        Assert.notNull(conn);
+        Assert.notNull(mapper);
+        final long start = System.currentTimeMillis();
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = getPreparedStmtForCursor(conn, sql, values, fetchSize);
+            return new ResultSetCursor<>(pstmt, pstmt.executeQuery(), mapper, closeHandler);
+        } catch (final SQLException | RuntimeException e) {
+            close(pstmt);
+            throw e;
+        } finally {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("[ Execute Cursor SQL ]: {} [cost {}ms ]", sql, System.currentTimeMillis() - start);
+                LOGGER.debug("[ Execute Parameter ]: {}", JSON.toJSONString(values, SerializerFeature.WriteDateUseDateFormat));
+            }
+        }
+    }
+
+    private PreparedStatement getPreparedStmtForCursor(final Connection conn, final String sql, final List<Object> values, final int fetchSize)
+            throws SQLException {
+        final PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            setValues(pstmt, values);
+            configure(pstmt, true);
+            setFetchSize(pstmt, fetchSize);
+            return pstmt;
+        } catch (final SQLException | RuntimeException e) {
+            close(pstmt);
+            throw e;
+        }
+    }
+
     public int executeUpdate(final String sql, final List<Object> values, final Connection conn) throws SQLException {
         Assert.notNull(conn);
         long start = System.currentTimeMillis();
         PreparedStatement pstmt = null;
 
         try {
-            pstmt = getPreparedStmt(conn, sql, values);
-            pstmt.setQueryTimeout(60);
+            pstmt = prepareStatement(conn, sql);
+            setValues(pstmt, values);
+            configure(pstmt, false);
             return pstmt.executeUpdate();
         } finally {
-            close(pstmt);
+            release(conn, sql, pstmt);
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("[ Execute Update/Insert SQL ]: {} [cost {}ms ]", sql, System.currentTimeMillis() - start);
                 LOGGER.debug("[ Execute Parameter ]: {}", JSON.toJSONString(values, SerializerFeature.WriteDateUseDateFormat));
@@ -257,11 +491,17 @@ public class JdbcAdapter implements DefaultSqlExecutor {
         final long start = System.currentTimeMillis();
         PreparedStatement pstmt = null;
         try {
-            pstmt = getPreparedStmtForBatch(conn, sql, batchValues);
-            pstmt.setQueryTimeout(60);
+            pstmt = prepareStatement(conn, sql);
+            addBatch(pstmt, batchValues);
+            configure(pstmt, false);
             return pstmt.executeBatch();
         } finally {
-            close(pstmt);
+            if (isCached(conn, sql, pstmt)) {
+                pstmt.clearBatch();
+            } else {
+                close(pstmt);
+            }
+
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("[ Execute Update/Insert SQL ] : {} [cost {}ms ]", sql, System.currentTimeMillis() - start);
                 LOGGER.debug("[ Execute Parameter ]: {}", JSON.toJSONString(batchValues, SerializerFeature.WriteDateUseDateFormat));
@@ -286,29 +526,51 @@ public class JdbcAdapter implements DefaultSqlExecutor {
         }
     }
 
+    /**
+     * 按当前线程的 {@link StatementOptions} 设置超时时间，查询语句同时设置fetchSize及最大行数.
+     * 复用的PreparedStatement每次执行前重新设置，未设置最大行数时恢复为不限制.
+     */
+    private void configure(final Statement stmt, final boolean query) throws SQLException {
+        final StatementOptions options = StatementOptions.current();
+        if (options == null) {
+            stmt.setQueryTimeout(DEFAULT_QUERY_TIMEOUT);
+            if (query) {
+                stmt.setMaxRows(0);
+            }
+
+            return;
+        }
+
+        final Integer queryTimeout = options.getQueryTimeout();
+        stmt.setQueryTimeout(queryTimeout == null ? DEFAULT_QUERY_TIMEOUT : queryTimeout);
+        if (query) {
+            final Integer maxRows = options.getMaxRows();
+            stmt.setMaxRows(maxRows == null ? 0 : maxRows);
+            if (options.getFetchSize() != null) {
+                setFetchSize(stmt, options.getFetchSize());
+            }
+        }
+    }
+
+    /**
+     * JDBC规范要求fetchSize不能大于限制的最大行数.
+     */
+    private void setFetchSize(final Statement stmt, final int fetchSize) throws SQLException {
+        final int maxRows = stmt.getMaxRows();
+        stmt.setFetchSize(maxRows > 0 && fetchSize > maxRows ? maxRows : fetchSize);
+    }
+
     private void setValues(final PreparedStatement pstmt, final List<Object> values) throws SQLException {
         if (CollectionUtils.isEmpty(values)) {
             return;
         }
 
-        for (int i = 0; i < values.size(); i++) {
-            if (values.get(i) instanceof Integer) {
-                pstmt.setInt(i + 1, (Integer) values.get(i));
-            } else if (values.get(i) instanceof Long) {
-                pstmt.setLong(i + 1, (Long) values.get(i));
-            } else if (values.get(i) instanceof String) {
-                pstmt.setString(i + 1, (String) values.get(i));
-            } else if (values.get(i) instanceof Double) {
-                pstmt.setDouble(i + 1, (Double) values.get(i));
-            } else if (values.get(i) instanceof Float) {
-                pstmt.setFloat(i + 1, (Float) values.get(i));
-            } else if (values.get(i) instanceof Timestamp) {
-                pstmt.setTimestamp(i + 1, (Timestamp) values.get(i));
-            } else if (values.get(i) instanceof java.util.Date) {
-                java.util.Date tempDate = (java.util.Date) values.get(i);
-                pstmt.setDate(i + 1, new Date(tempDate.getTime()));
+        for (int idx = 0, size = values.size(); idx < size; idx++) {
+            final Object value = values.get(idx);
+            if (value == null) {
+                pstmt.setObject(idx + 1, null);
             } else {
-                pstmt.setObject(i + 1, values.get(i));
+                BINDERS.get(value.getClass()).bind(pstmt, idx + 1, value);
             }
         }
     }
@@ -328,6 +590,7 @@ public class JdbcAdapter implements DefaultSqlExecutor {
                             ((PreparedStatement) obj).close();
                             obj = null;
                         } else if (obj instanceof Connection) {
+                            PoolMetrics.released((Connection) obj);
                             ((Connection) obj).close();
                             obj = null;
                         }
@@ -340,11 +603,21 @@ public class JdbcAdapter implements DefaultSqlExecutor {
     }
 
     public void shutdown() {
+        statementCaches.values().forEach(StatementCache::clear);
+        statementCaches.clear();
         pool.closeAndClear();
         pool = null;
+        EntityCache.clearAll();
         INIT.set(false);
         INSTANCE = null;
         ADAPTER = null;
     }
 
+    /**
+     * PreparedStatement参数设置.
+     */
+    @FunctionalInterface
+    private interface ValueBinder {
+        void bind(PreparedStatement pstmt, int idx, Object value) throws SQLException;
+    }
 }
@@ -30,6 +30,8 @@ import org.nanoframework.core.plugins.Module;
 import org.nanoframework.orm.PoolType;
 import org.nanoframework.orm.jdbc.binding.JdbcTransactional;
 import org.nanoframework.orm.jdbc.binding.JdbcTransactionalMethodInterceptor;
+import org.nanoframework.orm.jdbc.binding.QueryOptions;
+import org.nanoframework.orm.jdbc.binding.QueryOptionsMethodInterceptor;
 import org.nanoframework.orm.jdbc.config.JdbcConfig;
 
 import com.google.common.collect.Lists;
@@ -61,6 +63,11 @@ public class JdbcModule extends AbstractModule implements Module {
         bindInterceptor(any(), annotatedElement, interceptor);
         bindInterceptor(annotatedElement, not(annotatedElement), interceptor);
 
+        final QueryOptionsMethodInterceptor optionsInterceptor = new QueryOptionsMethodInterceptor();
+        final Matcher<AnnotatedElement> optionsElement = annotatedWith(QueryOptions.class);
+        bindInterceptor(any(), optionsElement, optionsInterceptor);
+        bindInterceptor(optionsElement, not(optionsElement), optionsInterceptor);
+
     }
 
     @Override
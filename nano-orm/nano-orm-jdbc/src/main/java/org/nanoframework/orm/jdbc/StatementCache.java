@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+
+/**
+ * 连接级PreparedStatement缓存，仅在Session(JdbcManager.startManagedSession)中启用.
+ * Session的连接只由当前线程使用，缓存不做同步处理. 超出容量时按LRU关闭最久未使用的Statement.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+class StatementCache {
+    /** 每个连接缓存的PreparedStatement数量上限. */
+    static final int MAX_SIZE = 64;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection conn;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75F, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > MAX_SIZE) {
+                close(eldest.getValue());
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    StatementCache(final Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     *
+     * @param sql SQL
+     * @return 已缓存的PreparedStatement，不存在时创建并缓存
+     * @throws SQLException 创建PreparedStatement异常
+     */
+    PreparedStatement prepare(final String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = conn.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        } else {
+            pstmt.clearParameters();
+        }
+
+        return pstmt;
+    }
+
+    boolean contains(final String sql, final PreparedStatement pstmt) {
+        return pstmt != null && statements.get(sql) == pstmt;
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    void clear() {
+        statements.values().forEach(this::close);
+        statements.clear();
+    }
+
+    private void close(final PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (final SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.binding;
+
+import java.util.List;
+
+/**
+ * SQL执行监听，每次通过JdbcManager执行SQL后回调，可用于统计执行耗时.
+ * 回调在执行SQL的线程中同步调用，实现需要轻量且不能抛出异常.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@FunctionalInterface
+public interface ExecutionListener {
+
+    /**
+     *
+     * @param envId 数据源名称
+     * @param operation 操作类型
+     * @param sql SQL
+     * @param elapsedNanos 执行耗时(纳秒)，包含获取及释放连接
+     * @param error 执行异常，执行成功时为null
+     */
+    void executed(String envId, Operation operation, String sql, long elapsedNanos, Throwable error);
+
+    /**
+     * JdbcManager调用此方法，默认忽略参数及行数.
+     *
+     * @param envId 数据源名称
+     * @param operation 操作类型
+     * @param sql SQL
+     * @param values 参数，批量更新时为每批参数的列表，可为null
+     * @param rows 查询或更新的行数，未知(如游标查询)或执行失败时为-1
+     * @param elapsedNanos 执行耗时(纳秒)，包含获取及释放连接
+     * @param error 执行异常，执行成功时为null
+     */
+    default void executed(final String envId, final Operation operation, final String sql, final List<?> values, final long rows,
+            final long elapsedNanos, final Throwable error) {
+        executed(envId, operation, sql, elapsedNanos, error);
+    }
+
+    /**
+     * SQL操作类型.
+     */
+    enum Operation {
+        /** 查询. */
+        QUERY(false),
+        /** 游标查询，耗时不包含读取游标. */
+        CURSOR(false),
+        /** 更新/插入/删除. */
+        UPDATE(true),
+        /** 批量更新. */
+        BATCH(true),
+        /** 执行任意SQL. */
+        EXECUTE(true);
+
+        private final boolean write;
+
+        Operation(final boolean write) {
+            this.write = write;
+        }
+
+        /**
+         *
+         * @return 是否为写操作，未开启Session时写操作执行后提交事务，读操作不提交
+         */
+        public boolean isWrite() {
+            return write;
+        }
+    }
+}
@@ -17,21 +17,32 @@ package org.nanoframework.orm.jdbc.binding;
 
 import static org.nanoframework.orm.jdbc.JdbcAdapter.adapter;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.sql.DataSource;
 
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
 import org.nanoframework.commons.util.Assert;
 import org.nanoframework.orm.jdbc.DataSourceException;
-import org.nanoframework.orm.jdbc.DefaultSqlExecutor;
+import org.nanoframework.orm.jdbc.JdbcAdapter;
+import org.nanoframework.orm.jdbc.binding.ExecutionListener.Operation;
 import org.nanoframework.orm.jdbc.config.JdbcConfig;
+import org.nanoframework.orm.jdbc.cursor.Cursor;
+import org.nanoframework.orm.jdbc.cursor.RowHandler;
+import org.nanoframework.orm.jdbc.cursor.RowMapper;
 import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.metrics.JdbcMetrics;
+import org.nanoframework.orm.jdbc.pool.PoolMetrics;
+import org.nanoframework.orm.jdbc.routing.Replica;
+import org.nanoframework.orm.jdbc.routing.ReplicaRouter;
+
+import com.google.common.collect.Maps;
 
 /**
  * 
@@ -39,18 +50,24 @@ import org.nanoframework.orm.jdbc.jstl.Result;
  * @since 1.2
  */
 public class JdbcManager implements SqlExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcManager.class);
 
     private final DataSource dataSource;
     private final String envId;
-    private final DefaultSqlExecutor sqlExecutorProxy;
+    private final StatementOptions options;
+    private final List<ExecutionListener> listeners = new CopyOnWriteArrayList<>();
 
     private final ThreadLocal<Connection> localConnection = new ThreadLocal<Connection>();
+    private final ThreadLocal<Map<Object, Runnable>> localCloseActions = new ThreadLocal<>();
+    private volatile ReplicaRouter replicaRouter;
 
     private JdbcManager(final JdbcConfig config, final DataSource dataSource) {
         this.dataSource = dataSource;
         this.envId = config.getEnvironmentId();
-        this.sqlExecutorProxy = (DefaultSqlExecutor) Proxy.newProxyInstance(JdbcManager.class.getClassLoader(),
-                new Class[] { DefaultSqlExecutor.class }, new SqlExecutorInterceptor());
+        this.options = StatementOptions.of(config);
+        if (JdbcMetrics.isEnabled()) {
+            listeners.add(JdbcMetrics.instance());
+        }
     }
     
     public static JdbcManager newInstance(final JdbcConfig config, final DataSource dataSource) {
@@ -58,13 +75,16 @@ public class JdbcManager implements SqlExecutor {
     }
 
     public void startManagedSession() throws SQLException {
-        this.localConnection.set(dataSource.getConnection());
+        final Connection conn = PoolMetrics.connect(envId, dataSource);
+        adapter().enableStatementCache(conn);
+        this.localConnection.set(conn);
     }
 
     public void startManagedSession(final boolean autoCommit) throws SQLException {
         final Connection conn;
-        Assert.notNull(conn = dataSource.getConnection());
+        Assert.notNull(conn = PoolMetrics.connect(envId, dataSource));
         conn.setAutoCommit(autoCommit);
+        adapter().enableStatementCache(conn);
         this.localConnection.set(conn);
     }
 
@@ -93,77 +113,347 @@ public class JdbcManager implements SqlExecutor {
 
     @Override
     public void close() {
+        final Connection conn = this.localConnection.get();
         try {
-            adapter().close(this.localConnection.get());
+            adapter().disableStatementCache(conn);
+            adapter().close(conn);
         } finally {
             this.localConnection.set(null);
+            runCloseActions();
+        }
+    }
+
+    /**
+     * 当前线程的Session关闭(已提交或回滚)后执行，同一key在一个Session中只保留最后注册的操作.
+     * 未开启Session时不注册.
+     * 
+     * @param key 操作标识
+     * @param action 操作
+     * @return 已开启Session并注册时返回true
+     * @since 1.4.11
+     */
+    public boolean afterSessionClose(final Object key, final Runnable action) {
+        if (!isManagedSessionStarted()) {
+            return false;
+        }
+
+        Map<Object, Runnable> actions = localCloseActions.get();
+        if (actions == null) {
+            localCloseActions.set(actions = Maps.newLinkedHashMap());
+        }
+
+        actions.put(key, action);
+        return true;
+    }
+
+    private void runCloseActions() {
+        final Map<Object, Runnable> actions = localCloseActions.get();
+        if (actions == null) {
+            return;
         }
+
+        localCloseActions.remove();
+        actions.values().forEach(action -> {
+            try {
+                action.run();
+            } catch (final Throwable e) {
+                LOGGER.error("Run session close action failure: {}", e.getMessage());
+            }
+        });
     }
 
     @Override
     public Result executeQuery(final String sql) throws SQLException {
-        return sqlExecutorProxy.executeQuery(sql, this.localConnection.get());
+        return execute(Operation.QUERY, sql, null, conn -> adapter().executeQuery(sql, conn));
     }
 
     @Override
     public int executeUpdate(final String sql) throws SQLException {
-        return sqlExecutorProxy.executeUpdate(sql, this.localConnection.get());
+        return execute(Operation.UPDATE, sql, null, conn -> adapter().executeUpdate(sql, conn));
     }
 
     @Override
     public Result executeQuery(final String sql, final List<Object> values) throws SQLException {
-        return sqlExecutorProxy.executeQuery(sql, values, this.localConnection.get());
+        return execute(Operation.QUERY, sql, values, conn -> adapter().executeQuery(sql, values, conn));
+    }
+
+    @Override
+    public int executeQuery(final String sql, final List<Object> values, final RowHandler handler) throws SQLException {
+        return executeQuery(sql, values, fetchSize(), handler);
+    }
+
+    @Override
+    public int executeQuery(final String sql, final List<Object> values, final int fetchSize, final RowHandler handler) throws SQLException {
+        return execute(Operation.QUERY, sql, values, conn -> adapter().executeQuery(sql, values, fetchSize, handler, conn));
+    }
+
+    @Override
+    public <T> Cursor<T> executeCursor(final String sql, final List<Object> values, final RowMapper<T> mapper) throws SQLException {
+        return executeCursor(sql, values, fetchSize(), mapper);
+    }
+
+    /**
+     * 游标查询，未开启Session时游标独占一个连接，关闭游标时释放连接.
+     */
+    @Override
+    public <T> Cursor<T> executeCursor(final String sql, final List<Object> values, final int fetchSize, final RowMapper<T> mapper)
+            throws SQLException {
+        final boolean timed = !listeners.isEmpty();
+        final long start = timed ? System.nanoTime() : 0L;
+        Throwable error = null;
+        final Connection conn = this.localConnection.get();
+        try (final StatementOptions.Scope scope = options().open()) {
+            if (conn != null) {
+                return adapter().executeCursor(sql, values, fetchSize, mapper, conn, null);
+            }
+
+            final Lease lease = lease(Operation.CURSOR);
+            try {
+                return adapter().executeCursor(sql, values, fetchSize, mapper, lease.conn, () -> release(lease, false));
+            } catch (final Throwable e) {
+                release(lease, false);
+                throw e;
+            }
+        } catch (final Throwable e) {
+            error = e;
+            timeout(sql, e);
+            throw e;
+        } finally {
+            if (timed) {
+                fire(Operation.CURSOR, sql, values, -1, System.nanoTime() - start, error);
+            }
+        }
     }
 
     @Override
     public int executeUpdate(final String sql, final List<Object> values) throws SQLException {
-        return sqlExecutorProxy.executeUpdate(sql, values, this.localConnection.get());
+        return execute(Operation.UPDATE, sql, values, conn -> adapter().executeUpdate(sql, values, conn));
     }
 
     @Override
     public int[] executeBatchUpdate(final String sql, final List<List<Object>> batchValues) throws SQLException {
-        return sqlExecutorProxy.executeBatchUpdate(sql, batchValues, this.localConnection.get());
+        return execute(Operation.BATCH, sql, batchValues, conn -> adapter().executeBatchUpdate(sql, batchValues, conn));
     }
     
     @Override
-    public boolean execute(String sql) throws SQLException {
-        return sqlExecutorProxy.execute(sql, this.localConnection.get());
+    public boolean execute(final String sql) throws SQLException {
+        return execute(Operation.EXECUTE, sql, null, conn -> adapter().execute(sql, conn));
     }
 
-    public DataSource getDataSource() {
-        return dataSource;
+    /**
+     * 在Session的连接中执行，未开启Session时获取新的连接，执行后释放.
+     * 未开启Session时写操作在非自动提交的连接上执行成功后提交、失败后回滚；读操作不提交，非自动提交的连接在释放前回滚以结束只读事务.
+     * 设置了读副本时未开启Session的读操作在读副本上执行，Session(包括JdbcTransactional)中的所有操作均在主库上执行.
+     */
+    private <R> R execute(final Operation operation, final String sql, final List<?> values, final ConnectionCallback<R> callback)
+            throws SQLException {
+        final boolean timed = !listeners.isEmpty();
+        final long start = timed ? System.nanoTime() : 0L;
+        Throwable error = null;
+        R result = null;
+        try (final StatementOptions.Scope scope = options().open()) {
+            final Connection conn = this.localConnection.get();
+            if (conn != null) {
+                result = callback.apply(conn);
+                return result;
+            }
+
+            final Lease lease = lease(operation);
+            boolean success = false;
+            try {
+                result = callback.apply(lease.conn);
+                success = true;
+                return result;
+            } finally {
+                release(lease, success && operation.isWrite());
+            }
+        } catch (final Throwable e) {
+            error = e;
+            timeout(sql, e);
+            throw e;
+        } finally {
+            if (timed) {
+                fire(operation, sql, values, error == null ? rows(result) : -1, System.nanoTime() - start, error);
+            }
+        }
     }
 
-    private class SqlExecutorInterceptor implements InvocationHandler {
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-            final Connection conn = JdbcManager.this.localConnection.get();
-            if (conn != null) {
-                return method.invoke(adapter(), args);
-            } else {
-                final Connection newConn = adapter().getConnection(JdbcManager.this.envId);
-                try {
-                    final Parameter[] parameters = method.getParameters();
-                    int idx = 0;
-                    for (final Parameter param : parameters) {
-                        if (param.getType() == Connection.class) {
-                            args[idx] = newConn;
-                            break;
-                        }
-
-                        idx++;
-                    }
-
-                    final Object result = method.invoke(adapter(), args);
-                    adapter().commit(newConn);
-                    return result;
-                } catch (final Throwable t) {
-                    adapter().rollback(newConn);
-                    throw t;
-                } finally {
-                    adapter().close(newConn);
+    /**
+     * 
+     * @return 查询结果的行数或更新的行数，无法获取时返回-1
+     */
+    private long rows(final Object result) {
+        if (result instanceof Result) {
+            return ((Result) result).getRowCount();
+        } else if (result instanceof Integer) {
+            return (Integer) result;
+        } else if (result instanceof int[]) {
+            long rows = 0;
+            for (final int count : (int[]) result) {
+                if (count > 0) {
+                    rows += count;
+                }
+            }
+
+            return rows;
+        }
+
+        return -1;
+    }
+
+    /**
+     * 读操作优先从读副本获取连接，没有可用的读副本或读副本获取连接失败时使用主库连接.
+     */
+    private Lease lease(final Operation operation) throws SQLException {
+        final ReplicaRouter router = this.replicaRouter;
+        if (router != null && !operation.isWrite()) {
+            final Replica replica = router.select();
+            if (replica != null) {
+                final Connection conn = replica.connect();
+                if (conn != null) {
+                    return new Lease(conn, replica);
                 }
             }
         }
+
+        return new Lease(acquire(), null);
+    }
+
+    private void release(final Lease lease, final boolean commit) {
+        try {
+            release(lease.conn, commit);
+        } finally {
+            if (lease.replica != null) {
+                lease.replica.release();
+            }
+        }
+    }
+
+    /**
+     * 
+     * @return 当前线程的选项，未设置的值使用数据源的默认值
+     */
+    private StatementOptions options() {
+        final StatementOptions current = StatementOptions.current();
+        return current == null ? options : current.merge(options);
+    }
+
+    private int fetchSize() {
+        final Integer fetchSize = options().getFetchSize();
+        return fetchSize == null ? JdbcAdapter.DEFAULT_FETCH_SIZE : fetchSize;
+    }
+
+    /**
+     * 超时的Statement已由驱动取消，未开启Session时连接随后回滚并释放.
+     * 部分驱动不抛出SQLTimeoutException，通过SQLState判断: HYT00(超时)、57014(取消).
+     */
+    private void timeout(final String sql, final Throwable e) {
+        if (e instanceof SQLTimeoutException
+                || (e instanceof SQLException && ("HYT00".equals(((SQLException) e).getSQLState()) || "57014".equals(((SQLException) e).getSQLState())))) {
+            LOGGER.warn("[ {} ] Statement cancelled after {}s: {}", this.envId, options().getQueryTimeout(), sql);
+        }
+    }
+
+    private Connection acquire() throws SQLException {
+        final Connection conn = adapter().getConnection(this.envId);
+        if (conn == null) {
+            throw new DataSourceException("无法获取数据源[ " + this.envId + " ]的连接");
+        }
+
+        return conn;
+    }
+
+    /**
+     * 
+     * @param conn 连接
+     * @param commit true时提交非自动提交连接的事务，false时回滚
+     */
+    private void release(final Connection conn, final boolean commit) {
+        try {
+            if (!conn.getAutoCommit()) {
+                if (commit) {
+                    conn.commit();
+                } else {
+                    conn.rollback();
+                }
+            }
+        } catch (final SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+        } finally {
+            adapter().close(conn);
+        }
+    }
+
+    private void fire(final Operation operation, final String sql, final List<?> values, final long rows, final long elapsedNanos,
+            final Throwable error) {
+        for (final ExecutionListener listener : listeners) {
+            try {
+                listener.executed(this.envId, operation, sql, values, rows, elapsedNanos, error);
+            } catch (final Throwable e) {
+                LOGGER.warn("Execution listener error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param listener SQL执行监听
+     * @since 1.4.11
+     */
+    public void addExecutionListener(final ExecutionListener listener) {
+        Assert.notNull(listener);
+        listeners.add(listener);
+    }
+
+    public void removeExecutionListener(final ExecutionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 
+     * @param replicaRouter 读副本路由，为null时所有操作均在主库上执行
+     * @since 1.4.11
+     */
+    public void setReplicaRouter(final ReplicaRouter replicaRouter) {
+        this.replicaRouter = replicaRouter;
+    }
+
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
     }
 
+    /**
+     * 
+     * @return 数据源的默认Statement选项
+     * @since 1.4.11
+     */
+    public StatementOptions getStatementOptions() {
+        return options;
+    }
+
+    public String getEnvId() {
+        return envId;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionCallback<R> {
+        R apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * 未开启Session时获取的连接及连接所属的读副本，主库连接的读副本为null.
+     */
+    private static final class Lease {
+        private final Connection conn;
+        private final Replica replica;
+
+        private Lease(final Connection conn, final Replica replica) {
+            this.conn = conn;
+            this.replica = replica;
+        }
+    }
 }
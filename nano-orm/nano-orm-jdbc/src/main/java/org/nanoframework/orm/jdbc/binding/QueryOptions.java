@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.binding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 方法内执行的SQL使用的Statement选项，小于0的属性使用外层或数据源的默认值.
+ * 用于Guice管理的组件方法时通过 {@link QueryOptionsMethodInterceptor} 生效，用于JdbcRecord子类时对该Record的所有操作生效.
+ * 
+ * @author yanghe
+ * @since 1.4.11
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface QueryOptions {
+
+    /**
+     * 
+     * @return 超时时间(秒)，0为不限制
+     */
+    int timeout() default -1;
+
+    /**
+     * 
+     * @return 每次从数据库读取的行数
+     */
+    int fetchSize() default -1;
+
+    /**
+     * 
+     * @return 查询返回的最大行数，0为不限制
+     */
+    int maxRows() default -1;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.binding;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * 
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class QueryOptionsMethodInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(final MethodInvocation invocation) throws Throwable {
+        final QueryOptions options = options(invocation);
+        if (options == null) {
+            return invocation.proceed();
+        }
+
+        try (final StatementOptions.Scope scope = StatementOptions.of(options).open()) {
+            return invocation.proceed();
+        }
+    }
+
+    /**
+     * 优先使用方法上的注解，其次从实例类型(跳过Guice生成的子类)向上查找类上的注解，方法可能继承自未注解的父类.
+     */
+    private QueryOptions options(final MethodInvocation invocation) {
+        final Method method = invocation.getMethod();
+        final QueryOptions options = method.getAnnotation(QueryOptions.class);
+        if (options != null) {
+            return options;
+        }
+
+        final Object instance = invocation.getThis();
+        Class<?> cls = instance == null ? method.getDeclaringClass() : instance.getClass();
+        while (cls != null && cls != Object.class) {
+            final QueryOptions annotated = cls.getAnnotation(QueryOptions.class);
+            if (annotated != null) {
+                return annotated;
+            }
+
+            cls = cls.getSuperclass();
+        }
+
+        return null;
+    }
+}
@@ -19,6 +19,9 @@ import java.io.Closeable;
 import java.sql.SQLException;
 import java.util.List;
 
+import org.nanoframework.orm.jdbc.cursor.Cursor;
+import org.nanoframework.orm.jdbc.cursor.RowHandler;
+import org.nanoframework.orm.jdbc.cursor.RowMapper;
 import org.nanoframework.orm.jdbc.jstl.Result;
 
 /**
@@ -37,6 +40,14 @@ interface SqlExecutor extends Closeable {
 	
 	Result executeQuery(String sql, List<Object> values) throws SQLException;
 	
+	int executeQuery(String sql, List<Object> values, RowHandler handler) throws SQLException;
+	
+	int executeQuery(String sql, List<Object> values, int fetchSize, RowHandler handler) throws SQLException;
+	
+	<T> Cursor<T> executeCursor(String sql, List<Object> values, RowMapper<T> mapper) throws SQLException;
+	
+	<T> Cursor<T> executeCursor(String sql, List<Object> values, int fetchSize, RowMapper<T> mapper) throws SQLException;
+	
 	int executeUpdate(String sql, List<Object> values) throws SQLException;
 	
 	int[] executeBatchUpdate(String sql, List<List<Object>> batchValues) throws SQLException;
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.binding;
+
+import org.nanoframework.orm.jdbc.config.JdbcConfig;
+
+/**
+ * Statement执行选项: 超时时间、fetchSize及最大行数，为null的选项使用外层或数据源的默认值.
+ * 通过 {@link #open()} 在当前线程中生效，JdbcAdapter创建或复用Statement时读取当前线程的选项.
+ *
+ * <pre>
+ * try (final StatementOptions.Scope scope = StatementOptions.of(5, null, 100).open()) {
+ *     manager.executeQuery(sql, values);
+ * }
+ * </pre>
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class StatementOptions {
+    private static final ThreadLocal<StatementOptions> CURRENT = new ThreadLocal<>();
+
+    /** 超时时间(秒)，0为不限制. */
+    private final Integer queryTimeout;
+    /** 每次从数据库读取的行数. */
+    private final Integer fetchSize;
+    /** 查询返回的最大行数，0为不限制. */
+    private final Integer maxRows;
+
+    private StatementOptions(final Integer queryTimeout, final Integer fetchSize, final Integer maxRows) {
+        this.queryTimeout = queryTimeout;
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     *
+     * @param queryTimeout 超时时间(秒)，0为不限制，null时使用默认值
+     * @param fetchSize 每次从数据库读取的行数，null时使用默认值
+     * @param maxRows 查询返回的最大行数，0为不限制，null时使用默认值
+     * @return StatementOptions
+     */
+    public static StatementOptions of(final Integer queryTimeout, final Integer fetchSize, final Integer maxRows) {
+        return new StatementOptions(queryTimeout, fetchSize, maxRows);
+    }
+
+    /**
+     *
+     * @param config 数据源配置
+     * @return 数据源的默认选项
+     */
+    public static StatementOptions of(final JdbcConfig config) {
+        return new StatementOptions(config.getDefaultStatementTimeout(), config.getDefaultFetchSize(), config.getDefaultMaxRows());
+    }
+
+    /**
+     *
+     * @param options 注解，小于0的属性视为未设置
+     * @return StatementOptions
+     */
+    public static StatementOptions of(final QueryOptions options) {
+        return new StatementOptions(valueOf(options.timeout()), valueOf(options.fetchSize()), valueOf(options.maxRows()));
+    }
+
+    private static Integer valueOf(final int value) {
+        return value < 0 ? null : value;
+    }
+
+    /**
+     *
+     * @return 当前线程生效的选项，没有时返回null
+     */
+    public static StatementOptions current() {
+        return CURRENT.get();
+    }
+
+    /**
+     *
+     * @param defaults 默认选项，可为null
+     * @return 当前选项中为null的值使用默认选项的值
+     */
+    public StatementOptions merge(final StatementOptions defaults) {
+        if (defaults == null) {
+            return this;
+        }
+
+        return new StatementOptions(queryTimeout == null ? defaults.queryTimeout : queryTimeout, fetchSize == null ? defaults.fetchSize : fetchSize,
+                maxRows == null ? defaults.maxRows : maxRows);
+    }
+
+    /**
+     * 在当前线程中生效，与外层选项合并，关闭Scope后恢复外层选项.
+     *
+     * @return Scope
+     */
+    public Scope open() {
+        final StatementOptions previous = CURRENT.get();
+        CURRENT.set(merge(previous));
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public Integer getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    public Integer getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * 选项的生效范围.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -55,10 +55,38 @@ public abstract class JdbcConfig extends BaseEntity {
 	@Property("JDBC.autoCommit")
 	private Boolean autoCommit;
 	
-	/** Statement执行超时时间, Default: 30 */
+	/** Statement执行超时时间(秒)，0为不限制, Default: 30 */
 	@Property("JDBC.defaultStatementTimeout")
 	private Integer defaultStatementTimeout = 30;
 	
+	/** 查询每次从数据库读取的行数，未设置时使用驱动的默认值，流式查询及游标查询未设置时使用1000 */
+	@Property("JDBC.defaultFetchSize")
+	private Integer defaultFetchSize;
+	
+	/** 查询返回的最大行数，0为不限制, Default: 0 */
+	@Property("JDBC.defaultMaxRows")
+	private Integer defaultMaxRows = 0;
+	
+	/** 所属主库的数据源名称，设置后此数据源作为主库的读副本，未开启Session的读操作在读副本上执行 */
+	@Property("JDBC.replica.of")
+	private String replicaOf;
+	
+	/** 读副本权重, Default: 1 */
+	@Property("JDBC.replica.weight")
+	private Integer replicaWeight = 1;
+	
+	/** 主库的读副本选择策略: least-outstanding, weighted-round-robin, Default: least-outstanding */
+	@Property("JDBC.replica.strategy")
+	private String replicaStrategy;
+	
+	/** 读副本连续获取连接失败次数达到此值后摘除, Default: 3 */
+	@Property("JDBC.replica.ejection.failures")
+	private Integer replicaEjectionFailures = 3;
+	
+	/** 读副本摘除时长(毫秒), Default: 30000 */
+	@Property("JDBC.replica.ejection.millis")
+	private Long replicaEjectionMillis = 30000L;
+	
 	protected void setProperties(final Properties properties) {
 		if(!CollectionUtils.isEmpty(fields)) {
 		    final Collection<Field> fields = this.fields.values();
@@ -132,4 +160,60 @@ public abstract class JdbcConfig extends BaseEntity {
 		this.defaultStatementTimeout = defaultStatementTimeout;
 	}
 
+	public Integer getDefaultFetchSize() {
+		return defaultFetchSize;
+	}
+
+	public void setDefaultFetchSize(Integer defaultFetchSize) {
+		this.defaultFetchSize = defaultFetchSize;
+	}
+
+	public Integer getDefaultMaxRows() {
+		return defaultMaxRows;
+	}
+
+	public void setDefaultMaxRows(Integer defaultMaxRows) {
+		this.defaultMaxRows = defaultMaxRows;
+	}
+
+	public String getReplicaOf() {
+		return replicaOf;
+	}
+
+	public void setReplicaOf(String replicaOf) {
+		this.replicaOf = replicaOf;
+	}
+
+	public Integer getReplicaWeight() {
+		return replicaWeight;
+	}
+
+	public void setReplicaWeight(Integer replicaWeight) {
+		this.replicaWeight = replicaWeight;
+	}
+
+	public String getReplicaStrategy() {
+		return replicaStrategy;
+	}
+
+	public void setReplicaStrategy(String replicaStrategy) {
+		this.replicaStrategy = replicaStrategy;
+	}
+
+	public Integer getReplicaEjectionFailures() {
+		return replicaEjectionFailures;
+	}
+
+	public void setReplicaEjectionFailures(Integer replicaEjectionFailures) {
+		this.replicaEjectionFailures = replicaEjectionFailures;
+	}
+
+	public Long getReplicaEjectionMillis() {
+		return replicaEjectionMillis;
+	}
+
+	public void setReplicaEjectionMillis(Long replicaEjectionMillis) {
+		this.replicaEjectionMillis = replicaEjectionMillis;
+	}
+
 }
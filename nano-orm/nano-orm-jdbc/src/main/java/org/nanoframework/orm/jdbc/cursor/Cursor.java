@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.cursor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 查询游标，按需从数据库读取并映射每一行，内存占用与结果集大小无关.
+ * 游标持有Statement与ResultSet(可能还持有Connection)，使用完毕后必须关闭，建议配合try-with-resources使用.
+ * 读取到最后一行后游标自动关闭.
+ *
+ * <pre>
+ * try (final Cursor&lt;User&gt; cursor = manager.executeCursor(sql, values, mapper)) {
+ *     cursor.forEachRemaining(user -&gt; ...);
+ * }
+ * </pre>
+ *
+ * @author yanghe
+ * @since 1.4.11
+ * @param <T> 行映射结果类型
+ */
+public interface Cursor<T> extends Iterator<T>, Closeable {
+
+    /**
+     *
+     * @return 已读取的行数
+     */
+    int getRowNumber();
+
+    boolean isClosed();
+
+    @Override
+    void close();
+
+    /**
+     * 以顺序流的方式读取游标，关闭流时同时关闭游标.
+     *
+     * @return Stream
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(this::close);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.cursor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.NoSuchElementException;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jdbc.DataSourceException;
+
+/**
+ * 基于ResultSet的游标实现.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ * @param <T> 行映射结果类型
+ */
+public class ResultSetCursor<T> implements Cursor<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultSetCursor.class);
+
+    private final Statement stmt;
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+    private final Runnable closeHandler;
+
+    private int rowNumber;
+    private boolean fetched;
+    private boolean hasNext;
+    private boolean closed;
+
+    /**
+     *
+     * @param stmt 游标关闭时关闭的Statement
+     * @param rs 结果集
+     * @param mapper 行映射
+     * @param closeHandler 关闭Statement后的处理，如释放连接，可为null
+     */
+    public ResultSetCursor(final Statement stmt, final ResultSet rs, final RowMapper<T> mapper, final Runnable closeHandler) {
+        this.stmt = stmt;
+        this.rs = rs;
+        this.mapper = mapper;
+        this.closeHandler = closeHandler;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        if (!fetched) {
+            try {
+                hasNext = rs.next();
+                fetched = true;
+            } catch (final SQLException e) {
+                close();
+                throw new DataSourceException(e.getMessage(), e);
+            }
+
+            if (!hasNext) {
+                close();
+            }
+        }
+
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        fetched = false;
+        try {
+            return mapper.map(rs, ++rowNumber);
+        } catch (final SQLException e) {
+            close();
+            throw new DataSourceException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        hasNext = false;
+        try {
+            rs.close();
+        } catch (final SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+
+        try {
+            stmt.close();
+        } catch (final SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+        } finally {
+            if (closeHandler != null) {
+                closeHandler.run();
+            }
+        }
+    }
+}
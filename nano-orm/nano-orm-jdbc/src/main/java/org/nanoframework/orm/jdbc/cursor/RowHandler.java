@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.cursor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 逐行处理查询结果，处理过程中不缓存结果集.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     *
+     * @param rs 已定位到当前行的结果集，不应在处理过程中移动游标或关闭结果集
+     * @throws SQLException 读取结果集异常
+     */
+    void handle(ResultSet rs) throws SQLException;
+}
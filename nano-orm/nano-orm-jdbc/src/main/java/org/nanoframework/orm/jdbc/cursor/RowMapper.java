@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.cursor;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.nanoframework.orm.jdbc.jstl.Result;
+
+/**
+ * 将结果集的当前行映射为对象.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ * @param <T> 映射结果类型
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     *
+     * @param rs 已定位到当前行的结果集
+     * @param rowNum 行号，从1开始
+     * @return 映射结果
+     * @throws SQLException 读取结果集异常
+     */
+    T map(ResultSet rs, int rowNum) throws SQLException;
+
+    /**
+     * 将当前行映射为列名(及列别名)与列值的Map，与 {@link Result#getRows()} 中每行的结构一致.
+     *
+     * @return RowMapper
+     */
+    static RowMapper<Map<String, Object>> columnMap() {
+        return (rs, rowNum) -> {
+            final ResultSetMetaData metaData = rs.getMetaData();
+            final int columnCount = metaData.getColumnCount();
+            final Map<String, Object> row = Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER ? new TreeMap<>(String.CASE_INSENSITIVE_ORDER) : new TreeMap<>();
+            for (int idx = 1; idx <= columnCount; idx++) {
+                final Object value = rs.getObject(idx);
+                final String name = metaData.getColumnName(idx);
+                final String label = metaData.getColumnLabel(idx);
+                row.put(name, value);
+                if (!label.equals(name)) {
+                    row.put(label, value);
+                }
+            }
+
+            return row;
+        };
+    }
+}
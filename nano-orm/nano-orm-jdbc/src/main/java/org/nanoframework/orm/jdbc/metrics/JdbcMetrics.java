@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jdbc.binding.ExecutionListener;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.collect.Lists;
+
+/**
+ * SQL执行统计，按数据源及归一化的SQL统计执行次数、失败次数、行数及耗时分布，并记录慢查询日志.
+ * 默认作为ExecutionListener注册到所有JdbcManager，通过JMX暴露: {@value JdbcMetricsMXBean#OBJECT_NAME}.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcMetrics implements ExecutionListener, JdbcMetricsMXBean {
+    /** 是否开启SQL执行统计, Default: true. */
+    public static final String ENABLED = "context.jdbc.metrics.enabled";
+    /** 慢查询阈值(毫秒)，执行耗时不小于此值时记录慢查询日志, Default: 1000. */
+    public static final String SLOW_QUERY_MILLIS = "context.jdbc.metrics.slow-query-millis";
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 1000;
+    /** 每个数据源最多统计的SQL数量，超出后的SQL合并统计为 {@link #OTHER_SQL}. */
+    public static final int MAX_STATEMENTS = 1024;
+    public static final String OTHER_SQL = "[other]";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcMetrics.class);
+    private static volatile JdbcMetrics INSTANCE;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, StatementMetrics>> metrics = new ConcurrentHashMap<>();
+    private final LongAdder slowQueries = new LongAdder();
+    private volatile long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(System.getProperty(SLOW_QUERY_MILLIS, String.valueOf(DEFAULT_SLOW_QUERY_MILLIS))));
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED, "true"));
+    }
+
+    /**
+     *
+     * @return 全局实例，首次获取时注册MXBean
+     */
+    public static JdbcMetrics instance() {
+        if (INSTANCE == null) {
+            synchronized (JdbcMetrics.class) {
+                if (INSTANCE == null) {
+                    final JdbcMetrics metrics = new JdbcMetrics();
+                    register(metrics);
+                    INSTANCE = metrics;
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+
+    private static void register(final JdbcMetrics metrics) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (final Throwable e) {
+            LOGGER.warn("Register MXBean [ {} ] failure: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    @Override
+    public void executed(final String envId, final Operation operation, final String sql, final long elapsedNanos, final Throwable error) {
+        executed(envId, operation, sql, null, -1, elapsedNanos, error);
+    }
+
+    @Override
+    public void executed(final String envId, final Operation operation, final String sql, final List<?> values, final long rows,
+            final long elapsedNanos, final Throwable error) {
+        statement(envId, sql).record(rows, elapsedNanos, error != null);
+        if (elapsedNanos >= slowQueryNanos) {
+            slowQueries.increment();
+            LOGGER.warn("[ Slow SQL ] [ {} ] {} [cost {}ms, rows {} ]: {}, Parameter: {}", envId, operation, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    rows, sql, JSON.toJSONString(values, SerializerFeature.WriteDateUseDateFormat));
+        }
+    }
+
+    /**
+     *
+     * @param envId 数据源名称
+     * @param sql SQL
+     * @return 归一化SQL的统计
+     */
+    public StatementMetrics statement(final String envId, final String sql) {
+        ConcurrentMap<String, StatementMetrics> statements = metrics.get(envId);
+        if (statements == null) {
+            statements = metrics.computeIfAbsent(envId, key -> new ConcurrentHashMap<>());
+        }
+
+        final String normalized = SqlNormalizer.normalize(sql);
+        final StatementMetrics statement = statements.get(normalized);
+        if (statement != null) {
+            return statement;
+        }
+
+        final String key = statements.size() < MAX_STATEMENTS ? normalized : OTHER_SQL;
+        return statements.computeIfAbsent(key, k -> new StatementMetrics(envId, k));
+    }
+
+    @Override
+    public List<StatementSnapshot> getStatements() {
+        final List<StatementSnapshot> snapshots = Lists.newArrayList();
+        metrics.values().forEach(statements -> statements.values().forEach(statement -> snapshots.add(statement.snapshot())));
+        snapshots.sort(Comparator.comparingLong((final StatementSnapshot snapshot) -> snapshot.getMean() * snapshot.getCount()).reversed());
+        return snapshots;
+    }
+
+    @Override
+    public int getStatementSize() {
+        int size = 0;
+        for (final ConcurrentMap<String, StatementMetrics> statements : metrics.values()) {
+            size += statements.size();
+        }
+
+        return size;
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    @Override
+    public long getSlowQueryMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryNanos);
+    }
+
+    @Override
+    public void setSlowQueryMillis(final long slowQueryMillis) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    @Override
+    public String dumpJson() {
+        return JSON.toJSONString(getStatements());
+    }
+
+    @Override
+    public void reset() {
+        metrics.clear();
+        slowQueries.reset();
+    }
+}
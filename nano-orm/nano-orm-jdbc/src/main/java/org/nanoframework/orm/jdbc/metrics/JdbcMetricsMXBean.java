@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.util.List;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public interface JdbcMetricsMXBean {
+    String OBJECT_NAME = "org.nanoframework:type=JdbcMetrics";
+
+    /**
+     *
+     * @return 按总耗时倒序排列的SQL统计
+     */
+    List<StatementSnapshot> getStatements();
+
+    int getStatementSize();
+
+    long getSlowQueryCount();
+
+    long getSlowQueryMillis();
+
+    void setSlowQueryMillis(long slowQueryMillis);
+
+    /**
+     *
+     * @return JSON格式的SQL统计
+     */
+    String dumpJson();
+
+    void reset();
+}
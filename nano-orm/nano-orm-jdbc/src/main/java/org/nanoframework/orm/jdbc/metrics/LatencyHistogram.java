@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图，以微秒为单位按对数线性分桶: 每个2的幂区间均分为8个桶，相对误差不超过12.5%.
+ * 每个桶为按需创建的 {@link LongAdder}，记录时无锁，读取的统计值为近似快照.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** 最大可区分的耗时为2^40微秒(约12.7天)，超出的记录计入最后一个桶. */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     *
+     * @param elapsedNanos 耗时(纳秒)
+     */
+    public void record(final long elapsedNanos) {
+        final long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        final int index = index(micros);
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            final LongAdder created = new LongAdder();
+            bucket = buckets.compareAndSet(index, null, created) ? created : buckets.get(index);
+        }
+
+        bucket.increment();
+        count.increment();
+        total.add(micros);
+        max.accumulate(micros);
+    }
+
+    static int index(final long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+
+        final int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     *
+     * @return 桶的上界(微秒)
+     */
+    static long upperBound(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     *
+     * @return 平均耗时(微秒)
+     */
+    public long getMean() {
+        final long count = this.count.sum();
+        return count == 0 ? 0 : total.sum() / count;
+    }
+
+    /**
+     *
+     * @return 最大耗时(微秒)
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     *
+     * @param percentile 百分位，取值 (0, 100]
+     * @return 百分位耗时的上界(微秒)，不超过最大耗时
+     */
+    public long percentile(final double percentile) {
+        long remaining = 0;
+        final long[] counts = new long[BUCKETS];
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            final LongAdder bucket = buckets.get(idx);
+            if (bucket != null) {
+                counts[idx] = bucket.sum();
+                remaining += counts[idx];
+            }
+        }
+
+        if (remaining == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(remaining * percentile / 100));
+        long seen = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            seen += counts[idx];
+            if (seen >= target) {
+                return Math.min(upperBound(idx), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    public void reset() {
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            buckets.set(idx, null);
+        }
+
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * SQL归一化，将字面量替换为?、合并空白字符、将IN列表及多行VALUES合并为一项，使参数不同的同类SQL归为同一统计项.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class SqlNormalizer {
+    private static final int MAX_CACHE_SIZE = 4096;
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\( ?\\?(?: ?, ?\\?)+ ?\\)");
+    private static final Pattern PLACEHOLDER_ROWS = Pattern.compile("\\(\\?\\)(?: ?, ?\\(\\?\\))+");
+    private static final ConcurrentMap<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlNormalizer() {
+
+    }
+
+    /**
+     * 参数化执行的SQL重复出现，归一化结果按原SQL缓存，缓存已满时不再缓存.
+     *
+     * @param sql SQL
+     * @return 归一化的SQL
+     */
+    public static String normalize(final String sql) {
+        if (sql == null) {
+            return null;
+        }
+
+        final String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String normalized = normalize0(sql);
+        if (CACHE.size() < MAX_CACHE_SIZE) {
+            CACHE.putIfAbsent(sql, normalized);
+        }
+
+        return normalized;
+    }
+
+    private static String normalize0(final String sql) {
+        final int length = sql.length();
+        final StringBuilder builder = new StringBuilder(length);
+        int idx = 0;
+        while (idx < length) {
+            final char ch = sql.charAt(idx);
+            if (ch == '\'') {
+                idx = skipString(sql, idx + 1);
+                builder.append('?');
+            } else if (Character.isWhitespace(ch)) {
+                while (idx < length && Character.isWhitespace(sql.charAt(idx))) {
+                    idx++;
+                }
+
+                if (builder.length() > 0 && idx < length) {
+                    builder.append(' ');
+                }
+            } else if (Character.isDigit(ch) && !isIdentifierPart(builder)) {
+                while (idx < length && (Character.isLetterOrDigit(sql.charAt(idx)) || sql.charAt(idx) == '.')) {
+                    idx++;
+                }
+
+                builder.append('?');
+            } else {
+                builder.append(ch);
+                idx++;
+            }
+        }
+
+        final String normalized = PLACEHOLDER_LIST.matcher(builder).replaceAll("(?)");
+        return PLACEHOLDER_ROWS.matcher(normalized).replaceAll("(?)");
+    }
+
+    /**
+     *
+     * @return 字符串字面量结束后的位置，''视为转义的单引号
+     */
+    private static int skipString(final String sql, final int start) {
+        int idx = start;
+        while (idx < sql.length()) {
+            if (sql.charAt(idx) == '\'') {
+                if (idx + 1 < sql.length() && sql.charAt(idx + 1) == '\'') {
+                    idx += 2;
+                    continue;
+                }
+
+                return idx + 1;
+            }
+
+            idx++;
+        }
+
+        return idx;
+    }
+
+    private static boolean isIdentifierPart(final StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+
+        final char last = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$' || last == '`' || last == '"';
+    }
+}
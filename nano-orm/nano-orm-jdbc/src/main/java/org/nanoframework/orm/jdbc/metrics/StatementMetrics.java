@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单条归一化SQL的执行统计.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class StatementMetrics {
+    private final String envId;
+    private final String sql;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public StatementMetrics(final String envId, final String sql) {
+        this.envId = envId;
+        this.sql = sql;
+    }
+
+    /**
+     *
+     * @param rows 查询或更新的行数，未知时小于0
+     * @param elapsedNanos 耗时(纳秒)
+     * @param error 是否执行失败
+     */
+    public void record(final long rows, final long elapsedNanos, final boolean error) {
+        latency.record(elapsedNanos);
+        if (error) {
+            errors.increment();
+        } else if (rows > 0) {
+            this.rows.add(rows);
+        }
+    }
+
+    public String getEnvId() {
+        return envId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public StatementSnapshot snapshot() {
+        return new StatementSnapshot(envId, sql, getCount(), getErrors(), getRows(), latency.getMean(), latency.percentile(50),
+                latency.percentile(90), latency.percentile(99), latency.getMax());
+    }
+}
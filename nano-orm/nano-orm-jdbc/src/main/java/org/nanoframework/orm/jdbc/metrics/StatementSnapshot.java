@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * SQL执行统计快照，耗时单位为微秒.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class StatementSnapshot {
+    private final String envId;
+    private final String sql;
+    private final long count;
+    private final long errors;
+    private final long rows;
+    private final long mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    @ConstructorProperties({ "envId", "sql", "count", "errors", "rows", "mean", "p50", "p90", "p99", "max" })
+    public StatementSnapshot(final String envId, final String sql, final long count, final long errors, final long rows, final long mean,
+            final long p50, final long p90, final long p99, final long max) {
+        this.envId = envId;
+        this.sql = sql;
+        this.count = count;
+        this.errors = errors;
+        this.rows = rows;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getEnvId() {
+        return envId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
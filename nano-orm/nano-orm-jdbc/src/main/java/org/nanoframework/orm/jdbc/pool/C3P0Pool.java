@@ -145,6 +145,7 @@ public class C3P0Pool implements Pool {
 			}
 			
 			dataSources.put(config.getEnvironmentId(), dataSource);
+			PoolMetrics.register(config.getEnvironmentId(), PoolGauges.reflect(dataSource, "getNumBusyConnectionsDefaultUser", "getNumIdleConnectionsDefaultUser", "getNumThreadsAwaitingCheckoutDefaultUser", "getMaxPoolSize"));
 			
 			/** 创建并设置全局Jdbc管理类 */
 			GlobalJdbcManager.set(config.getEnvironmentId(), JdbcManager.newInstance(config, dataSource));
@@ -157,6 +158,8 @@ public class C3P0Pool implements Pool {
 			try { ComboPooledDataSource.getMethod("close").invoke(dataSource); } catch(Exception e) { }
 		});
 		
+		dataSources.keySet().forEach(PoolMetrics::unregister);
+		
 		dataSources.clear();
 		
 	}
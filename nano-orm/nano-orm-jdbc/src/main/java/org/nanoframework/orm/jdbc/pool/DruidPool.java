@@ -124,6 +124,7 @@ public class DruidPool implements Pool {
 			}
 			
 			dataSources.put(config.getEnvironmentId(), dataSource);
+			PoolMetrics.register(config.getEnvironmentId(), PoolGauges.reflect(dataSource, "getActiveCount", "getPoolingCount", "getWaitThreadCount", "getMaxActive"));
 			
 			/** 创建并设置全局Jdbc管理类 */
 			GlobalJdbcManager.set(config.getEnvironmentId(), JdbcManager.newInstance(config, dataSource));
@@ -136,6 +137,8 @@ public class DruidPool implements Pool {
 			try { DruidDataSource.getMethod("close").invoke(dataSource); } catch(Exception e) { }
 		});
 		
+		dataSources.keySet().forEach(PoolMetrics::unregister);
+		
 		dataSources.clear();
 		
 	}
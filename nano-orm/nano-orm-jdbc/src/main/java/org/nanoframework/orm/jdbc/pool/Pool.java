@@ -24,4 +24,14 @@ import javax.sql.DataSource;
 public interface Pool {
 	public void closeAndClear();
 	public DataSource getPool(String envId);
+	
+	/**
+	 * 
+	 * @param envId 数据源名称
+	 * @return 连接池统计，数据源不存在时返回null
+	 * @since 1.4.11
+	 */
+	public default PoolMetrics getMetrics(String envId) {
+		return PoolMetrics.get(envId);
+	}
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.pool;
+
+import java.lang.reflect.Method;
+
+import javax.sql.DataSource;
+
+/**
+ * 连接池实时状态，各连接池通过 {@link #reflect(DataSource, String, String, String, String)} 按各自的统计方法提供.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public interface PoolGauges {
+    PoolGauges NONE = reflect(null, null, null, null, null);
+
+    /**
+     *
+     * @return 已借出的连接数，无法获取时返回-1
+     */
+    int getActive();
+
+    /**
+     *
+     * @return 空闲连接数，无法获取时返回-1
+     */
+    int getIdle();
+
+    /**
+     *
+     * @return 等待获取连接的线程数，无法获取时返回-1
+     */
+    int getWaiting();
+
+    /**
+     *
+     * @return 最大连接数，无法获取时返回-1
+     */
+    int getMaxActive();
+
+    /**
+     * 通过反射调用连接池的统计方法，方法在创建时查找并缓存.
+     *
+     * @param dataSource 连接池
+     * @param active 已借出连接数的方法名
+     * @param idle 空闲连接数的方法名
+     * @param waiting 等待线程数的方法名
+     * @param maxActive 最大连接数的方法名
+     * @return PoolGauges
+     */
+    static PoolGauges reflect(final DataSource dataSource, final String active, final String idle, final String waiting, final String maxActive) {
+        final Method activeMethod = method(dataSource, active);
+        final Method idleMethod = method(dataSource, idle);
+        final Method waitingMethod = method(dataSource, waiting);
+        final Method maxActiveMethod = method(dataSource, maxActive);
+        return new PoolGauges() {
+            @Override
+            public int getActive() {
+                return invoke(dataSource, activeMethod);
+            }
+
+            @Override
+            public int getIdle() {
+                return invoke(dataSource, idleMethod);
+            }
+
+            @Override
+            public int getWaiting() {
+                return invoke(dataSource, waitingMethod);
+            }
+
+            @Override
+            public int getMaxActive() {
+                return invoke(dataSource, maxActiveMethod);
+            }
+        };
+    }
+
+    static Method method(final DataSource dataSource, final String name) {
+        if (dataSource == null || name == null) {
+            return null;
+        }
+
+        try {
+            return dataSource.getClass().getMethod(name);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    static int invoke(final DataSource dataSource, final Method method) {
+        if (method == null) {
+            return -1;
+        }
+
+        try {
+            return ((Number) method.invoke(dataSource)).intValue();
+        } catch (final Throwable e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.pool;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jdbc.metrics.LatencyHistogram;
+
+import com.google.common.collect.Lists;
+
+/**
+ * 连接池统计，统一C3P0、Druid、Tomcat Jdbc Pool的连接池状态，并统计获取连接的等待时间、失败及超时次数.
+ * 开启泄漏检测后记录连接的借出线程及调用栈，连接借出超过检测时长视为疑似泄漏.
+ * 每个数据源通过JMX暴露: {@value PoolMetricsMXBean#OBJECT_NAME_PREFIX}数据源名称.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class PoolMetrics implements PoolMetricsMXBean {
+    /** 泄漏检测时长(毫秒)，0为关闭, Default: 0. */
+    public static final String LEAK_DETECTION_MILLIS = "context.jdbc.pool.leak-detection-millis";
+    /** 获取连接等待时间不小于此值(毫秒)时记录连接池饱和告警, Default: 1000. */
+    public static final String ACQUIRE_WARN_MILLIS = "context.jdbc.pool.acquire-warn-millis";
+    public static final long DEFAULT_ACQUIRE_WARN_MILLIS = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoolMetrics.class);
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final ConcurrentMap<String, PoolMetrics> METRICS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Connection, Checkout> CHECKOUTS = new ConcurrentHashMap<>();
+
+    private final String envId;
+    private final PoolGauges gauges;
+    private final LatencyHistogram acquireWait = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicLong lastWarn = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+    private final long acquireWarnNanos = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(System.getProperty(ACQUIRE_WARN_MILLIS, String.valueOf(DEFAULT_ACQUIRE_WARN_MILLIS))));
+    private volatile long leakDetectionMillis = Long.parseLong(System.getProperty(LEAK_DETECTION_MILLIS, "0"));
+
+    private PoolMetrics(final String envId, final PoolGauges gauges) {
+        this.envId = envId;
+        this.gauges = gauges == null ? PoolGauges.NONE : gauges;
+    }
+
+    /**
+     * 注册数据源的连接池统计，已存在时替换.
+     *
+     * @param envId 数据源名称
+     * @param gauges 连接池状态
+     * @return PoolMetrics
+     */
+    public static PoolMetrics register(final String envId, final PoolGauges gauges) {
+        final PoolMetrics metrics = new PoolMetrics(envId, gauges);
+        unregister(envId);
+        METRICS.put(envId, metrics);
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + envId);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+
+            server.registerMBean(metrics, name);
+        } catch (final Throwable e) {
+            LOGGER.warn("Register MXBean [ {}{} ] failure: {}", OBJECT_NAME_PREFIX, envId, e.getMessage());
+        }
+
+        return metrics;
+    }
+
+    public static void unregister(final String envId) {
+        final PoolMetrics metrics = METRICS.remove(envId);
+        if (metrics == null) {
+            return;
+        }
+
+        CHECKOUTS.values().removeIf(checkout -> checkout.metrics == metrics);
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + envId);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (final Throwable e) {
+            LOGGER.warn("Unregister MXBean [ {}{} ] failure: {}", OBJECT_NAME_PREFIX, envId, e.getMessage());
+        }
+    }
+
+    /**
+     *
+     * @param envId 数据源名称
+     * @return 连接池统计，未注册时返回null
+     */
+    public static PoolMetrics get(final String envId) {
+        return METRICS.get(envId);
+    }
+
+    /**
+     * 从连接池获取连接并统计等待时间，数据源未注册连接池统计时直接获取.
+     *
+     * @param envId 数据源名称
+     * @param dataSource 连接池
+     * @return 连接
+     * @throws SQLException 获取连接异常
+     */
+    public static Connection connect(final String envId, final DataSource dataSource) throws SQLException {
+        final PoolMetrics metrics = METRICS.get(envId);
+        if (metrics == null) {
+            return dataSource.getConnection();
+        }
+
+        final long start = System.nanoTime();
+        try {
+            final Connection conn = dataSource.getConnection();
+            metrics.acquired(conn, System.nanoTime() - start);
+            return conn;
+        } catch (final SQLException | RuntimeException e) {
+            metrics.failed(e, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * 连接归还连接池前调用，结束泄漏检测.
+     *
+     * @param conn 连接
+     */
+    public static void released(final Connection conn) {
+        if (conn == null || CHECKOUTS.isEmpty()) {
+            return;
+        }
+
+        final Checkout checkout = CHECKOUTS.remove(conn);
+        if (checkout != null) {
+            final long heldMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkout.time);
+            final long threshold = checkout.metrics.leakDetectionMillis;
+            if (threshold > 0 && heldMillis >= threshold) {
+                LOGGER.warn("[ {} ] Connection held {}ms by [ {} ], acquired at: {}", checkout.metrics.envId, heldMillis, checkout.thread,
+                        checkout.stack());
+            }
+        }
+    }
+
+    private void acquired(final Connection conn, final long waitNanos) {
+        acquireWait.record(waitNanos);
+        if (waitNanos >= acquireWarnNanos) {
+            warn("Acquire connection waited {}ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        if (leakDetectionMillis > 0 && conn != null) {
+            CHECKOUTS.put(conn, new Checkout(this));
+        }
+    }
+
+    private void failed(final Throwable cause, final long waitNanos) {
+        failures.increment();
+        if (isTimeout(cause)) {
+            timeouts.increment();
+            warn("Acquire connection timeout after {}ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+
+    /**
+     * Druid: GetConnectionTimeoutException, Tomcat Jdbc Pool: PoolExhaustedException, C3P0: "checkout a Connection has timed out".
+     */
+    private boolean isTimeout(final Throwable cause) {
+        if (cause instanceof SQLTimeoutException) {
+            return true;
+        }
+
+        final String type = cause.getClass().getSimpleName();
+        final String message = String.valueOf(cause.getMessage()).toLowerCase();
+        return type.contains("Timeout") || type.contains("Exhausted") || message.contains("timed out") || message.contains("timeout");
+    }
+
+    /**
+     * 连接池饱和告警，每个数据源每10秒最多记录一次.
+     */
+    private void warn(final String message, final long millis) {
+        final long now = System.nanoTime();
+        final long last = lastWarn.get();
+        if (now - last >= WARN_INTERVAL_NANOS && lastWarn.compareAndSet(last, now)) {
+            LOGGER.warn("[ {} ] " + message + ", active: {}, idle: {}, waiting: {}, maxActive: {}", envId, millis, getActive(), getIdle(),
+                    getWaiting(), getMaxActive());
+        }
+    }
+
+    @Override
+    public String getEnvId() {
+        return envId;
+    }
+
+    @Override
+    public int getActive() {
+        return gauges.getActive();
+    }
+
+    @Override
+    public int getIdle() {
+        return gauges.getIdle();
+    }
+
+    @Override
+    public int getWaiting() {
+        return gauges.getWaiting();
+    }
+
+    @Override
+    public int getMaxActive() {
+        return gauges.getMaxActive();
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return acquireWait.getCount();
+    }
+
+    @Override
+    public long getAcquireFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getAcquireTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getAcquireWaitMean() {
+        return acquireWait.getMean();
+    }
+
+    @Override
+    public long getAcquireWaitP99() {
+        return acquireWait.percentile(99);
+    }
+
+    @Override
+    public long getAcquireWaitMax() {
+        return acquireWait.getMax();
+    }
+
+    public LatencyHistogram getAcquireWait() {
+        return acquireWait;
+    }
+
+    @Override
+    public long getLeakDetectionMillis() {
+        return leakDetectionMillis;
+    }
+
+    @Override
+    public void setLeakDetectionMillis(final long leakDetectionMillis) {
+        this.leakDetectionMillis = leakDetectionMillis;
+        if (leakDetectionMillis <= 0) {
+            CHECKOUTS.values().removeIf(checkout -> checkout.metrics == this);
+        }
+    }
+
+    @Override
+    public List<String> getLeaks() {
+        final List<String> leaks = Lists.newArrayList();
+        final long threshold = leakDetectionMillis;
+        if (threshold <= 0) {
+            return leaks;
+        }
+
+        final long now = System.nanoTime();
+        for (final Checkout checkout : CHECKOUTS.values()) {
+            final long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - checkout.time);
+            if (checkout.metrics == this && heldMillis >= threshold) {
+                leaks.add("Connection held " + heldMillis + "ms by [ " + checkout.thread + " ], acquired at: " + checkout.stack());
+            }
+        }
+
+        return leaks;
+    }
+
+    @Override
+    public void reset() {
+        acquireWait.reset();
+        failures.reset();
+        timeouts.reset();
+    }
+
+    /**
+     * 借出的连接.
+     */
+    private static final class Checkout {
+        private final PoolMetrics metrics;
+        private final long time = System.nanoTime();
+        private final String thread = Thread.currentThread().getName();
+        private final Throwable trace = new Throwable();
+
+        private Checkout(final PoolMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        private String stack() {
+            final StringBuilder builder = new StringBuilder();
+            for (final StackTraceElement element : trace.getStackTrace()) {
+                builder.append("\n\tat ").append(element);
+            }
+
+            return builder.toString();
+        }
+    }
+}
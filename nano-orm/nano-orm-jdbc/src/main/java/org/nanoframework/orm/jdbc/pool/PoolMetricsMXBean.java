@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.pool;
+
+import java.util.List;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public interface PoolMetricsMXBean {
+    String OBJECT_NAME_PREFIX = "org.nanoframework:type=JdbcPool,name=";
+
+    String getEnvId();
+
+    int getActive();
+
+    int getIdle();
+
+    int getWaiting();
+
+    int getMaxActive();
+
+    long getAcquireCount();
+
+    long getAcquireFailures();
+
+    long getAcquireTimeouts();
+
+    /**
+     *
+     * @return 获取连接的平均等待时间(微秒)
+     */
+    long getAcquireWaitMean();
+
+    /**
+     *
+     * @return 获取连接等待时间的99百分位(微秒)
+     */
+    long getAcquireWaitP99();
+
+    /**
+     *
+     * @return 获取连接的最大等待时间(微秒)
+     */
+    long getAcquireWaitMax();
+
+    long getLeakDetectionMillis();
+
+    /**
+     *
+     * @param leakDetectionMillis 连接借出超过此时长(毫秒)视为疑似泄漏，0为关闭泄漏检测
+     */
+    void setLeakDetectionMillis(long leakDetectionMillis);
+
+    /**
+     *
+     * @return 疑似泄漏的连接，包含借出线程及借出时的调用栈
+     */
+    List<String> getLeaks();
+
+    void reset();
+}
@@ -133,6 +133,7 @@ public class TomcatJdbcPool implements Pool {
             }
             
             dataSources.put(config.getEnvironmentId(), dataSource);
+            PoolMetrics.register(config.getEnvironmentId(), PoolGauges.reflect(dataSource, "getActive", "getIdle", "getWaitCount", "getMaxActive"));
             
             /** 创建并设置全局Jdbc管理类 */
             GlobalJdbcManager.set(config.getEnvironmentId(), JdbcManager.newInstance(config, dataSource));
@@ -145,6 +146,8 @@ public class TomcatJdbcPool implements Pool {
             try { TomcatJdbcDataSource.getMethod("close").invoke(dataSource); } catch(Exception e) { }
         });
         
+        dataSources.keySet().forEach(PoolMetrics::unregister);
+        
         dataSources.clear();
     }
 
@@ -18,6 +18,9 @@ package org.nanoframework.orm.jdbc.record;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,6 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.nanoframework.commons.entity.BaseEntity;
@@ -34,10 +40,15 @@ import org.nanoframework.commons.util.CollectionUtils;
 import org.nanoframework.commons.util.ReflectUtils;
 import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
 import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.binding.QueryOptions;
+import org.nanoframework.orm.jdbc.binding.StatementOptions;
+import org.nanoframework.orm.jdbc.cursor.RowHandler;
 import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.record.annotation.Cacheable;
 import org.nanoframework.orm.jdbc.record.annotation.Column;
 import org.nanoframework.orm.jdbc.record.annotation.Id;
 import org.nanoframework.orm.jdbc.record.annotation.Table;
+import org.nanoframework.orm.jdbc.record.cache.EntityCache;
 import org.nanoframework.orm.jdbc.record.script.SQLScript;
 import org.nanoframework.orm.jdbc.record.script.SQLScriptBatch;
 
@@ -50,6 +61,26 @@ import com.google.common.collect.Maps;
  * @since 1.3.15
  */
 public abstract class AbstractJdbcRecord<T extends BaseEntity> {
+    /** 批量执行时每批提交的行数，默认1000. */
+    public static final String BATCH_SIZE = "context.jdbc.record.batch-size";
+    /** insertBatch是否改写为多行VALUES的insert语句，默认false. */
+    public static final String BATCH_REWRITE_INSERT = "context.jdbc.record.batch-rewrite-insert";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    /** 多行VALUES改写时单条语句的参数数量上限. */
+    private static final int MAX_PARAMETERS = 30000;
+    
+    /** 每个Record类缓存的SQL模板数量上限，超出后不再缓存新的模板. */
+    private static final int MAX_SQL_TEMPLATES = 1024;
+    
+    /** 按Record类缓存的SQL模板，键为(操作类型, 属性列表, 条件属性列表). */
+    private static final ClassValue<Map<String, String>> SQL_TEMPLATES = new ClassValue<Map<String, String>>() {
+        @Override
+        protected Map<String, String> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    
     protected JdbcManager manager;
     protected Class<T> entity;
     protected String tableName;
@@ -58,6 +89,13 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
     protected Map<String, Field> columnMapper;
     protected Map<String, String> fieldColumnMapper;
     
+    protected int batchSize = Integer.parseInt(System.getProperty(BATCH_SIZE, String.valueOf(DEFAULT_BATCH_SIZE)));
+    protected boolean rewriteBatchInsert = Boolean.parseBoolean(System.getProperty(BATCH_REWRITE_INSERT, "false"));
+    /** Record所有操作使用的Statement选项，默认读取Record类上的 {@link QueryOptions} 注解. */
+    protected StatementOptions options;
+    /** 实体缓存，实体类添加 {@link Cacheable} 注解时开启. */
+    protected EntityCache cache;
+    
     private BaseEntity instance;
     
     public AbstractJdbcRecord(final String dataSourceName) {
@@ -69,9 +107,25 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
         initTableName();
         initIdColumn();
         initColumnNames();
+        initOptions();
         
         this.manager = manager;
         Assert.notNull(manager, "无效的JdbcManager对象");
+        initCache();
+    }
+    
+    protected void initCache() {
+        final Cacheable cacheable = entity.getAnnotation(Cacheable.class);
+        if (cacheable != null) {
+            this.cache = EntityCache.of(manager.getEnvId(), entity, cacheable.maximumSize(), cacheable.expireAfterWrite());
+        }
+    }
+    
+    protected void initOptions() {
+        final QueryOptions options = getClass().getAnnotation(QueryOptions.class);
+        if (options != null) {
+            this.options = StatementOptions.of(options);
+        }
     }
     
     @SuppressWarnings("unchecked")
@@ -121,6 +175,284 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
         Assert.notEmpty(columnMapper, "无效的Record实体[ " + this.entity.getName() + " ], 必须添加属性级注解@Column");
     }
     
+    /**
+     * 执行查询并通过 {@link EntityRowMapper} 将每一行直接映射为实体.
+     * 
+     * @param select 查询语句
+     * @param consumer 实体处理
+     * @return 查询的行数
+     * @throws SQLException 查询异常
+     * @since 1.4.11
+     */
+    protected int query(final SQLScript select, final Consumer<T> consumer) throws SQLException {
+        return withOptions(select.options, () -> manager.executeQuery(select.sql, select.values, new RowHandler() {
+            private EntityRowMapper<T> mapper;
+            private int rowNum;
+
+            @Override
+            public void handle(final ResultSet rs) throws SQLException {
+                if (mapper == null) {
+                    mapper = EntityRowMapper.of(entity, columnMapper, rs.getMetaData());
+                }
+
+                consumer.accept(mapper.map(rs, ++rowNum));
+            }
+        }));
+    }
+    
+    protected List<T> queryBeans(final SQLScript select) throws SQLException {
+        final List<T> beans = Lists.newArrayList();
+        query(select, beans::add);
+        return beans;
+    }
+    
+    /**
+     * 开启实体缓存时按查询语句及参数缓存查询结果，缓存及返回的均为实体副本.
+     * Session中的查询可能读到未提交的数据，限制了maxRows的查询结果不完整，均不使用缓存.
+     * 
+     * @param select 查询语句
+     * @return 实体列表
+     * @throws SQLException 查询异常
+     * @since 1.4.11
+     */
+    @SuppressWarnings("unchecked")
+    protected List<T> queryCachedBeans(final SQLScript select) throws SQLException {
+        if (cache == null || manager.isManagedSessionStarted() || limited(select.options) || limited(options)
+                || limited(StatementOptions.current())) {
+            return queryBeans(select);
+        }
+        
+        final List<Object> key = Arrays.asList(select.sql, select.values == null ? null : Lists.newArrayList(select.values));
+        final List<T> cached = (List<T>) cache.get(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+        
+        final long generation = cache.generation();
+        final List<T> beans = queryBeans(select);
+        cache.put(key, copy(beans), generation);
+        return beans;
+    }
+    
+    private boolean limited(final StatementOptions options) {
+        return options != null && options.getMaxRows() != null && options.getMaxRows() > 0;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<T> copy(final List<T> beans) {
+        final List<T> copies = Lists.newArrayListWithCapacity(beans.size());
+        beans.forEach(bean -> copies.add((T) bean.clone()));
+        return copies;
+    }
+    
+    /**
+     * 写入后使实体缓存失效.
+     * 在外层Session(包括@JdbcTransactional)中写入时，提交前其他线程的非Session查询仍读到旧数据并以新版本号写入缓存，
+     * 因此在Session关闭时再次失效.
+     * 
+     * @since 1.4.11
+     */
+    protected void invalidateCache() {
+        if (cache != null) {
+            cache.invalidateAll();
+            manager.afterSessionClose(cache, cache::invalidateAll);
+        }
+    }
+    
+    public EntityCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * 使用SQLScript及Record的Statement选项执行，SQLScript的选项优先.
+     * 
+     * @param <R> 返回值类型
+     * @param scriptOptions SQLScript的选项，可为null
+     * @param callable 执行内容
+     * @return 执行结果
+     * @throws SQLException 执行异常
+     * @since 1.4.11
+     */
+    protected <R> R withOptions(final StatementOptions scriptOptions, final SQLCallable<R> callable) throws SQLException {
+        final StatementOptions options = scriptOptions == null ? this.options : scriptOptions.merge(this.options);
+        if (options == null) {
+            return callable.call();
+        }
+        
+        try (final StatementOptions.Scope scope = options.open()) {
+            return callable.call();
+        }
+    }
+    
+    public StatementOptions getOptions() {
+        return options;
+    }
+    
+    public void setOptions(final StatementOptions options) {
+        this.options = options;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(final int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize必须大于0");
+        this.batchSize = batchSize;
+    }
+    
+    public boolean isRewriteBatchInsert() {
+        return rewriteBatchInsert;
+    }
+    
+    /**
+     * 
+     * @param rewriteBatchInsert insertBatch(List)是否改写为多行VALUES的insert语句，开启后返回值的约定见 {@link Record#insertBatch(List)}
+     */
+    public void setRewriteBatchInsert(final boolean rewriteBatchInsert) {
+        this.rewriteBatchInsert = rewriteBatchInsert;
+    }
+    
+    /**
+     * 在Session中执行，当前未开启Session时开启非自动提交的Session，执行成功后提交，失败后回滚.
+     * 
+     * @param <R> 返回值类型
+     * @param callable 执行内容
+     * @return 执行结果
+     * @throws SQLException 执行异常
+     * @since 1.4.11
+     */
+    protected <R> R executeInSession(final SQLCallable<R> callable) throws SQLException {
+        boolean managedSessionStarted = false;
+        if (!manager.isManagedSessionStarted()) {
+            managedSessionStarted = true;
+            manager.startManagedSession(false);
+        }
+        
+        try {
+            final R result = withOptions(null, callable);
+            if (managedSessionStarted) {
+                manager.commit();
+            }
+            
+            return result;
+        } catch (final Throwable e) {
+            if (managedSessionStarted) {
+                manager.rollback();
+            }
+            
+            throw e;
+        } finally {
+            if (managedSessionStarted) {
+                manager.close();
+            }
+        }
+    }
+    
+    /**
+     * 按batchSize分批执行addBatch/executeBatch，所有批次在同一个Session中执行.
+     * 
+     * @param batch 批量语句
+     * @return 每行的执行结果
+     * @throws SQLException 执行异常
+     * @since 1.4.11
+     */
+    protected int[] executeBatch(final SQLScriptBatch batch) throws SQLException {
+        final List<List<Object>> batchValues = batch.batchValues;
+        if (CollectionUtils.isEmpty(batchValues)) {
+            return new int[0];
+        }
+        
+        try {
+            return executeInSession(() -> {
+                final int size = batchValues.size();
+                final int[] rets = new int[size];
+                for (int from = 0; from < size; from += batchSize) {
+                    final int[] chunk = manager.executeBatchUpdate(batch.sql, batchValues.subList(from, Math.min(from + batchSize, size)));
+                    System.arraycopy(chunk, 0, rets, from, chunk.length);
+                }
+                
+                return rets;
+            });
+        } finally {
+            invalidateCache();
+        }
+    }
+    
+    /**
+     * 将语句按SQL分组后批量执行，返回值按语句的原始顺序排列.
+     * 
+     * @param scripts 语句
+     * @return 每条语句的执行结果
+     * @throws SQLException 执行异常
+     * @since 1.4.11
+     */
+    protected int[] executeBatch(final List<SQLScript> scripts) throws SQLException {
+        if (CollectionUtils.isEmpty(scripts)) {
+            return new int[0];
+        }
+        
+        final Map<String, List<Integer>> groups = Maps.newLinkedHashMap();
+        for (int idx = 0, size = scripts.size(); idx < size; idx++) {
+            groups.computeIfAbsent(scripts.get(idx).sql, sql -> Lists.newArrayList()).add(idx);
+        }
+        
+        try {
+            return executeInSession(() -> {
+                final int[] rets = new int[scripts.size()];
+                for (final Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+                    final List<Integer> indexes = group.getValue();
+                    final List<List<Object>> batchValues = Lists.newArrayListWithCapacity(indexes.size());
+                    indexes.forEach(idx -> batchValues.add(scripts.get(idx).values));
+                    final int[] groupRets = executeBatch(SQLScriptBatch.create(group.getKey(), batchValues));
+                    for (int idx = 0; idx < groupRets.length; idx++) {
+                        rets[indexes.get(idx)] = groupRets[idx];
+                    }
+                }
+                
+                return rets;
+            });
+        } finally {
+            invalidateCache();
+        }
+    }
+    
+    /**
+     * 将批量插入改写为多行VALUES的insert语句分批执行，每行的返回值在批次插入行数与批次行数一致时为1，
+     * 否则为 {@link Statement#SUCCESS_NO_INFO}.
+     * 
+     * @param batch 由 {@link #createInsertBatchStatement(List)} 创建的批量插入语句
+     * @return 每行的执行结果
+     * @throws SQLException 执行异常
+     * @since 1.4.11
+     */
+    protected int[] executeInsertRows(final SQLScriptBatch batch) throws SQLException {
+        final List<List<Object>> batchValues = batch.batchValues;
+        if (CollectionUtils.isEmpty(batchValues)) {
+            return new int[0];
+        }
+        
+        final int columns = Math.max(fieldColumnMapper.size(), 1);
+        final int rows = Math.max(Math.min(batchSize, MAX_PARAMETERS / columns), 1);
+        try {
+            return executeInSession(() -> {
+                final int size = batchValues.size();
+                final int[] rets = new int[size];
+                for (int from = 0; from < size; from += rows) {
+                    final int to = Math.min(from + rows, size);
+                    final List<Object> values = Lists.newArrayListWithCapacity((to - from) * columns);
+                    batchValues.subList(from, to).forEach(values::addAll);
+                    final int count = manager.executeUpdate(createInsertRowsSQL(to - from), values);
+                    Arrays.fill(rets, from, to, count == to - from ? 1 : Statement.SUCCESS_NO_INFO);
+                }
+                
+                return rets;
+            });
+        } finally {
+            invalidateCache();
+        }
+    }
+    
     @SuppressWarnings("unchecked")
     protected List<T> toBeans(final SortedMap<?, ?>[] beanMaps) {
         if (ArrayUtils.isEmpty(beanMaps)) {
@@ -156,21 +488,64 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
         }
     }
     
-    protected SQLScript createSelectStatement(final List<String> fields, final List<String> where, final Object... values) {
-        final StringBuilder sqlBuilder = new StringBuilder("select ");
-        final StringBuilder whereBuilder = new StringBuilder();
-        if (CollectionUtils.isEmpty(fields)) {
-            fieldColumnMapper.keySet().forEach(attribute -> {
-                sqlBuilder.append(fieldColumnMapper.get(attribute));
-                sqlBuilder.append(", ");
-            });
-        } else {
-            fields.forEach(attribute -> {
-                sqlBuilder.append(fieldColumnMapper.get(attribute));
-                sqlBuilder.append(", ");
-            });
+    /**
+     * 
+     * @param key 模板键，由操作类型、属性列表及条件属性列表组成
+     * @param builder 模板不存在时构建SQL
+     * @return SQL模板
+     * @since 1.4.11
+     */
+    protected String sqlTemplate(final String key, final Supplier<String> builder) {
+        final Map<String, String> templates = SQL_TEMPLATES.get(getClass());
+        String sql = templates.get(key);
+        if (sql == null) {
+            sql = builder.get();
+            if (templates.size() < MAX_SQL_TEMPLATES) {
+                templates.putIfAbsent(key, sql);
+            }
+        }
+        
+        return sql;
+    }
+    
+    private static String templateKey(final String operation, final List<String> fields, final List<String> where) {
+        final StringBuilder builder = new StringBuilder(operation).append('|');
+        if (fields != null) {
+            fields.forEach(field -> builder.append(field).append(','));
         }
         
+        builder.append('|');
+        if (where != null) {
+            where.forEach(attribute -> builder.append(attribute).append(','));
+        }
+        
+        return builder.toString();
+    }
+    
+    protected SQLScript createSelectStatement(final List<String> fields, final List<String> where, final Object... values) {
+        final String sql = sqlTemplate(templateKey("select", fields, where), () -> {
+            final StringBuilder sqlBuilder = new StringBuilder("select ");
+            final StringBuilder whereBuilder = new StringBuilder();
+            if (CollectionUtils.isEmpty(fields)) {
+                fieldColumnMapper.keySet().forEach(attribute -> {
+                    sqlBuilder.append(fieldColumnMapper.get(attribute));
+                    sqlBuilder.append(", ");
+                });
+            } else {
+                fields.forEach(attribute -> {
+                    sqlBuilder.append(fieldColumnMapper.get(attribute));
+                    sqlBuilder.append(", ");
+                });
+            }
+            
+            appendWhere(whereBuilder, where);
+            return sqlBuilder.substring(0, sqlBuilder.length() - 2) + " from " + tableName + whereBuilder.toString();
+        });
+        
+        return SQLScript.create(sql, Lists.newArrayList(values));
+    }
+    
+    private void appendWhere(final StringBuilder whereBuilder, final List<String> where) {
         if (!CollectionUtils.isEmpty(where)) {
             whereBuilder.append(" where 1 = 1 ");
             where.forEach(attribute -> {
@@ -179,8 +554,6 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
                 whereBuilder.append(" = ? ");
             });
         }
-        
-        return SQLScript.create(sqlBuilder.substring(0, sqlBuilder.length() - 2) + " from " + tableName + whereBuilder.toString(), Lists.newArrayList(values));
     }
     
     protected SQLScript createSelectOneStatement(final List<String> fields, final List<String> where, final Object... values) {
@@ -189,18 +562,13 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
     }
     
     protected SQLScript createSelectCountStatement(final List<String> where, final Object... values) {
-        final StringBuilder sqlBuilder = new StringBuilder("select count(1) as count from ");
-        final StringBuilder whereBuilder = new StringBuilder();
-        if (!CollectionUtils.isEmpty(where)) {
-            whereBuilder.append(" where 1 = 1 ");
-            where.forEach(attribute -> {
-                whereBuilder.append("and ");
-                whereBuilder.append(fieldColumnMapper.get(attribute));
-                whereBuilder.append(" = ? ");
-            });
-        }
+        final String sql = sqlTemplate(templateKey("count", null, where), () -> {
+            final StringBuilder whereBuilder = new StringBuilder();
+            appendWhere(whereBuilder, where);
+            return "select count(1) as count from " + tableName + whereBuilder.toString();
+        });
         
-        return SQLScript.create(sqlBuilder.toString() + tableName + whereBuilder.toString(), Lists.newArrayList(values));
+        return SQLScript.create(sql, Lists.newArrayList(values));
     }
     
     protected SQLScript createInsertStatement(final T entity) {
@@ -209,121 +577,155 @@ public abstract class AbstractJdbcRecord<T extends BaseEntity> {
     
     protected SQLScript createInsertStatement(final T entity, final boolean ignoreNull) {
         Assert.notNull(entity);
+        final List<String> attributes = Lists.newArrayList();
         final List<Object> values = Lists.newArrayList();
-        final StringBuilder sqlBuilder = new StringBuilder("insert into ");
-        final StringBuilder valueBuilder = new StringBuilder(" values ( ");
-        sqlBuilder.append(tableName);
-        sqlBuilder.append(" ( ");
-        Arrays.asList(entity.attributeNames()).stream()
-        .filter(attribute -> entity.attributeValue(attribute) != null && ignoreNull)
-        .filter(attribute -> fieldColumnMapper.containsKey(attribute))
-        .forEach(attribute -> {
-            sqlBuilder.append(fieldColumnMapper.get(attribute));
-            sqlBuilder.append(", ");
-            valueBuilder.append("?, ");
-            values.add(entity.attributeValue(attribute));
-        });
+        for (final String attribute : entity.attributeNames()) {
+            if (fieldColumnMapper.containsKey(attribute)) {
+                final Object value = entity.attributeValue(attribute);
+                if (value != null && ignoreNull) {
+                    attributes.add(attribute);
+                    values.add(value);
+                }
+            }
+        }
         
         if (CollectionUtils.isEmpty(values)) {
             return null;
         }
         
-        return SQLScript.create(createInsertSQL(sqlBuilder, valueBuilder), values);
+        return SQLScript.create(sqlTemplate(templateKey("insert", attributes, null), () -> createInsertSQL(attributes)), values);
     }
     
     protected SQLScriptBatch createInsertBatchStatement(final List<T> entitys) {
         Assert.notEmpty(entitys);
         
         final Set<String> attributeNames = fieldColumnMapper.keySet();
+        final String sql = sqlTemplate("insertBatch||", () -> createInsertSQL(attributeNames));
+        final List<List<Object>> batchValues = Lists.newArrayList();
+        for (final T entity : entitys) {
+            if (entity != null) {
+                final List<Object> values = Lists.newArrayListWithCapacity(attributeNames.size());
+                for (final String attributeName : attributeNames) {
+                    values.add(entity.attributeValue(attributeName));
+                }
+                
+                batchValues.add(values);
+            }
+        }
+        
+        return SQLScriptBatch.create(sql, batchValues);
+    }
+    
+    private String createInsertSQL(final Collection<String> attributes) {
         final StringBuilder sqlBuilder = new StringBuilder("insert into ");
         final StringBuilder valueBuilder = new StringBuilder(" values ( ");
         sqlBuilder.append(tableName);
         sqlBuilder.append(" ( ");
-        attributeNames.forEach(attribute -> {
+        attributes.forEach(attribute -> {
             sqlBuilder.append(fieldColumnMapper.get(attribute));
             sqlBuilder.append(", ");
             valueBuilder.append("?, ");
         });
         
-        final List<List<Object>> batchValues = Lists.newArrayList();
-        entitys.stream().filter(entity -> entity != null).forEach(entity -> {
-            final List<Object> values = Lists.newArrayList();
-            attributeNames.forEach(attributeName -> values.add(entity.attributeValue(attributeName)));
-            batchValues.add(values);
-        });
-        
-        return SQLScriptBatch.create(createInsertSQL(sqlBuilder, valueBuilder), batchValues);
+        return sqlBuilder.substring(0, sqlBuilder.length() - 2) + " ) " + valueBuilder.substring(0, valueBuilder.length() - 2) + " ) ";
     }
     
-    private String createInsertSQL(final StringBuilder sqlBuilder, final StringBuilder valueBuilder) {
-        return sqlBuilder.substring(0, sqlBuilder.length() - 2) + " ) " + valueBuilder.substring(0, valueBuilder.length() - 2) + " ) ";
+    private String createInsertRowsSQL(final int rows) {
+        return sqlTemplate("insertRows|" + rows + '|', () -> {
+            final String sql = createInsertSQL(fieldColumnMapper.keySet());
+            final String placeholders = sql.substring(sql.lastIndexOf(" ( "));
+            final StringBuilder sqlBuilder = new StringBuilder(sql.length() + placeholders.length() * rows).append(sql);
+            for (int idx = 1; idx < rows; idx++) {
+                sqlBuilder.append(',').append(placeholders);
+            }
+            
+            return sqlBuilder.toString();
+        });
     }
     
     protected SQLScript createUpdateStatement(final T entity, final List<String> fields, final List<String> where) {
         Assert.notNull(entity);
         Assert.notEmpty(fields);
         Assert.notEmpty(where);
-        final List<Object> values = Lists.newArrayList();
-        final StringBuilder sqlBuilder = new StringBuilder("update ");
-        final StringBuilder whereBuilder = new StringBuilder(" where 1 = 1 ");
-        sqlBuilder.append(tableName);
-        sqlBuilder.append(" set ");
-        fields.forEach(attribute -> {
-            sqlBuilder.append(fieldColumnMapper.get(attribute));
-            sqlBuilder.append(" = ?, ");
-            values.add(entity.attributeValue(attribute));
+        final String sql = sqlTemplate(templateKey("update", fields, where), () -> {
+            final StringBuilder sqlBuilder = new StringBuilder("update ");
+            final StringBuilder whereBuilder = new StringBuilder(" where 1 = 1 ");
+            sqlBuilder.append(tableName);
+            sqlBuilder.append(" set ");
+            fields.forEach(attribute -> {
+                sqlBuilder.append(fieldColumnMapper.get(attribute));
+                sqlBuilder.append(" = ?, ");
+            });
+            
+            where.forEach(attribute -> {
+                whereBuilder.append(" and ");
+                whereBuilder.append(fieldColumnMapper.get(attribute));
+                whereBuilder.append(" = ? ");
+            });
+            
+            return sqlBuilder.substring(0, sqlBuilder.length() - 2) + whereBuilder.toString();
         });
         
-        where.forEach(attribute -> {
-            whereBuilder.append(" and ");
-            whereBuilder.append(fieldColumnMapper.get(attribute));
-            whereBuilder.append(" = ? ");
+        final List<Object> values = Lists.newArrayListWithCapacity(fields.size() + where.size());
+        for (final String attribute : fields) {
             values.add(entity.attributeValue(attribute));
-        });
+        }
+        
+        for (final String attribute : where) {
+            values.add(entity.attributeValue(attribute));
+        }
         
-        return SQLScript.create(createUpdateSQL(sqlBuilder, whereBuilder), values);
+        return SQLScript.create(sql, values);
     }
     
-    private String createUpdateSQL(final StringBuilder sqlBuilder, final StringBuilder whereBuilder) {
-        return sqlBuilder.substring(0, sqlBuilder.length() - 2) + whereBuilder.toString();
+    private String createDeleteSQL(final List<String> where) {
+        return sqlTemplate(templateKey("delete", null, where), () -> {
+            final StringBuilder sqlBuilder = new StringBuilder("delete from ");
+            sqlBuilder.append(tableName);
+            sqlBuilder.append(" where 1 = 1 ");
+            where.forEach(attribute -> {
+                sqlBuilder.append("and ");
+                sqlBuilder.append(fieldColumnMapper.get(attribute));
+                sqlBuilder.append(" = ? ");
+            });
+            
+            return sqlBuilder.toString();
+        });
     }
     
     protected SQLScript createDeleteStatement(final T entity, final List<String> where) {
         Assert.notNull(entity);
         Assert.notEmpty(where);
-        final List<Object> values = Lists.newArrayList();
-        final StringBuilder sqlBuilder = new StringBuilder("delete from ");
-        sqlBuilder.append(tableName);
-        sqlBuilder.append(" where 1 = 1 ");
-        where.forEach(attribute -> {
-            sqlBuilder.append("and ");
-            sqlBuilder.append(fieldColumnMapper.get(attribute));
-            sqlBuilder.append(" = ? ");
+        final List<Object> values = Lists.newArrayListWithCapacity(where.size());
+        for (final String attribute : where) {
             values.add(entity.attributeValue(attribute));
-        });
+        }
         
-        return SQLScript.create(sqlBuilder.toString(), values);
+        return SQLScript.create(createDeleteSQL(where), values);
     }
     
     protected SQLScriptBatch createDeleteBatchStatement(final List<T> entitys, final List<String> where) {
         Assert.notEmpty(entitys);
         Assert.notEmpty(where);
-        final StringBuilder sqlBuilder = new StringBuilder("delete from ");
-        sqlBuilder.append(tableName);
-        sqlBuilder.append(" where 1 = 1 ");
-        where.forEach(attribute -> {
-            sqlBuilder.append("and ");
-            sqlBuilder.append(fieldColumnMapper.get(attribute));
-            sqlBuilder.append(" = ? ");
-        });
-        
-        List<List<Object>> batchValues = Lists.newArrayList();
-        entitys.forEach(entity -> {
-            List<Object> values = Lists.newArrayList();
-            where.forEach(attribute -> values.add(entity.attributeValue(attribute)));
+        final List<List<Object>> batchValues = Lists.newArrayListWithCapacity(entitys.size());
+        for (final T entity : entitys) {
+            final List<Object> values = Lists.newArrayListWithCapacity(where.size());
+            for (final String attribute : where) {
+                values.add(entity.attributeValue(attribute));
+            }
+            
             batchValues.add(values);
-        });
+        }
         
-        return SQLScriptBatch.create(sqlBuilder.toString(), batchValues);
+        return SQLScriptBatch.create(createDeleteSQL(where), batchValues);
+    }
+    
+    /**
+     * 
+     * @param <R> 返回值类型
+     */
+    @FunctionalInterface
+    protected interface SQLCallable<R> {
+        R call() throws SQLException;
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.nanoframework.commons.entity.BaseEntity;
+import org.nanoframework.commons.entity.EntityException;
+import org.nanoframework.commons.entity.EntityMetadata;
+import org.nanoframework.commons.format.ClassCast;
+import org.nanoframework.commons.format.TypeConverter;
+import org.nanoframework.orm.jdbc.cursor.RowMapper;
+
+import com.google.common.collect.Lists;
+
+/**
+ * 实体类行映射，按列索引读取与属性类型一致的值并直接赋值，不再经过按列名缓存的SortedMap及按类型名的类型转换.
+ * 映射按(实体类, 查询结果的列结构)缓存，同一结构的查询共享映射.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ * @param <T> 实体类型
+ */
+public final class EntityRowMapper<T extends BaseEntity> implements RowMapper<T> {
+    /** 每个实体类缓存的列结构数量上限，超出后不再缓存新的映射. */
+    private static final int MAX_SHAPES = 256;
+
+    private static final ClassValue<ConcurrentMap<String, EntityRowMapper<?>>> MAPPERS = new ClassValue<ConcurrentMap<String, EntityRowMapper<?>>>() {
+        @Override
+        protected ConcurrentMap<String, EntityRowMapper<?>> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Constructor<T> constructor;
+    private final int[] indexes;
+    private final ColumnReader[] readers;
+    private final EntityMetadata.Property[] properties;
+
+    private EntityRowMapper(final Class<T> entity, final Map<String, Field> columnMapper, final ResultSetMetaData metaData) throws SQLException {
+        try {
+            this.constructor = entity.getDeclaredConstructor();
+            if (!constructor.isAccessible()) {
+                constructor.setAccessible(true);
+            }
+        } catch (final NoSuchMethodException e) {
+            throw new EntityException(e.getMessage(), e);
+        }
+
+        final EntityMetadata metadata = EntityMetadata.of(entity);
+        final List<Integer> indexes = Lists.newArrayList();
+        final List<ColumnReader> readers = Lists.newArrayList();
+        final List<EntityMetadata.Property> properties = Lists.newArrayList();
+        for (int idx = 1, count = metaData.getColumnCount(); idx <= count; idx++) {
+            Field field = columnMapper.get(metaData.getColumnLabel(idx));
+            if (field == null) {
+                field = columnMapper.get(metaData.getColumnName(idx));
+            }
+
+            if (field != null) {
+                final EntityMetadata.Property property = metadata.property(field.getName());
+                if (property != null && property.getSetter() != null) {
+                    indexes.add(idx);
+                    readers.add(reader(field.getType()));
+                    properties.add(property);
+                }
+            }
+        }
+
+        this.indexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        this.readers = readers.toArray(new ColumnReader[readers.size()]);
+        this.properties = properties.toArray(new EntityMetadata.Property[properties.size()]);
+    }
+
+    /**
+     *
+     * @param <T> 实体类型
+     * @param entity 实体类
+     * @param columnMapper 列名与属性的映射
+     * @param metaData 查询结果的元数据
+     * @return 行映射
+     * @throws SQLException 读取元数据异常
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseEntity> EntityRowMapper<T> of(final Class<T> entity, final Map<String, Field> columnMapper,
+            final ResultSetMetaData metaData) throws SQLException {
+        final String shape = shape(metaData);
+        final ConcurrentMap<String, EntityRowMapper<?>> mappers = MAPPERS.get(entity);
+        EntityRowMapper<T> mapper = (EntityRowMapper<T>) mappers.get(shape);
+        if (mapper == null) {
+            mapper = new EntityRowMapper<>(entity, columnMapper, metaData);
+            if (mappers.size() < MAX_SHAPES) {
+                final EntityRowMapper<T> exists = (EntityRowMapper<T>) mappers.putIfAbsent(shape, mapper);
+                if (exists != null) {
+                    mapper = exists;
+                }
+            }
+        }
+
+        return mapper;
+    }
+
+    private static String shape(final ResultSetMetaData metaData) throws SQLException {
+        final StringBuilder builder = new StringBuilder();
+        for (int idx = 1, count = metaData.getColumnCount(); idx <= count; idx++) {
+            builder.append(metaData.getColumnLabel(idx)).append(':').append(metaData.getColumnName(idx)).append(',');
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public T map(final ResultSet rs, final int rowNum) throws SQLException {
+        final T bean;
+        try {
+            bean = constructor.newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new EntityException(e.getMessage(), e);
+        }
+
+        for (int idx = 0; idx < indexes.length; idx++) {
+            final Object value = readers[idx].read(rs, indexes[idx]);
+            try {
+                properties[idx].assign(bean, value);
+            } catch (final Throwable e) {
+                throw new EntityException(e.getMessage(), e);
+            }
+        }
+
+        return bean;
+    }
+
+    /**
+     * 按属性类型选择结果集的读取方法，其它类型读取为Object后按 {@link EntityMetadata.Property#set(Object, Object)} 的规则转换.
+     */
+    private static ColumnReader reader(final Class<?> type) {
+        if (type == Long.class) {
+            return (rs, idx) -> {
+                final long value = rs.getLong(idx);
+                return rs.wasNull() ? null : value;
+            };
+        } else if (type == long.class) {
+            return ResultSet::getLong;
+        } else if (type == Integer.class) {
+            return (rs, idx) -> {
+                final int value = rs.getInt(idx);
+                return rs.wasNull() ? null : value;
+            };
+        } else if (type == int.class) {
+            return ResultSet::getInt;
+        } else if (type == Double.class) {
+            return (rs, idx) -> {
+                final double value = rs.getDouble(idx);
+                return rs.wasNull() ? null : value;
+            };
+        } else if (type == double.class) {
+            return ResultSet::getDouble;
+        } else if (type == Float.class) {
+            return (rs, idx) -> {
+                final float value = rs.getFloat(idx);
+                return rs.wasNull() ? null : value;
+            };
+        } else if (type == float.class) {
+            return ResultSet::getFloat;
+        } else if (type == String.class) {
+            return ResultSet::getString;
+        } else if (type == BigDecimal.class) {
+            return ResultSet::getBigDecimal;
+        } else if (type == Timestamp.class) {
+            return ResultSet::getTimestamp;
+        } else if (type == Date.class) {
+            return ResultSet::getDate;
+        }
+
+        final TypeConverter converter = ClassCast.converter(type);
+        return (rs, idx) -> converter.convert(rs.getObject(idx));
+    }
+
+    /**
+     * 按列索引读取当前行的值.
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int idx) throws SQLException;
+    }
+}
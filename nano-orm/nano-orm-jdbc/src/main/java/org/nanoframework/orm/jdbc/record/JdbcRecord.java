@@ -18,12 +18,8 @@ package org.nanoframework.orm.jdbc.record;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 
-import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.nanoframework.commons.entity.BaseEntity;
 import org.nanoframework.commons.util.CollectionUtils;
 import org.nanoframework.orm.jdbc.jstl.Result;
@@ -86,7 +82,7 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
     
     @Override
     public List<T> select(final SQLScript select) throws SQLException {
-        return toBeans(manager.executeQuery(select.sql, select.values).getRows());
+        return queryCachedBeans(select);
     }
     
     @Override
@@ -123,16 +119,15 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
         return selectOne(SQLScript.create(sql, values));
     }
     
-    @SuppressWarnings("unchecked")
     @Override
     public T selectOne(final SQLScript select) throws SQLException {
-        final SortedMap<?, ?>[] rows = manager.executeQuery(select.sql, select.values).getRows();
-        if (!ArrayUtils.isEmpty(rows)) {
-            if (rows.length > 1) {
-                throw new MultiRecordException("单条查询返回多条结果集: " + rows.length);
+        final List<T> beans = queryCachedBeans(select);
+        if (!beans.isEmpty()) {
+            if (beans.size() > 1) {
+                throw new MultiRecordException("单条查询返回多条结果集: " + beans.size());
             }
             
-            return toBean((Map<String, Object>) rows[0]);
+            return beans.get(0);
         }
         
         return null;
@@ -165,7 +160,7 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
     
     @Override
     public long selectCount(final SQLScript select) throws SQLException {
-        final Result result = manager.executeQuery(select.sql, select.values);
+        final Result result = withOptions(select.options, () -> manager.executeQuery(select.sql, select.values));
         if (result.getRowCount() > 0) {
             final String label = result.getColumnLabels()[0];
             return (long) result.getRows()[0].get(label);
@@ -187,17 +182,26 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
     
     @Override
     public int insert(final SQLScript insert) throws SQLException {
-        return manager.executeUpdate(insert.sql, insert.values);
+        try {
+            return withOptions(insert.options, () -> manager.executeUpdate(insert.sql, insert.values));
+        } finally {
+            invalidateCache();
+        }
     }
     
     @Override
     public int[] insertBatch(final List<T> entitys) throws SQLException {
-        return insertBatch(createInsertBatchStatement(entitys));
+        final SQLScriptBatch insertBatch = createInsertBatchStatement(entitys);
+        if (rewriteBatchInsert) {
+            return executeInsertRows(insertBatch);
+        }
+        
+        return insertBatch(insertBatch);
     }
     
     @Override
     public int[] insertBatch(final SQLScriptBatch insertBatch) throws SQLException {
-        return manager.executeBatchUpdate(insertBatch.sql, insertBatch.batchValues);
+        return executeBatch(insertBatch);
     }
     
     @Override
@@ -219,7 +223,11 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
     
     @Override
     public int update(final SQLScript update) throws SQLException {
-        return manager.executeUpdate(update.sql, update.values);
+        try {
+            return withOptions(update.options, () -> manager.executeUpdate(update.sql, update.values));
+        } finally {
+            invalidateCache();
+        }
     }
     
     @Override
@@ -228,35 +236,9 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
             return new int[0];
         }
         
-        boolean managedSessionStarted = false;
-        if (!manager.isManagedSessionStarted()) {
-            managedSessionStarted = true;
-            manager.startManagedSession(false);
-        }
-        
-        try {
-            final int[] rets = new int[entitys.size()];
-            for(int idx = 0, length = entitys.size(); idx < length; idx++) {
-                rets[idx] = update(entitys.get(idx));
-            }
-            
-            if (managedSessionStarted) {
-                manager.commit();
-            }
-            
-            return rets;
-        } catch (final Throwable e) {
-            if (managedSessionStarted) {
-                manager.rollback();
-            }
-            
-            throw e;
-        } finally {
-            if (managedSessionStarted) {
-                manager.close();
-            }
-        }
-        
+        final Set<String> fields = Sets.newLinkedHashSet(fieldColumnMapper.keySet());
+        fields.remove(idField);
+        return updateBatch(entitys, Lists.newArrayList(fields), Lists.newArrayList(idField));
     }
     
     @Override
@@ -270,23 +252,17 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
             return new int[0];
         }
         
-        final StringBuilder sqlBuilder = new StringBuilder();
-        final List<List<Object>> batchValues = Lists.newArrayList();
-        entitys.forEach(entity -> {
-            final SQLScript script = createUpdateStatement(entity, fields, where);
-            if (StringUtils.isEmpty(sqlBuilder)) {
-                sqlBuilder.append(script.sql);
-            }
-            
-            batchValues.add(script.values);
-        });
+        final List<SQLScript> scripts = Lists.newArrayListWithCapacity(entitys.size());
+        for (final T entity : entitys) {
+            scripts.add(createUpdateStatement(entity, fields, where));
+        }
         
-        return updateBatch(SQLScriptBatch.create(sqlBuilder.toString(), batchValues));
+        return executeBatch(scripts);
     }
     
     @Override
     public int[] updateBatch(final SQLScriptBatch updateBatch) throws SQLException {
-        return manager.executeBatchUpdate(updateBatch.sql, updateBatch.batchValues);
+        return executeBatch(updateBatch);
     }
     
     @Override
@@ -306,7 +282,11 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
     
     @Override
     public int delete(final SQLScript delete) throws SQLException {
-        return manager.executeUpdate(delete.sql, delete.values);
+        try {
+            return withOptions(delete.options, () -> manager.executeUpdate(delete.sql, delete.values));
+        } finally {
+            invalidateCache();
+        }
     }
     
     @Override
@@ -326,6 +306,6 @@ public class JdbcRecord<T extends BaseEntity> extends AbstractJdbcRecord<T> impl
     
     @Override
     public int[] delete(final SQLScriptBatch delete) throws SQLException {
-        return manager.executeBatchUpdate(delete.sql, delete.batchValues);
+        return executeBatch(delete);
     }
 }
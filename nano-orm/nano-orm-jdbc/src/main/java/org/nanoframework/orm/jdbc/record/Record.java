@@ -76,6 +76,17 @@ public interface Record<T> {
 
     int insert(SQLScript insert) throws SQLException;
 
+    /**
+     * 批量插入实体.
+     * 开启多行VALUES改写(context.jdbc.record.batch-rewrite-insert)时，返回值不是每行的实际更新行数:
+     * 每批插入的行数与批次行数一致时每行为1，否则为 {@link java.sql.Statement#SUCCESS_NO_INFO}.
+     * 需要JDBC批量执行返回的更新行数时，通过AbstractJdbcRecord.setRewriteBatchInsert(false)关闭当前Record的改写，
+     * {@link #insertBatch(SQLScriptBatch)} 不做改写.
+     * 
+     * @param entitys 实体列表
+     * @return 每个实体的执行结果
+     * @throws SQLException 执行异常
+     */
     int[] insertBatch(List<T> entitys) throws SQLException;
     
     int[] insertBatch(SQLScriptBatch insertBatch) throws SQLException;
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体缓存，声明在@Table实体类上，开启后JdbcRecord的查询结果按查询语句及参数缓存在进程内.
+ * 同一数据源的同一实体类共享缓存，通过JdbcRecord执行的insert/update/delete(含批量)会使缓存失效，
+ * 绕过JdbcRecord的写入(JdbcManager直接执行、其他进程)及外部事务提交前被其他线程读取的旧数据只能等待过期，
+ * 适用于很少变更的引用数据.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@Target({ ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cacheable {
+    /**
+     * 
+     * @return 最大缓存数量
+     */
+    int maximumSize() default 1024;
+
+    /**
+     * 
+     * @return 写入后的过期时间(秒)，小于等于0时不过期
+     */
+    long expireAfterWrite() default 300;
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * JdbcRecord实体缓存，容量及写入后过期时间有界，按W-TinyLFU淘汰:
+ * 新缓存先进入容量1%的窗口LRU，溢出窗口的候选者与主区(SLRU: 20%试用区, 80%保护区)试用区最久未使用者比较
+ * {@link FrequencySketch} 估算的访问频率，频率低者被淘汰. 少量热点数据不会被一次性的扫描查询冲掉.
+ * 
+ * 缓存通过对象锁同步，适用于读多写少的引用数据. 每次失效递增版本号，查询前获取版本号，
+ * 写入缓存时版本号已变化说明查询期间发生过写入，不再缓存该查询结果.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class EntityCache implements EntityCacheMXBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityCache.class);
+    private static final ConcurrentMap<String, EntityCache> CACHES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final long expireAfterWriteNanos;
+    private final Map<Object, Node> data;
+    private final FrequencySketch sketch;
+    private final Queue window = new Queue();
+    private final Queue probation = new Queue();
+    private final Queue protectedQueue = new Queue();
+
+    private long generation;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /**
+     *
+     * @param name 缓存名称
+     * @param maximumSize 最大缓存数量
+     * @param expireAfterWrite 写入后的过期时间(秒)，小于等于0时不过期
+     */
+    public EntityCache(final String name, final int maximumSize, final long expireAfterWrite) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize必须大于0");
+        }
+
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 4 / 5;
+        this.expireAfterWriteNanos = expireAfterWrite > 0 ? TimeUnit.SECONDS.toNanos(expireAfterWrite) : 0;
+        this.data = Maps.newHashMapWithExpectedSize(Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * 获取数据源实体类的共享缓存，不存在时创建并注册MXBean: {@value EntityCacheMXBean#OBJECT_NAME_PREFIX}数据源名称:实体类名.
+     *
+     * @param envId 数据源名称
+     * @param entity 实体类
+     * @param maximumSize 最大缓存数量
+     * @param expireAfterWrite 写入后的过期时间(秒)
+     * @return 实体缓存
+     */
+    public static EntityCache of(final String envId, final Class<?> entity, final int maximumSize, final long expireAfterWrite) {
+        return CACHES.computeIfAbsent(envId + ':' + entity.getName(), name -> register(new EntityCache(name, maximumSize, expireAfterWrite)));
+    }
+
+    /**
+     *
+     * @param envId 数据源名称
+     * @param entity 实体类
+     * @return 实体缓存，未开启缓存时返回null
+     */
+    public static EntityCache get(final String envId, final Class<?> entity) {
+        return CACHES.get(envId + ':' + entity.getName());
+    }
+
+    /**
+     * 清空所有实体缓存，数据源重新初始化时调用.
+     */
+    public static void clearAll() {
+        CACHES.values().forEach(EntityCache::invalidateAll);
+    }
+
+    private static EntityCache register(final EntityCache cache) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(cache.name));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(cache, name);
+            }
+        } catch (final Throwable e) {
+            LOGGER.warn("Register MXBean [ {}{} ] failure: {}", OBJECT_NAME_PREFIX, cache.name, e.getMessage());
+        }
+
+        return cache;
+    }
+
+    /**
+     *
+     * @param key 缓存键
+     * @return 缓存值，不存在或已过期时返回null
+     */
+    public synchronized Object get(final Object key) {
+        final Node node = data.get(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+
+        if (expireAfterWriteNanos > 0 && System.nanoTime() - node.writeTime >= expireAfterWriteNanos) {
+            remove(node);
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        sketch.increment(key);
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     *
+     * @return 当前版本号，用于 {@link #put(Object, Object, long)}
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * 写入缓存.
+     *
+     * @param key 缓存键
+     * @param value 缓存值
+     * @param generation 查询前获取的版本号
+     * @return 查询期间缓存已失效时返回false，不写入缓存
+     */
+    public synchronized boolean put(final Object key, final Object value, final long generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+
+        sketch.increment(key);
+        final Node exists = data.get(key);
+        if (exists != null) {
+            exists.value = value;
+            exists.writeTime = System.nanoTime();
+            onAccess(exists);
+            return true;
+        }
+
+        final Node node = new Node(key, value);
+        data.put(key, node);
+        window.add(node);
+
+        Node candidate = null;
+        if (window.size > windowMaximum) {
+            candidate = window.first();
+            window.remove(candidate);
+            probation.add(candidate);
+        }
+
+        while (data.size() > maximumSize) {
+            evict(candidate);
+            candidate = null;
+        }
+
+        return true;
+    }
+
+    public synchronized void invalidate(final Object key) {
+        final Node node = data.get(key);
+        generation++;
+        if (node != null) {
+            remove(node);
+            invalidationCount++;
+        }
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidationCount += data.size();
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    private void onAccess(final Node node) {
+        if (node.queue == probation) {
+            probation.remove(node);
+            protectedQueue.add(node);
+            if (protectedQueue.size > protectedMaximum) {
+                final Node demoted = protectedQueue.first();
+                protectedQueue.remove(demoted);
+                probation.add(demoted);
+            }
+        } else {
+            node.queue.moveToTail(node);
+        }
+    }
+
+    /**
+     * 淘汰试用区最久未使用者与溢出窗口的候选者中访问频率较低的一个.
+     */
+    private void evict(final Node candidate) {
+        Node victim = probation.first();
+        if (victim == null || victim == candidate) {
+            victim = protectedQueue.first();
+        }
+
+        if (victim == null) {
+            victim = window.first();
+        }
+
+        if (candidate != null && victim != null && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            victim = candidate;
+        }
+
+        remove(victim == null ? candidate : victim);
+        evictionCount++;
+    }
+
+    private void remove(final Node node) {
+        data.remove(node.key);
+        node.queue.remove(node);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return data.size();
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public long getExpireAfterWriteSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(expireAfterWriteNanos);
+    }
+
+    @Override
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized double getHitRate() {
+        final long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    @Override
+    public synchronized void resetStats() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+        invalidationCount = 0;
+    }
+
+    private static final class Node {
+        private final Object key;
+        private Object value;
+        private long writeTime = System.nanoTime();
+        private Queue queue;
+        private Node prev;
+        private Node next;
+
+        private Node(final Object key, final Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 按访问顺序排列的双向链表，头部为最久未使用.
+     */
+    private static final class Queue {
+        private Node head;
+        private Node tail;
+        private int size;
+
+        private Node first() {
+            return head;
+        }
+
+        private void add(final Node node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+
+            tail = node;
+            size++;
+        }
+
+        private void remove(final Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            size--;
+        }
+
+        private void moveToTail(final Node node) {
+            if (node != tail) {
+                remove(node);
+                add(node);
+            }
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record.cache;
+
+/**
+ * 4位计数的Count-Min Sketch，估算缓存键的近期访问频率.
+ * 累计记录次数达到样本数量后所有计数减半，使频率随时间衰减.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     *
+     * @param maximumSize 最大缓存数量
+     */
+    FrequencySketch(final int maximumSize) {
+        final int capacity = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = capacity * 10;
+    }
+
+    /**
+     *
+     * @param key 缓存键
+     * @return 估算的访问频率(0~15)
+     */
+    int frequency(final Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = offsetOf(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+
+        return frequency;
+    }
+
+    void increment(final Object key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = offsetOf(hash, i);
+            final long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+
+        size >>>= 1;
+    }
+
+    private int indexOf(final int hash, final int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /**
+     * 每个long保存16个4位计数，每个哈希函数使用其中的一个计数.
+     */
+    private int offsetOf(final int hash, final int i) {
+        return (((hash >>> (i << 3)) & 3) << 2 | i) << 2;
+    }
+
+    private static int spread(final int hashCode) {
+        int h = hashCode * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -18,6 +18,7 @@ package org.nanoframework.orm.jdbc.record.script;
 import java.util.List;
 
 import org.nanoframework.commons.entity.BaseEntity;
+import org.nanoframework.orm.jdbc.binding.StatementOptions;
 
 /**
  *
@@ -29,14 +30,39 @@ public class SQLScript extends BaseEntity {
 
     public final String sql;
     public final List<Object> values;
+    /** 执行此语句时使用的Statement选项，为null时使用Record或数据源的默认值. */
+    public final StatementOptions options;
 
-    private SQLScript(final String sql, final List<Object> values) {
+    private SQLScript(final String sql, final List<Object> values, final StatementOptions options) {
         this.sql = sql;
         this.values = values;
+        this.options = options;
     }
 
     public static SQLScript create(final String sql, final List<Object> values) {
-        return new SQLScript(sql, values);
+        return new SQLScript(sql, values, null);
+    }
+
+    /**
+     * 
+     * @param sql SQL
+     * @param values 参数
+     * @param options Statement选项
+     * @return SQLScript
+     * @since 1.4.11
+     */
+    public static SQLScript create(final String sql, final List<Object> values, final StatementOptions options) {
+        return new SQLScript(sql, values, options);
+    }
+
+    /**
+     * 
+     * @param options Statement选项
+     * @return 使用指定选项的新SQLScript
+     * @since 1.4.11
+     */
+    public SQLScript options(final StatementOptions options) {
+        return new SQLScript(sql, values, options);
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jdbc.pool.PoolMetrics;
+
+/**
+ * 读副本，记录进行中的请求数及连续获取连接失败次数.
+ * 连续失败次数达到阈值后在摘除时长内不再被选择，摘除到期后的首次获取连接作为探测，失败时立即再次摘除.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class Replica {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Replica.class);
+
+    private final String envId;
+    private final DataSource dataSource;
+    private final int weight;
+    private final int failureThreshold;
+    private final long ejectMillis;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean ejected;
+    private volatile long ejectedUntil;
+
+    Replica(final String envId, final DataSource dataSource, final int weight, final int failureThreshold, final long ejectMillis) {
+        this.envId = envId;
+        this.dataSource = dataSource;
+        this.weight = weight;
+        this.failureThreshold = failureThreshold;
+        this.ejectMillis = ejectMillis;
+    }
+
+    /**
+     * 获取连接，成功时进行中请求数加1，使用完毕后需调用 {@link #release()}.
+     *
+     * @return 连接，获取失败时返回null
+     */
+    public Connection connect() {
+        outstanding.incrementAndGet();
+        try {
+            final Connection conn = PoolMetrics.connect(envId, dataSource);
+            if (conn == null) {
+                throw new SQLException("DataSource returned null connection");
+            }
+
+            succeed();
+            return conn;
+        } catch (final Throwable e) {
+            outstanding.decrementAndGet();
+            fail(e);
+            return null;
+        }
+    }
+
+    /**
+     * 连接使用完毕，进行中请求数减1.
+     */
+    public void release() {
+        outstanding.decrementAndGet();
+    }
+
+    private void succeed() {
+        failures.set(0);
+        if (ejected) {
+            ejected = false;
+            LOGGER.info("Replica [ {} ] recovered", envId);
+        }
+    }
+
+    private void fail(final Throwable cause) {
+        LOGGER.warn("Replica [ {} ] connect failure: {}", envId, cause.getMessage());
+        if (ejected || failures.incrementAndGet() >= failureThreshold) {
+            failures.set(0);
+            ejected = true;
+            ejectedUntil = System.currentTimeMillis() + ejectMillis;
+            LOGGER.warn("Replica [ {} ] ejected for {}ms", envId, ejectMillis);
+        }
+    }
+
+    /**
+     *
+     * @param now 当前时间(毫秒)
+     * @return 未被摘除或摘除已到期时返回true
+     */
+    public boolean isAvailable(final long now) {
+        return !ejected || now >= ejectedUntil;
+    }
+
+    public String getEnvId() {
+        return envId;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+}
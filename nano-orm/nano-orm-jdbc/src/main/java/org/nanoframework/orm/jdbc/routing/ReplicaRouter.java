@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.routing;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.nanoframework.commons.util.Assert;
+
+/**
+ * 主库的读副本集合，为未开启Session的读操作选择可用的读副本.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ReplicaRouter {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final long DEFAULT_EJECT_MILLIS = 30000;
+
+    private final RoutingStrategy strategy;
+    private final int failureThreshold;
+    private final long ejectMillis;
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReplicaRouter(final RoutingStrategy strategy) {
+        this(strategy, DEFAULT_FAILURE_THRESHOLD, DEFAULT_EJECT_MILLIS);
+    }
+
+    /**
+     *
+     * @param strategy 读副本选择策略
+     * @param failureThreshold 连续获取连接失败次数达到此值后摘除读副本
+     * @param ejectMillis 摘除时长(毫秒)
+     */
+    public ReplicaRouter(final RoutingStrategy strategy, final int failureThreshold, final long ejectMillis) {
+        Assert.notNull(strategy);
+        Assert.isTrue(failureThreshold > 0, "failureThreshold must be greater than 0");
+        Assert.isTrue(ejectMillis >= 0, "ejectMillis must not be negative");
+        this.strategy = strategy;
+        this.failureThreshold = failureThreshold;
+        this.ejectMillis = ejectMillis;
+    }
+
+    /**
+     *
+     * @param envId 读副本数据源名称
+     * @param dataSource 读副本数据源
+     * @param weight 权重
+     * @return 读副本
+     */
+    public Replica add(final String envId, final DataSource dataSource, final int weight) {
+        Assert.notNull(dataSource);
+        Assert.isTrue(weight > 0, "weight must be greater than 0");
+        final Replica replica = new Replica(envId, dataSource, weight, failureThreshold, ejectMillis);
+        replicas.add(replica);
+        return replica;
+    }
+
+    /**
+     *
+     * @return 可用的读副本，没有可用的读副本时返回null
+     */
+    public Replica select() {
+        final int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+
+        final long now = System.currentTimeMillis();
+        switch (strategy) {
+            case WEIGHTED_ROUND_ROBIN:
+                return weightedRoundRobin(now);
+            default:
+                return leastOutstanding(now, size);
+        }
+    }
+
+    /**
+     * 从轮询位置开始查找，进行中请求数与权重之比相同时依次选择不同的读副本.
+     */
+    private Replica leastOutstanding(final long now, final int size) {
+        final int start = Math.floorMod(sequence.getAndIncrement(), size);
+        Replica selected = null;
+        for (int idx = 0; idx < size; idx++) {
+            final Replica replica = replicas.get((start + idx) % size);
+            if (replica.isAvailable(now) && (selected == null
+                    || (long) replica.getOutstanding() * selected.getWeight() < (long) selected.getOutstanding() * replica.getWeight())) {
+                selected = replica;
+            }
+        }
+
+        return selected;
+    }
+
+    private Replica weightedRoundRobin(final long now) {
+        int total = 0;
+        for (final Replica replica : replicas) {
+            if (replica.isAvailable(now)) {
+                total += replica.getWeight();
+            }
+        }
+
+        if (total == 0) {
+            return null;
+        }
+
+        int position = Math.floorMod(sequence.getAndIncrement(), total);
+        for (final Replica replica : replicas) {
+            if (replica.isAvailable(now)) {
+                position -= replica.getWeight();
+                if (position < 0) {
+                    return replica;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public RoutingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.routing;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 读副本选择策略.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public enum RoutingStrategy {
+    /** 选择进行中请求数与权重之比最小的副本. */
+    LEAST_OUTSTANDING("least-outstanding"),
+    /** 按权重轮询. */
+    WEIGHTED_ROUND_ROBIN("weighted-round-robin");
+
+    private final String value;
+
+    RoutingStrategy(final String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     *
+     * @param value 策略名称，不区分大小写，可使用枚举名或配置名
+     * @return 策略，value为空时返回LEAST_OUTSTANDING
+     */
+    public static RoutingStrategy of(final String value) {
+        if (StringUtils.isBlank(value)) {
+            return LEAST_OUTSTANDING;
+        }
+
+        for (final RoutingStrategy strategy : values()) {
+            if (strategy.value.equalsIgnoreCase(value.trim()) || strategy.name().equalsIgnoreCase(value.trim())) {
+                return strategy;
+            }
+        }
+
+        throw new IllegalArgumentException("无效的读副本选择策略: " + value);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.commons.util.ResourceUtils;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.cursor.Cursor;
+import org.nanoframework.orm.jdbc.cursor.RowMapper;
+import org.nanoframework.orm.jdbc.jstl.Result;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcCursorTest {
+    private static final String TEST = "test";
+    private static final int ROWS = 5000;
+    private static final String SQL = "select id, username from users where id > ? order by id";
+
+    private JdbcManager manager;
+
+    @Before
+    public void init() throws FileNotFoundException, SQLException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        JdbcAdapter.newInstance(Lists.newArrayList(new DruidJdbcConfig(prop)), PoolType.DRUID, this.getClass());
+        System.setProperty(Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER_PROPERTY, "true");
+        manager = GlobalJdbcManager.get(TEST);
+        manager.execute("drop all objects");
+        manager.execute("runscript from '" + ResourceUtils.getURL("classpath:test-schema.sql") + '\'');
+        manager.executeUpdate("insert into users (username, password, email) select concat('user', x), 'password', 'email' from system_range(1, "
+                + ROWS + ")");
+    }
+
+    @Test
+    public void handlerTest() throws SQLException {
+        final AtomicLong sum = new AtomicLong();
+        final int rows = manager.executeQuery(SQL, Lists.newArrayList(2), 100, rs -> sum.addAndGet(rs.getLong("id")));
+        Assert.assertEquals(rows, ROWS);
+        Assert.assertEquals(sum.get(), (long) (3 + ROWS + 2) * ROWS / 2);
+    }
+
+    @Test
+    public void cursorTest() throws SQLException {
+        final Cursor<Map<String, Object>> cursor = manager.executeCursor(SQL, Lists.newArrayList(0), RowMapper.columnMap());
+        try {
+            Assert.assertTrue(cursor.hasNext());
+            Assert.assertTrue(cursor.hasNext());
+            final Map<String, Object> first = cursor.next();
+            Assert.assertEquals(first.get("USERNAME"), "admin");
+            Assert.assertEquals(first.get("username"), "admin");
+
+            int rows = 1;
+            while (cursor.hasNext()) {
+                cursor.next();
+                rows++;
+            }
+
+            Assert.assertEquals(rows, ROWS + 2);
+            Assert.assertEquals(cursor.getRowNumber(), ROWS + 2);
+            Assert.assertTrue(cursor.isClosed());
+        } finally {
+            cursor.close();
+        }
+
+        try {
+            cursor.next();
+            Assert.fail();
+        } catch (final NoSuchElementException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void streamTest() throws SQLException {
+        try (final Stream<String> names = manager.executeCursor(SQL, Lists.newArrayList(0), (rs, rowNum) -> rs.getString(2)).stream()) {
+            Assert.assertEquals(names.filter(name -> name.startsWith("user")).count(), ROWS);
+        }
+    }
+
+    @Test
+    public void releaseTest() throws SQLException {
+        // 连接池最大连接数为5，提前关闭的游标需要释放连接，否则后续查询无法获取连接
+        for (int idx = 0; idx < 10; idx++) {
+            try (final Cursor<Long> cursor = manager.executeCursor(SQL, Lists.newArrayList(0), (rs, rowNum) -> rs.getLong(1))) {
+                Assert.assertEquals(cursor.next().longValue(), 1L);
+            }
+        }
+
+        manager.startManagedSession();
+        try {
+            try (final Cursor<Long> cursor = manager.executeCursor(SQL, Lists.newArrayList(0), (rs, rowNum) -> rs.getLong(1))) {
+                Assert.assertEquals(cursor.next().longValue(), 1L);
+            }
+
+            Assert.assertEquals(manager.executeQuery("select count(*) from users").getRowsByIndex()[0][0], Long.valueOf(ROWS + 2));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().shutdown();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.commons.util.ResourceUtils;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.domain.CachedUser;
+import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.record.JdbcRecord;
+import org.nanoframework.orm.jdbc.record.cache.EntityCache;
+import org.nanoframework.orm.jdbc.record.cache.EntityCacheMXBean;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcEntityCacheTest {
+    private static final String TEST = "test";
+    private JdbcManager manager;
+    private JdbcRecord<CachedUser> record;
+    private EntityCache cache;
+
+    @Before
+    public void init() throws FileNotFoundException, SQLException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        JdbcAdapter.newInstance(Lists.newArrayList(new DruidJdbcConfig(prop)), PoolType.DRUID, this.getClass());
+        System.setProperty(Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER_PROPERTY, "true");
+        manager = GlobalJdbcManager.get(TEST);
+        manager.execute("drop all objects");
+        manager.execute("runscript from '" + ResourceUtils.getURL("classpath:test-schema.sql") + '\'');
+
+        record = new JdbcRecord<CachedUser>(TEST) {
+        };
+
+        cache = record.getCache();
+        cache.resetStats();
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().shutdown();
+    }
+
+    @Test
+    public void hitTest() throws SQLException {
+        final CachedUser user = record.selectOne(new String[] { "id" }, 1L);
+        Assert.assertEquals(user.getUsername(), "admin");
+        user.setUsername("changed");
+
+        manager.executeUpdate("update users set username = ? where id = ?", Lists.newArrayList("bypass", 1L));
+        final CachedUser cached = record.selectOne(new String[] { "id" }, 1L);
+        Assert.assertEquals(cached.getUsername(), "admin");
+        Assert.assertNotSame(cached, user);
+        Assert.assertEquals(cache.getHitCount(), 1);
+        Assert.assertEquals(cache.getMissCount(), 1);
+
+        Assert.assertEquals(record.select().size(), 2);
+        Assert.assertEquals(record.select().size(), 2);
+        Assert.assertEquals(cache.getHitCount(), 2);
+        Assert.assertEquals(cache.getSize(), 2);
+    }
+
+    @Test
+    public void invalidateTest() throws SQLException {
+        final CachedUser user = record.selectOne(new String[] { "id" }, 1L);
+        Assert.assertEquals(record.select().size(), 2);
+
+        user.setUsername("updated");
+        Assert.assertEquals(record.update(user), 1);
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(record.selectOne(new String[] { "id" }, 1L).getUsername(), "updated");
+
+        final List<CachedUser> users = record.select();
+        users.forEach(u -> u.setEmail(u.getUsername() + "@batch.com"));
+        record.updateBatch(users);
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(record.selectOne(new String[] { "id" }, 2L).getEmail(), "admin1@batch.com");
+
+        record.delete(record.selectOne(new String[] { "id" }, 2L));
+        Assert.assertEquals(record.select().size(), 1);
+        Assert.assertNull(record.selectOne(new String[] { "id" }, 2L));
+    }
+
+    @Test
+    public void sessionTest() throws SQLException {
+        manager.startManagedSession(false);
+        try {
+            record.selectOne(new String[] { "id" }, 1L);
+        } finally {
+            manager.rollback();
+            manager.close();
+        }
+
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(cache.getMissCount(), 0);
+    }
+
+    @Test
+    public void sessionWriteTest() throws Exception {
+        final CachedUser user = record.selectOne(new String[] { "id" }, 1L);
+        manager.startManagedSession(false);
+        try {
+            user.setUsername("updated");
+            Assert.assertEquals(record.update(user), 1);
+
+            // 提交前其他线程的非Session查询读到旧数据并写入缓存
+            final CachedUser uncommitted = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return record.selectOne(new String[] { "id" }, 1L);
+                } catch (final SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(uncommitted.getUsername(), "admin");
+            Assert.assertEquals(cache.getSize(), 1);
+            manager.commit();
+        } finally {
+            manager.close();
+        }
+
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(record.selectOne(new String[] { "id" }, 1L).getUsername(), "updated");
+    }
+
+    @Test
+    public void jmxTest() throws Exception {
+        final ObjectName name = new ObjectName(EntityCacheMXBean.OBJECT_NAME_PREFIX + ObjectName.quote(cache.getName()));
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        record.select();
+        Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Size"), 1);
+        Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "MaximumSize"), 16);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.commons.util.ResourceUtils;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.ExecutionListener.Operation;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.metrics.JdbcMetrics;
+import org.nanoframework.orm.jdbc.metrics.JdbcMetricsMXBean;
+import org.nanoframework.orm.jdbc.metrics.StatementMetrics;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcManagerTest {
+    private static final String TEST = "test";
+    private final List<Operation> operations = Lists.newCopyOnWriteArrayList();
+    private final List<Throwable> errors = Lists.newCopyOnWriteArrayList();
+    private JdbcManager manager;
+
+    @Before
+    public void init() throws FileNotFoundException, SQLException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        JdbcAdapter.newInstance(Lists.newArrayList(new DruidJdbcConfig(prop)), PoolType.DRUID, this.getClass());
+        manager = GlobalJdbcManager.get(TEST);
+        manager.execute("drop all objects");
+        manager.execute("runscript from '" + ResourceUtils.getURL("classpath:test-schema.sql") + '\'');
+        manager.addExecutionListener((envId, operation, sql, elapsedNanos, error) -> {
+            Assert.assertEquals(envId, TEST);
+            Assert.assertTrue(elapsedNanos > 0);
+            operations.add(operation);
+            if (error != null) {
+                errors.add(error);
+            }
+        });
+    }
+
+    @Test
+    public void listenerTest() throws SQLException {
+        Assert.assertEquals(manager.executeQuery("select * from users").getRowCount(), 2);
+        Assert.assertEquals(manager.executeUpdate("update users set status = ? where id = ?", Lists.newArrayList(0, 1)), 1);
+        final List<List<Object>> batchValues = Lists.newArrayList();
+        batchValues.add(Lists.newArrayList(0, 2));
+        Assert.assertArrayEquals(manager.executeBatchUpdate("update users set status = ? where id = ?", batchValues), new int[] { 1 });
+        manager.executeCursor("select * from users", null, (rs, rowNum) -> rs.getLong(1)).close();
+        Assert.assertEquals(operations, Lists.newArrayList(Operation.QUERY, Operation.UPDATE, Operation.BATCH, Operation.CURSOR));
+        Assert.assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void metricsTest() throws Exception {
+        final StatementMetrics statement = JdbcMetrics.instance().statement(TEST, "select * from users where id = ?");
+        final long count = statement.getCount();
+        final long rows = statement.getRows();
+        Assert.assertEquals(manager.executeQuery("select * from users where id = ?", Lists.newArrayList(1)).getRowCount(), 1);
+        Assert.assertEquals(statement.getCount(), count + 1);
+        Assert.assertEquals(statement.getRows(), rows + 1);
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(JdbcMetricsMXBean.OBJECT_NAME)));
+    }
+
+    @Test
+    public void commitTest() throws SQLException {
+        // 数据源为非自动提交，未开启Session时写操作执行后提交
+        manager.executeUpdate("update users set username = ? where id = ?", Lists.newArrayList("nano", 1));
+        Assert.assertEquals(manager.executeQuery("select username from users where id = ?", Lists.newArrayList(1)).getRowsByIndex()[0][0], "nano");
+    }
+
+    @Test
+    public void errorTest() {
+        try {
+            manager.executeQuery("select * from not_exists");
+            Assert.fail();
+        } catch (final SQLException e) {
+            Assert.assertEquals(errors.size(), 1);
+            Assert.assertSame(errors.get(0), e);
+        }
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().shutdown();
+    }
+}
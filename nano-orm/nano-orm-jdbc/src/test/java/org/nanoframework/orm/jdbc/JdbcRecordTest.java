@@ -282,6 +282,35 @@ public class JdbcRecordTest {
         }
     }
     
+    @Test
+    public void batchChunkTest() throws SQLException {
+        final JdbcRecord<User> jdbcRecord = (JdbcRecord<User>) record;
+        jdbcRecord.setBatchSize(2);
+        final List<User> users = users(5);
+
+        Assert.assertArrayEquals(record.insertBatch(users), new int[] { 1, 1, 1, 1, 1 });
+
+        final List<User> inserted = record.select("select * from users where username like 'user%' order by id");
+        inserted.forEach(user -> user.setDeleted(1));
+        Assert.assertArrayEquals(record.updateBatch(inserted), new int[] { 1, 1, 1, 1, 1 });
+        Assert.assertEquals(record.selectCount(new String[] { "deleted" }, 1), 5);
+
+        Assert.assertArrayEquals(record.deleteBatch(inserted), new int[] { 1, 1, 1, 1, 1 });
+        Assert.assertEquals(record.selectCount(), 2);
+    }
+    
+    @Test
+    public void rewriteInsertBatchTest() throws SQLException {
+        final JdbcRecord<User> jdbcRecord = (JdbcRecord<User>) record;
+        jdbcRecord.setBatchSize(3);
+        jdbcRecord.setRewriteBatchInsert(true);
+        final List<User> users = users(7);
+
+        Assert.assertArrayEquals(record.insertBatch(users), new int[] { 1, 1, 1, 1, 1, 1, 1 });
+        Assert.assertEquals(record.selectCount(), 9);
+        Assert.assertEquals(record.select("select * from users where username = ?", "user6").get(0).getEmail(), "6");
+    }
+    
     @Test
     public void selectCountTest() throws SQLException {
         final long count = record.selectCount();
@@ -294,6 +323,23 @@ public class JdbcRecordTest {
         Assert.assertEquals(count, 1);
     }
     
+    private List<User> users(final int size) {
+        final List<User> users = Lists.newArrayList();
+        for (int idx = 0; idx < size; idx++) {
+            final User user = new User();
+            user.setUsername("user" + idx);
+            user.setPassword(String.valueOf(idx));
+            user.setEmail(String.valueOf(idx));
+            user.setStatus(1);
+            user.setLocked(0);
+            user.setActivate(0);
+            user.setDeleted(0);
+            users.add(user);
+        }
+
+        return users;
+    }
+    
     @After
     public void destroy() {
         JdbcAdapter.adapter().shutdown();
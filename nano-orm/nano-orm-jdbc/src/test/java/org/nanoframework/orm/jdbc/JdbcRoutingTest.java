@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.config.JdbcConfig;
+import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.routing.Replica;
+import org.nanoframework.orm.jdbc.routing.RoutingStrategy;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * 主库route及读副本route0、route1分别使用独立的H2内存数据库，node表记录数据库名称.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcRoutingTest {
+    private static final String PRIMARY = "route";
+    private static final String NODE_SQL = "select name from node";
+    private JdbcManager manager;
+
+    @Before
+    public void init() throws FileNotFoundException, SQLException {
+        System.setProperty(Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER_PROPERTY, "true");
+        final List<JdbcConfig> configs = Lists.newArrayList(config(PRIMARY, null, 1), config("route0", PRIMARY, 3), config("route1", PRIMARY, 1));
+        JdbcAdapter.newInstance(configs, PoolType.DRUID, this.getClass());
+        for (final JdbcConfig config : configs) {
+            final JdbcManager node = GlobalJdbcManager.get(config.getEnvironmentId());
+            node.execute("drop all objects");
+            node.execute("create table node (name varchar(32))");
+            node.executeUpdate("insert into node values ('" + config.getEnvironmentId() + "')");
+        }
+
+        manager = GlobalJdbcManager.get(PRIMARY);
+    }
+
+    private JdbcConfig config(final String envId, final String replicaOf, final int weight) throws FileNotFoundException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        prop.setProperty("JDBC.environment.id", envId);
+        prop.setProperty("JDBC.url", "jdbc:h2:mem:" + envId + ";MODE=MYSQL;DB_CLOSE_DELAY=-1");
+        prop.setProperty("JDBC.replica.weight", String.valueOf(weight));
+        prop.setProperty("JDBC.replica.strategy", "weighted-round-robin");
+        if (replicaOf != null) {
+            prop.setProperty("JDBC.replica.of", replicaOf);
+        }
+
+        return new DruidJdbcConfig(prop);
+    }
+
+    private String node() throws SQLException {
+        return (String) manager.executeQuery(NODE_SQL).getRowsByIndex()[0][0];
+    }
+
+    @Test
+    public void readFromReplicaTest() throws SQLException {
+        Assert.assertEquals(manager.getReplicaRouter().getStrategy(), RoutingStrategy.WEIGHTED_ROUND_ROBIN);
+        final Map<String, Integer> counts = Maps.newHashMap();
+        for (int idx = 0; idx < 8; idx++) {
+            counts.merge(node(), 1, Integer::sum);
+        }
+
+        Assert.assertEquals(counts.get("route0"), Integer.valueOf(6));
+        Assert.assertEquals(counts.get("route1"), Integer.valueOf(2));
+
+        final List<String> cursorNodes = Lists.newArrayList();
+        manager.executeCursor(NODE_SQL, null, (rs, rowNum) -> rs.getString(1)).forEachRemaining(cursorNodes::add);
+        Assert.assertNotEquals(cursorNodes.get(0), PRIMARY);
+        for (final Replica replica : manager.getReplicaRouter().getReplicas()) {
+            Assert.assertEquals(replica.getOutstanding(), 0);
+        }
+    }
+
+    @Test
+    public void writeToPrimaryTest() throws SQLException {
+        Assert.assertEquals(manager.executeUpdate("update node set name = ?", Lists.newArrayList("updated")), 1);
+        Assert.assertEquals(GlobalJdbcManager.get(PRIMARY).getReplicaRouter().getReplicas().size(), 2);
+        Assert.assertEquals(GlobalJdbcManager.get("route0").executeQuery(NODE_SQL).getRowsByIndex()[0][0], "route0");
+
+        manager.startManagedSession(false);
+        try {
+            Assert.assertEquals(node(), "updated");
+        } finally {
+            manager.rollback();
+            manager.close();
+        }
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().shutdown();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.commons.util.ResourceUtils;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.domain.User;
+import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.record.JdbcRecord;
+import org.nanoframework.orm.jdbc.record.Record;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcStatementCacheTest {
+    private static final String TEST = "test";
+    private JdbcManager manager;
+    private Connection conn;
+
+    @Before
+    public void init() throws FileNotFoundException, SQLException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        JdbcAdapter.newInstance(Lists.newArrayList(new DruidJdbcConfig(prop)), PoolType.DRUID, this.getClass());
+        System.setProperty(Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER_PROPERTY, "true");
+        manager = GlobalJdbcManager.get(TEST);
+        manager.execute("drop all objects");
+        manager.execute("runscript from '" + ResourceUtils.getURL("classpath:test-schema.sql") + '\'');
+        conn = JdbcAdapter.adapter().getConnection(TEST);
+    }
+
+    @Test
+    public void cacheTest() throws SQLException {
+        final JdbcAdapter adapter = JdbcAdapter.adapter();
+        Assert.assertEquals(adapter.cachedStatementSize(conn), -1);
+        adapter.enableStatementCache(conn);
+        try {
+            for (int idx = 0; idx < 3; idx++) {
+                Assert.assertEquals(adapter.executeUpdate("update users set status = ? where id = ?", Lists.newArrayList(idx, 1), conn), 1);
+                final Result result = adapter.executeQuery("select status from users where id = ?", Lists.newArrayList(1), conn);
+                Assert.assertEquals(((Number) result.getRowsByIndex()[0][0]).intValue(), idx);
+            }
+
+            final List<List<Object>> batchValues = Lists.newArrayList();
+            batchValues.add(Lists.newArrayList(5, 1));
+            batchValues.add(Lists.newArrayList(6, 2));
+            Assert.assertArrayEquals(adapter.executeBatchUpdate("update users set status = ? where id = ?", batchValues, conn), new int[] { 1, 1 });
+            Assert.assertArrayEquals(adapter.executeBatchUpdate("update users set status = ? where id = ?", batchValues.subList(0, 1), conn),
+                    new int[] { 1 });
+            Assert.assertEquals(adapter.cachedStatementSize(conn), 2);
+        } finally {
+            adapter.disableStatementCache(conn);
+        }
+
+        Assert.assertEquals(adapter.cachedStatementSize(conn), -1);
+        Assert.assertEquals(adapter.executeUpdate("update users set status = ? where id = ?", Lists.newArrayList(1, 1), conn), 1);
+    }
+
+    @Test
+    public void lruTest() throws SQLException {
+        final JdbcAdapter adapter = JdbcAdapter.adapter();
+        adapter.enableStatementCache(conn);
+        try {
+            for (int idx = 0; idx < StatementCache.MAX_SIZE + 10; idx++) {
+                adapter.executeQuery("select " + idx + " from users where id = ?", Lists.newArrayList(1), conn);
+            }
+
+            Assert.assertEquals(adapter.cachedStatementSize(conn), StatementCache.MAX_SIZE);
+        } finally {
+            adapter.disableStatementCache(conn);
+        }
+    }
+
+    @Test
+    public void managedSessionTest() throws SQLException {
+        final Record<User> record = new JdbcRecord<User>(TEST) {
+        };
+
+        manager.startManagedSession(false);
+        try {
+            for (int idx = 0; idx < 10; idx++) {
+                final User user = record.selectOne(new String[] { "id" }, 1L);
+                user.setStatus(idx);
+                Assert.assertEquals(record.update(user), 1);
+            }
+
+            manager.commit();
+        } finally {
+            manager.close();
+        }
+
+        Assert.assertEquals(record.selectOne(new String[] { "id" }, 1L).getStatus(), Integer.valueOf(9));
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().close(conn);
+        JdbcAdapter.adapter().shutdown();
+    }
+}
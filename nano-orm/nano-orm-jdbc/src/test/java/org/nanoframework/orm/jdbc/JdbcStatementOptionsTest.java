@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.commons.util.ResourceUtils;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.binding.QueryOptions;
+import org.nanoframework.orm.jdbc.binding.QueryOptionsMethodInterceptor;
+import org.nanoframework.orm.jdbc.binding.StatementOptions;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.domain.User;
+import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.record.JdbcRecord;
+import org.nanoframework.orm.jdbc.record.script.SQLScript;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcStatementOptionsTest {
+    private static final String TEST = "test";
+    private static final String SELECT_USERS = "select * from users";
+    private JdbcManager manager;
+
+    @Before
+    public void init() throws FileNotFoundException, SQLException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        prop.setProperty("JDBC.defaultStatementTimeout", "1");
+        JdbcAdapter.newInstance(Lists.newArrayList(new DruidJdbcConfig(prop)), PoolType.DRUID, this.getClass());
+        System.setProperty(Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER_PROPERTY, "true");
+        manager = GlobalJdbcManager.get(TEST);
+        manager.execute("drop all objects");
+        manager.execute("runscript from '" + ResourceUtils.getURL("classpath:test-schema.sql") + '\'');
+    }
+
+    @Test
+    public void defaultsTest() {
+        final StatementOptions options = manager.getStatementOptions();
+        Assert.assertEquals(options.getQueryTimeout(), Integer.valueOf(1));
+        Assert.assertNull(options.getFetchSize());
+        Assert.assertEquals(options.getMaxRows(), Integer.valueOf(0));
+    }
+
+    @Test
+    public void scopeTest() throws SQLException {
+        try (final StatementOptions.Scope outer = StatementOptions.of(null, null, 1).open()) {
+            Assert.assertEquals(manager.executeQuery(SELECT_USERS).getRowCount(), 1);
+            try (final StatementOptions.Scope inner = StatementOptions.of(5, null, null).open()) {
+                Assert.assertEquals(StatementOptions.current().getQueryTimeout(), Integer.valueOf(5));
+                Assert.assertEquals(StatementOptions.current().getMaxRows(), Integer.valueOf(1));
+            }
+
+            Assert.assertNull(StatementOptions.current().getQueryTimeout());
+        }
+
+        Assert.assertNull(StatementOptions.current());
+        Assert.assertEquals(manager.executeQuery(SELECT_USERS).getRowCount(), 2);
+    }
+
+    @Test
+    public void recordOptionsTest() throws SQLException {
+        final UserRecord record = new UserRecord();
+        Assert.assertEquals(record.select(SELECT_USERS).size(), 1);
+        Assert.assertEquals(record.select(SQLScript.create(SELECT_USERS, null, StatementOptions.of(null, null, 0))).size(), 2);
+
+        // 同一Session中复用的PreparedStatement恢复为不限制行数
+        manager.startManagedSession(false);
+        try {
+            Assert.assertEquals(record.select(SELECT_USERS).size(), 1);
+            Assert.assertEquals(manager.executeQuery(SELECT_USERS, null).getRowCount(), 2);
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void timeoutTest() throws SQLException {
+        final long start = System.currentTimeMillis();
+        try {
+            manager.executeQuery("select count(*) from system_range(1, 100000) a, system_range(1, 100000) b", null);
+            Assert.fail();
+        } catch (final SQLException e) {
+            Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+        }
+
+        // 超时后连接已释放
+        for (int idx = 0; idx < 10; idx++) {
+            Assert.assertEquals(manager.executeQuery(SELECT_USERS).getRowCount(), 2);
+        }
+    }
+
+    @Test
+    public void interceptorTest() throws Throwable {
+        final QueryOptionsMethodInterceptor interceptor = new QueryOptionsMethodInterceptor();
+        final Method method = UserService.class.getMethod("maxRows");
+
+        // 方法继承自未注解的父类时，使用实例类型上的注解
+        Assert.assertEquals(interceptor.invoke(invocation(new LimitedUserService(), method)), Integer.valueOf(1));
+        Assert.assertNull(StatementOptions.current());
+
+        // 没有注解时不开启Scope
+        Assert.assertNull(interceptor.invoke(invocation(new UserService(), method)));
+    }
+
+    private MethodInvocation invocation(final Object instance, final Method method) {
+        return new MethodInvocation() {
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+
+            @Override
+            public Object[] getArguments() {
+                return new Object[0];
+            }
+
+            @Override
+            public Object proceed() throws Throwable {
+                return method.invoke(instance);
+            }
+
+            @Override
+            public Object getThis() {
+                return instance;
+            }
+
+            @Override
+            public AccessibleObject getStaticPart() {
+                return method;
+            }
+        };
+    }
+
+    public static class UserService {
+        public Integer maxRows() {
+            final StatementOptions options = StatementOptions.current();
+            return options == null ? null : options.getMaxRows();
+        }
+    }
+
+    @QueryOptions(maxRows = 1)
+    public static class LimitedUserService extends UserService {
+    }
+
+    @QueryOptions(maxRows = 1)
+    private static class UserRecord extends JdbcRecord<User> {
+        UserRecord() {
+            super(TEST);
+        }
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.commons.loader.PropertiesLoader;
+import org.nanoframework.commons.util.ResourceUtils;
+import org.nanoframework.orm.PoolType;
+import org.nanoframework.orm.jdbc.binding.GlobalJdbcManager;
+import org.nanoframework.orm.jdbc.binding.JdbcManager;
+import org.nanoframework.orm.jdbc.config.DruidJdbcConfig;
+import org.nanoframework.orm.jdbc.jstl.Result;
+import org.nanoframework.orm.jdbc.pool.PoolMetrics;
+import org.nanoframework.orm.jdbc.pool.PoolMetricsMXBean;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class PoolMetricsTest {
+    private static final String TEST = "test";
+
+    private PoolMetrics init(final Properties prop) throws FileNotFoundException, SQLException {
+        JdbcAdapter.newInstance(Lists.newArrayList(new DruidJdbcConfig(prop)), PoolType.DRUID, this.getClass());
+        System.setProperty(Result.JDBC_JSTL_CASE_INSENSITIVE_ORDER_PROPERTY, "true");
+        final JdbcManager manager = GlobalJdbcManager.get(TEST);
+        manager.execute("drop all objects");
+        manager.execute("runscript from '" + ResourceUtils.getURL("classpath:test-schema.sql") + '\'');
+        final PoolMetrics metrics = JdbcAdapter.adapter().getPoolMetrics(TEST);
+        metrics.reset();
+        return metrics;
+    }
+
+    @After
+    public void destroy() {
+        JdbcAdapter.adapter().shutdown();
+    }
+
+    @Test
+    public void gaugesTest() throws FileNotFoundException, SQLException {
+        final PoolMetrics metrics = init(PropertiesLoader.load("/jdbc-test.properties"));
+        Assert.assertEquals(metrics.getMaxActive(), 5);
+        Assert.assertEquals(metrics.getActive(), 0);
+
+        final Connection conn = JdbcAdapter.adapter().getConnection(TEST);
+        try {
+            Assert.assertEquals(metrics.getActive(), 1);
+            Assert.assertEquals(metrics.getWaiting(), 0);
+            Assert.assertEquals(metrics.getAcquireCount(), 1);
+        } finally {
+            JdbcAdapter.adapter().close(conn);
+        }
+
+        Assert.assertEquals(metrics.getActive(), 0);
+        Assert.assertTrue(metrics.getIdle() > 0);
+        Assert.assertTrue(metrics.getAcquireWaitMax() >= metrics.getAcquireWaitMean());
+    }
+
+    @Test
+    public void leakDetectionTest() throws FileNotFoundException, SQLException, InterruptedException {
+        final PoolMetrics metrics = init(PropertiesLoader.load("/jdbc-test.properties"));
+        metrics.setLeakDetectionMillis(1);
+        final Connection conn = JdbcAdapter.adapter().getConnection(TEST);
+        try {
+            Thread.sleep(10);
+            Assert.assertEquals(metrics.getLeaks().size(), 1);
+            Assert.assertTrue(metrics.getLeaks().get(0).contains("leakDetectionTest"));
+        } finally {
+            JdbcAdapter.adapter().close(conn);
+        }
+
+        Assert.assertTrue(metrics.getLeaks().isEmpty());
+        metrics.setLeakDetectionMillis(0);
+    }
+
+    @Test
+    public void timeoutTest() throws FileNotFoundException, SQLException {
+        final Properties prop = PropertiesLoader.load("/jdbc-test.properties");
+        prop.setProperty("druid.maxActive", "1");
+        prop.setProperty("druid.maxWait", "100");
+        final PoolMetrics metrics = init(prop);
+        final Connection conn = JdbcAdapter.adapter().getConnection(TEST);
+        try {
+            Assert.assertNull(JdbcAdapter.adapter().getConnection(TEST));
+            Assert.assertEquals(metrics.getAcquireFailures(), 1);
+            Assert.assertEquals(metrics.getAcquireTimeouts(), 1);
+        } finally {
+            JdbcAdapter.adapter().close(conn);
+        }
+    }
+
+    @Test
+    public void jmxTest() throws Exception {
+        init(PropertiesLoader.load("/jdbc-test.properties"));
+        final ObjectName name = new ObjectName(PoolMetricsMXBean.OBJECT_NAME_PREFIX + TEST);
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "MaxActive"), 5);
+
+        JdbcAdapter.adapter().shutdown();
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        Assert.assertNull(PoolMetrics.get(TEST));
+
+        init(PropertiesLoader.load("/jdbc-test.properties"));
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.orm.jdbc.binding.ExecutionListener.Operation;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class JdbcMetricsTest {
+
+    @Test
+    public void normalizeTest() {
+        Assert.assertEquals(SqlNormalizer.normalize("select  *\n from users where id = 1 and name = 'it''s' and t1.col2 = ?"),
+                "select * from users where id = ? and name = ? and t1.col2 = ?");
+        Assert.assertEquals(SqlNormalizer.normalize("select * from users where id in (?, ?,?) limit 10"), "select * from users where id in (?) limit ?");
+        Assert.assertEquals(SqlNormalizer.normalize("insert into users (id, name) values (?, ?), (?, ?), (?, ?)"),
+                "insert into users (id, name) values (?)");
+        Assert.assertEquals(SqlNormalizer.normalize("select -1.5e3, x1 from t"), "select -?, x1 from t");
+    }
+
+    @Test
+    public void recordTest() {
+        final JdbcMetrics metrics = new JdbcMetrics();
+        metrics.setSlowQueryMillis(50);
+        metrics.executed("test", Operation.QUERY, "select * from users where id = 1", Lists.newArrayList(), 1, TimeUnit.MILLISECONDS.toNanos(2), null);
+        metrics.executed("test", Operation.QUERY, "select * from users where id = 2", null, 1, TimeUnit.MILLISECONDS.toNanos(4), null);
+        metrics.executed("test", Operation.QUERY, "select * from users where id = 3", null, -1, TimeUnit.MILLISECONDS.toNanos(60),
+                new SQLException("timeout"));
+        metrics.executed("test", Operation.UPDATE, "update users set status = ?", TimeUnit.MILLISECONDS.toNanos(1), null);
+
+        Assert.assertEquals(metrics.getStatementSize(), 2);
+        Assert.assertEquals(metrics.getSlowQueryCount(), 1);
+        final List<StatementSnapshot> statements = metrics.getStatements();
+        final StatementSnapshot select = statements.get(0);
+        Assert.assertEquals(select.getSql(), "select * from users where id = ?");
+        Assert.assertEquals(select.getCount(), 3);
+        Assert.assertEquals(select.getErrors(), 1);
+        Assert.assertEquals(select.getRows(), 2);
+        Assert.assertEquals(select.getMax(), 60000);
+        Assert.assertEquals(statements.get(1).getRows(), 0);
+
+        Assert.assertEquals(JSON.parseArray(metrics.dumpJson()).getJSONObject(0).getString("sql"), select.getSql());
+        metrics.reset();
+        Assert.assertEquals(metrics.getStatementSize(), 0);
+    }
+
+    @Test
+    public void overflowTest() {
+        final JdbcMetrics metrics = new JdbcMetrics();
+        for (int idx = 0; idx < JdbcMetrics.MAX_STATEMENTS + 10; idx++) {
+            metrics.executed("test", Operation.QUERY, "select c" + idx + " from users", 0, null);
+        }
+
+        Assert.assertEquals(metrics.getStatementSize(), JdbcMetrics.MAX_STATEMENTS + 1);
+        Assert.assertEquals(metrics.statement("test", "select c9999 from users").getSql(), JdbcMetrics.OTHER_SQL);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketTest() {
+        for (long micros = 0; micros < 1 << 20; micros += 7) {
+            final int index = LatencyHistogram.index(micros);
+            final long upper = LatencyHistogram.upperBound(index);
+            Assert.assertTrue(micros <= upper);
+            Assert.assertTrue(upper - micros <= Math.max(1, micros / 8));
+            if (index > 0) {
+                Assert.assertTrue(micros > LatencyHistogram.upperBound(index - 1));
+            }
+        }
+
+        Assert.assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(1L << 62));
+    }
+
+    @Test
+    public void percentileTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(histogram.percentile(99), 0);
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        Assert.assertEquals(histogram.getCount(), 100);
+        Assert.assertEquals(histogram.getMax(), 100000);
+        Assert.assertEquals(histogram.getMean(), 50500);
+        assertNear(histogram.percentile(50), 50000);
+        assertNear(histogram.percentile(90), 90000);
+        assertNear(histogram.percentile(99), 99000);
+        Assert.assertEquals(histogram.percentile(100), 100000);
+
+        histogram.reset();
+        Assert.assertEquals(histogram.getCount(), 0);
+        Assert.assertEquals(histogram.getMax(), 0);
+    }
+
+    private void assertNear(final long actual, final long expected) {
+        Assert.assertTrue(actual + " < " + expected, actual >= expected);
+        Assert.assertTrue(actual + " > " + expected, actual <= expected + expected / 8);
+    }
+}
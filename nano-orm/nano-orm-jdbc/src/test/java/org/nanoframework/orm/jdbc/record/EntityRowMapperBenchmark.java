@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.nanoframework.orm.jdbc.domain.User;
+import org.nanoframework.orm.jdbc.jstl.ResultSupport;
+import org.nanoframework.orm.jdbc.record.annotation.Column;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * 查询结果映射为实体的吞吐量(rows/s)对比：ResultImpl + toBean(legacy)与EntityRowMapper(mapper).
+ * 数据为H2内存库中的users表，每次调用读取 {@link #ROWS} 行.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityRowMapperBenchmark {
+    private static final int ROWS = 1000;
+    private static final String SQL = "select * from users";
+
+    private Connection conn;
+    private PreparedStatement pstmt;
+    private Map<String, Field> columnMapper;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:benchmark;MODE=MYSQL", "test", "test");
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute("create table users (id bigint primary key, username varchar(32), password char(32), password_salt varchar(256), "
+                    + "email varchar(64), status tinyint(1), locked tinyint(1), activate tinyint(1), create_time timestamp, "
+                    + "modify_time timestamp, deleted tinyint(1))");
+            stmt.execute("insert into users select x, concat('user', x), 'd578068f36c539d4ebd7c8a8cb6971aa', 'salt', concat('user', x, '@example.com'), "
+                    + "1, 0, 1, current_timestamp, current_timestamp, 0 from system_range(1, " + ROWS + ")");
+        }
+
+        pstmt = conn.prepareStatement(SQL);
+        columnMapper = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+        for (final Field field : User.class.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Column.class)) {
+                columnMapper.put(field.getAnnotation(Column.class).value(), field);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        pstmt.close();
+        conn.close();
+    }
+
+    /**
+     * 与1.4.11之前的JdbcRecord.select相同：ResultImpl缓存每行的SortedMap，再按列名查找属性并通过setAttributeValue赋值.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<User> legacy() throws SQLException {
+        try (final ResultSet rs = pstmt.executeQuery()) {
+            final List<User> users = Lists.newArrayList();
+            for (final SortedMap<?, ?> row : ResultSupport.toResult(rs).getRows()) {
+                final User user = new User();
+                row.forEach((key, value) -> {
+                    final Field field = columnMapper.get(key);
+                    if (field != null) {
+                        user.setAttributeValue(field.getName(), value);
+                    }
+                });
+
+                users.add(user);
+            }
+
+            return users;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<User> mapper() throws SQLException {
+        try (final ResultSet rs = pstmt.executeQuery()) {
+            final EntityRowMapper<User> mapper = EntityRowMapper.of(User.class, columnMapper, rs.getMetaData());
+            final List<User> users = Lists.newArrayList();
+            int rowNum = 0;
+            while (rs.next()) {
+                users.add(mapper.map(rs, ++rowNum));
+            }
+
+            return users;
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EntityRowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
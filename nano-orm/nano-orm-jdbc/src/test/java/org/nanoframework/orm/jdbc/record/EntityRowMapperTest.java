@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.orm.jdbc.domain.User;
+import org.nanoframework.orm.jdbc.record.annotation.Column;
+
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class EntityRowMapperTest {
+    private Connection conn;
+    private Map<String, Field> columnMapper;
+
+    @Before
+    public void init() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:mapper;MODE=MYSQL", "test", "test");
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute("create table users (id bigint primary key, username varchar(32), status tinyint(1), create_time timestamp)");
+            stmt.execute("insert into users values (1, 'admin', 1, '2016-05-31 15:00:00'), (2, null, null, null)");
+        }
+
+        columnMapper = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+        for (final Field field : User.class.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Column.class)) {
+                columnMapper.put(field.getAnnotation(Column.class).value(), field);
+            }
+        }
+    }
+
+    @Test
+    public void mapTest() throws SQLException {
+        try (final Statement stmt = conn.createStatement(); final ResultSet rs = stmt.executeQuery("select * from users order by id")) {
+            final EntityRowMapper<User> mapper = EntityRowMapper.of(User.class, columnMapper, rs.getMetaData());
+            Assert.assertTrue(rs.next());
+            final User admin = mapper.map(rs, 1);
+            Assert.assertEquals(admin.getId(), Long.valueOf(1));
+            Assert.assertEquals(admin.getUsername(), "admin");
+            Assert.assertEquals(admin.getStatus(), Integer.valueOf(1));
+            Assert.assertEquals(admin.getCreateTime().getTime(), Timestamp.valueOf("2016-05-31 15:00:00").getTime());
+
+            Assert.assertTrue(rs.next());
+            final User empty = mapper.map(rs, 2);
+            Assert.assertEquals(empty.getId(), Long.valueOf(2));
+            Assert.assertNull(empty.getUsername());
+            Assert.assertNull(empty.getStatus());
+            Assert.assertNull(empty.getCreateTime());
+        }
+    }
+
+    @Test
+    public void shapeTest() throws SQLException {
+        try (final Statement stmt = conn.createStatement()) {
+            final EntityRowMapper<User> mapper;
+            try (final ResultSet rs = stmt.executeQuery("select id, username from users")) {
+                mapper = EntityRowMapper.of(User.class, columnMapper, rs.getMetaData());
+            }
+
+            try (final ResultSet rs = stmt.executeQuery("select id, username from users where id = 1")) {
+                Assert.assertSame(EntityRowMapper.of(User.class, columnMapper, rs.getMetaData()), mapper);
+            }
+
+            try (final ResultSet rs = stmt.executeQuery("select id as username, username as email from users where id = 1")) {
+                Assert.assertNotSame(EntityRowMapper.of(User.class, columnMapper, rs.getMetaData()), mapper);
+                Assert.assertTrue(rs.next());
+                final User user = EntityRowMapper.of(User.class, columnMapper, rs.getMetaData()).map(rs, 1);
+                Assert.assertNull(user.getId());
+                Assert.assertEquals(user.getUsername(), "1");
+                Assert.assertEquals(user.getEmail(), "admin");
+            }
+        }
+    }
+
+    @After
+    public void destroy() throws SQLException {
+        conn.close();
+    }
+}
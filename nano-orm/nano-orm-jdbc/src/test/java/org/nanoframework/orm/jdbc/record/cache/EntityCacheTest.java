@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.record.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class EntityCacheTest {
+
+    @Test
+    public void frequencyAdmissionTest() {
+        final EntityCache cache = new EntityCache("test", 100, 0);
+        for (int i = 0; i < 100; i++) {
+            cache.put("hot" + i, i, cache.generation());
+        }
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                Assert.assertNotNull(cache.get("hot" + i));
+            }
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("scan" + i, i, cache.generation());
+        }
+
+        int hot = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("hot" + i) != null) {
+                hot++;
+            }
+        }
+
+        Assert.assertEquals(cache.getSize(), 100);
+        Assert.assertTrue("hot entries kept: " + hot, hot >= 95);
+        Assert.assertEquals(cache.getEvictionCount(), 1000);
+    }
+
+    @Test
+    public void generationTest() {
+        final EntityCache cache = new EntityCache("test", 10, 0);
+        final long generation = cache.generation();
+        cache.invalidateAll();
+        Assert.assertFalse(cache.put("key", "stale", generation));
+        Assert.assertNull(cache.get("key"));
+
+        Assert.assertTrue(cache.put("key", "value", cache.generation()));
+        Assert.assertEquals(cache.get("key"), "value");
+        cache.invalidate("key");
+        Assert.assertNull(cache.get("key"));
+        Assert.assertEquals(cache.getInvalidationCount(), 1);
+    }
+
+    @Test
+    public void expireTest() throws InterruptedException {
+        final EntityCache cache = new EntityCache("test", 10, 1);
+        cache.put("key", "value", cache.generation());
+        Assert.assertEquals(cache.get("key"), "value");
+        Thread.sleep(1100);
+        Assert.assertNull(cache.get("key"));
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+}
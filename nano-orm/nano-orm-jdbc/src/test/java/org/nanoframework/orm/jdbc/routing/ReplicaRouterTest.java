@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jdbc.routing;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ReplicaRouterTest {
+
+    @Test
+    public void leastOutstandingTest() {
+        final ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING);
+        final Replica first = router.add("first", dataSource(new AtomicBoolean(true)), 1);
+        final Replica second = router.add("second", dataSource(new AtomicBoolean(true)), 1);
+
+        Assert.assertNotNull(first.connect());
+        Assert.assertSame(router.select(), second);
+        Assert.assertSame(router.select(), second);
+        Assert.assertNotNull(second.connect());
+        Assert.assertNotNull(second.connect());
+        Assert.assertSame(router.select(), first);
+
+        first.release();
+        second.release();
+        second.release();
+        Assert.assertEquals(first.getOutstanding(), 0);
+        Assert.assertEquals(second.getOutstanding(), 0);
+    }
+
+    @Test
+    public void ejectionTest() throws InterruptedException {
+        final ReplicaRouter router = new ReplicaRouter(RoutingStrategy.WEIGHTED_ROUND_ROBIN, 2, 50);
+        final AtomicBoolean up = new AtomicBoolean(false);
+        final Replica replica = router.add("replica", dataSource(up), 1);
+
+        Assert.assertNull(replica.connect());
+        Assert.assertSame(router.select(), replica);
+        Assert.assertNull(replica.connect());
+        Assert.assertTrue(replica.isEjected());
+        Assert.assertEquals(replica.getOutstanding(), 0);
+        Assert.assertNull(router.select());
+
+        // 摘除到期后探测失败立即再次摘除
+        Thread.sleep(60);
+        Assert.assertSame(router.select(), replica);
+        Assert.assertNull(replica.connect());
+        Assert.assertNull(router.select());
+
+        Thread.sleep(60);
+        up.set(true);
+        Assert.assertNotNull(replica.connect());
+        Assert.assertFalse(replica.isEjected());
+        replica.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void strategyTest() {
+        Assert.assertEquals(RoutingStrategy.of(null), RoutingStrategy.LEAST_OUTSTANDING);
+        Assert.assertEquals(RoutingStrategy.of("WEIGHTED_ROUND_ROBIN"), RoutingStrategy.WEIGHTED_ROUND_ROBIN);
+        RoutingStrategy.of("random");
+    }
+
+    private DataSource dataSource(final AtomicBoolean up) {
+        final Connection conn = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+            if ("getConnection".equals(method.getName())) {
+                if (!up.get()) {
+                    throw new SQLException("Connection refused");
+                }
+
+                return conn;
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -24,12 +24,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.nanoframework.commons.util.Assert;
 import org.nanoframework.commons.util.CollectionUtils;
+import org.nanoframework.orm.jedis.ScanKeysSpliterator.NodeScanner;
+import org.nanoframework.orm.jedis.cache.NearCache;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
@@ -38,6 +42,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 
@@ -69,9 +74,26 @@ public abstract class AbstractRedisClient implements RedisClient {
      * @since 1.4.10
      */
     public static final ScanParams DEFAULT_SCAN_PARAMS = new ScanParams();
+    /**
+     * 遍历Key时每次SCAN的默认COUNT参数.
+     * @since 1.4.11
+     */
+    public static final int DEFAULT_SCAN_COUNT = 1000;
+
+    /**
+     * 默认的本地缓存订阅连接超时时间.
+     * @since 1.4.11
+     */
+    public static final int DEFAULT_TIMEOUT = 2000;
 
     protected RedisConfig config;
 
+    /**
+     * 本地缓存，未开启时为null.
+     * @since 1.4.11
+     */
+    protected NearCache nearCache;
+
     public AbstractRedisClient(final String type) {
         config = POOL.getRedisConfig(type);
     }
@@ -80,6 +102,110 @@ public abstract class AbstractRedisClient implements RedisClient {
         this.config = config;
     }
 
+    /**
+     * 根据配置开启本地缓存，由实现类在连接初始化完成后调用.
+     * @since 1.4.11
+     */
+    protected void initNearCache() {
+        if (config == null || config.getNearCache() == null || !config.getNearCache()) {
+            return;
+        }
+
+        final Integer timeout = config.getTimeOut();
+        nearCache = new NearCache(config, timeout == null || timeout < 0 ? DEFAULT_TIMEOUT : timeout, new NearCache.Transport() {
+            @Override
+            public List<List<HostAndPort>> endpoints(final boolean keyspace, final String channel) {
+                return nearCacheEndpoints(keyspace, channel);
+            }
+
+            @Override
+            public void publish(final String channel, final String message) {
+                publishInvalidation(channel, message);
+            }
+
+            @Override
+            public long pttl(final String key) {
+                return nearCachePttl(key);
+            }
+        });
+
+        nearCache.start();
+    }
+
+    /**
+     * 本地缓存失效通知的订阅节点.
+     * @param keyspace 是否订阅键空间通知，键空间通知只在写入的节点发布，需订阅所有节点
+     * @param channel 失效通知频道
+     * @return 每组节点使用一个订阅连接
+     * @since 1.4.11
+     */
+    protected List<List<HostAndPort>> nearCacheEndpoints(final boolean keyspace, final String channel) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 发布本地缓存失效通知.
+     * @param channel 失效通知频道
+     * @param message 失效通知
+     * @since 1.4.11
+     */
+    protected abstract void publishInvalidation(String channel, String message);
+
+    /**
+     * channel模式的本地缓存读取Key的剩余生存时间，用于限制本地缓存的过期时间.
+     * @param key Key
+     * @return 剩余生存时间(ms)，未设置过期时间时为-1，Key不存在时为-2
+     * @since 1.4.11
+     */
+    protected abstract long nearCachePttl(String key);
+
+    /**
+     * 
+     * @param key Key
+     * @param field Hash的Field，非Hash时为null
+     * @param loader 从Redis读取
+     * @return 开启本地缓存时优先从本地缓存读取
+     * @since 1.4.11
+     */
+    protected String cached(final String key, final String field, final Supplier<String> loader) {
+        if (nearCache == null) {
+            return loader.get();
+        }
+
+        return nearCache.get(key, field, loader);
+    }
+
+    /**
+     * 写入操作完成后使本地缓存失效.
+     * @param keys 写入的Key
+     * @since 1.4.11
+     */
+    protected void invalidate(final String... keys) {
+        if (nearCache != null) {
+            nearCache.invalidate(keys);
+        }
+    }
+
+    /**
+     * 
+     * @param keys 写入的Key
+     * @since 1.4.11
+     */
+    protected void invalidate(final Collection<String> keys) {
+        if (nearCache != null) {
+            nearCache.invalidate(keys.toArray(new String[keys.size()]));
+        }
+    }
+
+    /**
+     * 
+     * @return 本地缓存，未开启时为null
+     * @since 1.4.11
+     */
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
     /**
      * FastJson Object to JsonString
      * 
@@ -152,6 +278,26 @@ public abstract class AbstractRedisClient implements RedisClient {
         return config;
     }
 
+    @Override
+    public Stream<String> scanKeys(final String pattern, final int count) {
+        return scanKeys(pattern, count, false);
+    }
+
+    @Override
+    public Stream<String> scanKeys(final String pattern, final int count, final boolean parallel) {
+        Assert.hasText(pattern);
+        Assert.isTrue(count > 0, "count must be greater than 0");
+        return ScanKeysSpliterator.stream(keyScanners(new ScanParams().match(pattern).count(count)), parallel);
+    }
+
+    /**
+     * 
+     * @param params SCAN参数
+     * @return 每个需要遍历的节点的SCAN
+     * @since 1.4.11
+     */
+    protected abstract List<NodeScanner> keyScanners(ScanParams params);
+
     protected Map<String, String> info0(final String info) {
         final String[] attributes = info.split("\n");
         final Map<String, String> decodeInfo = Maps.newLinkedHashMap();
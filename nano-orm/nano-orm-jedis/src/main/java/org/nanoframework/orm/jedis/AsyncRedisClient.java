@@ -0,0 +1,261 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.nanoframework.orm.jedis.RedisClient.Mark;
+
+import com.alibaba.fastjson.TypeReference;
+
+/**
+ * 异步RedisClient.
+ * 命令通过自动批量提交的专用连接发送，调用方不等待执行结果，返回值及语义与同步的RedisClient相同.
+ * 执行失败时CompletableFuture以RedisClientException异常完成.
+ * 
+ * 已提交未完成的命令数达到asyncMaxInFlight时，提交方等待其它命令完成，超过timeOut仍无法提交时返回以RedisClientException异常完成的CompletableFuture.
+ * 
+ * CompletableFuture在批量提交线程中完成，直接注册的回调也在该线程中执行，耗时或阻塞的回调应使用thenApplyAsync等方法指定线程池.
+ * 
+ * 仅提供单Key命令，多Key命令可组合多个单Key命令的返回值；阻塞命令(BLPOP、BRPOPLPUSH等)会占用批量提交的连接，不提供异步调用.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public interface AsyncRedisClient {
+
+    /**
+     * @see RedisClient#exists(String)
+     * @param key the key
+     * @return 存在时返回true
+     */
+    CompletableFuture<Boolean> exists(String key);
+
+    /**
+     * 
+     * @param key the key
+     * @return 被删除的Key数量
+     */
+    CompletableFuture<Long> del(String key);
+
+    /**
+     * @see RedisClient#expire(String, int)
+     * @param key the key
+     * @param seconds 过期时间(秒)
+     * @return 设置的Key数量
+     */
+    CompletableFuture<Long> expire(String key, int seconds);
+
+    /**
+     * @see RedisClient#ttl(String)
+     * @param key the key
+     * @return 剩余生存时间(秒)
+     */
+    CompletableFuture<Long> ttl(String key);
+
+    // ==================== Key Value ====================
+
+    /**
+     * @see org.nanoframework.orm.jedis.commands.KeyValueRedisClient#get(String)
+     * @param key the key
+     * @return value
+     */
+    CompletableFuture<String> get(String key);
+
+    <T> CompletableFuture<T> get(String key, TypeReference<T> type);
+
+    /**
+     * 每个Key单独提交，全部完成后合并结果.
+     * @param keys the keys
+     * @return 按keys顺序排列的Key与value
+     */
+    CompletableFuture<Map<String, String>> get(String... keys);
+
+    CompletableFuture<String> getset(String key, String value);
+
+    CompletableFuture<Boolean> set(String key, String value);
+
+    /**
+     * 
+     * @param key the key
+     * @param value 转换为JSON字符串后存入
+     * @return 成功时返回true
+     */
+    CompletableFuture<Boolean> set(String key, Object value);
+
+    CompletableFuture<Boolean> setByNX(String key, String value);
+
+    /**
+     * 使用SET key value NX EX timeout一次完成写入及设置过期时间.
+     * @param key the key
+     * @param value the value
+     * @param timeout 过期时间(秒)
+     * @return Key不存在并写入成功时返回true
+     */
+    CompletableFuture<Boolean> setByNX(String key, String value, int timeout);
+
+    CompletableFuture<Boolean> setByEX(String key, String value, int seconds);
+
+    CompletableFuture<Long> strLen(String key);
+
+    CompletableFuture<Long> incr(String key);
+
+    CompletableFuture<Long> incrBy(String key, long value);
+
+    CompletableFuture<Double> incrByFloat(String key, double value);
+
+    CompletableFuture<Long> decr(String key);
+
+    CompletableFuture<Long> decrBy(String key, long value);
+
+    // ==================== Hash ====================
+
+    CompletableFuture<Long> hdel(String key, String... fields);
+
+    CompletableFuture<Boolean> hexists(String key, String field);
+
+    CompletableFuture<String> hget(String key, String field);
+
+    <T> CompletableFuture<T> hget(String key, String field, TypeReference<T> type);
+
+    /**
+     * 
+     * @param key the key
+     * @param fields the fields
+     * @return 按fields顺序排列的field与value
+     */
+    CompletableFuture<Map<String, String>> hmget(String key, String... fields);
+
+    CompletableFuture<Map<String, String>> hgetAll(String key);
+
+    CompletableFuture<Set<String>> hkeys(String key);
+
+    CompletableFuture<Long> hlen(String key);
+
+    CompletableFuture<Boolean> hset(String key, String field, String value);
+
+    CompletableFuture<Boolean> hset(String key, String field, Object value);
+
+    /**
+     * 
+     * @param key the key
+     * @param map 值转换为JSON字符串后存入
+     * @return 成功时返回true
+     */
+    CompletableFuture<Boolean> hmset(String key, Map<String, Object> map);
+
+    CompletableFuture<Boolean> hsetByNX(String key, String field, String value);
+
+    CompletableFuture<List<String>> hvals(String key);
+
+    CompletableFuture<Long> hincrBy(String key, String field, long value);
+
+    CompletableFuture<Double> hincrByFloat(String key, String field, double value);
+
+    // ==================== List ====================
+
+    CompletableFuture<String> lindex(String key, int index);
+
+    CompletableFuture<Long> llen(String key);
+
+    /**
+     * @see RedisClient#pop(String, Mark)
+     * @param key the key
+     * @param pop LPOP或RPOP
+     * @return 弹出的元素，列表为空时返回null
+     */
+    CompletableFuture<String> pop(String key, Mark pop);
+
+    /**
+     * @see RedisClient#push(String, String[], Mark)
+     * @param key the key
+     * @param values the values
+     * @param push LPUSH或RPUSH
+     * @return 写入后列表的长度
+     */
+    CompletableFuture<Long> push(String key, String[] values, Mark push);
+
+    CompletableFuture<Long> push(String key, String value, Mark push);
+
+    CompletableFuture<List<String>> lrange(String key, int start, int end);
+
+    CompletableFuture<Long> lrem(String key, int count, String value);
+
+    CompletableFuture<Boolean> lset(String key, int index, String value);
+
+    CompletableFuture<Boolean> ltrim(String key, int start, int end);
+
+    // ==================== Set ====================
+
+    CompletableFuture<Long> sadd(String key, String... members);
+
+    CompletableFuture<Long> scard(String key);
+
+    CompletableFuture<Boolean> sismember(String key, String member);
+
+    CompletableFuture<Set<String>> smembers(String key);
+
+    CompletableFuture<String> spop(String key);
+
+    CompletableFuture<String> srandmember(String key);
+
+    CompletableFuture<Long> srem(String key, String... members);
+
+    // ==================== Sorted Set ====================
+
+    CompletableFuture<Long> zadd(String key, double score, String member);
+
+    CompletableFuture<Long> zcard(String key);
+
+    CompletableFuture<Long> zcount(String key, double min, double max);
+
+    CompletableFuture<Double> zincrby(String key, double increment, String member);
+
+    CompletableFuture<Set<String>> zrange(String key, long start, long end);
+
+    CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max);
+
+    /**
+     * 
+     * @param key the key
+     * @param member the member
+     * @return 成员的排名，成员不存在时返回null
+     */
+    CompletableFuture<Long> zrank(String key, String member);
+
+    CompletableFuture<Long> zrem(String key, String... members);
+
+    CompletableFuture<Set<String>> zrevrange(String key, long start, long end);
+
+    CompletableFuture<Long> zrevrank(String key, String member);
+
+    /**
+     * 
+     * @param key the key
+     * @param member the member
+     * @return 成员的分数，成员不存在时返回null
+     */
+    CompletableFuture<Double> zscore(String key, String member);
+
+    /**
+     * 
+     * @return 已提交未完成的命令数
+     */
+    int getInFlightCount();
+}
@@ -0,0 +1,616 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.commons.util.Assert;
+import org.nanoframework.orm.jedis.RedisClient.Mark;
+import org.nanoframework.orm.jedis.cache.NearCache;
+import org.nanoframework.orm.jedis.exception.RedisClientException;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * 基于PipelineTransport的异步RedisClient.
+ * 通过信号量限制已提交未完成的命令数，写入命令完成后使同步RedisClient的本地缓存失效.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class AsyncRedisClientImpl implements AsyncRedisClient {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4096;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRedisClientImpl.class);
+
+    private final String redisType;
+    private final Supplier<PipelineTransport> transport;
+    private final NearCache nearCache;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long acquireTimeout;
+
+    /**
+     *
+     * @param config Redis配置
+     * @param transport 第一次提交命令时创建的命令传输
+     * @param nearCache 同步RedisClient的本地缓存，未开启时为null
+     */
+    public AsyncRedisClientImpl(final RedisConfig config, final Supplier<PipelineTransport> transport, final NearCache nearCache) {
+        Assert.notNull(config);
+        Assert.notNull(transport);
+        this.redisType = config.getRedisType();
+        this.transport = Suppliers.memoize(transport::get);
+        this.nearCache = nearCache;
+        this.maxInFlight = config.getAsyncMaxInFlight() == null || config.getAsyncMaxInFlight() <= 0 ? DEFAULT_MAX_IN_FLIGHT
+                : config.getAsyncMaxInFlight();
+        this.permits = new Semaphore(maxInFlight);
+        this.acquireTimeout = config.getTimeOut() == null || config.getTimeOut() < 0 ? AbstractRedisClient.DEFAULT_TIMEOUT : config.getTimeOut();
+    }
+
+    /**
+     * 获取提交许可后提交命令，命令完成时释放许可.
+     * @param key 用于路由的Key
+     * @param command 将命令写入Pipeline
+     * @param converter 执行结果的转换
+     * @return 转换后的执行结果
+     */
+    protected <R, T> CompletableFuture<T> submit(final String key, final Function<Pipeline, Response<R>> command, final Function<R, T> converter) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new RedisClientException("Async redis client [ " + redisType + " ] too many in-flight commands, max: "
+                        + maxInFlight + ", wait timeout: " + acquireTimeout + "ms"));
+                return future;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new RedisClientException(e.getMessage(), e));
+            return future;
+        }
+
+        final CompletableFuture<R> submitted;
+        try {
+            submitted = transport.get().submit(key, command);
+        } catch (final Throwable e) {
+            permits.release();
+            future.completeExceptionally(new RedisClientException(e.getMessage(), e));
+            return future;
+        }
+
+        submitted.whenComplete((value, cause) -> {
+            permits.release();
+            if (cause != null) {
+                future.completeExceptionally(cause instanceof RedisClientException ? cause : new RedisClientException(cause.getMessage(), cause));
+                return;
+            }
+
+            try {
+                future.complete(converter.apply(value));
+            } catch (final Throwable e) {
+                future.completeExceptionally(new RedisClientException(e.getMessage(), e));
+            }
+        });
+
+        return future;
+    }
+
+    protected <T> CompletableFuture<T> submit(final String key, final Function<Pipeline, Response<T>> command) {
+        return submit(key, command, Function.identity());
+    }
+
+    /**
+     * 写入命令完成(包括失败)后使本地缓存失效.
+     */
+    protected <R, T> CompletableFuture<T> write(final String key, final Function<Pipeline, Response<R>> command, final Function<R, T> converter) {
+        final CompletableFuture<T> future = submit(key, command, converter);
+        if (nearCache == null) {
+            return future;
+        }
+
+        return future.whenComplete((value, cause) -> {
+            try {
+                nearCache.invalidate(key);
+            } catch (final Throwable e) {
+                LOGGER.warn("Async redis client [ {} ] invalidate near cache failure: {}", redisType, e.getMessage());
+            }
+        });
+    }
+
+    protected <T> CompletableFuture<T> write(final String key, final Function<Pipeline, Response<T>> command) {
+        return write(key, command, Function.identity());
+    }
+
+    protected String toJSONString(final Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+
+        return JSON.toJSONString(value, SerializerFeature.WriteDateUseDateFormat);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T parseObject(final String value, final TypeReference<T> type) {
+        if (StringUtils.isEmpty(value)) {
+            return null;
+        }
+
+        if (type.getType() == String.class) {
+            return (T) value;
+        }
+
+        return JSON.parseObject(value, type);
+    }
+
+    protected boolean isOK(final String value) {
+        return AbstractRedisClient.OK.equals(value);
+    }
+
+    protected boolean isSuccess(final Long value) {
+        return value != null && value == AbstractRedisClient.SUCCESS;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.exists(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> del(final String key) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.del(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> expire(final String key, final int seconds) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.expire(key, seconds));
+    }
+
+    @Override
+    public CompletableFuture<Long> ttl(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.ttl(key));
+    }
+
+    @Override
+    public CompletableFuture<String> get(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.get(key));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(final String key, final TypeReference<T> type) {
+        Assert.hasText(key);
+        Assert.notNull(type);
+        return submit(key, pipeline -> pipeline.get(key), value -> parseObject(value, type));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> get(final String... keys) {
+        Assert.notEmpty(keys);
+        final Map<String, CompletableFuture<String>> futures = Maps.newLinkedHashMap();
+        Arrays.stream(keys).forEach(key -> futures.computeIfAbsent(key, this::get));
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()])).thenApply(none -> {
+            final Map<String, String> values = Maps.newLinkedHashMap();
+            futures.forEach((key, future) -> values.put(key, future.join()));
+            return values;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> getset(final String key, final String value) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.getSet(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> set(final String key, final String value) {
+        Assert.hasText(key);
+        Assert.hasText(value);
+        return write(key, pipeline -> pipeline.set(key, value), this::isOK);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> set(final String key, final Object value) {
+        Assert.notNull(value);
+        return set(key, toJSONString(value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setByNX(final String key, final String value) {
+        Assert.hasText(key);
+        Assert.hasText(value);
+        return write(key, pipeline -> pipeline.setnx(key, value), this::isSuccess);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setByNX(final String key, final String value, final int timeout) {
+        Assert.hasText(key);
+        Assert.hasText(value);
+        return write(key, pipeline -> pipeline.set(key, value, "NX", "EX", timeout), this::isOK);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setByEX(final String key, final String value, final int seconds) {
+        Assert.hasText(key);
+        Assert.hasText(value);
+        return write(key, pipeline -> pipeline.setex(key, seconds, value), this::isOK);
+    }
+
+    @Override
+    public CompletableFuture<Long> strLen(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.strlen(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> incr(final String key) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.incr(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(final String key, final long value) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.incrBy(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Double> incrByFloat(final String key, final double value) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.incrByFloat(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Long> decr(final String key) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.decr(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> decrBy(final String key, final long value) {
+        Assert.hasText(key);
+        return write(key, pipeline -> pipeline.decrBy(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Long> hdel(final String key, final String... fields) {
+        Assert.hasText(key);
+        Assert.notEmpty(fields);
+        return write(key, pipeline -> pipeline.hdel(key, fields));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hexists(final String key, final String field) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        return submit(key, pipeline -> pipeline.hexists(key, field));
+    }
+
+    @Override
+    public CompletableFuture<String> hget(final String key, final String field) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        return submit(key, pipeline -> pipeline.hget(key, field));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> hget(final String key, final String field, final TypeReference<T> type) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        Assert.notNull(type);
+        return submit(key, pipeline -> pipeline.hget(key, field), value -> parseObject(value, type));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hmget(final String key, final String... fields) {
+        Assert.hasText(key);
+        Assert.notEmpty(fields);
+        return submit(key, pipeline -> pipeline.hmget(key, fields), values -> {
+            final Map<String, String> map = Maps.newLinkedHashMap();
+            for (int idx = 0; idx < fields.length; idx++) {
+                map.put(fields[idx], values.get(idx));
+            }
+
+            return map;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hgetAll(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.hgetAll(key));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> hkeys(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.hkeys(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> hlen(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.hlen(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hset(final String key, final String field, final String value) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        Assert.hasText(value);
+        return write(key, pipeline -> pipeline.hset(key, field, value), result -> Boolean.TRUE);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hset(final String key, final String field, final Object value) {
+        Assert.notNull(value);
+        return hset(key, field, toJSONString(value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hmset(final String key, final Map<String, Object> map) {
+        Assert.hasText(key);
+        Assert.notEmpty(map);
+        final Map<String, String> values = Maps.newHashMap();
+        map.forEach((field, value) -> values.put(field, toJSONString(value)));
+        return write(key, pipeline -> pipeline.hmset(key, values), this::isOK);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hsetByNX(final String key, final String field, final String value) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        Assert.hasText(value);
+        return write(key, pipeline -> pipeline.hsetnx(key, field, value), this::isSuccess);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> hvals(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.hvals(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> hincrBy(final String key, final String field, final long value) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        return write(key, pipeline -> pipeline.hincrBy(key, field, value));
+    }
+
+    @Override
+    public CompletableFuture<Double> hincrByFloat(final String key, final String field, final double value) {
+        Assert.hasText(key);
+        Assert.hasText(field);
+        return write(key, pipeline -> pipeline.hincrByFloat(key, field, value));
+    }
+
+    @Override
+    public CompletableFuture<String> lindex(final String key, final int index) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.lindex(key, index));
+    }
+
+    @Override
+    public CompletableFuture<Long> llen(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.llen(key));
+    }
+
+    @Override
+    public CompletableFuture<String> pop(final String key, final Mark pop) {
+        Assert.hasText(key);
+        Assert.notNull(pop);
+        switch (pop) {
+            case LPOP:
+                return submit(key, pipeline -> pipeline.lpop(key));
+            case RPOP:
+                return submit(key, pipeline -> pipeline.rpop(key));
+            default:
+                throw new RedisClientException("Unknown pop type");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> push(final String key, final String[] values, final Mark push) {
+        Assert.hasText(key);
+        Assert.notEmpty(values);
+        Assert.notNull(push);
+        switch (push) {
+            case LPUSH:
+                return submit(key, pipeline -> pipeline.lpush(key, values));
+            case RPUSH:
+                return submit(key, pipeline -> pipeline.rpush(key, values));
+            default:
+                throw new RedisClientException("未知的写入(PUSH)类型");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> push(final String key, final String value, final Mark push) {
+        Assert.hasText(value);
+        return push(key, new String[] { value }, push);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> lrange(final String key, final int start, final int end) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.lrange(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Long> lrem(final String key, final int count, final String value) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.lrem(key, count, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> lset(final String key, final int index, final String value) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.lset(key, index, value), this::isOK);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> ltrim(final String key, final int start, final int end) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.ltrim(key, start, end), this::isOK);
+    }
+
+    @Override
+    public CompletableFuture<Long> sadd(final String key, final String... members) {
+        Assert.hasText(key);
+        Assert.notEmpty(members);
+        return submit(key, pipeline -> pipeline.sadd(key, members));
+    }
+
+    @Override
+    public CompletableFuture<Long> scard(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.scard(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sismember(final String key, final String member) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.sismember(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> smembers(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.smembers(key));
+    }
+
+    @Override
+    public CompletableFuture<String> spop(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.spop(key));
+    }
+
+    @Override
+    public CompletableFuture<String> srandmember(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.srandmember(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> srem(final String key, final String... members) {
+        Assert.hasText(key);
+        Assert.notEmpty(members);
+        return submit(key, pipeline -> pipeline.srem(key, members));
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(final String key, final double score, final String member) {
+        Assert.hasText(key);
+        Assert.hasText(member);
+        return submit(key, pipeline -> pipeline.zadd(key, score, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> zcard(final String key) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.zcard(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> zcount(final String key, final double min, final double max) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.zcount(key, min, max));
+    }
+
+    @Override
+    public CompletableFuture<Double> zincrby(final String key, final double increment, final String member) {
+        Assert.hasText(key);
+        Assert.hasText(member);
+        return submit(key, pipeline -> pipeline.zincrby(key, increment, member));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrange(final String key, final long start, final long end) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.zrange(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(final String key, final double min, final double max) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.zrangeByScore(key, min, max));
+    }
+
+    @Override
+    public CompletableFuture<Long> zrank(final String key, final String member) {
+        Assert.hasText(key);
+        Assert.hasText(member);
+        return submit(key, pipeline -> pipeline.zrank(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Long> zrem(final String key, final String... members) {
+        Assert.hasText(key);
+        Assert.notEmpty(members);
+        return submit(key, pipeline -> pipeline.zrem(key, members));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrange(final String key, final long start, final long end) {
+        Assert.hasText(key);
+        return submit(key, pipeline -> pipeline.zrevrange(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Long> zrevrank(final String key, final String member) {
+        Assert.hasText(key);
+        Assert.hasText(member);
+        return submit(key, pipeline -> pipeline.zrevrank(key, member));
+    }
+
+    @Override
+    public CompletableFuture<Double> zscore(final String key, final String member) {
+        Assert.hasText(key);
+        Assert.hasText(member);
+        return submit(key, pipeline -> pipeline.zscore(key, member));
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public String getRedisType() {
+        return redisType;
+    }
+}
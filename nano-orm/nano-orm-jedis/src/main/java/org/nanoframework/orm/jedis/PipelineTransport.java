@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * 基于Pipeline的命令传输.
+ * 命令按Key路由到所在节点的提交队列，与其它并发提交的命令合并为Pipeline发送，调用方不占用连接.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public interface PipelineTransport {
+    /**
+     * 提交命令，不等待执行结果.
+     * @param <T> 返回值类型
+     * @param key 用于路由的Key
+     * @param command 将命令写入Pipeline
+     * @return 执行结果
+     */
+    <T> CompletableFuture<T> submit(String key, Function<Pipeline, Response<T>> command);
+
+    void close();
+}
@@ -18,6 +18,7 @@ package org.nanoframework.orm.jedis;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.nanoframework.orm.jedis.commands.HashRedisClient;
 import org.nanoframework.orm.jedis.commands.KeyValueRedisClient;
@@ -152,4 +153,27 @@ public interface RedisClient extends KeyValueRedisClient, HashRedisClient, ListR
      */
     Set<String> keys(String pattern);
 
+    /**
+     * 使用 SCAN 命令遍历所有分片(集群模式下为所有主节点)中符合给定模式 pattern 的 key 。<br>
+     * 每次 SCAN 只返回一批 key ，不会像 KEYS 命令一样阻塞 Redis ，返回的 Stream 在消费时才执行 SCAN 。<br>
+     * 与 SCAN 命令的保证一致：遍历期间一直存在的 key 一定会返回，同一个 key 可能返回多次。
+     * 
+     * @param pattern 匹配规则
+     * @param count 每次 SCAN 的 COUNT 参数
+     * @return 符合给定模式的 key
+     * @since 1.4.11
+     */
+    Stream<String> scanKeys(String pattern, int count);
+
+    /**
+     * 
+     * @param pattern 匹配规则
+     * @param count 每次 SCAN 的 COUNT 参数
+     * @param parallel 为true时返回按节点拆分的并行流，每个节点由一个线程遍历
+     * @return 符合给定模式的 key
+     * @see #scanKeys(String, int)
+     * @since 1.4.11
+     */
+    Stream<String> scanKeys(String pattern, int count, boolean parallel);
+
 }
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
 import org.nanoframework.commons.loader.LoaderException;
@@ -31,8 +32,11 @@ import org.nanoframework.commons.support.logging.Logger;
 import org.nanoframework.commons.support.logging.LoggerFactory;
 import org.nanoframework.commons.util.Assert;
 import org.nanoframework.commons.util.ReflectUtils;
+import org.nanoframework.orm.jedis.cache.NearCache;
+import org.nanoframework.orm.jedis.cluster.ClusterAutoPipeline;
 import org.nanoframework.orm.jedis.cluster.RedisClusterClientImpl;
 import org.nanoframework.orm.jedis.exception.RedisClientException;
+import org.nanoframework.orm.jedis.sharded.AutoPipeline;
 import org.nanoframework.orm.jedis.sharded.RedisClientImpl;
 
 import com.google.common.collect.Lists;
@@ -74,6 +78,17 @@ public class RedisClientPool {
 
     private Map<String, JedisCluster> jedisClusterPool = Maps.newHashMap();
 
+    /** 分片连接池的分片，与连接池使用相同的分片顺序. */
+    private Map<String, List<JedisShardInfo>> jedisShards = Maps.newHashMap();
+
+    /** 分片模式的自动批量提交. */
+    private Map<String, AutoPipeline> autoPipelines = Maps.newHashMap();
+
+    /** 集群模式的自动批量提交，仅由异步RedisClient使用. */
+    private Map<String, ClusterAutoPipeline> clusterAutoPipelines = Maps.newHashMap();
+
+    private Map<String, AsyncRedisClient> asyncRedisClients = Maps.newHashMap();
+
     private Map<String, RedisConfig> redisConfigs = Maps.newLinkedHashMap();
     
     public RedisClientPool initRedisConfig(final List<Properties> redis) throws LoaderException, IOException {
@@ -122,6 +137,9 @@ public class RedisClientPool {
 
     // 初始化连接池
     public void createJedis() {
+        // 重新加载配置时关闭使用原连接配置的自动批量提交
+        redisConfigs.keySet().forEach(this::closeAutoPipeline);
+
         redisConfigs.values().stream().filter(conf -> conf.getCluster() == null || !conf.getCluster())
         .forEach(conf -> jedisPool.put(conf.getRedisType(), createJedisPool(conf)));
 
@@ -135,6 +153,7 @@ public class RedisClientPool {
 
         if(conf.getCluster() == null || !conf.getCluster()) {
             if (!jedisPool.containsKey(conf.getRedisType())) {
+                closeAutoPipeline(conf.getRedisType());
                 redisConfigs.put(conf.getRedisType(), conf);
                 final ShardedJedisPool pool;
                 jedisPool.put(conf.getRedisType(), pool = createJedisPool(conf));
@@ -154,6 +173,7 @@ public class RedisClientPool {
         
         if(conf.getCluster() != null && conf.getCluster()) {
             if(!jedisClusterPool.containsKey(conf.getRedisType())) {
+                closeAutoPipeline(conf.getRedisType());
                 redisConfigs.put(conf.getRedisType(), conf);
                 final JedisCluster cluster;
                 jedisClusterPool.put(conf.getRedisType(), cluster = createJedisClusterPool(conf));
@@ -229,6 +249,105 @@ public class RedisClientPool {
         }
     }
     
+    /**
+     * 
+     * @param poolName 连接池名
+     * @return 自动批量提交，未开启autoPipeline时返回null
+     * @since 1.4.11
+     */
+    public synchronized AutoPipeline getAutoPipeline(final String poolName) {
+        Assert.hasText(poolName);
+        final RedisConfig conf = getRedisConfig(poolName);
+        if (conf.getAutoPipeline() == null || !conf.getAutoPipeline()) {
+            return null;
+        }
+
+        return autoPipeline(conf);
+    }
+
+    private synchronized AutoPipeline autoPipeline(final RedisConfig conf) {
+        final String poolName = conf.getRedisType();
+        AutoPipeline autoPipeline = autoPipelines.get(poolName);
+        if (autoPipeline == null) {
+            final List<JedisShardInfo> shards = jedisShards.get(poolName);
+            Assert.notNull(shards, "Not found ShardedJedis.");
+            autoPipelines.put(poolName, autoPipeline = new AutoPipeline(conf, shards, timeout(conf)));
+        }
+
+        return autoPipeline;
+    }
+
+    private synchronized ClusterAutoPipeline clusterAutoPipeline(final RedisConfig conf) {
+        final String poolName = conf.getRedisType();
+        ClusterAutoPipeline autoPipeline = clusterAutoPipelines.get(poolName);
+        if (autoPipeline == null) {
+            Integer maxRedirections = conf.getMaxRedirections();
+            if (maxRedirections == null || maxRedirections < 0) {
+                maxRedirections = DEFAULT_MAX_REDIRECTIONS;
+            }
+
+            final ClusterAutoPipeline created = new ClusterAutoPipeline(conf, getJedisCluster(poolName), timeout(conf), maxRedirections);
+            clusterAutoPipelines.put(poolName, autoPipeline = created);
+        }
+
+        return autoPipeline;
+    }
+
+    /**
+     * 
+     * @param poolName 连接池名
+     * @return 异步RedisClient，命令传输在第一次提交命令时创建
+     * @since 1.4.11
+     */
+    public synchronized AsyncRedisClient getAsyncRedisClient(final String poolName) {
+        Assert.hasText(poolName);
+        AsyncRedisClient client = asyncRedisClients.get(poolName);
+        if (client == null) {
+            final RedisConfig conf = getRedisConfig(poolName);
+            final RedisClient redisClient = GlobalRedisClient.get(poolName);
+            final NearCache nearCache = redisClient instanceof AbstractRedisClient ? ((AbstractRedisClient) redisClient).getNearCache() : null;
+            final Supplier<PipelineTransport> transport;
+            if (conf.getCluster() == null || !conf.getCluster()) {
+                transport = () -> autoPipeline(conf);
+            } else {
+                transport = () -> clusterAutoPipeline(conf);
+            }
+
+            asyncRedisClients.put(poolName, client = new AsyncRedisClientImpl(conf, transport, nearCache));
+        }
+
+        return client;
+    }
+
+    /**
+     * 关闭连接池的自动批量提交，停止提交线程并断开专用连接. 使用该自动批量提交的异步RedisClient一并移除，下次获取时重新创建.
+     * 
+     * @param poolName 连接池名
+     * @since 1.4.11
+     */
+    public synchronized void closeAutoPipeline(final String poolName) {
+        final AutoPipeline autoPipeline = autoPipelines.remove(poolName);
+        if (autoPipeline != null) {
+            autoPipeline.close();
+        }
+
+        final ClusterAutoPipeline clusterAutoPipeline = clusterAutoPipelines.remove(poolName);
+        if (clusterAutoPipeline != null) {
+            clusterAutoPipeline.close();
+        }
+
+        asyncRedisClients.remove(poolName);
+    }
+
+    private int timeout(final RedisConfig conf) {
+        final Integer timeout = conf.getTimeOut();
+        if (timeout == null || timeout < 0) {
+            return DEFAULT_TIMEOUT;
+        }
+
+        return timeout;
+    }
+
     public JedisCluster getJedisCluster(final String poolName) {
         Assert.hasText(poolName);
         final JedisCluster cluster = jedisClusterPool.get(poolName);
@@ -262,6 +381,7 @@ public class RedisClientPool {
                 shards.add(si);
             }
 
+            jedisShards.put(conf.getRedisType(), shards);
             return new ShardedJedisPool(getJedisPoolConfig(conf), shards, Hashing.MURMUR_HASH, Sharded.DEFAULT_KEY_TAG_PATTERN);
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
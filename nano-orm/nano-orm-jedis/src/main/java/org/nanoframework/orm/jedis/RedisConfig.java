@@ -45,6 +45,16 @@ public class RedisConfig extends BaseEntity {
     public static final String MAX_REDIRECTIONS = "maxRedirections";
     public static final String LOCK_TIMEOUT = "lockTimeout";
     public static final String LOCK_HASH = "lockGroup";
+    public static final String NEAR_CACHE = "nearCache";
+    public static final String NEAR_CACHE_MAX_SIZE = "nearCacheMaxSize";
+    public static final String NEAR_CACHE_TTL = "nearCacheTtl";
+    public static final String NEAR_CACHE_INVALIDATION = "nearCacheInvalidation";
+    public static final String NEAR_CACHE_CHANNEL = "nearCacheChannel";
+    public static final String AUTO_PIPELINE = "autoPipeline";
+    public static final String AUTO_PIPELINE_CONNECTIONS = "autoPipelineConnections";
+    public static final String AUTO_PIPELINE_BATCH_SIZE = "autoPipelineBatchSize";
+    public static final String AUTO_PIPELINE_MAX_PENDING = "autoPipelineMaxPending";
+    public static final String ASYNC_MAX_IN_FLIGHT = "asyncMaxInFlight";
 
     private static final long serialVersionUID = -6765559689700998419L;
 
@@ -99,6 +109,66 @@ public class RedisConfig extends BaseEntity {
      */
     private String lockGroup;
 
+    /**
+     * 开启get/hget的本地缓存.
+     * @since 1.4.11
+     */
+    private Boolean nearCache;
+
+    /**
+     * 本地缓存的最大数量, Default: 10000.
+     * @since 1.4.11
+     */
+    private Integer nearCacheMaxSize;
+
+    /**
+     * 本地缓存写入后的过期时间(秒)，即未收到失效通知时的最大过期时间, Default: 60.
+     * @since 1.4.11
+     */
+    private Integer nearCacheTtl;
+
+    /**
+     * 本地缓存的失效通知方式: channel(通过RedisClient写入时发布到失效通知频道), keyspace(Redis键空间通知，需服务端配置notify-keyspace-events), Default: channel.
+     * @since 1.4.11
+     */
+    private String nearCacheInvalidation;
+
+    /**
+     * 失效通知频道, Default: __nano_near_cache__:redisType.
+     * @since 1.4.11
+     */
+    private String nearCacheChannel;
+
+    /**
+     * 分片模式下开启自动批量提交，并发调用的命令通过每个分片的专用连接合并为Pipeline发送.
+     * @since 1.4.11
+     */
+    private Boolean autoPipeline;
+
+    /**
+     * 自动批量提交时每个分片的连接数, Default: 2.
+     * @since 1.4.11
+     */
+    private Integer autoPipelineConnections;
+
+    /**
+     * 自动批量提交时每个Pipeline的最大命令数, Default: 128.
+     * @since 1.4.11
+     */
+    private Integer autoPipelineBatchSize;
+
+    /**
+     * 自动批量提交时等待提交及执行中的最大命令数，达到上限时提交方等待，超过两倍timeOut仍无法提交时返回失败, Default: 4096.
+     * @since 1.4.11
+     */
+    private Integer autoPipelineMaxPending;
+
+    /**
+     * 异步客户端已提交未完成的最大命令数，达到上限时提交方等待，超过timeOut仍无法提交时返回失败, Default: 4096.
+     * @since 1.4.11
+     */
+    private Integer asyncMaxInFlight;
+
     private RedisConfig() {
     }
 
@@ -243,4 +313,84 @@ public class RedisConfig extends BaseEntity {
     public void setLockGroup(final String lockGroup) {
         this.lockGroup = lockGroup;
     }
+
+    public Boolean getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(final Boolean nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public Integer getNearCacheMaxSize() {
+        return nearCacheMaxSize;
+    }
+
+    public void setNearCacheMaxSize(final Integer nearCacheMaxSize) {
+        this.nearCacheMaxSize = nearCacheMaxSize;
+    }
+
+    public Integer getNearCacheTtl() {
+        return nearCacheTtl;
+    }
+
+    public void setNearCacheTtl(final Integer nearCacheTtl) {
+        this.nearCacheTtl = nearCacheTtl;
+    }
+
+    public String getNearCacheInvalidation() {
+        return nearCacheInvalidation;
+    }
+
+    public void setNearCacheInvalidation(final String nearCacheInvalidation) {
+        this.nearCacheInvalidation = nearCacheInvalidation;
+    }
+
+    public String getNearCacheChannel() {
+        return nearCacheChannel;
+    }
+
+    public void setNearCacheChannel(final String nearCacheChannel) {
+        this.nearCacheChannel = nearCacheChannel;
+    }
+
+    public Boolean getAutoPipeline() {
+        return autoPipeline;
+    }
+
+    public void setAutoPipeline(final Boolean autoPipeline) {
+        this.autoPipeline = autoPipeline;
+    }
+
+    public Integer getAutoPipelineConnections() {
+        return autoPipelineConnections;
+    }
+
+    public void setAutoPipelineConnections(final Integer autoPipelineConnections) {
+        this.autoPipelineConnections = autoPipelineConnections;
+    }
+
+    public Integer getAutoPipelineBatchSize() {
+        return autoPipelineBatchSize;
+    }
+
+    public void setAutoPipelineBatchSize(final Integer autoPipelineBatchSize) {
+        this.autoPipelineBatchSize = autoPipelineBatchSize;
+    }
+
+    public Integer getAutoPipelineMaxPending() {
+        return autoPipelineMaxPending;
+    }
+
+    public void setAutoPipelineMaxPending(final Integer autoPipelineMaxPending) {
+        this.autoPipelineMaxPending = autoPipelineMaxPending;
+    }
+
+    public Integer getAsyncMaxInFlight() {
+        return asyncMaxInFlight;
+    }
+
+    public void setAsyncMaxInFlight(final Integer asyncMaxInFlight) {
+        this.asyncMaxInFlight = asyncMaxInFlight;
+    }
 }
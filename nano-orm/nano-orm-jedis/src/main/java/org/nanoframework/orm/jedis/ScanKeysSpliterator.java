@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+/**
+ * 遍历多个节点SCAN游标的Spliterator.
+ * 按节点顺序逐个遍历，当前批次的Key用尽时才对当前节点执行下一次SCAN，调用方不会一次持有全部Key.
+ * 并行流按节点拆分，每个节点的游标只由一个线程遍历.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ScanKeysSpliterator implements Spliterator<String> {
+    private final List<NodeScanner> nodes;
+    private int index;
+    private int fence;
+    private String cursor = ScanParams.SCAN_POINTER_START;
+    private Iterator<String> batch = Collections.emptyIterator();
+
+    private ScanKeysSpliterator(final List<NodeScanner> nodes, final int index, final int fence) {
+        this.nodes = nodes;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * 对单个节点执行一次SCAN.
+     */
+    @FunctionalInterface
+    public interface NodeScanner {
+        ScanResult<String> scan(String cursor);
+    }
+
+    /**
+     * 
+     * @param nodes 需要遍历的节点
+     * @param parallel 是否按节点并行遍历
+     * @return 所有节点的Key
+     */
+    public static Stream<String> stream(final List<NodeScanner> nodes, final boolean parallel) {
+        return StreamSupport.stream(new ScanKeysSpliterator(nodes, 0, nodes.size()), parallel);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super String> action) {
+        while (!batch.hasNext()) {
+            if (index >= fence) {
+                return false;
+            }
+
+            final ScanResult<String> result = nodes.get(index).scan(cursor);
+            batch = result.getResult().iterator();
+            cursor = result.getStringCursor();
+            if (ScanParams.SCAN_POINTER_START.equals(cursor)) {
+                index++;
+            }
+        }
+
+        action.accept(batch.next());
+        return true;
+    }
+
+    /**
+     * 已开始遍历的节点保留在当前Spliterator中，仅拆分未开始遍历的节点.
+     */
+    @Override
+    public Spliterator<String> trySplit() {
+        final boolean started = batch.hasNext() || !ScanParams.SCAN_POINTER_START.equals(cursor);
+        final int start = started ? index + 1 : index;
+        final int remaining = fence - start;
+        if (remaining < (started ? 1 : 2)) {
+            return null;
+        }
+
+        final int mid = start + remaining / 2;
+        final ScanKeysSpliterator split = new ScanKeysSpliterator(nodes, mid, fence);
+        fence = mid;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return index >= fence && !batch.hasNext() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
@@ -23,8 +23,10 @@ import javax.servlet.ServletConfig;
 
 import org.nanoframework.core.plugins.Module;
 import org.nanoframework.core.spi.Order;
+import org.nanoframework.orm.jedis.AsyncRedisClient;
 import org.nanoframework.orm.jedis.GlobalRedisClient;
 import org.nanoframework.orm.jedis.RedisClient;
+import org.nanoframework.orm.jedis.RedisClientPool;
 import org.nanoframework.orm.jedis.commands.HashRedisClient;
 import org.nanoframework.orm.jedis.commands.KeyValueRedisClient;
 import org.nanoframework.orm.jedis.commands.ListRedisClient;
@@ -59,6 +61,9 @@ public class BindRedisClientModule implements Module {
 
             binder.bind(RedisLocker.class).annotatedWith(named(REDIS_NAMED_PRIFIX + redisName)).toInstance(new RedisLockerImpl(client));
             binder.bind(RedisLocker.class).annotatedWith(named(REDIS_LOCK_NAMED_PREFIX + redisName)).toInstance(new RedisLockerImpl(client));
+
+            final AsyncRedisClient asyncClient = RedisClientPool.POOL.getAsyncRedisClient(redisName);
+            binder.bind(AsyncRedisClient.class).annotatedWith(named(REDIS_NAMED_PRIFIX + redisName)).toInstance(asyncClient);
         });
     }
 
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jedis.RedisConfig;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import redis.clients.jedis.HostAndPort;
+
+/**
+ * RedisClient的本地缓存(Near Cache)，缓存get/hget的原始返回值.
+ * 通过RedisClient写入的Key会立即在本地失效，并根据失效通知方式通知其它节点:
+ * channel模式下发布到失效通知频道; keyspace模式下订阅Redis键空间通知，需服务端配置notify-keyspace-events(至少包含K及写入命令类型，如KA).
+ * 失效通知订阅断开期间不使用本地缓存，所有读取直接访问Redis; 写入后的过期时间为未收到失效通知时的最大过期时间.
+ * channel模式下Redis过期的Key不会发布失效通知，未命中时同时读取Key的PTTL，本地缓存的过期时间不超过Key的剩余生存时间;
+ * keyspace模式下由expired事件失效(notify-keyspace-events需包含x，A已包含).
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class NearCache implements NearCacheMXBean {
+    /** 通过失效通知频道发布失效的Key. */
+    public static final String CHANNEL = "channel";
+    /** 订阅Redis键空间通知. */
+    public static final String KEYSPACE = "keyspace";
+    public static final String DEFAULT_CHANNEL_PREFIX = "__nano_near_cache__:";
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    public static final int DEFAULT_TTL = 60;
+
+    static final String KEYSPACE_PATTERN = "__keyspace@*__:*";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCache.class);
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+    private static final String KEYSPACE_SEPARATOR = "__:";
+    private static final char FIELD_SEPARATOR = '\u0000';
+    private static final String SOURCE = "s";
+    private static final String KEYS = "k";
+
+    private final String redisType;
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final boolean keyspace;
+    private final String channel;
+    private final int timeout;
+    private final Transport transport;
+    private final String source = UUID.randomUUID().toString();
+    private final String objectName;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, Set<String>> fields = Maps.newHashMap();
+    private final List<NearCacheSubscriber> subscribers = Lists.newArrayList();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private long generation;
+    private int connected;
+    private volatile boolean enabled;
+    private volatile boolean closed;
+
+    /**
+     * Redis读写操作的抽象，由RedisClient实现.
+     */
+    public interface Transport {
+        /**
+         *
+         * @param keyspace 是否订阅键空间通知
+         * @param channel 失效通知频道
+         * @return 每组节点使用一个订阅连接，组内节点互为候选
+         */
+        List<List<HostAndPort>> endpoints(boolean keyspace, String channel);
+
+        void publish(String channel, String message);
+
+        /**
+         *
+         * @param key Key
+         * @return 剩余生存时间(ms)，未设置过期时间时为-1，Key不存在时为-2
+         */
+        long pttl(String key);
+    }
+
+    public NearCache(final RedisConfig config, final int timeout, final Transport transport) {
+        this.redisType = config.getRedisType();
+        this.maximumSize = config.getNearCacheMaxSize() == null || config.getNearCacheMaxSize() <= 0 ? DEFAULT_MAX_SIZE
+                : config.getNearCacheMaxSize();
+        final int ttl = config.getNearCacheTtl() == null || config.getNearCacheTtl() <= 0 ? DEFAULT_TTL : config.getNearCacheTtl();
+        this.expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(ttl);
+        this.keyspace = StringUtils.equalsIgnoreCase(KEYSPACE, config.getNearCacheInvalidation());
+        this.channel = StringUtils.isBlank(config.getNearCacheChannel()) ? DEFAULT_CHANNEL_PREFIX + redisType : config.getNearCacheChannel();
+        this.timeout = timeout;
+        this.transport = transport;
+        // 同一redisType可能存在多个RedisClient实例，以实例序号区分MXBean
+        this.objectName = OBJECT_NAME_PREFIX + ObjectName.quote(redisType) + ",id=" + INSTANCES.incrementAndGet();
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() > maximumSize) {
+                    unindex(eldest.getKey());
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 启动失效通知订阅并注册MXBean，所有订阅连接建立后开始使用本地缓存.
+     */
+    public void start() {
+        final List<List<HostAndPort>> endpoints = transport.endpoints(keyspace, channel);
+        if (endpoints.isEmpty()) {
+            LOGGER.warn("Near cache [ {} ] has no subscribe endpoints, near cache disabled", redisType);
+            return;
+        }
+
+        synchronized (this) {
+            int index = 0;
+            for (final List<HostAndPort> nodes : endpoints) {
+                if (!nodes.isEmpty()) {
+                    subscribers.add(new NearCacheSubscriber(this, nodes, timeout, index++));
+                }
+            }
+        }
+
+        subscribers.forEach(Thread::start);
+        register();
+        LOGGER.info("Near cache [ {} ] started, invalidation: {}, maximumSize: {}", redisType, keyspace ? KEYSPACE : CHANNEL + '(' + channel + ')',
+                maximumSize);
+    }
+
+    public void close() {
+        closed = true;
+        subscribers.forEach(NearCacheSubscriber::close);
+        unregister();
+        synchronized (this) {
+            enabled = false;
+            clear();
+        }
+    }
+
+    public String get(final String key, final Supplier<String> loader) {
+        return get(key, null, loader);
+    }
+
+    /**
+     * 读取本地缓存，未命中或过期时调用loader读取并缓存.
+     * 读取期间Key被写入或订阅断开时不缓存读取结果.
+     *
+     * @param key Key
+     * @param field Hash的Field，非Hash时为null
+     * @param loader 从Redis读取
+     * @return 值
+     */
+    public String get(final String key, final String field, final Supplier<String> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        final String cacheKey = field == null ? key : key + FIELD_SEPARATOR + field;
+        final long generation;
+        synchronized (this) {
+            final Entry entry = entries.get(cacheKey);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expireTime < 0) {
+                    hitCount.incrementAndGet();
+                    return entry.value;
+                }
+
+                remove(cacheKey);
+            }
+
+            generation = this.generation;
+        }
+
+        missCount.incrementAndGet();
+        final String value = loader.get();
+        final long expireAfterNanos = expireAfterNanos(key);
+        synchronized (this) {
+            if (enabled && generation == this.generation && expireAfterNanos > 0) {
+                entries.put(cacheKey, new Entry(value, System.nanoTime() + expireAfterNanos));
+                if (field != null) {
+                    fields.computeIfAbsent(key, k -> Sets.newHashSet()).add(field);
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * channel模式下本地缓存的过期时间不超过Key的剩余生存时间，读取PTTL失败时不缓存.
+     */
+    private long expireAfterNanos(final String key) {
+        if (keyspace) {
+            return expireAfterWriteNanos;
+        }
+
+        try {
+            final long pttl = transport.pttl(key);
+            return pttl < 0 ? expireAfterWriteNanos : Math.min(expireAfterWriteNanos, TimeUnit.MILLISECONDS.toNanos(pttl));
+        } catch (final Throwable e) {
+            LOGGER.warn("Near cache [ {} ] pttl failure: {}", redisType, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 使本地缓存失效并发布失效通知，在写入操作完成后调用.
+     * @param keys 写入的Key
+     */
+    public void invalidate(final String... keys) {
+        if (keys.length == 0) {
+            return;
+        }
+
+        invalidateLocal(keys);
+        if (!keyspace && !closed) {
+            final JSONObject message = new JSONObject();
+            message.put(SOURCE, source);
+            message.put(KEYS, keys);
+            try {
+                transport.publish(channel, message.toJSONString());
+            } catch (final Throwable e) {
+                LOGGER.warn("Near cache [ {} ] publish invalidation failure: {}", redisType, e.getMessage());
+            }
+        }
+    }
+
+    void onMessage(final String message) {
+        try {
+            final JSONObject json = JSON.parseObject(message);
+            if (source.equals(json.getString(SOURCE))) {
+                return;
+            }
+
+            final JSONArray keys = json.getJSONArray(KEYS);
+            if (keys != null) {
+                invalidateLocal(keys.toArray(new String[keys.size()]));
+            }
+        } catch (final Throwable e) {
+            LOGGER.warn("Near cache [ {} ] invalid message: {}", redisType, message);
+        }
+    }
+
+    void onKeyspaceEvent(final String channel) {
+        final int index = channel.indexOf(KEYSPACE_SEPARATOR);
+        if (index > 0) {
+            invalidateLocal(channel.substring(index + KEYSPACE_SEPARATOR.length()));
+        }
+    }
+
+    synchronized void connected() {
+        if (++connected >= subscribers.size() && !closed) {
+            // 订阅建立前的写入没有收到通知，重新开始缓存
+            clear();
+            enabled = true;
+            LOGGER.info("Near cache [ {} ] enabled", redisType);
+        }
+    }
+
+    synchronized void disconnected() {
+        connected--;
+        if (enabled) {
+            enabled = false;
+            clear();
+            LOGGER.warn("Near cache [ {} ] disabled, invalidation subscription lost", redisType);
+        }
+    }
+
+    boolean isKeyspace() {
+        return keyspace;
+    }
+
+    String getChannel() {
+        return channel;
+    }
+
+    private synchronized void invalidateLocal(final String... keys) {
+        generation++;
+        for (final String key : keys) {
+            if (key != null) {
+                if (entries.remove(key) != null) {
+                    invalidationCount.incrementAndGet();
+                }
+
+                final Set<String> hashFields = fields.remove(key);
+                if (hashFields != null) {
+                    for (final String field : hashFields) {
+                        if (entries.remove(key + FIELD_SEPARATOR + field) != null) {
+                            invalidationCount.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void remove(final String cacheKey) {
+        entries.remove(cacheKey);
+        unindex(cacheKey);
+    }
+
+    private void unindex(final String cacheKey) {
+        final int index = cacheKey.indexOf(FIELD_SEPARATOR);
+        if (index > 0) {
+            final String key = cacheKey.substring(0, index);
+            final Set<String> hashFields = fields.get(key);
+            if (hashFields != null) {
+                hashFields.remove(cacheKey.substring(index + 1));
+                if (hashFields.isEmpty()) {
+                    fields.remove(key);
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        generation++;
+        entries.clear();
+        fields.clear();
+    }
+
+    private void register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(objectName));
+        } catch (final Throwable e) {
+            LOGGER.warn("Register near cache MXBean failure: {}", e.getMessage());
+        }
+    }
+
+    private void unregister() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (final Throwable e) {
+            LOGGER.warn("Unregister near cache MXBean failure: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String getRedisType() {
+        return redisType;
+    }
+
+    /**
+     *
+     * @return MXBean名称: {@value NearCacheMXBean#OBJECT_NAME_PREFIX}redisType,id=实例序号
+     */
+    public String getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public long getExpireAfterWriteSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(expireAfterWriteNanos);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public double getHitRate() {
+        final long hit = hitCount.get();
+        final long total = hit + missCount.get();
+        return total == 0 ? 1.0 : (double) hit / total;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        clear();
+    }
+
+    @Override
+    public void resetStats() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+        invalidationCount.set(0);
+    }
+
+    private static class Entry {
+        private final String value;
+        private final long expireTime;
+
+        Entry(final String value, final long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.cache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * 本地缓存失效通知的订阅线程，使用独立的连接订阅失效通知频道或键空间通知，断开后轮换候选节点重新订阅.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+class NearCacheSubscriber extends Thread {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCacheSubscriber.class);
+    private static final long RETRY_MILLIS = 1000;
+
+    private final NearCache cache;
+    private final List<HostAndPort> nodes;
+    private final int timeout;
+    private volatile Listener listener;
+    private volatile boolean closed;
+
+    NearCacheSubscriber(final NearCache cache, final List<HostAndPort> nodes, final int timeout, final int index) {
+        super("redis-near-cache-" + cache.getRedisType() + '-' + index);
+        this.cache = cache;
+        this.nodes = nodes;
+        this.timeout = timeout;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        int attempt = 0;
+        while (!closed) {
+            final HostAndPort node = nodes.get(attempt++ % nodes.size());
+            final Listener listener = new Listener();
+            this.listener = listener;
+            // 订阅连接阻塞读取通知，不设置读超时
+            try (final Jedis jedis = new Jedis(node.getHost(), node.getPort(), timeout, 0)) {
+                if (cache.isKeyspace()) {
+                    jedis.psubscribe(listener, NearCache.KEYSPACE_PATTERN);
+                } else {
+                    jedis.subscribe(listener, cache.getChannel());
+                }
+            } catch (final Throwable e) {
+                if (!closed) {
+                    LOGGER.warn("Near cache [ {} ] subscribe to {} failure: {}", cache.getRedisType(), node, e.getMessage());
+                }
+            } finally {
+                listener.disconnected();
+            }
+
+            if (!closed) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void close() {
+        closed = true;
+        final Listener listener = this.listener;
+        if (listener != null && listener.isSubscribed()) {
+            try {
+                if (cache.isKeyspace()) {
+                    listener.punsubscribe();
+                } else {
+                    listener.unsubscribe();
+                }
+            } catch (final Throwable e) {
+                LOGGER.debug("Near cache [ {} ] unsubscribe failure: {}", cache.getRedisType(), e.getMessage());
+            }
+        }
+
+        interrupt();
+    }
+
+    private class Listener extends JedisPubSub {
+        private boolean connected;
+
+        @Override
+        public void onSubscribe(final String channel, final int subscribedChannels) {
+            subscribed();
+        }
+
+        @Override
+        public void onPSubscribe(final String pattern, final int subscribedChannels) {
+            subscribed();
+        }
+
+        @Override
+        public void onMessage(final String channel, final String message) {
+            cache.onMessage(message);
+        }
+
+        @Override
+        public void onPMessage(final String pattern, final String channel, final String message) {
+            cache.onKeyspaceEvent(channel);
+        }
+
+        private synchronized void subscribed() {
+            if (!connected) {
+                connected = true;
+                cache.connected();
+            }
+        }
+
+        private synchronized void disconnected() {
+            if (connected) {
+                connected = false;
+                cache.disconnected();
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jedis.PipelineTransport;
+import org.nanoframework.orm.jedis.RedisConfig;
+import org.nanoframework.orm.jedis.exception.RedisClientException;
+import org.nanoframework.orm.jedis.sharded.AutoPipeline;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.BuilderFactory;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+
+/**
+ * 集群模式的自动批量提交.
+ * 命令按Key的哈希槽进入所属节点的提交队列，每个节点使用少量专用连接，由提交线程将队列中的命令合并为一个Pipeline发送.
+ * 
+ * 返回MOVED重定向或连接节点失败(命令未发送)的命令，刷新槽与节点的映射后重新路由; 返回ASK重定向的命令不刷新映射，
+ * 在ASKING之后发送到重定向的节点. 重定向次数超过maxRedirections时返回失败.
+ * 命令发送后连接异常时命令可能已经执行，为避免重复执行非幂等命令，直接返回失败.
+ * 节点的提交线程在第一次路由到该节点时创建.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ClusterAutoPipeline implements PipelineTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterAutoPipeline.class);
+
+    private final String redisType;
+    private final ClusterPipeline slots;
+    private final Map<String, Node> nodes = Maps.newConcurrentMap();
+    private final int connections;
+    private final int batchSize;
+    private final int timeout;
+    private final int maxRedirections;
+    private volatile boolean closed;
+
+    /**
+     *
+     * @param config Redis配置
+     * @param cluster 用于获取槽与节点映射的集群客户端
+     * @param timeout 读超时时间(毫秒)
+     * @param maxRedirections 最大重定向次数
+     */
+    public ClusterAutoPipeline(final RedisConfig config, final JedisCluster cluster, final int timeout, final int maxRedirections) {
+        this.redisType = config.getRedisType();
+        this.slots = new ClusterPipeline(cluster);
+        this.connections = config.getAutoPipelineConnections() == null || config.getAutoPipelineConnections() <= 0 ? AutoPipeline.DEFAULT_CONNECTIONS
+                : config.getAutoPipelineConnections();
+        this.batchSize = config.getAutoPipelineBatchSize() == null || config.getAutoPipelineBatchSize() <= 0 ? AutoPipeline.DEFAULT_BATCH_SIZE
+                : config.getAutoPipelineBatchSize();
+        this.timeout = timeout;
+        this.maxRedirections = maxRedirections;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(final String key, final Function<Pipeline, Response<T>> command) {
+        final Command<T> cmd = new Command<>(key, command);
+        route(cmd);
+        return cmd.future;
+    }
+
+    private void route(final Command<?> cmd) {
+        if (closed) {
+            cmd.fail(new RedisClientException("Cluster auto pipeline [ " + redisType + " ] closed"));
+            return;
+        }
+
+        final String node = slots.node(cmd.key);
+        if (node == null) {
+            cmd.fail(new JedisConnectionException("No reachable node in cluster [ " + redisType + " ] for key: " + cmd.key));
+            return;
+        }
+
+        cmd.asking = false;
+        nodes.computeIfAbsent(node, Node::new).queue.add(cmd);
+    }
+
+    /**
+     * 刷新槽与节点的映射后重新路由.
+     */
+    private void retry(final Command<?> cmd, final Throwable cause) {
+        if (++cmd.attempts > maxRedirections) {
+            cmd.fail(new JedisClusterMaxRedirectionsException("Too many Cluster redirections? " + cause.getMessage()));
+            return;
+        }
+
+        slots.refresh();
+        route(cmd);
+    }
+
+    /**
+     * 槽迁移中，仅本次命令发送到迁移的目标节点，不刷新槽与节点的映射.
+     */
+    private void ask(final Command<?> cmd, final JedisAskDataException cause) {
+        if (++cmd.attempts > maxRedirections) {
+            cmd.fail(new JedisClusterMaxRedirectionsException("Too many Cluster redirections? " + cause.getMessage()));
+            return;
+        }
+
+        if (closed) {
+            cmd.fail(new RedisClientException("Cluster auto pipeline [ " + redisType + " ] closed"));
+            return;
+        }
+
+        final HostAndPort target = cause.getTargetNode();
+        cmd.asking = true;
+        nodes.computeIfAbsent(target.getHost() + ':' + target.getPort(), Node::new).queue.add(cmd);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        final RedisClientException closedException = new RedisClientException("Cluster auto pipeline [ " + redisType + " ] closed");
+        nodes.values().forEach(node -> {
+            node.flushers.forEach(Thread::interrupt);
+            Command<?> cmd;
+            while ((cmd = node.queue.poll()) != null) {
+                cmd.fail(closedException);
+            }
+        });
+    }
+
+    public String getRedisType() {
+        return redisType;
+    }
+
+    /**
+     *
+     * @return 所有节点等待提交的命令数
+     */
+    public int getPendingCount() {
+        return nodes.values().stream().mapToInt(node -> node.queue.size()).sum();
+    }
+
+    private static class Command<T> {
+        private final String key;
+        private final Function<Pipeline, Response<T>> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private Response<T> response;
+        private int attempts;
+        private boolean asking;
+
+        Command(final String key, final Function<Pipeline, Response<T>> command) {
+            this.key = key;
+            this.command = command;
+        }
+
+        void send(final NodePipeline pipeline) {
+            if (asking) {
+                pipeline.asking();
+            }
+
+            response = command.apply(pipeline);
+        }
+
+        void complete() throws Throwable {
+            future.complete(response.get());
+        }
+
+        void fail(final Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private class Node {
+        private final BlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+        private final List<Flusher> flushers = Lists.newArrayList();
+
+        Node(final String node) {
+            final HostAndPort hostAndPort = HostAndPort.parseString(node);
+            for (int conn = 0; conn < connections; conn++) {
+                flushers.add(new Flusher(hostAndPort, queue, "redis-cluster-auto-pipeline-" + redisType + '-' + node + '-' + conn));
+            }
+
+            flushers.forEach(Thread::start);
+            LOGGER.debug("Cluster auto pipeline [ {} ] connect to node: {}", redisType, node);
+        }
+    }
+
+    private class Flusher extends Thread {
+        private final HostAndPort node;
+        private final BlockingQueue<Command<?>> queue;
+        private Jedis jedis;
+
+        Flusher(final HostAndPort node, final BlockingQueue<Command<?>> queue, final String name) {
+            super(name);
+            this.node = node;
+            this.queue = queue;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            final List<Command<?>> batch = Lists.newArrayListWithCapacity(batchSize);
+            try {
+                while (!closed) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                    batch.clear();
+                }
+            } catch (final InterruptedException e) {
+                // closed
+            } finally {
+                disconnect();
+            }
+        }
+
+        private void flush(final List<Command<?>> batch) {
+            try {
+                if (jedis == null) {
+                    jedis = new Jedis(node.getHost(), node.getPort(), timeout);
+                }
+
+                if (!jedis.isConnected()) {
+                    jedis.connect();
+                }
+            } catch (final Throwable e) {
+                // 命令未发送，可以安全地重新路由
+                LOGGER.warn("Cluster auto pipeline [ {} ] connect to {} failure: {}", redisType, node, e.getMessage());
+                disconnect();
+                batch.forEach(cmd -> retry(cmd, e));
+                return;
+            }
+
+            try {
+                final NodePipeline pipeline = new NodePipeline(jedis.getClient());
+                batch.forEach(cmd -> cmd.send(pipeline));
+                pipeline.sync();
+            } catch (final Throwable e) {
+                LOGGER.warn("Cluster auto pipeline [ {} ] flush to {} failure: {}", redisType, node, e.getMessage());
+                disconnect();
+                batch.forEach(cmd -> cmd.fail(e));
+                return;
+            }
+
+            for (final Command<?> cmd : batch) {
+                try {
+                    cmd.complete();
+                } catch (final JedisAskDataException e) {
+                    ask(cmd, e);
+                } catch (final JedisMovedDataException e) {
+                    retry(cmd, e);
+                } catch (final Throwable e) {
+                    cmd.fail(e);
+                }
+            }
+        }
+
+        private void disconnect() {
+            if (jedis != null) {
+                try {
+                    jedis.close();
+                } catch (final Throwable e) {
+                    // ignore
+                }
+
+                jedis = null;
+            }
+        }
+    }
+
+    /**
+     * 支持在命令之前发送ASKING的Pipeline.
+     */
+    private static class NodePipeline extends Pipeline {
+        NodePipeline(final Client client) {
+            setClient(client);
+        }
+
+        void asking() {
+            client.asking();
+            getResponse(BuilderFactory.STRING);
+        }
+    }
+}
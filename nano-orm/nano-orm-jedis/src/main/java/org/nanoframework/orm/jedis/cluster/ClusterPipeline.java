@@ -0,0 +1,329 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Redis Cluster多键操作的批量执行器.
+ * 按键的哈希槽分组到所属节点，每个节点使用一个Pipeline并行发送，结果按键的原始顺序合并，批量操作的耗时由键数量次往返降为约每个节点一次往返.
+ * 
+ * 槽与节点的映射通过CLUSTER SLOTS获取并缓存. 返回MOVED重定向、获取节点连接失败(命令未发送)或槽未分配的键，
+ * 刷新映射后逐个通过JedisCluster单键命令执行; 返回ASK重定向的键不刷新映射，直接通过JedisCluster单键命令执行，
+ * 重定向及重试的处理与JedisCluster一致.
+ * Pipeline发送后连接异常时命令可能已经执行，为避免重复执行非幂等命令(如SETNX、DEL)，直接抛出异常，不再重试.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+final class ClusterPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterPipeline.class);
+    private static final int SLOTS = 16384;
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, Math.max(4, Runtime.getRuntime().availableProcessors() * 2),
+            60L, TimeUnit.SECONDS, new SynchronousQueue<>(), new ThreadFactory() {
+                private final AtomicInteger index = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "redis-cluster-pipeline-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private final JedisCluster cluster;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile String[] slots;
+
+    ClusterPipeline(final JedisCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * 添加到Pipeline的单键命令.
+     *
+     * @param <T> 返回值类型
+     */
+    @FunctionalInterface
+    interface Command<T> {
+        Response<T> apply(Pipeline pipeline, String key);
+    }
+
+    /**
+     * 
+     * @param <T> 返回值类型
+     * @param keys 键，重复的键只执行一次
+     * @param command 添加到Pipeline的命令
+     * @param fallback 通过JedisCluster执行的单键命令
+     * @return 按键的原始顺序排列的执行结果
+     */
+    <T> Map<String, T> execute(final Collection<String> keys, final Command<T> command, final Function<String, T> fallback) {
+        final Set<String> distinct = Sets.newLinkedHashSet(keys);
+        final Map<String, T> results = Maps.newLinkedHashMap();
+        if (distinct.size() == 1) {
+            distinct.forEach(key -> results.put(key, fallback.apply(key)));
+            return results;
+        }
+
+        final List<String> unrouted = Lists.newArrayList();
+        final Map<String, Batch<T>> batches = group(distinct, unrouted);
+        final Map<String, JedisPool> nodes = batches.isEmpty() ? null : cluster.getClusterNodes();
+        final List<Future<?>> futures = Lists.newArrayListWithCapacity(batches.size());
+        Batch<T> local = null;
+        JedisPool localPool = null;
+        for (final Batch<T> batch : batches.values()) {
+            final JedisPool pool = nodes.get(batch.node);
+            if (local == null) {
+                local = batch;
+                localPool = pool;
+            } else {
+                futures.add(EXECUTOR.submit(() -> batch.run(pool, command)));
+            }
+        }
+
+        if (local != null) {
+            local.run(localPool, command);
+        }
+
+        await(futures);
+
+        final Map<String, T> merged = Maps.newHashMapWithExpectedSize(distinct.size());
+        boolean redirected = false;
+        for (final Batch<T> batch : batches.values()) {
+            if (batch.failure != null) {
+                throw batch.failure;
+            }
+
+            merged.putAll(batch.results);
+            unrouted.addAll(batch.redirected);
+            unrouted.addAll(batch.asked);
+            redirected |= !batch.redirected.isEmpty();
+        }
+
+        if (redirected) {
+            refresh();
+        }
+
+        unrouted.forEach(key -> merged.put(key, fallback.apply(key)));
+        distinct.forEach(key -> results.put(key, merged.get(key)));
+        return results;
+    }
+
+    private <T> Map<String, Batch<T>> group(final Set<String> keys, final List<String> unrouted) {
+        String[] slots = this.slots;
+        if (slots == null) {
+            refresh();
+            slots = this.slots;
+        }
+
+        final Map<String, Batch<T>> batches = Maps.newLinkedHashMap();
+        for (final String key : keys) {
+            final String node = slots == null ? null : slots[JedisClusterCRC16.getSlot(key)];
+            if (node == null) {
+                unrouted.add(key);
+            } else {
+                batches.computeIfAbsent(node, Batch::new).keys.add(key);
+            }
+        }
+
+        return batches;
+    }
+
+    /**
+     *
+     * @param key 键
+     * @return 键所在槽的节点，格式为host:port，映射不可用或槽未分配时返回null
+     */
+    String node(final String key) {
+        String[] slots = this.slots;
+        if (slots == null) {
+            refresh();
+            slots = this.slots;
+        }
+
+        return slots == null ? null : slots[JedisClusterCRC16.getSlot(key)];
+    }
+
+    /**
+     *
+     * @return 负责槽的主节点，格式为host:port，映射不可用时返回空集合
+     */
+    Set<String> masters() {
+        String[] slots = this.slots;
+        if (slots == null) {
+            refresh();
+            slots = this.slots;
+        }
+
+        final Set<String> masters = Sets.newLinkedHashSet();
+        if (slots != null) {
+            for (final String node : slots) {
+                if (node != null) {
+                    masters.add(node);
+                }
+            }
+        }
+
+        return masters;
+    }
+
+    private void await(final List<Future<?>> futures) {
+        RuntimeException error = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = new JedisException(e.getMessage(), e);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                error = cause instanceof RuntimeException ? (RuntimeException) cause : new JedisException(cause.getMessage(), cause);
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * 通过任意可用节点重新获取槽与节点的映射，同时只有一个线程刷新.
+     */
+    void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (final JedisPool pool : cluster.getClusterNodes().values()) {
+                try (final Jedis jedis = pool.getResource()) {
+                    slots = parse(jedis.clusterSlots());
+                    return;
+                } catch (final JedisException e) {
+                    LOGGER.debug("Load cluster slots failure: {}", e.getMessage());
+                }
+            }
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String[] parse(final List<Object> slotInfos) {
+        final String[] slots = new String[SLOTS];
+        for (final Object slotInfo : slotInfos) {
+            final List<Object> range = (List<Object>) slotInfo;
+            if (range.size() <= 2) {
+                continue;
+            }
+
+            final List<Object> master = (List<Object>) range.get(2);
+            final HostAndPort node = new HostAndPort(SafeEncoder.encode((byte[]) master.get(0)), ((Long) master.get(1)).intValue());
+            Arrays.fill(slots, ((Long) range.get(0)).intValue(), ((Long) range.get(1)).intValue() + 1, JedisClusterInfoCache.getNodeKey(node));
+        }
+
+        return slots;
+    }
+
+    /**
+     * 同一节点的键.
+     */
+    private static final class Batch<T> {
+        private final String node;
+        private final List<String> keys = Lists.newArrayList();
+        private final Map<String, T> results = Maps.newHashMap();
+        private final List<String> redirected = Lists.newArrayList();
+        private final List<String> asked = Lists.newArrayList();
+        private RuntimeException failure;
+
+        private Batch(final String node) {
+            this.node = node;
+        }
+
+        private void run(final JedisPool pool, final Command<T> command) {
+            if (pool == null) {
+                redirected.addAll(keys);
+                return;
+            }
+
+            final Jedis jedis;
+            try {
+                jedis = pool.getResource();
+            } catch (final JedisConnectionException e) {
+                LOGGER.warn("Connect to node [ {} ] failure, retry by cluster commands: {}", node, e.getMessage());
+                redirected.addAll(keys);
+                return;
+            }
+
+            try {
+                final Pipeline pipeline = jedis.pipelined();
+                final List<Response<T>> responses = Lists.newArrayListWithCapacity(keys.size());
+                keys.forEach(key -> responses.add(command.apply(pipeline, key)));
+                pipeline.sync();
+                for (int idx = 0; idx < responses.size(); idx++) {
+                    try {
+                        results.put(keys.get(idx), responses.get(idx).get());
+                    } catch (final JedisMovedDataException e) {
+                        redirected.add(keys.get(idx));
+                    } catch (final JedisAskDataException e) {
+                        asked.add(keys.get(idx));
+                    }
+                }
+            } catch (final RuntimeException e) {
+                // 命令已发送，可能已经执行
+                LOGGER.warn("Pipeline to node [ {} ] failure: {}", node, e.getMessage());
+                failure = e;
+            } finally {
+                jedis.close();
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.nanoframework.orm.jedis.cluster;
 import static org.nanoframework.orm.jedis.RedisClientPool.POOL;
 
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,7 @@ import org.nanoframework.commons.util.CollectionUtils;
 import org.nanoframework.orm.jedis.AbstractRedisClient;
 import org.nanoframework.orm.jedis.RedisClient;
 import org.nanoframework.orm.jedis.RedisConfig;
+import org.nanoframework.orm.jedis.ScanKeysSpliterator.NodeScanner;
 import org.nanoframework.orm.jedis.exception.RedisClientException;
 
 import com.alibaba.fastjson.TypeReference;
@@ -39,7 +41,10 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
@@ -52,15 +57,46 @@ import redis.clients.jedis.exceptions.JedisClusterException;
  */
 public class RedisClusterClientImpl extends AbstractRedisClient implements RedisClient {
     protected JedisCluster cluster;
+    /** 多键操作按节点分组批量执行. */
+    private final ClusterPipeline pipeline;
 
     public RedisClusterClientImpl(final String type) {
         super(type);
         cluster = POOL.getJedisCluster(type);
+        pipeline = new ClusterPipeline(cluster);
+        initNearCache();
     }
 
     public RedisClusterClientImpl(final RedisConfig config) {
         super(config);
         cluster = POOL.appendJedisCluster(config);
+        pipeline = new ClusterPipeline(cluster);
+        initNearCache();
+    }
+
+    @Override
+    protected List<List<HostAndPort>> nearCacheEndpoints(final boolean keyspace, final String channel) {
+        final List<HostAndPort> nodes = Lists.newArrayList();
+        cluster.getClusterNodes().keySet().forEach(node -> nodes.add(HostAndPort.parseString(node)));
+        if (keyspace) {
+            // 键空间通知只在Key所在的节点发布，需订阅所有节点
+            final List<List<HostAndPort>> endpoints = Lists.newArrayList();
+            nodes.forEach(node -> endpoints.add(Lists.newArrayList(node)));
+            return endpoints;
+        }
+
+        // 集群内发布的消息会广播到所有节点，订阅任一节点即可
+        return nodes.isEmpty() ? Collections.emptyList() : Collections.singletonList(nodes);
+    }
+
+    @Override
+    protected void publishInvalidation(final String channel, final String message) {
+        cluster.publish(channel, message);
+    }
+
+    @Override
+    protected long nearCachePttl(final String key) {
+        return cluster.pttl(key);
     }
 
     @Override
@@ -77,14 +113,12 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
     public long del(final String... keys) {
         Assert.notEmpty(keys);
         try {
-            long deleted = 0;
-            for (String key : keys) {
-                deleted += cluster.del(key);
-            }
-
-            return deleted;
+            final Map<String, Long> deleted = pipeline.execute(Arrays.asList(keys), (pipelined, key) -> pipelined.del(key), cluster::del);
+            return deleted.values().stream().mapToLong(Long::longValue).sum();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(keys);
         }
     }
 
@@ -120,7 +154,29 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
 
     @Override
     public Set<String> keys(final String pattern) {
-        throw new UnsupportedAccessException("Redis Cluster unsupported command 'keys'");
+        throw new UnsupportedAccessException("Redis Cluster unsupported command 'keys', use 'scanKeys' instead");
+    }
+
+    /**
+     * 遍历所有主节点，主节点通过槽与节点的映射获取. 槽迁移期间已迁出的Key可能不会返回.
+     */
+    @Override
+    protected List<NodeScanner> keyScanners(final ScanParams params) {
+        final List<NodeScanner> scanners = Lists.newArrayList();
+        pipeline.masters().forEach(node -> scanners.add(cursor -> {
+            final JedisPool pool = cluster.getClusterNodes().get(node);
+            if (pool == null) {
+                throw new RedisClientException("Not found cluster node: " + node);
+            }
+
+            try (final Jedis jedis = pool.getResource()) {
+                return jedis.scan(cursor, params);
+            } catch (final Throwable e) {
+                throw new RedisClientException(e.getMessage(), e);
+            }
+        }));
+
+        return scanners;
     }
 
     @Override
@@ -138,30 +194,32 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return cluster.append(key, newValue);
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
     @Override
     public String get(final String key) {
         Assert.hasText(key);
-        try {
-            return cluster.get(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        }
+        return cached(key, null, () -> {
+            try {
+                return cluster.get(key);
+            } catch (final Throwable e) {
+                throw new RedisClientException(e.getMessage(), e);
+            }
+        });
     }
 
     @Override
     public Map<String, String> get(final String... keys) {
         Assert.notEmpty(keys);
-        try {
-            Map<String, String> values = Maps.newHashMap();
-            for (String key : keys) {
-                Assert.hasText(key);
-                values.put(key, cluster.get(key));
-            }
+        for (String key : keys) {
+            Assert.hasText(key);
+        }
 
-            return values;
+        try {
+            return pipeline.execute(Arrays.asList(keys), (pipelined, key) -> pipelined.get(key), cluster::get);
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
         }
@@ -175,6 +233,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return cluster.getSet(key, value);
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -186,23 +246,25 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return isOK(cluster.set(key, value));
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
     @Override
     public Map<String, Boolean> set(final Map<String, Object> map) {
         Assert.notEmpty(map);
+        final Map<String, String> values = toJSONValues(map);
         try {
-            final Map<String, Boolean> response = Maps.newHashMap();
-            for (Entry<String, Object> entry : map.entrySet()) {
-                final String key = entry.getKey();
-                final Object value = entry.getValue();
-                response.put(key, set(key, value));
-            }
-
+            final Map<String, String> replies = pipeline.execute(values.keySet(), (pipelined, key) -> pipelined.set(key, values.get(key)),
+                    key -> cluster.set(key, values.get(key)));
+            final Map<String, Boolean> response = Maps.newLinkedHashMap();
+            replies.forEach((key, reply) -> response.put(key, isOK(reply)));
             return response;
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(values.keySet());
         }
     }
 
@@ -214,6 +276,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return isSuccess(cluster.setnx(key, value));
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -225,20 +289,33 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
     @Override
     public Map<String, Boolean> setByNX(final Map<String, Object> map) {
         Assert.notEmpty(map);
+        final Map<String, String> values = toJSONValues(map);
         try {
-            final Map<String, Boolean> response = Maps.newHashMap();
-            for (Entry<String, Object> entry : map.entrySet()) {
-                final String key = entry.getKey();
-                final Object value = entry.getValue();
-                response.put(key, setByNX(key, value));
-            }
-
+            final Map<String, Long> replies = pipeline.execute(values.keySet(), (pipelined, key) -> pipelined.setnx(key, values.get(key)),
+                    key -> cluster.setnx(key, values.get(key)));
+            final Map<String, Boolean> response = Maps.newLinkedHashMap();
+            replies.forEach((key, reply) -> response.put(key, isSuccess(reply)));
             return response;
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(values.keySet());
         }
     }
 
+    private Map<String, String> toJSONValues(final Map<String, Object> map) {
+        final Map<String, String> values = Maps.newLinkedHashMap();
+        map.forEach((key, value) -> {
+            Assert.hasText(key);
+            Assert.notNull(value);
+            final String jsonValue = toJSONString(value);
+            Assert.hasText(jsonValue);
+            values.put(key, jsonValue);
+        });
+
+        return values;
+    }
+
     @Override
     public boolean setByEX(final String key, final String value, final int seconds) {
         Assert.hasText(key);
@@ -247,6 +324,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return isOK(cluster.setex(key, seconds, value));
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -272,6 +351,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.longValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -287,6 +368,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.longValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -302,6 +385,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.doubleValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -317,6 +402,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.longValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -332,6 +419,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.longValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -352,6 +441,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return cluster.hdel(key, fields);
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -370,11 +461,13 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
     public String hget(final String key, final String field) {
         Assert.hasText(key);
         Assert.hasText(field);
-        try {
-            return cluster.hget(key, field);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        }
+        return cached(key, field, () -> {
+            try {
+                return cluster.hget(key, field);
+            } catch (final Throwable e) {
+                throw new RedisClientException(e.getMessage(), e);
+            }
+        });
     }
 
     @Override
@@ -436,6 +529,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return isSuccess(cluster.hset(key, field, value));
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -449,6 +544,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return isOK(cluster.hmset(key, newMap));
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -461,6 +558,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return isSuccess(cluster.hsetnx(key, field, value));
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -516,6 +615,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.longValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -532,6 +633,8 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return val.doubleValue();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            invalidate(key);
         }
     }
 
@@ -981,13 +1084,12 @@ public class RedisClusterClientImpl extends AbstractRedisClient implements Redis
             return Collections.emptyMap();
         }
 
-        try {
-            final Map<String, Long> response = Maps.newHashMap();
-            for (String key : keys) {
-                response.put(key, scard(key));
-            }
+        for (String key : keys) {
+            Assert.hasText(key);
+        }
 
-            return response;
+        try {
+            return pipeline.execute(Arrays.asList(keys), (pipelined, key) -> pipelined.scard(key), cluster::scard);
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
         }
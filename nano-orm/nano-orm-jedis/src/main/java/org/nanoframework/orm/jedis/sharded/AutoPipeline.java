@@ -0,0 +1,333 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.sharded;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.orm.jedis.PipelineTransport;
+import org.nanoframework.orm.jedis.RedisConfig;
+import org.nanoframework.orm.jedis.exception.RedisClientException;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.util.Hashing;
+import redis.clients.util.Sharded;
+
+/**
+ * 分片模式的自动批量提交.
+ * 并发调用的命令按Key所在分片进入分片的提交队列，每个分片使用少量专用连接，由提交线程将队列中的命令合并为一个Pipeline发送，
+ * 收到全部响应后唤醒等待的调用方. 高并发时以多路复用的连接代替每次调用从连接池获取连接，多个命令共用一次往返.
+ * 
+ * 等待提交及执行中的命令数不超过autoPipelineMaxPending，达到上限时提交方等待. 调用方等待超时或取消的命令，
+ * 未发送时不再发送; 已发送时由调用方指定的回调在命令完成后执行.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class AutoPipeline implements PipelineTransport {
+    public static final int DEFAULT_CONNECTIONS = 2;
+    public static final int DEFAULT_BATCH_SIZE = 128;
+    public static final int DEFAULT_MAX_PENDING = 4096;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AutoPipeline.class);
+
+    private final String redisType;
+    private final ShardedJedis router;
+    private final Map<JedisShardInfo, BlockingQueue<Command<?>>> queues = Maps.newIdentityHashMap();
+    private final List<Flusher> flushers = Lists.newArrayList();
+    private final int batchSize;
+    private final long waitMillis;
+    private final Semaphore pending;
+    private volatile boolean closed;
+
+    /**
+     *
+     * @param config Redis配置
+     * @param shards 与连接池相同顺序的分片，保证Key分配到与连接池相同的分片
+     * @param timeout 读超时时间(毫秒)，0为不限制
+     */
+    public AutoPipeline(final RedisConfig config, final List<JedisShardInfo> shards, final int timeout) {
+        this.redisType = config.getRedisType();
+        this.router = new ShardedJedis(shards, Hashing.MURMUR_HASH, Sharded.DEFAULT_KEY_TAG_PATTERN);
+        this.batchSize = config.getAutoPipelineBatchSize() == null || config.getAutoPipelineBatchSize() <= 0 ? DEFAULT_BATCH_SIZE
+                : config.getAutoPipelineBatchSize();
+        // 队列等待及一次Pipeline往返，超过两倍读超时仍未完成时视为失败，读超时为0时一直等待
+        this.waitMillis = timeout > 0 ? timeout * 2L : 0;
+        this.pending = new Semaphore(config.getAutoPipelineMaxPending() == null || config.getAutoPipelineMaxPending() <= 0 ? DEFAULT_MAX_PENDING
+                : config.getAutoPipelineMaxPending());
+
+        final int connections = config.getAutoPipelineConnections() == null || config.getAutoPipelineConnections() <= 0 ? DEFAULT_CONNECTIONS
+                : config.getAutoPipelineConnections();
+        for (int idx = 0; idx < shards.size(); idx++) {
+            final JedisShardInfo shard = shards.get(idx);
+            final BlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+            queues.put(shard, queue);
+            for (int conn = 0; conn < connections; conn++) {
+                flushers.add(new Flusher(shard, queue, "redis-auto-pipeline-" + redisType + '-' + idx + '-' + conn));
+            }
+        }
+
+        flushers.forEach(Thread::start);
+        LOGGER.info("Auto pipeline [ {} ] started, shards: {}, connections per shard: {}, batch size: {}", redisType, shards.size(), connections,
+                batchSize);
+    }
+
+    /**
+     * 提交命令并等待执行结果.
+     * @param key 用于选择分片的Key
+     * @param command 将命令写入Pipeline
+     * @return 执行结果
+     */
+    public <T> T execute(final String key, final Function<Pipeline, Response<T>> command) {
+        return execute(key, command, null);
+    }
+
+    /**
+     * 提交命令并等待执行结果，等待超时时未发送的命令不再发送.
+     * @param key 用于选择分片的Key
+     * @param command 将命令写入Pipeline
+     * @param lateCompletion 等待超时时命令已发送，在命令完成后执行，如使本地缓存失效
+     * @return 执行结果
+     */
+    public <T> T execute(final String key, final Function<Pipeline, Response<T>> command, final Runnable lateCompletion) {
+        final Command<T> cmd = submit0(key, command);
+        try {
+            return waitMillis > 0 ? cmd.future.get(waitMillis, TimeUnit.MILLISECONDS) : cmd.future.get();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw new RedisClientException(cause.getMessage(), cause);
+        } catch (final TimeoutException e) {
+            final RedisClientException timeout = new RedisClientException("Auto pipeline [ " + redisType + " ] wait timeout: " + waitMillis + "ms",
+                    e);
+            abandon(cmd, timeout, lateCompletion);
+            throw timeout;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final RedisClientException interrupted = new RedisClientException(e.getMessage(), e);
+            abandon(cmd, interrupted, lateCompletion);
+            throw interrupted;
+        }
+    }
+
+    private void abandon(final Command<?> cmd, final Throwable cause, final Runnable lateCompletion) {
+        if (cmd.claim()) {
+            cmd.fail(cause);
+        } else if (lateCompletion != null) {
+            cmd.future.whenComplete((result, e) -> lateCompletion.run());
+        }
+    }
+
+    /**
+     * 提交命令，不等待执行结果. 等待提交的命令数达到上限时等待，超过读超时时间仍无法提交时返回失败.
+     * 返回的CompletableFuture在发送前被取消时，命令不再发送.
+     * @param key 用于选择分片的Key
+     * @param command 将命令写入Pipeline
+     * @return 执行结果
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(final String key, final Function<Pipeline, Response<T>> command) {
+        return submit0(key, command).future;
+    }
+
+    private <T> Command<T> submit0(final String key, final Function<Pipeline, Response<T>> command) {
+        final Command<T> cmd = new Command<>(command);
+        if (closed) {
+            cmd.fail(new RedisClientException("Auto pipeline [ " + redisType + " ] closed"));
+            return cmd;
+        }
+
+        try {
+            if (!acquire()) {
+                cmd.fail(new RedisClientException("Auto pipeline [ " + redisType + " ] too many pending commands, wait timeout: " + waitMillis
+                        + "ms"));
+                return cmd;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cmd.fail(new RedisClientException(e.getMessage(), e));
+            return cmd;
+        }
+
+        cmd.future.whenComplete((result, e) -> pending.release());
+        queues.get(router.getShardInfo(key)).add(cmd);
+        if (closed) {
+            // 与close并发提交时，不再等待已停止的提交线程
+            cmd.fail(new RedisClientException("Auto pipeline [ " + redisType + " ] closed"));
+        }
+
+        return cmd;
+    }
+
+    private boolean acquire() throws InterruptedException {
+        if (waitMillis > 0) {
+            return pending.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        }
+
+        pending.acquire();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flushers.forEach(Thread::interrupt);
+        final RedisClientException closedException = new RedisClientException("Auto pipeline [ " + redisType + " ] closed");
+        queues.values().forEach(queue -> {
+            Command<?> cmd;
+            while ((cmd = queue.poll()) != null) {
+                cmd.fail(closedException);
+            }
+        });
+    }
+
+    public String getRedisType() {
+        return redisType;
+    }
+
+    /**
+     *
+     * @return 所有分片等待提交的命令数
+     */
+    public int getPendingCount() {
+        return queues.values().stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    /**
+     *
+     * @return 还可提交的命令数
+     */
+    public int getAvailablePermits() {
+        return pending.availablePermits();
+    }
+
+    private static class Command<T> {
+        private final Function<Pipeline, Response<T>> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Response<T> response;
+
+        Command(final Function<Pipeline, Response<T>> command) {
+            this.command = command;
+        }
+
+        /**
+         * 提交线程发送前与放弃等待的调用方竞争，只有一方成功.
+         * @return 未被对方获取且未完成时返回true
+         */
+        boolean claim() {
+            return !future.isDone() && claimed.compareAndSet(false, true);
+        }
+
+        void send(final Pipeline pipeline) {
+            response = command.apply(pipeline);
+        }
+
+        void complete() {
+            try {
+                future.complete(response.get());
+            } catch (final Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void fail(final Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private class Flusher extends Thread {
+        private final JedisShardInfo shard;
+        private final BlockingQueue<Command<?>> queue;
+        private Jedis jedis;
+
+        Flusher(final JedisShardInfo shard, final BlockingQueue<Command<?>> queue, final String name) {
+            super(name);
+            this.shard = shard;
+            this.queue = queue;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            final List<Command<?>> batch = Lists.newArrayListWithCapacity(batchSize);
+            try {
+                final List<Command<?>> drained = Lists.newArrayListWithCapacity(batchSize);
+                while (!closed) {
+                    drained.add(queue.take());
+                    queue.drainTo(drained, batchSize - 1);
+                    // 跳过调用方已放弃等待或已取消的命令
+                    drained.stream().filter(Command::claim).forEach(batch::add);
+                    drained.clear();
+                    if (!batch.isEmpty()) {
+                        flush(batch);
+                        batch.clear();
+                    }
+                }
+            } catch (final InterruptedException e) {
+                // closed
+            } finally {
+                disconnect();
+            }
+        }
+
+        private void flush(final List<Command<?>> batch) {
+            try {
+                if (jedis == null) {
+                    jedis = new Jedis(shard);
+                }
+
+                final Pipeline pipeline = jedis.pipelined();
+                batch.forEach(cmd -> cmd.send(pipeline));
+                pipeline.sync();
+                batch.forEach(Command::complete);
+            } catch (final Throwable e) {
+                LOGGER.warn("Auto pipeline [ {} ] flush to {}:{} failure: {}", redisType, shard.getHost(), shard.getPort(), e.getMessage());
+                batch.forEach(cmd -> cmd.fail(e));
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            if (jedis != null) {
+                try {
+                    jedis.close();
+                } catch (final Throwable e) {
+                    // ignore
+                }
+
+                jedis = null;
+            }
+        }
+    }
+}
@@ -27,6 +27,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -34,15 +36,19 @@ import org.nanoframework.commons.util.Assert;
 import org.nanoframework.commons.util.CollectionUtils;
 import org.nanoframework.orm.jedis.AbstractRedisClient;
 import org.nanoframework.orm.jedis.RedisConfig;
+import org.nanoframework.orm.jedis.ScanKeysSpliterator.NodeScanner;
 import org.nanoframework.orm.jedis.exception.RedisClientException;
 
 import com.alibaba.fastjson.TypeReference;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
 import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Response;
 import redis.clients.jedis.ScanParams;
@@ -52,13 +58,83 @@ import redis.clients.jedis.ShardedJedisPipeline;
 import redis.clients.jedis.Tuple;
 
 public class RedisClientImpl extends AbstractRedisClient {
+    /**
+     * 自动批量提交，未开启时为null.
+     * @since 1.4.11
+     */
+    protected AutoPipeline autoPipeline;
+
     public RedisClientImpl(final String type) {
         super(type);
+        autoPipeline = POOL.getAutoPipeline(type);
+        initNearCache();
     }
 
     public RedisClientImpl(final RedisConfig config) {
         super(config);
         POOL.appendJedis(config);
+        autoPipeline = POOL.getAutoPipeline(config.getRedisType());
+        initNearCache();
+    }
+
+    /**
+     * 单Key命令，开启自动批量提交时加入Key所在分片的提交队列，否则从连接池获取连接执行.
+     * @param key Key
+     * @param pipelined 将命令写入Pipeline
+     * @param command 使用连接池的连接执行命令
+     * @return 执行结果
+     * @since 1.4.11
+     */
+    protected <T> T execute(final String key, final Function<Pipeline, Response<T>> pipelined, final Function<ShardedJedis, T> command) {
+        if (autoPipeline != null) {
+            // 等待超时时命令已发送，写入在调用方使本地缓存失效之后完成，完成后再次失效
+            return autoPipeline.execute(key, pipelined, () -> invalidate(key));
+        }
+
+        ShardedJedis jedis = null;
+        try {
+            jedis = POOL.getJedis(config.getRedisType());
+            return command.apply(jedis);
+        } catch (final Throwable e) {
+            throw new RedisClientException(e.getMessage(), e);
+        } finally {
+            POOL.close(jedis);
+        }
+    }
+
+    @Override
+    protected List<List<HostAndPort>> nearCacheEndpoints(final boolean keyspace, final String channel) {
+        ShardedJedis jedis = null;
+        try {
+            jedis = POOL.getJedis(config.getRedisType());
+            final List<List<HostAndPort>> endpoints = Lists.newArrayList();
+            if (keyspace) {
+                jedis.getAllShardInfo().forEach(shard -> endpoints.add(Lists.newArrayList(new HostAndPort(shard.getHost(), shard.getPort()))));
+            } else {
+                final JedisShardInfo shard = jedis.getShardInfo(channel);
+                endpoints.add(Lists.newArrayList(new HostAndPort(shard.getHost(), shard.getPort())));
+            }
+
+            return endpoints;
+        } finally {
+            POOL.close(jedis);
+        }
+    }
+
+    @Override
+    protected void publishInvalidation(final String channel, final String message) {
+        ShardedJedis jedis = null;
+        try {
+            jedis = POOL.getJedis(config.getRedisType());
+            jedis.getShard(channel).publish(channel, message);
+        } finally {
+            POOL.close(jedis);
+        }
+    }
+
+    @Override
+    protected long nearCachePttl(final String key) {
+        return execute(key, pipeline -> pipeline.pttl(key), jedis -> jedis.pttl(key));
     }
 
     @Override
@@ -128,6 +204,7 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(keys);
         }
     }
 
@@ -135,66 +212,58 @@ public class RedisClientImpl extends AbstractRedisClient {
     public boolean exists(final String key) {
         Assert.hasText(key);
 
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.exists(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.exists(key), jedis -> jedis.exists(key));
     }
 
     @Override
     public long expire(final String key, final int seconds) {
         Assert.hasText(key);
 
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.expire(key, seconds);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.expire(key, seconds), jedis -> jedis.expire(key, seconds));
     }
 
     @Override
     public long ttl(final String key) {
         Assert.hasText(key);
 
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.ttl(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.ttl(key), jedis -> jedis.ttl(key));
     }
 
     @Override
     public Set<String> keys(final String pattern) {
-        Assert.hasText(pattern);
+        return scanKeys(pattern, DEFAULT_SCAN_COUNT).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
+    @Override
+    protected List<NodeScanner> keyScanners(final ScanParams params) {
+        final int size;
         ShardedJedis jedis = null;
         try {
             jedis = POOL.getJedis(config.getRedisType());
-            Set<String> keys = new LinkedHashSet<>();
-            Collection<Jedis> allShards = jedis.getAllShards();
-            for (Jedis _jedis : allShards) {
-                keys.addAll(_jedis.keys(pattern));
-            }
-
-            return keys;
+            size = jedis.getAllShards().size();
         } catch (final Throwable e) {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
         }
+
+        final List<NodeScanner> scanners = Lists.newArrayListWithCapacity(size);
+        for (int idx = 0; idx < size; idx++) {
+            final int shard = idx;
+            scanners.add(cursor -> {
+                ShardedJedis shardedJedis = null;
+                try {
+                    shardedJedis = POOL.getJedis(config.getRedisType());
+                    return Iterables.get(shardedJedis.getAllShards(), shard).scan(cursor, params);
+                } catch (final Throwable e) {
+                    throw new RedisClientException(e.getMessage(), e);
+                } finally {
+                    POOL.close(shardedJedis);
+                }
+            });
+        }
+
+        return scanners;
     }
 
     @Override
@@ -217,22 +286,14 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(key);
         }
     }
 
     @Override
     public String get(final String key) {
         Assert.hasText(key);
-
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.get(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return cached(key, null, () -> execute(key, pipeline -> pipeline.get(key), jedis -> jedis.get(key)));
     }
 
     @Override
@@ -264,14 +325,10 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(value);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.getSet(key, value);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return execute(key, pipeline -> pipeline.getSet(key, value), jedis -> jedis.getSet(key, value));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -280,14 +337,10 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(value);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return isOK(jedis.set(key, value));
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return isOK(execute(key, pipeline -> pipeline.set(key, value), jedis -> jedis.set(key, value)));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -310,6 +363,7 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(map.keySet());
         }
     }
 
@@ -318,14 +372,10 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(value);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return isSuccess(jedis.setnx(key, value));
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return isSuccess(execute(key, pipeline -> pipeline.setnx(key, value), jedis -> jedis.setnx(key, value)));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -345,6 +395,7 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -369,6 +420,7 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(map.keySet());
         }
     }
 
@@ -377,123 +429,91 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(value);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return isOK(jedis.setex(key, seconds, value));
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return isOK(execute(key, pipeline -> pipeline.setex(key, seconds, value), jedis -> jedis.setex(key, seconds, value)));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
     @Override
     public long strLen(final String key) {
         Assert.hasText(key);
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.strlen(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.strlen(key), jedis -> jedis.strlen(key));
     }
 
     @Override
     public long incr(final String key) {
         Assert.hasText(key);
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Long val = jedis.incr(key);
+            final Long val = execute(key, pipeline -> pipeline.incr(key), jedis -> jedis.incr(key));
             if (val == null) {
                 return 0;
             }
 
             return val.longValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
     @Override
     public long incrBy(final String key, final long value) {
         Assert.hasText(key);
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Long val = jedis.incrBy(key, value);
+            final Long val = execute(key, pipeline -> pipeline.incrBy(key, value), jedis -> jedis.incrBy(key, value));
             if (val == null) {
                 return 0;
             }
 
             return val.longValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
     @Override
     public double incrByFloat(final String key, final double value) {
         Assert.hasText(key);
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Double val = jedis.incrByFloat(key, value);
+            final Double val = execute(key, pipeline -> pipeline.incrByFloat(key, value), jedis -> jedis.incrByFloat(key, value));
             if (val == null) {
                 return 0;
             }
 
             return val.doubleValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
     @Override
     public long decr(final String key) {
         Assert.hasText(key);
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Long val = jedis.decr(key);
+            final Long val = execute(key, pipeline -> pipeline.decr(key), jedis -> jedis.decr(key));
             if (val == null) {
                 return 0;
             }
 
             return val.longValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
     @Override
     public long decrBy(final String key, final long value) {
         Assert.hasText(key);
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Long val = jedis.decrBy(key, value);
+            final Long val = execute(key, pipeline -> pipeline.decrBy(key, value), jedis -> jedis.decrBy(key, value));
             if (val == null) {
                 return 0;
             }
 
             return val.longValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -529,14 +549,10 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.notEmpty(fields);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.hdel(key, fields);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return execute(key, pipeline -> pipeline.hdel(key, fields), jedis -> jedis.hdel(key, fields));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -545,31 +561,14 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(field);
 
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.hexists(key, field);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.hexists(key, field), jedis -> jedis.hexists(key, field));
     }
 
     @Override
     public String hget(final String key, final String field) {
         Assert.hasText(key);
         Assert.hasText(field);
-
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.hget(key, field);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return cached(key, field, () -> execute(key, pipeline -> pipeline.hget(key, field), jedis -> jedis.hget(key, field)));
     }
 
     @Override
@@ -601,15 +600,7 @@ public class RedisClientImpl extends AbstractRedisClient {
     public Map<String, String> hgetAll(final String key) {
         Assert.hasText(key);
 
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.hgetAll(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.hgetAll(key), jedis -> jedis.hgetAll(key));
     }
 
     @Override
@@ -631,15 +622,7 @@ public class RedisClientImpl extends AbstractRedisClient {
     public long hlen(final String key) {
         Assert.hasText(key);
 
-        ShardedJedis jedis = null;
-        try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return jedis.hlen(key);
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
-        } finally {
-            POOL.close(jedis);
-        }
+        return execute(key, pipeline -> pipeline.hlen(key), jedis -> jedis.hlen(key));
     }
 
     @Override
@@ -648,14 +631,10 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(field);
         Assert.hasText(value);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return isSuccess(jedis.hset(key, field, value));
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return isSuccess(execute(key, pipeline -> pipeline.hset(key, field, value), jedis -> jedis.hset(key, field, value)));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -674,6 +653,7 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -683,14 +663,10 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(field);
         Assert.hasText(value);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            return isSuccess(jedis.hsetnx(key, field, value));
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
+            return isSuccess(execute(key, pipeline -> pipeline.hsetnx(key, field, value), jedis -> jedis.hsetnx(key, field, value)));
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -716,6 +692,7 @@ public class RedisClientImpl extends AbstractRedisClient {
             throw new RedisClientException(e.getMessage(), e);
         } finally {
             POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -755,19 +732,15 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(field);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Long val = jedis.hincrBy(key, field, value);
+            final Long val = execute(key, pipeline -> pipeline.hincrBy(key, field, value), jedis -> jedis.hincrBy(key, field, value));
             if (val == null) {
                 return 0;
             }
 
             return val.longValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -776,19 +749,15 @@ public class RedisClientImpl extends AbstractRedisClient {
         Assert.hasText(key);
         Assert.hasText(field);
 
-        ShardedJedis jedis = null;
         try {
-            jedis = POOL.getJedis(config.getRedisType());
-            final Double val = jedis.hincrByFloat(key, field, value);
+            final Double val = execute(key, pipeline -> pipeline.hincrByFloat(key, field, value), jedis -> jedis.hincrByFloat(key, field, value));
             if (val == null) {
                 return 0;
             }
 
             return val.doubleValue();
-        } catch (final Throwable e) {
-            throw new RedisClientException(e.getMessage(), e);
         } finally {
-            POOL.close(jedis);
+            invalidate(key);
         }
     }
 
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.nanoframework.orm.jedis.exception.RedisClientException;
+import org.nanoframework.orm.jedis.sharded.RespMockServer;
+
+import com.google.common.collect.Lists;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class AsyncRedisClientTest {
+    private static final String SHARDED_TYPE = "async-sharded-test";
+    private static final String BACKPRESSURE_TYPE = "async-backpressure-test";
+    private static final String CLUSTER_TYPE = "async-cluster-test";
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private static RespMockServer sharded;
+    private static RespMockServer backpressure;
+    private static RespMockServer nodeA;
+    private static RespMockServer nodeB;
+
+    @BeforeClass
+    public static void before() throws IOException {
+        sharded = new RespMockServer(100);
+        backpressure = new RespMockServer(0);
+        nodeA = new RespMockServer(100);
+        nodeB = new RespMockServer(100);
+
+        RedisClientPool.POOL.appendJedis(config(SHARDED_TYPE, sharded));
+
+        final RedisConfig backpressureConfig = config(BACKPRESSURE_TYPE, backpressure);
+        backpressureConfig.setAsyncMaxInFlight(MAX_IN_FLIGHT);
+        backpressureConfig.setTimeOut(2000);
+        RedisClientPool.POOL.appendJedis(backpressureConfig);
+
+        final RedisConfig clusterConfig = config(CLUSTER_TYPE, nodeA);
+        clusterConfig.setCluster(Boolean.TRUE);
+        RedisClientPool.POOL.appendJedisCluster(clusterConfig);
+    }
+
+    private static RedisConfig config(final String redisType, final RespMockServer server) {
+        final RedisConfig config = RedisConfig.newInstance();
+        config.setRedisType(redisType);
+        config.setHostNames(server.getHostName());
+        return config;
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        sharded.close();
+        backpressure.close();
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    public void shardedTest() {
+        commandTest(RedisClientPool.POOL.getAsyncRedisClient(SHARDED_TYPE));
+    }
+
+    @Test
+    public void clusterTest() {
+        commandTest(RedisClientPool.POOL.getAsyncRedisClient(CLUSTER_TYPE));
+    }
+
+    private void commandTest(final AsyncRedisClient client) {
+        Assert.assertTrue(client.set("async:key", "value").join());
+        Assert.assertEquals("value", client.get("async:key").join());
+        Assert.assertTrue(client.exists("async:key").join());
+        Assert.assertEquals(Long.valueOf(1), client.del("async:key").join());
+        Assert.assertFalse(client.exists("async:key").join());
+        Assert.assertNull(client.get("async:key").join());
+
+        final List<CompletableFuture<Long>> futures = Lists.newArrayList();
+        for (int idx = 0; idx < 100; idx++) {
+            futures.add(client.incr("async:counter"));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        Assert.assertEquals("100", client.get("async:counter").join());
+
+        final Map<String, String> values = client.get("async:counter", "async:key").join();
+        Assert.assertEquals("100", values.get("async:counter"));
+        Assert.assertTrue(values.containsKey("async:key"));
+        Assert.assertNull(values.get("async:key"));
+
+        try {
+            client.hlen("async:hash").join();
+            Assert.fail("Expected RedisClientException");
+        } catch (final Throwable e) {
+            Assert.assertTrue(e.getCause() instanceof RedisClientException);
+            Assert.assertTrue(e.getCause().getMessage().contains("unknown command"));
+        }
+
+        Assert.assertEquals(0, client.getInFlightCount());
+    }
+
+    @Test
+    public void backpressureTest() throws Exception {
+        final AsyncRedisClient client = RedisClientPool.POOL.getAsyncRedisClient(BACKPRESSURE_TYPE);
+        Assert.assertTrue(client.set("async:backpressure", "1").join());
+
+        backpressure.pause();
+        final CompletableFuture<String> first = client.get("async:backpressure");
+        final CompletableFuture<String> second = client.get("async:backpressure");
+        Assert.assertEquals(MAX_IN_FLIGHT, client.getInFlightCount());
+
+        final Thread resume = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            backpressure.resume();
+        });
+
+        final long start = System.nanoTime();
+        resume.start();
+        // 达到最大未完成命令数，提交方等待已提交的命令完成
+        final CompletableFuture<String> third = client.get("async:backpressure");
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        Assert.assertEquals("1", first.join());
+        Assert.assertEquals("1", second.join());
+        Assert.assertEquals("1", third.join());
+        resume.join();
+    }
+
+    @Test
+    public void clusterRedirectTest() {
+        final AsyncRedisClient client = RedisClientPool.POOL.getAsyncRedisClient(CLUSTER_TYPE);
+        Assert.assertTrue(client.set("async:moved", "A").join());
+
+        final long commands = nodeB.getCommandCount();
+        nodeA.setSlotOwner(nodeB);
+        try {
+            // 返回MOVED后刷新槽与节点的映射，重新路由到新节点
+            Assert.assertTrue(client.set("async:moved", "B").join());
+            Assert.assertEquals("B", client.get("async:moved").join());
+            Assert.assertTrue(nodeB.getCommandCount() - commands >= 2);
+        } finally {
+            nodeA.setSlotOwner(nodeA);
+        }
+    }
+
+    @Test
+    public void clusterAskTest() {
+        final AsyncRedisClient client = RedisClientPool.POOL.getAsyncRedisClient(CLUSTER_TYPE);
+        nodeB.setSlotOwner(nodeA);
+        try {
+            Assert.assertTrue(client.set("async:ask", "A").join());
+
+            final long commands = nodeB.getCommandCount();
+            nodeA.setAskTarget(nodeB);
+            try {
+                // 返回ASK重定向后，在ASKING之后发送到迁移的目标节点
+                Assert.assertTrue(client.set("async:ask", "B").join());
+                Assert.assertEquals("B", client.get("async:ask").join());
+                Assert.assertTrue(nodeB.getCommandCount() - commands >= 4);
+            } finally {
+                nodeA.setAskTarget(null);
+            }
+
+            // ASK重定向不刷新槽与节点的映射，命令仍然路由到原节点
+            Assert.assertEquals("A", client.get("async:ask").join());
+        } finally {
+            nodeB.setSlotOwner(nodeB);
+        }
+    }
+
+    @Test
+    public void clusterDisconnectAfterWriteTest() {
+        final AsyncRedisClient client = RedisClientPool.POOL.getAsyncRedisClient(CLUSTER_TYPE);
+        nodeA.setDisconnectAfterWrite(true);
+        nodeB.setDisconnectAfterWrite(true);
+        try {
+            client.incr("async:disconnect").join();
+            Assert.fail();
+        } catch (final CompletionException e) {
+            // 命令发送后连接断开，不重新发送
+        } finally {
+            nodeA.setDisconnectAfterWrite(false);
+            nodeB.setDisconnectAfterWrite(false);
+        }
+
+        Assert.assertEquals("1", client.get("async:disconnect").join());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.nanoframework.orm.jedis.sharded.RespMockServer;
+
+import com.google.common.collect.Sets;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ScanKeysTest {
+    private static final String SHARDED_TYPE = "scan-keys-sharded-test";
+    private static final String CLUSTER_TYPE = "scan-keys-cluster-test";
+    private static final int SIZE = 200;
+
+    private static RespMockServer shard0;
+    private static RespMockServer shard1;
+    private static RespMockServer node;
+    private static RedisClient sharded;
+    private static RedisClient cluster;
+    private static final Set<String> EXPECTED = Sets.newHashSet();
+
+    @BeforeClass
+    public static void before() throws IOException {
+        shard0 = new RespMockServer(0);
+        shard1 = new RespMockServer(0);
+        node = new RespMockServer(0);
+
+        final RedisConfig shardedConfig = RedisConfig.newInstance();
+        shardedConfig.setRedisType(SHARDED_TYPE);
+        shardedConfig.setHostNames(shard0.getHostName() + ';' + shard1.getHostName());
+        RedisClientPool.POOL.appendJedis(shardedConfig);
+        sharded = GlobalRedisClient.get(SHARDED_TYPE);
+
+        final RedisConfig clusterConfig = RedisConfig.newInstance();
+        clusterConfig.setRedisType(CLUSTER_TYPE);
+        clusterConfig.setHostNames(node.getHostName());
+        clusterConfig.setCluster(Boolean.TRUE);
+        RedisClientPool.POOL.appendJedisCluster(clusterConfig);
+        cluster = GlobalRedisClient.get(CLUSTER_TYPE);
+
+        for (int idx = 0; idx < SIZE; idx++) {
+            EXPECTED.add("scan:" + idx);
+            sharded.set("scan:" + idx, String.valueOf(idx));
+            sharded.set("other:" + idx, String.valueOf(idx));
+            cluster.set("scan:" + idx, String.valueOf(idx));
+            cluster.set("other:" + idx, String.valueOf(idx));
+        }
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        shard0.close();
+        shard1.close();
+        node.close();
+    }
+
+    @Test
+    public void shardedTest() {
+        Assert.assertEquals(EXPECTED, sharded.scanKeys("scan:*", 10).collect(Collectors.toSet()));
+        Assert.assertEquals(EXPECTED, sharded.scanKeys("scan:*", 10, true).collect(Collectors.toSet()));
+        Assert.assertEquals(EXPECTED, sharded.keys("scan:*"));
+    }
+
+    @Test
+    public void clusterTest() {
+        Assert.assertEquals(EXPECTED, cluster.scanKeys("scan:*", 10).collect(Collectors.toSet()));
+        Assert.assertEquals(EXPECTED, cluster.scanKeys("scan:*", 10, true).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void lazyTest() {
+        final long commands = shard0.getCommandCount() + shard1.getCommandCount();
+        Assert.assertEquals(3, sharded.scanKeys("*", 10).limit(3).count());
+
+        // 只执行取得前3个Key所需的SCAN，不遍历全部分片
+        Assert.assertEquals(1, shard0.getCommandCount() + shard1.getCommandCount() - commands);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.orm.jedis.RedisConfig;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.HostAndPort;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class NearCacheTest {
+    private final List<String> published = Lists.newArrayList();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Map<String, Long> ttls = Maps.newConcurrentMap();
+    private NearCache cache;
+
+    @Before
+    public void before() {
+        cache = create();
+        cache.connected();
+    }
+
+    private NearCache create() {
+        final RedisConfig config = RedisConfig.newInstance();
+        config.setRedisType("near-cache-test");
+        config.setNearCache(Boolean.TRUE);
+        config.setNearCacheMaxSize(2);
+        return new NearCache(config, 2000, new NearCache.Transport() {
+            @Override
+            public List<List<HostAndPort>> endpoints(final boolean keyspace, final String channel) {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public void publish(final String channel, final String message) {
+                published.add(message);
+            }
+
+            @Override
+            public long pttl(final String key) {
+                return ttls.getOrDefault(key, -1L);
+            }
+        });
+    }
+
+    private String load(final String key) {
+        return cache.get(key, () -> key + '-' + loads.incrementAndGet());
+    }
+
+    @Test
+    public void hitAndInvalidateTest() {
+        Assert.assertEquals("a-1", load("a"));
+        Assert.assertEquals("a-1", load("a"));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        cache.invalidate("a");
+        Assert.assertEquals("a-2", load("a"));
+        Assert.assertEquals(1, published.size());
+        Assert.assertEquals("a", JSON.parseObject(published.get(0)).getJSONArray("k").getString(0));
+
+        // 本节点发布的通知不重复处理
+        cache.onMessage(published.get(0));
+        Assert.assertEquals("a-2", load("a"));
+    }
+
+    @Test
+    public void remoteInvalidateTest() {
+        Assert.assertEquals("a-1", load("a"));
+        cache.onMessage("{\"s\":\"other\",\"k\":[\"a\"]}");
+        Assert.assertEquals("a-2", load("a"));
+
+        cache.onKeyspaceEvent("__keyspace@0__:a");
+        Assert.assertEquals("a-3", load("a"));
+    }
+
+    @Test
+    public void hashFieldTest() {
+        Assert.assertEquals("1", cache.get("h", "f1", () -> "1"));
+        Assert.assertEquals("2", cache.get("h", "f2", () -> "2"));
+        Assert.assertEquals("1", cache.get("h", "f1", () -> "x"));
+        cache.invalidate("h");
+        Assert.assertEquals(0, cache.getSize());
+        Assert.assertEquals("y", cache.get("h", "f1", () -> "y"));
+    }
+
+    @Test
+    public void evictionTest() {
+        load("a");
+        load("b");
+        load("a");
+        load("c");
+        Assert.assertEquals(2, cache.getSize());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals("a-1", load("a"));
+        Assert.assertEquals("b-4", load("b"));
+    }
+
+    @Test
+    public void disconnectedTest() {
+        load("a");
+        cache.disconnected();
+        Assert.assertFalse(cache.isEnabled());
+        Assert.assertEquals("a-2", load("a"));
+        Assert.assertEquals("a-3", load("a"));
+        Assert.assertEquals(0, cache.getSize());
+
+        cache.connected();
+        Assert.assertEquals("a-4", load("a"));
+        Assert.assertEquals("a-4", load("a"));
+    }
+
+    @Test
+    public void loadRaceTest() {
+        final String value = cache.get("a", () -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+
+        Assert.assertEquals("stale", value);
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void objectNameTest() {
+        // 同一redisType的多个实例注册为不同的MXBean
+        final NearCache other = create();
+        Assert.assertEquals(cache.getRedisType(), other.getRedisType());
+        Assert.assertNotEquals(cache.getObjectName(), other.getObjectName());
+    }
+
+    @Test
+    public void expiringKeyTest() throws InterruptedException {
+        // channel模式下Redis过期不发布失效通知，本地缓存不超过Key的剩余生存时间
+        ttls.put("a", 100L);
+        Assert.assertEquals("a-1", load("a"));
+        Assert.assertEquals("a-1", load("a"));
+        TimeUnit.MILLISECONDS.sleep(150);
+        ttls.remove("a");
+        Assert.assertEquals("a-2", load("a"));
+        Assert.assertEquals("a-2", load("a"));
+
+        ttls.put("b", 0L);
+        Assert.assertEquals("b-3", load("b"));
+        Assert.assertEquals("b-4", load("b"));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.cluster;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanoframework.orm.jedis.sharded.RespMockServer;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ClusterPipelineTest {
+    private static final List<String> KEYS = Lists.newArrayList("pipeline:0", "pipeline:1", "pipeline:2");
+
+    private RespMockServer nodeA;
+    private RespMockServer nodeB;
+    private JedisCluster cluster;
+    private ClusterPipeline pipeline;
+
+    @Before
+    public void before() throws IOException {
+        nodeA = new RespMockServer(0);
+        nodeB = new RespMockServer(0);
+        cluster = new JedisCluster(HostAndPort.parseString(nodeA.getHostName()), 2000, 5);
+        pipeline = new ClusterPipeline(cluster);
+    }
+
+    @After
+    public void after() throws IOException {
+        cluster.close();
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    public void executeTest() {
+        final Map<String, Long> replies = pipeline.execute(KEYS, (pipelined, key) -> pipelined.setnx(key, key), key -> cluster.setnx(key, key));
+        Assert.assertEquals(ImmutableMap.of("pipeline:0", 1L, "pipeline:1", 1L, "pipeline:2", 1L), replies);
+        Assert.assertEquals(nodeA.getHostName(), pipeline.node("pipeline:0"));
+    }
+
+    @Test
+    public void movedTest() {
+        nodeA.setSlotOwner(nodeB);
+
+        // 返回MOVED的键刷新映射后通过JedisCluster执行
+        final Map<String, Long> replies = pipeline.execute(KEYS, (pipelined, key) -> pipelined.setnx(key, key), key -> cluster.setnx(key, key));
+        Assert.assertEquals(ImmutableMap.of("pipeline:0", 1L, "pipeline:1", 1L, "pipeline:2", 1L), replies);
+        Assert.assertEquals(nodeB.getHostName(), pipeline.node("pipeline:0"));
+
+        nodeA.setSlotOwner(nodeA);
+        assertStored(nodeA, false);
+        assertStored(nodeB, true);
+    }
+
+    @Test
+    public void askTest() {
+        nodeA.setAskTarget(nodeB);
+        nodeB.setSlotOwner(nodeA);
+
+        // 返回ASK的键不刷新映射，通过JedisCluster在ASKING之后发送到目标节点
+        final Map<String, Long> replies = pipeline.execute(KEYS, (pipelined, key) -> pipelined.setnx(key, key), key -> cluster.setnx(key, key));
+        Assert.assertEquals(ImmutableMap.of("pipeline:0", 1L, "pipeline:1", 1L, "pipeline:2", 1L), replies);
+        Assert.assertEquals(nodeA.getHostName(), pipeline.node("pipeline:0"));
+
+        nodeA.setAskTarget(null);
+        nodeB.setSlotOwner(nodeB);
+        assertStored(nodeA, false);
+        assertStored(nodeB, true);
+    }
+
+    @Test
+    public void disconnectAfterWriteTest() {
+        nodeA.setDisconnectAfterWrite(true);
+        try {
+            pipeline.execute(KEYS, (pipelined, key) -> pipelined.setnx(key, key), key -> cluster.setnx(key, key));
+            Assert.fail();
+        } catch (final JedisConnectionException e) {
+            // 命令发送后连接断开，不通过JedisCluster重新执行
+        } finally {
+            nodeA.setDisconnectAfterWrite(false);
+        }
+
+        try (final Jedis jedis = jedis(nodeA)) {
+            Assert.assertEquals("pipeline:0", jedis.get("pipeline:0"));
+            Assert.assertNull(jedis.get("pipeline:1"));
+            Assert.assertNull(jedis.get("pipeline:2"));
+        }
+    }
+
+    private Jedis jedis(final RespMockServer node) {
+        final HostAndPort hostAndPort = HostAndPort.parseString(node.getHostName());
+        return new Jedis(hostAndPort.getHost(), hostAndPort.getPort());
+    }
+
+    private void assertStored(final RespMockServer node, final boolean stored) {
+        try (final Jedis jedis = jedis(node)) {
+            for (final String key : KEYS) {
+                Assert.assertEquals(stored ? key : null, jedis.get(key));
+            }
+        }
+    }
+}
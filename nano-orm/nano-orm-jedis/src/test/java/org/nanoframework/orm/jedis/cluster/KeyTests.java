@@ -384,4 +384,34 @@ public class KeyTests extends RedisClientInitialize {
         redisClient.del(map.keySet().toArray(new String[map.size()]));
     }
 
+    @Test
+    public void multiKeysByNodeTest() {
+        try {
+            final Map<String, Object> map = Maps.newLinkedHashMap();
+            for (int idx = 0; idx < 500; idx++) {
+                map.put("multiKeysByNodeTest-" + idx, idx);
+            }
+
+            final String[] keys = map.keySet().toArray(new String[map.size()]);
+            Assert.assertEquals(Lists.newArrayList(redisClient.set(map).keySet()), Lists.newArrayList(keys));
+            Assert.assertFalse(redisClient.setByNX(map).containsValue(true));
+
+            final Map<String, String> values = redisClient.get(keys);
+            Assert.assertEquals(Lists.newArrayList(values.keySet()), Lists.newArrayList(keys));
+            for (int idx = 0; idx < keys.length; idx++) {
+                Assert.assertEquals(values.get(keys[idx]), String.valueOf(idx));
+            }
+
+            Assert.assertEquals(redisClient.del(keys), 500);
+            Assert.assertFalse(redisClient.setByNX(map).containsValue(false));
+            Assert.assertEquals(redisClient.del(keys), 500);
+        } catch (final Throwable e) {
+            if (e instanceof AssertionError) {
+                throw e;
+            }
+
+            LOGGER.error(e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.sharded;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.nanoframework.orm.jedis.GlobalRedisClient;
+import org.nanoframework.orm.jedis.RedisClient;
+import org.nanoframework.orm.jedis.RedisClientPool;
+import org.nanoframework.orm.jedis.RedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 分片模式get的吞吐量(ops/s)对比：每次调用从连接池获取连接(autoPipeline=false)与自动批量提交(autoPipeline=true).
+ * 服务端为 {@link RespMockServer}，每次往返等待 {@link #LATENCY_MICROS} 微秒；连接池模式下maxTotal为poolSize，
+ * 自动批量提交使用默认的每分片2个连接，与poolSize无关.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class AutoPipelineBenchmark {
+    private static final long LATENCY_MICROS = 200;
+    private static final String KEY = "benchmark";
+
+    @Param({ "8", "32", "100" })
+    private int poolSize;
+
+    @Param({ "false", "true" })
+    private boolean autoPipeline;
+
+    private RespMockServer server;
+    private RedisClient client;
+    private String redisType;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new RespMockServer(LATENCY_MICROS);
+        redisType = "benchmark-" + poolSize + '-' + autoPipeline;
+        final RedisConfig config = RedisConfig.newInstance();
+        config.setRedisType(redisType);
+        config.setHostNames(server.getHostName());
+        config.setMaxTotal(poolSize);
+        config.setMaxIdle(poolSize);
+        config.setAutoPipeline(autoPipeline);
+        RedisClientPool.POOL.appendJedis(config);
+        client = GlobalRedisClient.get(redisType);
+        client.set(KEY, "value");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        final AutoPipeline pipeline = RedisClientPool.POOL.getAutoPipeline(redisType);
+        if (pipeline != null) {
+            pipeline.close();
+        }
+
+        server.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return client.get(KEY);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AutoPipelineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.sharded;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.nanoframework.orm.jedis.GlobalRedisClient;
+import org.nanoframework.orm.jedis.RedisClient;
+import org.nanoframework.orm.jedis.RedisClientPool;
+import org.nanoframework.orm.jedis.RedisConfig;
+import org.nanoframework.orm.jedis.exception.RedisClientException;
+
+import com.google.common.collect.Lists;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisShardInfo;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class AutoPipelineTest {
+    private static final String REDIS_TYPE = "auto-pipeline-test";
+    private static final int THREADS = 16;
+    private static final int TIMES = 500;
+
+    private static RespMockServer server;
+    private static RedisClient client;
+
+    @BeforeClass
+    public static void before() throws IOException {
+        server = new RespMockServer(200);
+        final RedisConfig config = RedisConfig.newInstance();
+        config.setRedisType(REDIS_TYPE);
+        config.setHostNames(server.getHostName());
+        config.setAutoPipeline(Boolean.TRUE);
+        RedisClientPool.POOL.appendJedis(config);
+        client = GlobalRedisClient.get(REDIS_TYPE);
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        RedisClientPool.POOL.getAutoPipeline(REDIS_TYPE).close();
+        server.close();
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        final long commands = server.getCommandCount();
+        final long flushes = server.getFlushCount();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        final List<Thread> threads = Lists.newArrayList();
+        for (int idx = 0; idx < THREADS; idx++) {
+            final String key = "auto-pipeline:" + idx;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int times = 0; times < TIMES; times++) {
+                        client.incr("auto-pipeline:counter");
+                        Assert.assertTrue(client.set(key, String.valueOf(times)));
+                        Assert.assertEquals(String.valueOf(times), client.get(key));
+                    }
+                } catch (final Throwable e) {
+                    error.set(e);
+                } finally {
+                    latch.countDown();
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        latch.await();
+        Assert.assertNull(error.get());
+        Assert.assertEquals(String.valueOf(THREADS * TIMES), client.get("auto-pipeline:counter"));
+
+        // 并发调用的命令合并为Pipeline，往返次数少于命令数
+        Assert.assertTrue(server.getFlushCount() - flushes < server.getCommandCount() - commands);
+    }
+
+    @Test
+    public void errorReplyTest() {
+        try {
+            client.hlen("auto-pipeline:hash");
+            Assert.fail("Expected RedisClientException");
+        } catch (final RedisClientException e) {
+            Assert.assertTrue(e.getMessage().contains("unknown command"));
+        }
+
+        Assert.assertTrue(client.set("auto-pipeline:error", "1"));
+        Assert.assertTrue(client.exists("auto-pipeline:error"));
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final RedisConfig config = RedisConfig.newInstance();
+        config.setRedisType(REDIS_TYPE + "-cancel");
+        config.setAutoPipelineConnections(1);
+        config.setAutoPipelineMaxPending(2);
+        final HostAndPort node = HostAndPort.parseString(server.getHostName());
+        // 读超时为0时一直等待执行结果
+        final AutoPipeline pipeline = new AutoPipeline(config, Lists.newArrayList(new JedisShardInfo(node.getHost(), node.getPort(), 2000)), 0);
+        try {
+            final CompletableFuture<String> sent;
+            server.pause();
+            try {
+                sent = pipeline.submit("cancel:a", p -> p.set("cancel:a", "1"));
+                while (pipeline.getPendingCount() > 0) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+
+                TimeUnit.MILLISECONDS.sleep(100);
+                final CompletableFuture<String> cancelled = pipeline.submit("cancel:b", p -> p.set("cancel:b", "1"));
+                Assert.assertEquals(0, pipeline.getAvailablePermits());
+                Assert.assertTrue(cancelled.cancel(false));
+                Assert.assertEquals(1, pipeline.getAvailablePermits());
+            } finally {
+                server.resume();
+            }
+
+            // 发送前取消的命令不再发送
+            Assert.assertEquals("OK", sent.get(1, TimeUnit.SECONDS));
+            Assert.assertEquals("1", pipeline.execute("cancel:a", p -> p.get("cancel:a")));
+            Assert.assertNull(pipeline.execute("cancel:b", p -> p.get("cancel:b")));
+            for (int idx = 0; idx < 100 && pipeline.getAvailablePermits() < 2; idx++) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            Assert.assertEquals(2, pipeline.getAvailablePermits());
+        } finally {
+            pipeline.close();
+        }
+    }
+}
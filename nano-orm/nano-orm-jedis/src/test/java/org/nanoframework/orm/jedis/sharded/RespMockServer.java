@@ -0,0 +1,366 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.orm.jedis.sharded;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.collect.Lists;
+
+import redis.clients.util.JedisClusterCRC16;
+
+/**
+ * 用于测试的RESP服务端，支持PING/GET/SET/INCR/DEL/EXISTS/SCAN，其它命令返回错误.
+ * 每次写出响应前等待指定的往返延迟，模拟网络往返，Pipeline中的多个命令只等待一次.
+ * CLUSTER SLOTS返回由单个节点负责全部槽，负责槽的节点不是当前服务端时，带Key的命令返回MOVED重定向.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class RespMockServer implements Closeable {
+    private final ServerSocket server;
+    private final long latencyNanos;
+    private final Map<String, String> values = new ConcurrentSkipListMap<>();
+    private final List<Socket> sockets = Lists.newCopyOnWriteArrayList();
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private volatile RespMockServer slotOwner = this;
+    private volatile RespMockServer askTarget;
+    private final AtomicBoolean disconnectAfterWrite = new AtomicBoolean();
+    private volatile CountDownLatch paused;
+    private volatile boolean closed;
+
+    public RespMockServer(final long latencyMicros) throws IOException {
+        this.server = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        final Thread acceptor = new Thread(this::accept, "resp-mock-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public String getHostName() {
+        return server.getInetAddress().getHostAddress() + ':' + getPort();
+    }
+
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * 
+     * @param slotOwner 负责全部槽的节点
+     */
+    public void setSlotOwner(final RespMockServer slotOwner) {
+        this.slotOwner = slotOwner;
+    }
+
+    /**
+     * 
+     * @param askTarget 槽迁移的目标节点，未发送ASKING的命令返回ASK重定向，为null时正常处理
+     */
+    public void setAskTarget(final RespMockServer askTarget) {
+        this.askTarget = askTarget;
+    }
+
+    /**
+     * 
+     * @param disconnectAfterWrite 执行下一个写入命令后断开连接，不返回结果
+     */
+    public void setDisconnectAfterWrite(final boolean disconnectAfterWrite) {
+        this.disconnectAfterWrite.set(disconnectAfterWrite);
+    }
+
+    /**
+     * 暂停处理命令，直到调用resume.
+     */
+    public void pause() {
+        paused = new CountDownLatch(1);
+    }
+
+    public void resume() {
+        final CountDownLatch paused = this.paused;
+        this.paused = null;
+        if (paused != null) {
+            paused.countDown();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                final Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                final Thread handler = new Thread(() -> handle(socket), "resp-mock-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (final IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void handle(final Socket socket) {
+        try (final InputStream in = new BufferedInputStream(socket.getInputStream());
+                final OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            List<String> command;
+            boolean asking = false;
+            while ((command = read(in)) != null) {
+                final CountDownLatch paused = this.paused;
+                if (paused != null) {
+                    paused.await();
+                }
+
+                commands.incrementAndGet();
+                final boolean quit;
+                if ("ASKING".equalsIgnoreCase(command.get(0))) {
+                    write(out, "+OK");
+                    asking = true;
+                    quit = false;
+                } else {
+                    quit = reply(command, out, asking);
+                    asking = false;
+                }
+
+                if (quit || in.available() == 0) {
+                    if (latencyNanos > 0) {
+                        LockSupport.parkNanos(latencyNanos);
+                    }
+
+                    out.flush();
+                    flushes.incrementAndGet();
+                }
+
+                if (quit) {
+                    break;
+                }
+            }
+        } catch (final IOException e) {
+            // disconnected
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private List<String> read(final InputStream in) throws IOException {
+        final String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+
+        final int size = Integer.parseInt(header.substring(1));
+        final List<String> command = Lists.newArrayListWithCapacity(size);
+        for (int idx = 0; idx < size; idx++) {
+            final int length = Integer.parseInt(readLine(in).substring(1));
+            final byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                final int read = in.read(bytes, offset, length - offset);
+                if (read < 0) {
+                    return null;
+                }
+
+                offset += read;
+            }
+
+            readLine(in);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return command;
+    }
+
+    private String readLine(final InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int ch;
+        while ((ch = in.read()) != -1) {
+            if (ch == '\r') {
+                in.read();
+                return line.toString();
+            }
+
+            line.append((char) ch);
+        }
+
+        return null;
+    }
+
+    private boolean reply(final List<String> command, final OutputStream out, final boolean asking) throws IOException {
+        final String name = command.get(0).toUpperCase();
+        final boolean keyed = command.size() > 1 && !"AUTH".equals(name) && !"SELECT".equals(name) && !"CLUSTER".equals(name);
+        final RespMockServer askTarget = this.askTarget;
+        if (keyed && askTarget != null) {
+            write(out, "-ASK " + JedisClusterCRC16.getSlot(command.get(1)) + ' ' + askTarget.getHostName());
+            return false;
+        }
+
+        // 迁移中的槽，ASKING之后的命令由目标节点处理
+        final RespMockServer slotOwner = this.slotOwner;
+        if (keyed && slotOwner != this && !asking) {
+            write(out, "-MOVED " + JedisClusterCRC16.getSlot(command.get(1)) + ' ' + slotOwner.getHostName());
+            return false;
+        }
+
+        switch (name) {
+            case "PING":
+                write(out, "+PONG");
+                break;
+            case "AUTH":
+            case "SELECT":
+                write(out, "+OK");
+                break;
+            case "CLUSTER":
+                write(out, "*1");
+                write(out, "*3");
+                write(out, ":0");
+                write(out, ":16383");
+                write(out, "*2");
+                write(out, "$" + slotOwner.server.getInetAddress().getHostAddress().length());
+                write(out, slotOwner.server.getInetAddress().getHostAddress());
+                write(out, ":" + slotOwner.getPort());
+                break;
+            case "QUIT":
+                write(out, "+OK");
+                return true;
+            case "GET":
+                final String value = values.get(command.get(1));
+                if (value == null) {
+                    write(out, "$-1");
+                } else {
+                    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    write(out, "$" + bytes.length);
+                    out.write(bytes);
+                    write(out, "");
+                }
+
+                break;
+            case "SET":
+                values.put(command.get(1), command.get(2));
+                return written(out, "+OK");
+            case "SETNX":
+                return written(out, ":" + (values.putIfAbsent(command.get(1), command.get(2)) == null ? 1 : 0));
+            case "INCR":
+                return written(out, ":" + values.merge(command.get(1), "1", (old, one) -> String.valueOf(Long.parseLong(old) + 1)));
+            case "DEL":
+                return written(out, ":" + (values.remove(command.get(1)) == null ? 0 : 1));
+            case "EXISTS":
+                write(out, ":" + (values.containsKey(command.get(1)) ? 1 : 0));
+                break;
+            case "SCAN":
+                scan(command, out);
+                break;
+            default:
+                write(out, "-ERR unknown command '" + command.get(0) + '\'');
+        }
+
+        return false;
+    }
+
+    /**
+     * 写入命令已执行，开启disconnectAfterWrite时不返回结果并断开连接，仅断开一次.
+     */
+    private boolean written(final OutputStream out, final String reply) throws IOException {
+        if (disconnectAfterWrite.compareAndSet(true, false)) {
+            return true;
+        }
+
+        write(out, reply);
+        return false;
+    }
+
+    /**
+     * 游标为已遍历的Key数量，按Key的顺序每次返回COUNT个Key中匹配的Key.
+     */
+    private void scan(final List<String> command, final OutputStream out) throws IOException {
+        final int cursor = Integer.parseInt(command.get(1));
+        Pattern match = null;
+        int count = 10;
+        for (int idx = 2; idx + 1 < command.size(); idx += 2) {
+            if ("MATCH".equalsIgnoreCase(command.get(idx))) {
+                match = Pattern.compile(Pattern.quote(command.get(idx + 1)).replace("*", "\\E.*\\Q"));
+            } else if ("COUNT".equalsIgnoreCase(command.get(idx))) {
+                count = Integer.parseInt(command.get(idx + 1));
+            }
+        }
+
+        final List<String> keys = Lists.newArrayList(values.keySet());
+        final int end = Math.min(cursor + count, keys.size());
+        final List<String> matched = Lists.newArrayList();
+        for (final String key : keys.subList(Math.min(cursor, end), end)) {
+            if (match == null || match.matcher(key).matches()) {
+                matched.add(key);
+            }
+        }
+
+        final String next = end >= keys.size() ? "0" : String.valueOf(end);
+        write(out, "*2");
+        bulk(out, next);
+        write(out, "*" + matched.size());
+        for (final String key : matched) {
+            bulk(out, key);
+        }
+    }
+
+    private void bulk(final OutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        write(out, "$" + bytes.length);
+        out.write(bytes);
+        write(out, "");
+    }
+
+    private void write(final OutputStream out, final String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        resume();
+        server.close();
+        for (final Socket socket : sockets) {
+            socket.close();
+        }
+    }
+}
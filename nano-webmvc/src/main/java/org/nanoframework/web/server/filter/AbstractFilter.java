@@ -18,17 +18,19 @@ package org.nanoframework.web.server.filter;
 import static org.nanoframework.web.server.http.status.ComponentStatus.BIND_PARAM_EXCEPTION_CODE;
 import static org.nanoframework.web.server.http.status.ComponentStatus.INVOKE_ERROR_CODE;
 import static org.nanoframework.web.server.http.status.ComponentStatus.IO_EXCEPTION_CODE;
+import static org.nanoframework.web.server.http.status.ComponentStatus.REQUEST_ENTITY_TOO_LARGE_CODE;
+import static org.nanoframework.web.server.http.status.ComponentStatus.REQUEST_ENTITY_TOO_LARGE_DESC;
 import static org.nanoframework.web.server.http.status.ComponentStatus.SERVLET_EXCEPTION;
 import static org.nanoframework.web.server.http.status.ComponentStatus.UNKNOWN;
 import static org.nanoframework.web.server.http.status.ComponentStatus.UNSUPPORT_REQUEST_METHOD_CODE;
 import static org.nanoframework.web.server.http.status.ComponentStatus.UNSUPPORT_REQUEST_METHOD_DESC;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 import java.net.URLDecoder;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Scanner;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -39,10 +41,8 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.nanoframework.commons.util.Charsets;
 import org.nanoframework.commons.util.ContentType;
-import org.nanoframework.commons.util.ObjectUtils;
 import org.nanoframework.commons.util.StringUtils;
 import org.nanoframework.core.component.exception.BindRequestParamException;
 import org.nanoframework.core.component.exception.ComponentInvokeException;
@@ -53,8 +53,10 @@ import org.nanoframework.web.server.http.status.Response;
 import org.nanoframework.web.server.http.status.ResultMap;
 import org.nanoframework.web.server.mvc.Model;
 import org.nanoframework.web.server.mvc.View;
+import org.nanoframework.web.server.stream.FormUrlEncodedDecoder;
+import org.nanoframework.web.server.stream.RequestEntityTooLargeException;
+import org.nanoframework.web.server.stream.WriteStream;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 
 /**
@@ -85,43 +87,54 @@ public abstract class AbstractFilter implements Filter {
 
     }
 
+    /**
+     * @deprecated 响应直接写入OutputStream，不再使用Writer，使用 {@link #validRequestMethod(ServletResponse, RequestMapper, String)}.
+     * 框架不再调用此方法，子类应重写新的方法.
+     */
+    @Deprecated
     protected boolean validRequestMethod(ServletResponse response, Writer out, RequestMapper mapper, String method) throws IOException {
+        return validRequestMethod(response, mapper, method);
+    }
+
+    protected boolean validRequestMethod(ServletResponse response, RequestMapper mapper, String method) throws IOException {
         if (!mapper.hasMethod(RequestMethod.valueOf(method))) {
             response.setContentType(ContentType.APPLICATION_JSON);
-            out = response.getWriter();
             ResultMap resultMap = ResultMap.create(UNSUPPORT_REQUEST_METHOD_CODE,
                     "不支持此请求类型(" + method + ")，仅支持类型(" + StringUtils.join(mapper.getRequestMethodStrs(), " / ") + ')', UNSUPPORT_REQUEST_METHOD_DESC);
-            out.write(JSON.toJSONString(resultMap));
+            WriteStream.writeJson(response, resultMap);
             return false;
         }
 
         return true;
     }
 
+    /**
+     * @deprecated 响应直接写入OutputStream，不再使用Writer，使用 {@link #process(ServletRequest, ServletResponse, URLContext, Object, Model)}.
+     * 框架不再调用此方法，子类应重写新的方法.
+     */
+    @Deprecated
     protected void process(ServletRequest request, ServletResponse response, Writer out, URLContext urlContext, Object ret, Model model)
             throws IOException, ServletException {
+        process(request, response, urlContext, ret, model);
+    }
+
+    protected void process(ServletRequest request, ServletResponse response, URLContext urlContext, Object ret, Model model)
+            throws IOException, ServletException {
         if (ret instanceof View) {
             ((View) ret).redirect(model.get(), (HttpServletRequest) request, (HttpServletResponse) response);
         } else if (ret instanceof String) {
             response.setContentType(ContentType.APPLICATION_JSON);
-            out = response.getWriter();
-            out.write((String) ret);
+            WriteStream.write(response, (String) ret);
         } else if (ret instanceof Response && ret == Response.EMPTY) {
             return;
         } else if (ret != null) {
             response.setContentType(ContentType.APPLICATION_JSON);
-            out = response.getWriter();
             /** 跨域JSONP的Ajax请求支持 */
-            final String callback;
-            if (!ObjectUtils.isEmpty(callback = (String) urlContext.getParameter().get("callback"))) {
-                out.write(callback + '(' + JSON.toJSONString(ret, SerializerFeature.WriteDateUseDateFormat) + ')');
-            } else {
-                out.write(JSON.toJSONString(ret, SerializerFeature.WriteDateUseDateFormat));
-            }
+            final String callback = (String) urlContext.getParameter().get("callback");
+            WriteStream.writeJsonp(response, callback, ret, SerializerFeature.WriteDateUseDateFormat);
         } else {
             response.setContentType(ContentType.APPLICATION_JSON);
-            out = response.getWriter();
-            out.write(JSON.toJSONString(UNKNOWN));
+            WriteStream.writeJson(response, UNKNOWN);
         }
     }
 
@@ -141,38 +154,8 @@ public abstract class AbstractFilter implements Filter {
         final String contentType = request.getContentType();
         if (StringUtils.isBlank(contentType)
                 || StringUtils.equals(contentType.split(";")[0], ContentType.APPLICATION_FORM_URLENCODED.split(";")[0])) {
-            try (final Scanner scanner = new Scanner(request.getInputStream())) {
-                while (scanner.hasNextLine()) {
-                    final String line = scanner.nextLine();
-                    final String[] kvs = line.split("&");
-                    for (final String kv : kvs) {
-                        if (StringUtils.isBlank(kv)) {
-                            continue;
-                        }
-                        
-                        final String[] keyValue = kv.split("=");
-                        final String key = StringUtils.lowerCase(keyValue[0]);
-                        final String value;
-                        if (keyValue.length > 1) {
-                            value = URLDecoder.decode(keyValue[1], Charsets.UTF_8.name());
-                        } else {
-                            value = "";
-                        }
-                        
-                        if (value.length() > 0) {
-                            if (key.endsWith("[]")) {
-                                final String[] values = (String[]) parameter.get(key);
-                                if (values == null) {
-                                    parameter.put(key, new String[] { value });
-                                } else {
-                                    parameter.put(key, ArrayUtils.add(values, value));
-                                }
-                            } else {
-                                parameter.put(key, value);
-                            }
-                        }
-                    }
-                }
+            try (final InputStream input = request.getInputStream()) {
+                FormUrlEncodedDecoder.create().decode(input, parameter);
             }
         }
         
@@ -195,6 +178,8 @@ public abstract class AbstractFilter implements Filter {
             error = ResultMap.create(INVOKE_ERROR_CODE, e.getMessage(), "ComponentInvokeException");
         } else if (e instanceof BindRequestParamException) {
             error = ResultMap.create(BIND_PARAM_EXCEPTION_CODE, e.getMessage(), "BindRequestParamException");
+        } else if (e instanceof RequestEntityTooLargeException) {
+            error = ResultMap.create(REQUEST_ENTITY_TOO_LARGE_CODE, e.getMessage(), REQUEST_ENTITY_TOO_LARGE_DESC);
         } else if (e instanceof IOException) {
             error = ResultMap.create(IO_EXCEPTION_CODE, e.getMessage(), "IOException");
         } else if (e instanceof ServletException) {
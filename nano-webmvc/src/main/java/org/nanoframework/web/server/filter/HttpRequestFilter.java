@@ -15,14 +15,33 @@
  */
 package org.nanoframework.web.server.filter;
 
+import static org.nanoframework.web.server.http.status.ComponentStatus.ASYNC_TIMEOUT_CODE;
+import static org.nanoframework.web.server.http.status.ComponentStatus.ASYNC_TIMEOUT_DESC;
+
 import java.io.IOException;
-import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.nanoframework.commons.support.logging.Logger;
 import org.nanoframework.commons.support.logging.LoggerFactory;
 import org.nanoframework.commons.util.Assert;
@@ -30,14 +49,19 @@ import org.nanoframework.commons.util.ContentType;
 import org.nanoframework.core.component.Components;
 import org.nanoframework.core.component.exception.BindRequestParamException;
 import org.nanoframework.core.component.exception.ComponentInvokeException;
-import org.nanoframework.core.component.stereotype.bind.RequestMapper;
 import org.nanoframework.core.component.stereotype.bind.RequestMethod;
+import org.nanoframework.core.component.stereotype.bind.RouteMatch;
 import org.nanoframework.core.component.stereotype.bind.Routes;
+import org.nanoframework.core.context.ApplicationContext;
 import org.nanoframework.core.context.URLContext;
+import org.nanoframework.web.server.http.status.HttpStatusCode;
+import org.nanoframework.web.server.http.status.ResultMap;
 import org.nanoframework.web.server.mvc.Model;
+import org.nanoframework.web.server.mvc.support.ForwardView;
 import org.nanoframework.web.server.mvc.support.RedirectModel;
+import org.nanoframework.web.server.stream.RequestEntityTooLargeException;
+import org.nanoframework.web.server.stream.WriteStream;
 
-import com.alibaba.fastjson.JSON;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
@@ -51,48 +75,290 @@ import com.google.common.collect.Maps;
  * @since 1.0 
  */
 public class HttpRequestFilter extends AbstractFilter {
+    /** 默认异步调用超时时间(ms). */
+    public static final long DEFAULT_ASYNC_TIMEOUT = 30000;
+
     private Logger logger = LoggerFactory.getLogger(HttpRequestFilter.class);
 
     @Override
     protected boolean invoke(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
-        URLContext urlContext = create((HttpServletRequest) request);
+        URLContext urlContext;
+        try {
+            urlContext = create((HttpServletRequest) request);
+        } catch (final RequestEntityTooLargeException e) {
+            logger.warn("Reject request {}: {}", request.getRequestURI(), e.getMessage());
+            response.setStatus(HttpStatusCode.SC_REQUEST_TOO_LONG);
+            response.setContentType(ContentType.APPLICATION_JSON);
+            WriteStream.writeJson(response, error(e));
+            return false;
+        }
+
         String method = ((HttpServletRequest) request).getMethod();
-        RequestMapper mapper = Routes.route().lookup(urlContext.getNoRootContext(), RequestMethod.valueOf(method));
+        RouteMatch match = Routes.route().lookup(urlContext.getNoRootContext(), RequestMethod.valueOf(method));
 
-        Writer out = null;
-        if (mapper != null) {
+        if (match != null) {
             try {
-                if (!validRequestMethod(response, out, mapper, method)) {
+                if (!validRequestMethod(response, match.getMapper(), method)) {
                     return false;
                 }
 
                 Model model = new RedirectModel();
-                HttpContext.set(ImmutableMap.<Class<?>, Object> builder().put(HttpServletRequest.class, request)
-                        .put(HttpServletResponse.class, response).put(Model.class, model).put(URLContext.class, urlContext).build());
+                final Map<Class<?>, Object> context = ImmutableMap.<Class<?>, Object> builder().put(HttpServletRequest.class, request)
+                        .put(HttpServletResponse.class, response).put(Model.class, model).put(URLContext.class, urlContext).build();
+                HttpContext.set(context);
+
+                final ExecutorService executor = InvokeExecutors.executor();
+                if (executor != null && request.isAsyncSupported()) {
+                    // 先进入异步模式再提交，由组件调用线程输出响应，容器线程立即释放
+                    dispatch(request, response, urlContext, () -> submit(executor, context, match, request, response, model, urlContext)
+                            .thenCompose(this::flatten), model);
+                    return false;
+                }
+
+                Object ret = Components.invoke(match, urlContext.getParameter(), request, response, model, urlContext);
+
+                if (ret instanceof CompletionStage) {
+                    if (request.isAsyncSupported()) {
+                        dispatch(request, response, urlContext, (CompletionStage<?>) ret, model);
+                        return false;
+                    }
 
-                Object ret = Components.invoke(mapper, urlContext.getParameter(), request, response, model, urlContext);
-                process(request, response, out, urlContext, ret, model);
+                    ret = await((CompletionStage<?>) ret);
+                }
+
+                process(request, response, urlContext, ret, model);
             } catch (ComponentInvokeException | BindRequestParamException | IOException | ServletException e) {
                 logger.error(e.getMessage(), e);
                 response.setContentType(ContentType.APPLICATION_JSON);
-                if (out == null) {
-                    out = response.getWriter();
+                WriteStream.writeJson(response, error(e));
+            } finally {
+                HttpContext.clear();
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * 组件返回CompletionStage时进入Servlet异步模式，释放容器线程，在CompletionStage完成时输出响应.
+     * @param request HttpServletRequest
+     * @param response HttpServletResponse
+     * @param urlContext URLContext
+     * @param stage 组件返回的CompletionStage
+     * @param model Model
+     * @since 1.4.11
+     */
+    protected void dispatch(final HttpServletRequest request, final HttpServletResponse response, final URLContext urlContext,
+            final CompletionStage<?> stage, final Model model) {
+        dispatch(request, response, urlContext, () -> stage, model);
+    }
+
+    /**
+     * 进入异步模式后再开始调用，调用线程完成时可以安全地使用AsyncContext.
+     */
+    private void dispatch(final HttpServletRequest request, final HttpServletResponse response, final URLContext urlContext,
+            final Supplier<CompletionStage<?>> invoker, final Model model) {
+        final long timeout = asyncTimeout();
+        final AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(timeout > 0 ? timeout : 0);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        // 输出响应的代码互斥执行，超时或出错时等待正在输出的完成回调结束，避免容器回收仍在写入的响应
+        final Lock writing = new ReentrantLock();
+        final AtomicReference<CompletionStage<?>> invocation = new AtomicReference<>();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(final AsyncEvent event) throws IOException {
+                writing.lock();
+                try {
+                    if (done.compareAndSet(false, true)) {
+                        logger.warn("Async invoke timeout: {}ms, uri: {}", timeout, urlContext.getContext());
+                        final CompletionStage<?> stage = invocation.get();
+                        if (stage != null) {
+                            stage.toCompletableFuture().cancel(false);
+                        }
+
+                        response.setContentType(ContentType.APPLICATION_JSON);
+                        WriteStream.writeJson(response, ResultMap.create(ASYNC_TIMEOUT_CODE, "异步调用超时(" + timeout + "ms)", ASYNC_TIMEOUT_DESC));
+                        async.complete();
+                    }
+                } finally {
+                    writing.unlock();
+                }
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) throws IOException {
+                writing.lock();
+                try {
+                    if (done.compareAndSet(false, true)) {
+                        logger.error("Async invoke error: " + urlContext.getContext(), event.getThrowable());
+                        async.complete();
+                    }
+                } finally {
+                    writing.unlock();
                 }
+            }
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) throws IOException {
+
+            }
+
+            @Override
+            public void onComplete(final AsyncEvent event) throws IOException {
 
-                out.write(JSON.toJSONString(error(e)));
+            }
+        });
+
+        final CompletionStage<?> stage = invoker.get();
+        invocation.set(stage);
+        stage.whenComplete((ret, cause) -> {
+            writing.lock();
+            try {
+                if (done.compareAndSet(false, true)) {
+                    if (cause == null && ret instanceof ForwardView) {
+                        forward(async, request, response, (ForwardView) ret, model);
+                    } else {
+                        complete(request, response, urlContext, model, ret, cause);
+                        async.complete();
+                    }
+                }
             } finally {
-                if (out != null) {
-                    out.flush();
-                    out.close();
+                writing.unlock();
+            }
+        });
+    }
+
+    /**
+     * 异步模式下不能使用RequestDispatcher.forward，通过AsyncContext.dispatch转发到视图.
+     */
+    private void forward(final AsyncContext async, final HttpServletRequest request, final HttpServletResponse response, final ForwardView view,
+            final Model model) {
+        final Map<String, Object> attributes = model.get();
+        if (attributes != null) {
+            attributes.forEach(request::setAttribute);
+        }
+
+        async.dispatch(response.encodeRedirectURL(view.getPage()));
+    }
+
+    private void complete(final HttpServletRequest request, final HttpServletResponse response, final URLContext urlContext, final Model model,
+            final Object ret, final Throwable cause) {
+        HttpContext.set(ImmutableMap.<Class<?>, Object> builder().put(HttpServletRequest.class, request)
+                .put(HttpServletResponse.class, response).put(Model.class, model).put(URLContext.class, urlContext).build());
+        try {
+            if (cause != null) {
+                throw unwrap(cause);
+            }
+
+            process(request, response, urlContext, ret, model);
+        } catch (final Throwable e) {
+            logger.error(e.getMessage(), e);
+            try {
+                response.setContentType(ContentType.APPLICATION_JSON);
+                WriteStream.writeJson(response, error(e));
+            } catch (final Throwable ex) {
+                logger.error("Write async error response failure: {}", ex.getMessage());
+            }
+        } finally {
+            HttpContext.clear();
+        }
+    }
+
+    /**
+     * 在指定线程池(如虚拟线程)中调用组件，并传递HttpContext.
+     * 以组件的返回值完成，组件返回的CompletionStage不展开，由调用方决定是否进入异步模式.
+     * @param executor 组件调用线程池
+     * @param context HttpContext
+     * @param match 路由匹配结果
+     * @param request HttpServletRequest
+     * @param response HttpServletResponse
+     * @param model Model
+     * @param urlContext URLContext
+     * @return 组件调用结果
+     * @since 1.4.11
+     */
+    protected CompletionStage<Object> submit(final ExecutorService executor, final Map<Class<?>, Object> context, final RouteMatch match,
+            final HttpServletRequest request, final HttpServletResponse response, final Model model, final URLContext urlContext) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                HttpContext.set(context);
+                try {
+                    future.complete(Components.invoke(match, urlContext.getParameter(), request, response, model, urlContext));
+                } catch (final Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    HttpContext.clear();
                 }
+            });
+        } catch (final RejectedExecutionException e) {
+            future.completeExceptionally(new ComponentInvokeException("组件调用被拒绝: " + e.getMessage(), e));
+        }
 
-                HttpContext.clear();
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletionStage<Object> flatten(final Object ret) {
+        if (ret instanceof CompletionStage) {
+            return (CompletionStage<Object>) ret;
+        }
+
+        return CompletableFuture.completedFuture(ret);
+    }
+
+    /**
+     * Servlet容器未开启异步支持时，在当前线程中等待CompletionStage完成.
+     * @param stage 组件返回的CompletionStage
+     * @return 调用结果
+     * @throws IOException IO异常
+     * @throws ServletException Servlet异常
+     * @since 1.4.11
+     */
+    protected Object await(final CompletionStage<?> stage) throws IOException, ServletException {
+        final long timeout = asyncTimeout();
+        try {
+            if (timeout > 0) {
+                return stage.toCompletableFuture().get(timeout, TimeUnit.MILLISECONDS);
             }
 
-            return false;
+            return stage.toCompletableFuture().get();
+        } catch (final TimeoutException e) {
+            stage.toCompletableFuture().cancel(false);
+            throw new ComponentInvokeException("异步调用超时(" + timeout + "ms)", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ComponentInvokeException(e.getMessage(), e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ServletException) {
+                throw (ServletException) cause;
+            } else if (cause instanceof ComponentInvokeException) {
+                throw (ComponentInvokeException) cause;
+            } else if (cause instanceof BindRequestParamException) {
+                throw (BindRequestParamException) cause;
+            }
+
+            throw new ComponentInvokeException(cause.getMessage(), cause);
         }
+    }
 
-        return true;
+    private Throwable unwrap(final Throwable cause) {
+        Throwable e = cause;
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+
+        return e;
+    }
+
+    private long asyncTimeout() {
+        return NumberUtils.toLong(System.getProperty(ApplicationContext.Web.ASYNC_TIMEOUT), DEFAULT_ASYNC_TIMEOUT);
     }
 
     /**
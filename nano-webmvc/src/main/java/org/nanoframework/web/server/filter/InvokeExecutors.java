@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.filter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.nanoframework.commons.support.logging.Logger;
+import org.nanoframework.commons.support.logging.LoggerFactory;
+import org.nanoframework.commons.util.StringUtils;
+import org.nanoframework.core.context.ApplicationContext;
+
+/**
+ * 组件调用线程模式.
+ * virtual模式下每个请求使用一个虚拟线程调用组件并输出响应，容器线程在进入Servlet异步模式后立即释放;
+ * 虚拟线程通过反射创建，运行环境不支持(JDK 21以下)或容器未开启异步支持时仍在容器线程中调用.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class InvokeExecutors {
+    /** 在容器线程中调用组件. */
+    public static final String PLATFORM = "platform";
+    /** 每个请求使用一个虚拟线程调用组件. */
+    public static final String VIRTUAL = "virtual";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvokeExecutors.class);
+    private static final String TRACE_PINNED_THREADS = "jdk.tracePinnedThreads";
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private static volatile ExecutorService executor;
+    private static volatile boolean initialized;
+
+    private InvokeExecutors() {
+
+    }
+
+    /**
+     *
+     * @return 组件调用线程池，platform模式或不支持虚拟线程时返回null
+     */
+    public static ExecutorService executor() {
+        if (!initialized) {
+            synchronized (InvokeExecutors.class) {
+                if (!initialized) {
+                    executor = create(System.getProperty(ApplicationContext.Web.INVOKE_MODE, PLATFORM));
+                    initialized = true;
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    private static ExecutorService create(final String mode) {
+        if (!StringUtils.equalsIgnoreCase(mode, VIRTUAL)) {
+            return null;
+        }
+
+        if (Boolean.parseBoolean(System.getProperty(ApplicationContext.Web.INVOKE_TRACE_PINNED))
+                && System.getProperty(TRACE_PINNED_THREADS) == null) {
+            // 需在第一个虚拟线程创建前设置，虚拟线程在synchronized块中阻塞时由JDK输出调用栈，持有监视器的栈帧以'<== monitors'标记
+            System.setProperty(TRACE_PINNED_THREADS, "short");
+            LOGGER.info("Trace pinned virtual threads enabled, frames of org.nanoframework marked with '<== monitors' are pinned by framework");
+        }
+
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor == null) {
+            LOGGER.warn("Virtual threads are not supported by current JVM({}), invoke components on container threads",
+                    System.getProperty("java.version"));
+        } else {
+            LOGGER.info("Invoke components on virtual threads");
+        }
+
+        return executor;
+    }
+
+    /**
+     *
+     * @return Executors.newVirtualThreadPerTaskExecutor()，不支持虚拟线程时返回null
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        } catch (final Throwable e) {
+            LOGGER.warn("Create virtual thread executor failure: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 虚拟线程随请求创建和销毁，线程内复用的缓冲区在虚拟线程中不能被复用.
+     * @return 当前线程是否为虚拟线程
+     */
+    public static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (final Throwable e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (final NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 使用指定的组件调用线程池，用于在不支持虚拟线程的环境中测试.
+     * @param executor 组件调用线程池
+     */
+    static synchronized void set(final ExecutorService executor) {
+        reset();
+        InvokeExecutors.executor = executor;
+        initialized = true;
+    }
+
+    /**
+     * 重新读取调用模式配置.
+     */
+    static synchronized void reset() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        executor = null;
+        initialized = false;
+    }
+}
@@ -37,6 +37,14 @@ public interface ComponentStatus {
 	final int UNSUPPORT_REQUEST_METHOD_CODE = 9094;
 	final String UNSUPPORT_REQUEST_METHOD_DESC = "Unsupport Request Method";
 	
+	/** 异步调用超时 */
+	final int ASYNC_TIMEOUT_CODE = 9093;
+	final String ASYNC_TIMEOUT_DESC = "Async Timeout";
+	
+	/** 请求体超过限制 */
+	final int REQUEST_ENTITY_TOO_LARGE_CODE = 9092;
+	final String REQUEST_ENTITY_TOO_LARGE_DESC = "Request Entity Too Large";
+	
 	final ResultMap UNKNOWN = ResultMap.create(9999, "未知的服务器调用异常", "Unknown");
 //	final ResultMap INVOKE_ERROR = ResultMap.create(9099, throwable.getMessage(), throwable.getClass().getSimpleName());
 	final ResultMap NOT_FOUND = ResultMap.create(NOT_FOUND_CODE, "组件服务不存在", "Not Found");
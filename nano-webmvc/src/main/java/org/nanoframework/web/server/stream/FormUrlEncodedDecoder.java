@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.nanoframework.commons.util.Charsets;
+import org.nanoframework.core.context.ApplicationContext;
+
+import com.google.common.collect.Maps;
+
+/**
+ * application/x-www-form-urlencoded请求体解析，直接从InputStream按字节单次扫描并完成URL解码.
+ * 参数名转换为小写，以[]结尾的参数追加为数组，其余参数后出现的值覆盖先出现的值，空值参数将被忽略.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class FormUrlEncodedDecoder {
+    /** 默认请求体最大字节数: 10MB. */
+    public static final int DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+    /** 默认最大参数个数. */
+    public static final int DEFAULT_MAX_KEYS = 10000;
+
+    private static final String ARRAY_SUFFIX = "[]";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int maxSize;
+    private final int maxKeys;
+    private final Charset charset;
+
+    public FormUrlEncodedDecoder(final int maxSize, final int maxKeys, final Charset charset) {
+        this.maxSize = maxSize;
+        this.maxKeys = maxKeys;
+        this.charset = charset;
+    }
+
+    /**
+     * 根据context.properties中的配置创建的解析器，配置在第一次调用时读取.
+     * @return FormUrlEncodedDecoder
+     * @see ApplicationContext.Web#FORM_MAX_SIZE
+     * @see ApplicationContext.Web#FORM_MAX_KEYS
+     */
+    public static FormUrlEncodedDecoder create() {
+        return Configured.DECODER;
+    }
+
+    /**
+     * 解析请求体并将参数写入参数列表.
+     * @param input 请求体输入流
+     * @param parameter 参数列表
+     * @throws IOException 读取异常
+     * @throws RequestEntityTooLargeException 请求体大小或参数个数超过限制
+     */
+    public void decode(final InputStream input, final Map<String, Object> parameter) throws IOException {
+        final State state = new State(parameter);
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        int len;
+        while ((len = input.read(buffer)) != -1) {
+            size += len;
+            if (maxSize > 0 && size > maxSize) {
+                throw new RequestEntityTooLargeException("Form too large: " + size + " > " + maxSize);
+            }
+
+            for (int idx = 0; idx < len; idx++) {
+                state.accept(buffer[idx]);
+            }
+        }
+
+        state.finish();
+    }
+
+    private static final class Configured {
+        private static final FormUrlEncodedDecoder DECODER = new FormUrlEncodedDecoder(
+                NumberUtils.toInt(System.getProperty(ApplicationContext.Web.FORM_MAX_SIZE), DEFAULT_MAX_SIZE),
+                NumberUtils.toInt(System.getProperty(ApplicationContext.Web.FORM_MAX_KEYS), DEFAULT_MAX_KEYS), Charsets.UTF_8);
+    }
+
+    private class State {
+        private final Map<String, Object> parameter;
+        private final Map<String, List<String>> arrays = Maps.newHashMap();
+        private final Bytes key = new Bytes();
+        private final Bytes value = new Bytes();
+        private Bytes current = key;
+        private int hex = -1;
+        private int keys;
+
+        State(final Map<String, Object> parameter) {
+            this.parameter = parameter;
+        }
+
+        void accept(final byte b) throws IOException {
+            if (hex != -1) {
+                final int digit = Character.digit(b, 16);
+                if (digit != -1) {
+                    if (hex < 16) {
+                        hex = 16 + digit;
+                        return;
+                    }
+
+                    current.append((byte) (((hex - 16) << 4) + digit));
+                    hex = -1;
+                    return;
+                }
+
+                // 非法的转义序列按原始字符保留
+                current.append((byte) '%');
+                if (hex >= 16) {
+                    current.append((byte) Character.forDigit(hex - 16, 16));
+                }
+
+                hex = -1;
+            }
+
+            switch (b) {
+                case '&':
+                case '\r':
+                case '\n':
+                    pair();
+                    break;
+                case '=':
+                    if (current == key) {
+                        current = value;
+                    } else {
+                        value.append(b);
+                    }
+
+                    break;
+                case '+':
+                    current.append((byte) ' ');
+                    break;
+                case '%':
+                    hex = 0;
+                    break;
+                default:
+                    current.append(b);
+                    break;
+            }
+        }
+
+        void finish() throws IOException {
+            if (hex != -1) {
+                current.append((byte) '%');
+                if (hex >= 16) {
+                    current.append((byte) Character.forDigit(hex - 16, 16));
+                }
+
+                hex = -1;
+            }
+
+            pair();
+            arrays.forEach((name, values) -> {
+                final Object exists = parameter.get(name);
+                if (exists instanceof String[]) {
+                    final String[] origin = (String[]) exists;
+                    final String[] merged = Arrays.copyOf(origin, origin.length + values.size());
+                    for (int idx = 0; idx < values.size(); idx++) {
+                        merged[origin.length + idx] = values.get(idx);
+                    }
+
+                    parameter.put(name, merged);
+                } else {
+                    parameter.put(name, values.toArray(new String[values.size()]));
+                }
+            });
+        }
+
+        private void pair() throws IOException {
+            try {
+                if (value.length == 0) {
+                    return;
+                }
+
+                if (maxKeys > 0 && ++keys > maxKeys) {
+                    throw new RequestEntityTooLargeException("Too many form keys: > " + maxKeys);
+                }
+
+                final String name = key.toString(charset).toLowerCase();
+                final String val = value.toString(charset);
+                if (name.endsWith(ARRAY_SUFFIX)) {
+                    arrays.computeIfAbsent(name, k -> new ArrayList<>()).add(val);
+                } else {
+                    parameter.put(name, val);
+                }
+            } finally {
+                key.length = 0;
+                value.length = 0;
+                current = key;
+            }
+        }
+    }
+
+    private static class Bytes {
+        private byte[] bytes = new byte[64];
+        private int length;
+
+        void append(final byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length << 1);
+            }
+
+            bytes[length++] = b;
+        }
+
+        String toString(final Charset charset) {
+            return new String(bytes, 0, length, charset);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import org.nanoframework.web.server.filter.InvokeExecutors;
+
+/**
+ * 使用线程内复用的字节缓冲区将字符编码后写入OutputStream.
+ * 每次write调用结束时缓冲区中的字节已全部写入OutputStream，缓冲区不跨调用持有，
+ * 仅在字符块边界处被截断的代理对高位字符会保留到下一次写入.
+ * 虚拟线程中不使用线程内缓冲区，每个Writer持有自己的缓冲区.
+ * close时不关闭底层的OutputStream，由Servlet容器负责.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class PooledOutputStreamWriter extends Writer {
+    /** 线程内复用缓冲区大小. */
+    public static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    private final OutputStream output;
+    private final CharsetEncoder encoder;
+    private char pending;
+    private boolean closed;
+    private ByteBuffer local;
+
+    public PooledOutputStreamWriter(final OutputStream output, final Charset charset) {
+        this.output = output;
+        this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        write(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        write(CharBuffer.wrap(str, off, off + len));
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        write(CharBuffer.wrap(new char[] { (char) c }));
+    }
+
+    private void write(final CharBuffer in) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        if (!in.hasRemaining()) {
+            return;
+        }
+
+        final ByteBuffer buffer = buffer();
+        buffer.clear();
+        if (pending != 0) {
+            final CharBuffer pair = CharBuffer.wrap(new char[] { pending, in.get() });
+            pending = 0;
+            encode(pair, buffer, false);
+            if (pair.hasRemaining()) {
+                in.position(in.position() - 1);
+            }
+        }
+
+        encode(in, buffer, false);
+        if (in.hasRemaining()) {
+            pending = in.get();
+        }
+
+        drain(buffer);
+    }
+
+    private ByteBuffer buffer() {
+        if (InvokeExecutors.isVirtualThread()) {
+            if (local == null) {
+                local = ByteBuffer.allocate(BUFFER_SIZE);
+            }
+
+            return local;
+        }
+
+        return BUFFER.get();
+    }
+
+    private void encode(final CharBuffer in, final ByteBuffer buffer, final boolean endOfInput) throws IOException {
+        while (true) {
+            final CoderResult result = encoder.encode(in, buffer, endOfInput);
+            if (result.isOverflow()) {
+                drain(buffer);
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void drain(final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        if (buffer.hasRemaining()) {
+            output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * 字节已在每次write时写入OutputStream，此处不调用OutputStream.flush，避免每个字符块都产生一次网络发送.
+     */
+    @Override
+    public void flush() throws IOException {
+
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        final ByteBuffer buffer = buffer();
+        buffer.clear();
+        encode(pending != 0 ? CharBuffer.wrap(new char[] { pending }) : CharBuffer.allocate(0), buffer, true);
+        pending = 0;
+        while (encoder.flush(buffer).isOverflow()) {
+            drain(buffer);
+        }
+
+        drain(buffer);
+    }
+}
@@ -16,43 +16,54 @@
 package org.nanoframework.web.server.stream;
 
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.lang3.math.NumberUtils;
+import org.nanoframework.commons.util.Charsets;
+import org.nanoframework.commons.util.StringUtils;
+import org.nanoframework.core.context.ApplicationContext;
 import org.nanoframework.web.server.filter.HttpRequestFilter.HttpContext;
+import org.nanoframework.web.server.filter.InvokeExecutors;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 
 /**
  * 读取HttpServletRequest中的流.
+ * 请求体直接读取为字节数组，JSON反序列化时不再生成中间字符串；
+ * 不超过 {@link #POOLED_BUFFER_SIZE} 的请求体使用线程内复用的缓冲区读取，虚拟线程中按请求体大小直接读取.
+ *
  * @author yanghe
  * @since 1.3.10
  */
 public final class ReadStream {
+    /** 默认请求体最大字节数: 10MB. */
+    public static final int DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+    /** 线程内复用缓冲区大小. */
+    public static final int POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[POOLED_BUFFER_SIZE]);
 
     private ReadStream() {
-        
+
     }
-    
+
     /**
-     * 
+     *
      * @return Request input stream
      * @throws IOException if I/O error occur
      */
     public static String read() throws IOException {
         final HttpServletRequest request = HttpContext.get(HttpServletRequest.class);
-        try (final Scanner scanner = new Scanner(request.getInputStream())) {
-            final StringBuilder builder = new StringBuilder();
-            while(scanner.hasNextLine()) {
-                builder.append(scanner.nextLine());
-            }
-            
-            return builder.toString();
-        }
+        return new String(readBytes(), charset(request));
     }
-    
+
     /**
      * @param <T> Type类型
      * @param type Alibaba FastJSON TypeReference
@@ -60,7 +71,150 @@ public final class ReadStream {
      * @throws IOException if I/O error occur
      */
     public static <T> T read(final TypeReference<T> type) throws IOException {
-        final String stream = read();
-        return JSON.parseObject(stream, type);
+        final HttpServletRequest request = HttpContext.get(HttpServletRequest.class);
+        try (final InputStream input = request.getInputStream()) {
+            return read(input, request.getContentLength(), charset(request), type);
+        }
+    }
+
+    /**
+     * 从输入流中直接反序列化JSON.
+     * @param <T> Type类型
+     * @param input 输入流
+     * @param contentLength 内容长度，未知时小于0
+     * @param charset 字符集
+     * @param type Alibaba FastJSON TypeReference
+     * @return T
+     * @throws IOException if I/O error occur or body too large
+     * @since 1.4.11
+     */
+    public static <T> T read(final InputStream input, final int contentLength, final Charset charset, final TypeReference<T> type)
+            throws IOException {
+        final int maxSize = maxSize();
+        if (contentLength > POOLED_BUFFER_SIZE || InvokeExecutors.isVirtualThread()) {
+            final byte[] bytes = readBytes(input, contentLength, maxSize);
+            return parse(bytes, bytes.length, charset, type);
+        }
+
+        final byte[] pooled = BUFFER.get();
+        final int len = fill(input, pooled, maxSize);
+        if (len < pooled.length) {
+            return parse(pooled, len, charset, type);
+        }
+
+        // 未知长度且超过复用缓冲区大小时，复制已读取部分后继续读取
+        final byte[] bytes = readRemaining(input, Arrays.copyOf(pooled, pooled.length << 1), len, maxSize);
+        return parse(bytes, bytes.length, charset, type);
+    }
+
+    /**
+     * 使用CharsetDecoder将字节解码到FastJSON的线程内字符缓冲区后直接解析，不生成中间字符串.
+     */
+    private static <T> T parse(final byte[] bytes, final int len, final Charset charset, final TypeReference<T> type) {
+        return JSON.parseObject(bytes, 0, len, charset.newDecoder(), type.getType());
+    }
+
+    /**
+     *
+     * @return 请求体字节数组
+     * @throws IOException if I/O error occur or body too large
+     * @since 1.4.11
+     */
+    public static byte[] readBytes() throws IOException {
+        final HttpServletRequest request = HttpContext.get(HttpServletRequest.class);
+        try (final InputStream input = request.getInputStream()) {
+            return readBytes(input, request.getContentLength(), maxSize());
+        }
+    }
+
+    /**
+     *
+     * @return 包装请求体字节数组的ByteBuffer
+     * @throws IOException if I/O error occur or body too large
+     * @since 1.4.11
+     */
+    public static ByteBuffer readBuffer() throws IOException {
+        return ByteBuffer.wrap(readBytes());
+    }
+
+    /**
+     * 读取输入流，已知内容长度时直接读取到最终的字节数组中.
+     * @param input 输入流
+     * @param contentLength 内容长度，未知时小于0
+     * @param maxSize 最大字节数，小于等于0时不限制
+     * @return 字节数组
+     * @throws IOException if I/O error occur or body too large
+     * @since 1.4.11
+     */
+    public static byte[] readBytes(final InputStream input, final int contentLength, final int maxSize) throws IOException {
+        if (contentLength >= 0) {
+            checkSize(contentLength, maxSize);
+            final byte[] bytes = new byte[contentLength];
+            final int len = fill(input, bytes, maxSize);
+            if (len < contentLength) {
+                return Arrays.copyOf(bytes, len);
+            }
+
+            return readRemaining(input, bytes, len, maxSize);
+        }
+
+        return readRemaining(input, new byte[BUFFER_SIZE], 0, maxSize);
+    }
+
+    private static byte[] readRemaining(final InputStream input, final byte[] buffer, final int offset, final int maxSize) throws IOException {
+        byte[] bytes = buffer;
+        int len = offset;
+        int read;
+        while (true) {
+            if (len == bytes.length) {
+                // 已读满时探测是否还有剩余数据，避免无谓的扩容
+                read = input.read();
+                if (read == -1) {
+                    return bytes;
+                }
+
+                checkSize(len + 1, maxSize);
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, BUFFER_SIZE));
+                bytes[len++] = (byte) read;
+            }
+
+            read = input.read(bytes, len, bytes.length - len);
+            if (read == -1) {
+                return len == bytes.length ? bytes : Arrays.copyOf(bytes, len);
+            }
+
+            len += read;
+            checkSize(len, maxSize);
+        }
+    }
+
+    private static int fill(final InputStream input, final byte[] bytes, final int maxSize) throws IOException {
+        int len = 0;
+        int read;
+        while (len < bytes.length && (read = input.read(bytes, len, bytes.length - len)) != -1) {
+            len += read;
+            checkSize(len, maxSize);
+        }
+
+        return len;
+    }
+
+    private static void checkSize(final long size, final int maxSize) throws IOException {
+        if (maxSize > 0 && size > maxSize) {
+            throw new IOException("Request body too large: " + size + " > " + maxSize);
+        }
+    }
+
+    private static int maxSize() {
+        return NumberUtils.toInt(System.getProperty(ApplicationContext.Web.BODY_MAX_SIZE), DEFAULT_MAX_SIZE);
+    }
+
+    private static Charset charset(final HttpServletRequest request) {
+        final String encoding = request.getCharacterEncoding();
+        if (StringUtils.isBlank(encoding)) {
+            return Charsets.UTF_8;
+        }
+
+        return Charset.forName(encoding);
     }
 }
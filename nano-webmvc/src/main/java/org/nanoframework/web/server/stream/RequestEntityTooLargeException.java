@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.IOException;
+
+/**
+ * 请求体超过大小或参数个数限制.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class RequestEntityTooLargeException extends IOException {
+    private static final long serialVersionUID = -3817428150962717953L;
+
+    public RequestEntityTooLargeException(final String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import javax.servlet.ServletResponse;
+
+import org.nanoframework.commons.util.Charsets;
+import org.nanoframework.commons.util.StringUtils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+/**
+ * 向HttpServletResponse中写入响应.
+ * JSON直接序列化到Servlet的OutputStream中，FastJSON的字符缓冲区写满后即分块编码输出，不生成完整的JSON字符串.
+ * 如果Response已经调用过getWriter，则使用该Writer输出.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public final class WriteStream {
+
+    private WriteStream() {
+
+    }
+
+    /**
+     *
+     * @param response ServletResponse
+     * @param value 字符串
+     * @throws IOException if I/O error occur
+     */
+    public static void write(final ServletResponse response, final String value) throws IOException {
+        final Writer writer = writer(response);
+        try {
+            writer.write(value);
+        } finally {
+            close(writer);
+        }
+    }
+
+    /**
+     *
+     * @param response ServletResponse
+     * @param value 序列化对象
+     * @param features 序列化属性
+     * @throws IOException if I/O error occur
+     */
+    public static void writeJson(final ServletResponse response, final Object value, final SerializerFeature... features) throws IOException {
+        writeJsonp(response, null, value, features);
+    }
+
+    /**
+     * 跨域JSONP的Ajax请求支持，callback为空时输出JSON.
+     * @param response ServletResponse
+     * @param callback JSONP回调函数名
+     * @param value 序列化对象
+     * @param features 序列化属性
+     * @throws IOException if I/O error occur
+     */
+    public static void writeJsonp(final ServletResponse response, final String callback, final Object value, final SerializerFeature... features)
+            throws IOException {
+        final Writer writer = writer(response);
+        try {
+            final boolean jsonp = StringUtils.isNotEmpty(callback);
+            if (jsonp) {
+                writer.write(callback);
+                writer.write('(');
+            }
+
+            JSON.writeJSONString(writer, value, features);
+            if (jsonp) {
+                writer.write(')');
+            }
+        } catch (final JSONException e) {
+            // FastJSON将写入时的IOException包装为JSONException
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw e;
+        } finally {
+            close(writer);
+        }
+    }
+
+    private static Writer writer(final ServletResponse response) throws IOException {
+        try {
+            return new PooledOutputStreamWriter(response.getOutputStream(), charset(response));
+        } catch (final IllegalStateException e) {
+            return response.getWriter();
+        }
+    }
+
+    private static void close(final Writer writer) throws IOException {
+        if (writer instanceof PooledOutputStreamWriter) {
+            writer.close();
+        }
+    }
+
+    private static Charset charset(final ServletResponse response) {
+        final String encoding = response.getCharacterEncoding();
+        if (StringUtils.isBlank(encoding)) {
+            return Charsets.UTF_8;
+        }
+
+        return Charset.forName(encoding);
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.commons.util.Charsets;
+import org.nanoframework.commons.util.ContentType;
+import org.nanoframework.core.component.exception.BindRequestParamException;
+import org.nanoframework.core.component.exception.ComponentInvokeException;
+import org.nanoframework.core.component.stereotype.bind.RequestMapper;
+import org.nanoframework.core.component.stereotype.bind.RequestMethod;
+import org.nanoframework.core.component.stereotype.bind.Routes;
+import org.nanoframework.core.context.ApplicationContext;
+import org.nanoframework.core.context.URLContext;
+import org.nanoframework.web.server.http.status.ComponentStatus;
+import org.nanoframework.web.server.http.status.HttpStatusCode;
+import org.nanoframework.web.server.mvc.Model;
+import org.nanoframework.web.server.mvc.support.ForwardView;
+import org.nanoframework.web.server.mvc.support.RedirectModel;
+import org.nanoframework.web.server.stream.FormUrlEncodedDecoder;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class AsyncDispatchTest {
+    private final HttpRequestFilter filter = new HttpRequestFilter();
+
+    @Test
+    public void awaitTest() throws Exception {
+        Assert.assertEquals(filter.await(CompletableFuture.completedFuture("nano")), "nano");
+
+        final CompletableFuture<Object> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new BindRequestParamException("bind"));
+        try {
+            filter.await(failure);
+            Assert.fail();
+        } catch (final BindRequestParamException e) {
+            Assert.assertTrue(e.getMessage().endsWith("bind"));
+        }
+    }
+
+    @Test(expected = ComponentInvokeException.class)
+    public void awaitTimeoutTest() throws Exception {
+        System.setProperty(ApplicationContext.Web.ASYNC_TIMEOUT, "10");
+        try {
+            filter.await(new CompletableFuture<>());
+        } finally {
+            System.clearProperty(ApplicationContext.Web.ASYNC_TIMEOUT);
+        }
+    }
+
+    @Test
+    public void dispatchTest() throws Exception {
+        final Exchange exchange = new Exchange();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        filter.dispatch(exchange.request(), exchange.response(), urlContext(), future, new RedirectModel());
+        Assert.assertEquals(exchange.complete.getCount(), 1);
+
+        final CompletableFuture<Void> completion = CompletableFuture.runAsync(() -> future.complete(Lists.newArrayList("a", "b")));
+        completion.get();
+        Assert.assertTrue(exchange.complete.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(exchange.body(), "[\"a\",\"b\"]");
+    }
+
+    @Test
+    public void dispatchErrorTest() throws Exception {
+        final Exchange exchange = new Exchange();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        filter.dispatch(exchange.request(), exchange.response(), urlContext(), future, new RedirectModel());
+        future.completeExceptionally(new ComponentInvokeException("invoke error"));
+        Assert.assertTrue(exchange.complete.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(exchange.body().contains("invoke error"));
+    }
+
+    @Test
+    public void dispatchTimeoutTest() throws Exception {
+        final Exchange exchange = new Exchange();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        filter.dispatch(exchange.request(), exchange.response(), urlContext(), future, new RedirectModel());
+        for (final AsyncListener listener : exchange.listeners) {
+            listener.onTimeout(new AsyncEvent(null));
+        }
+
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertEquals(exchange.complete.getCount(), 0);
+        Assert.assertTrue(exchange.body().contains("Async Timeout"));
+    }
+
+    @Test
+    public void dispatchTimeoutWhileWritingTest() throws Exception {
+        final Exchange exchange = new Exchange();
+        exchange.writeGate = new CountDownLatch(1);
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        filter.dispatch(exchange.request(), exchange.response(), urlContext(), future, new RedirectModel());
+        final CompletableFuture<Void> completion = CompletableFuture.runAsync(() -> future.complete("nano"));
+        Assert.assertTrue(exchange.writeStarted.await(1, TimeUnit.SECONDS));
+
+        // 完成回调正在输出时触发超时，超时处理等待输出结束后返回，且不再输出超时响应
+        final CompletableFuture<Void> timeout = CompletableFuture.runAsync(() -> {
+            for (final AsyncListener listener : exchange.listeners) {
+                try {
+                    listener.onTimeout(new AsyncEvent(null));
+                } catch (final IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertFalse(timeout.isDone());
+        exchange.writeGate.countDown();
+        timeout.get(1, TimeUnit.SECONDS);
+        completion.get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(exchange.complete.getCount(), 0);
+        Assert.assertEquals(exchange.body(), "nano");
+    }
+
+    @Test
+    public void dispatchForwardTest() throws Exception {
+        final Exchange exchange = new Exchange();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final Model model = new RedirectModel().addAttribute("name", "nano");
+        filter.dispatch(exchange.request(), exchange.response(), urlContext(), future, model);
+        future.complete(new ForwardView("/index.jsp"));
+
+        // 异步模式下通过AsyncContext.dispatch转发，不调用RequestDispatcher.forward
+        Assert.assertEquals(exchange.dispatched, "/index.jsp");
+        Assert.assertNull(exchange.forwarded);
+        Assert.assertEquals(exchange.attributes.get("name"), "nano");
+        Assert.assertEquals(exchange.complete.getCount(), 1);
+    }
+
+    @Test
+    public void virtualForwardTest() throws Exception {
+        final RequestMapper mapper = RequestMapper.create().setInstance(new Handler()).setCls(Handler.class)
+                .setMethod(Handler.class.getMethod("forward"));
+        Routes.route().register("/forward", ImmutableMap.of(RequestMethod.GET, mapper));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        InvokeExecutors.set(executor);
+        try {
+            // 进入异步模式后在组件调用线程中通过AsyncContext.dispatch转发
+            final Exchange exchange = new Exchange();
+            Assert.assertFalse(filter.invoke(exchange.request(), exchange.response()));
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+            Assert.assertEquals(exchange.dispatched, "/forward.jsp");
+            Assert.assertNull(exchange.forwarded);
+        } finally {
+            InvokeExecutors.reset();
+            Routes.route().clear();
+        }
+    }
+
+    @Test
+    public void virtualReleaseTest() throws Exception {
+        final RequestMapper mapper = RequestMapper.create().setInstance(new Handler()).setCls(Handler.class)
+                .setMethod(Handler.class.getMethod("blocking"));
+        Routes.route().register("/forward", ImmutableMap.of(RequestMethod.GET, mapper));
+        InvokeExecutors.set(Executors.newSingleThreadExecutor());
+        Handler.gate = new CountDownLatch(1);
+        try {
+            // 组件阻塞时容器线程已返回，由组件调用线程输出响应并结束异步模式
+            final Exchange exchange = new Exchange();
+            Assert.assertFalse(filter.invoke(exchange.request(), exchange.response()));
+            Assert.assertEquals(exchange.complete.getCount(), 1);
+            Handler.gate.countDown();
+            Assert.assertTrue(exchange.complete.await(1, TimeUnit.SECONDS));
+            Assert.assertEquals(exchange.body(), "nano");
+        } finally {
+            Handler.gate.countDown();
+            InvokeExecutors.reset();
+            Routes.route().clear();
+        }
+    }
+
+    @Test
+    public void formTooLargeTest() throws Exception {
+        final StringBuilder body = new StringBuilder();
+        for (int idx = 0; idx <= FormUrlEncodedDecoder.DEFAULT_MAX_KEYS; idx++) {
+            body.append("k").append(idx).append("=v&");
+        }
+
+        // 表单超过限制时返回ResultMap，不抛出到容器
+        final Exchange exchange = new Exchange();
+        exchange.contentType = ContentType.APPLICATION_FORM_URLENCODED;
+        exchange.input = body.toString().getBytes(Charsets.UTF_8);
+        Assert.assertFalse(filter.invoke(exchange.request(), exchange.response()));
+        Assert.assertEquals(exchange.status, HttpStatusCode.SC_REQUEST_TOO_LONG);
+        Assert.assertTrue(exchange.body().contains(String.valueOf(ComponentStatus.REQUEST_ENTITY_TOO_LARGE_CODE)));
+    }
+
+    private URLContext urlContext() {
+        return URLContext.create().setContext("/async").setParameter(Maps.newHashMap());
+    }
+
+    private static class Exchange {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final List<AsyncListener> listeners = Lists.newArrayList();
+        private final CountDownLatch complete = new CountDownLatch(1);
+        private final CountDownLatch writeStarted = new CountDownLatch(1);
+        private volatile CountDownLatch writeGate;
+        private final Map<String, Object> attributes = Maps.newConcurrentMap();
+        private volatile String forwarded;
+        private volatile String dispatched;
+        private String contentType = ContentType.APPLICATION_JSON;
+        private byte[] input = new byte[0];
+        private int status;
+
+        private String body() {
+            return new String(output.toByteArray(), Charsets.UTF_8);
+        }
+
+        private HttpServletRequest request() {
+            final AsyncContext async = (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { AsyncContext.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "addListener":
+                                listeners.add((AsyncListener) args[0]);
+                                return null;
+                            case "complete":
+                                complete.countDown();
+                                return null;
+                            case "setTimeout":
+                                return null;
+                            case "dispatch":
+                                dispatched = (String) args[0];
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "startAsync":
+                                return async;
+                            case "getMethod":
+                                return "GET";
+                            case "getRequestURI":
+                                return "/forward";
+                            case "getParameterMap":
+                                return Collections.emptyMap();
+                            case "getContentType":
+                                return contentType;
+                            case "getInputStream":
+                                final ByteArrayInputStream stream = new ByteArrayInputStream(input);
+                                return new ServletInputStream() {
+                                    @Override
+                                    public int read() throws IOException {
+                                        return stream.read();
+                                    }
+                                };
+                            case "isAsyncSupported":
+                                return Boolean.TRUE;
+                            case "setAttribute":
+                                attributes.put((String) args[0], args[1]);
+                                return null;
+                            case "getRequestDispatcher":
+                                final String path = (String) args[0];
+                                return (RequestDispatcher) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                        new Class<?>[] { RequestDispatcher.class }, (dispatcher, forward, params) -> {
+                                            forwarded = path;
+                                            return null;
+                                        });
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private HttpServletResponse response() {
+            final ServletOutputStream stream = new ServletOutputStream() {
+                @Override
+                public void write(final int b) throws IOException {
+                    final CountDownLatch gate = writeGate;
+                    if (gate != null) {
+                        writeStarted.countDown();
+                        try {
+                            gate.await();
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException(e);
+                        }
+                    }
+
+                    output.write(b);
+                }
+            };
+
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getOutputStream":
+                                return stream;
+                            case "getCharacterEncoding":
+                                return Charsets.UTF_8.name();
+                            case "setContentType":
+                                return null;
+                            case "encodeRedirectURL":
+                                return args[0];
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    public static class Handler {
+        private static volatile CountDownLatch gate;
+
+        public ForwardView forward() {
+            return new ForwardView("/forward.jsp");
+        }
+
+        public String blocking() throws InterruptedException {
+            gate.await();
+            return "nano";
+        }
+    }
+}
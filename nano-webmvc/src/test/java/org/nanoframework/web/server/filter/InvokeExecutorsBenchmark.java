@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.filter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 阻塞型组件调用吞吐量对比：固定大小的平台线程池(模拟容器线程池)与每请求一个虚拟线程.
+ * 每次调用模拟10ms的阻塞IO，virtual模式需在JDK 21及以上运行.
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvokeExecutorsBenchmark {
+    private static final int REQUESTS = 2000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long BLOCKING_MILLIS = 10;
+
+    @Param({ InvokeExecutors.PLATFORM, InvokeExecutors.VIRTUAL })
+    private String mode;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        if (InvokeExecutors.VIRTUAL.equals(mode)) {
+            executor = InvokeExecutors.newVirtualThreadPerTaskExecutor();
+            if (executor == null) {
+                throw new IllegalStateException("Virtual threads require JDK 21+");
+            }
+        } else {
+            executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void invoke() {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[REQUESTS];
+        for (int idx = 0; idx < REQUESTS; idx++) {
+            futures[idx] = CompletableFuture.runAsync(InvokeExecutorsBenchmark::blocking, executor);
+        }
+
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private static void blocking() {
+        try {
+            Thread.sleep(BLOCKING_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InvokeExecutorsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
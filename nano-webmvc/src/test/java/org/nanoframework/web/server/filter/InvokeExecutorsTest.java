@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.filter;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.core.component.exception.ComponentInvokeException;
+import org.nanoframework.core.component.stereotype.bind.RequestMapper;
+import org.nanoframework.core.component.stereotype.bind.RouteMatch;
+import org.nanoframework.core.context.ApplicationContext;
+import org.nanoframework.core.context.URLContext;
+import org.nanoframework.web.server.filter.HttpRequestFilter.HttpContext;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class InvokeExecutorsTest {
+    private final HttpRequestFilter filter = new HttpRequestFilter();
+
+    @After
+    public void after() {
+        System.clearProperty(ApplicationContext.Web.INVOKE_MODE);
+        InvokeExecutors.reset();
+    }
+
+    @Test
+    public void platformTest() {
+        Assert.assertNull(InvokeExecutors.executor());
+        System.setProperty(ApplicationContext.Web.INVOKE_MODE, InvokeExecutors.PLATFORM);
+        InvokeExecutors.reset();
+        Assert.assertNull(InvokeExecutors.executor());
+    }
+
+    @Test
+    public void virtualTest() {
+        System.setProperty(ApplicationContext.Web.INVOKE_MODE, InvokeExecutors.VIRTUAL);
+        InvokeExecutors.reset();
+        final boolean supported = InvokeExecutors.newVirtualThreadPerTaskExecutor() != null;
+        Assert.assertEquals(InvokeExecutors.executor() != null, supported);
+    }
+
+    @Test
+    public void isVirtualThreadTest() throws Exception {
+        Assert.assertFalse(InvokeExecutors.isVirtualThread());
+        final ExecutorService executor = InvokeExecutors.newVirtualThreadPerTaskExecutor();
+        if (executor != null) {
+            try {
+                Assert.assertTrue(executor.submit(InvokeExecutors::isVirtualThread).get(1, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void submitTest() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final URLContext urlContext = URLContext.create().setContext("/submit").setParameter(Maps.newHashMap());
+            final Map<Class<?>, Object> context = ImmutableMap.<Class<?>, Object> builder().put(URLContext.class, urlContext).build();
+            final CompletionStage<Object> stage = filter.submit(executor, context, match("context"), null, null, null, urlContext);
+            Assert.assertEquals(stage.toCompletableFuture().get(1, TimeUnit.SECONDS), "/submit");
+
+            // 组件返回的CompletionStage不展开，由调用方进入异步模式
+            final CompletionStage<Object> async = filter.submit(executor, context, match("async"), null, null, null, urlContext);
+            final Object ret = async.toCompletableFuture().get(1, TimeUnit.SECONDS);
+            Assert.assertTrue(ret instanceof CompletionStage);
+            Assert.assertEquals(((CompletionStage<?>) ret).toCompletableFuture().get(1, TimeUnit.SECONDS), "async");
+
+            // 调用结束后清除工作线程中的HttpContext
+            final Boolean cleared = executor.submit(() -> {
+                try {
+                    HttpContext.get(URLContext.class);
+                    return Boolean.FALSE;
+                } catch (final NullPointerException e) {
+                    return Boolean.TRUE;
+                }
+            }).get(1, TimeUnit.SECONDS);
+            Assert.assertTrue(cleared);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final URLContext urlContext = URLContext.create().setContext("/submit").setParameter(Maps.newHashMap());
+        final CompletionStage<Object> stage = filter.submit(executor, Maps.newHashMap(), match("context"), null, null, null, urlContext);
+        try {
+            stage.toCompletableFuture().get();
+            Assert.fail();
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ComponentInvokeException);
+        }
+    }
+
+    private RouteMatch match(final String name) throws NoSuchMethodException {
+        final RequestMapper mapper = RequestMapper.create().setInstance(new Handler()).setCls(Handler.class)
+                .setMethod(Handler.class.getMethod(name));
+        return RouteMatch.create(mapper);
+    }
+
+    public static class Handler {
+        public String context() {
+            return HttpContext.get(URLContext.class).getContext();
+        }
+
+        public CompletableFuture<String> async() {
+            return CompletableFuture.supplyAsync(() -> "async");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.commons.util.Charsets;
+
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class FormUrlEncodedDecoderTest {
+    private final FormUrlEncodedDecoder decoder = new FormUrlEncodedDecoder(0, 0, Charsets.UTF_8);
+
+    @Test
+    public void decodeTest() throws IOException {
+        final Map<String, Object> parameter = decode(decoder, "Name=nano+framework&desc=%E4%B8%AD%E6%96%87&empty=&token=a=b\r\nid=1&id=2");
+        Assert.assertEquals(parameter.get("name"), "nano framework");
+        Assert.assertEquals(parameter.get("desc"), "中文");
+        Assert.assertEquals(parameter.get("token"), "a=b");
+        Assert.assertEquals(parameter.get("id"), "2");
+        Assert.assertFalse(parameter.containsKey("empty"));
+    }
+
+    @Test
+    public void arrayTest() throws IOException {
+        final Map<String, Object> parameter = Maps.newHashMap();
+        parameter.put("ids[]", new String[] { "0" });
+        decoder.decode(stream("ids[]=1&IDS[]=2&names%5B%5D=a"), parameter);
+        Assert.assertArrayEquals((String[]) parameter.get("ids[]"), new String[] { "0", "1", "2" });
+        Assert.assertArrayEquals((String[]) parameter.get("names[]"), new String[] { "a" });
+    }
+
+    @Test
+    public void invalidEscapeTest() throws IOException {
+        final Map<String, Object> parameter = decode(decoder, "a=100%&b=%zz&c=%4");
+        Assert.assertEquals(parameter.get("a"), "100%");
+        Assert.assertEquals(parameter.get("b"), "%zz");
+        Assert.assertEquals(parameter.get("c"), "%4");
+    }
+
+    @Test
+    public void bufferBoundaryTest() throws IOException {
+        final StringBuilder body = new StringBuilder("k=");
+        while (body.length() < 8191) {
+            body.append('x');
+        }
+
+        body.append("%E4%B8%AD");
+        final Map<String, Object> parameter = decode(decoder, body.toString());
+        Assert.assertTrue(((String) parameter.get("k")).endsWith("x中"));
+    }
+
+    @Test(expected = RequestEntityTooLargeException.class)
+    public void maxSizeTest() throws IOException {
+        decode(new FormUrlEncodedDecoder(8, 0, Charsets.UTF_8), "name=nano-framework");
+    }
+
+    @Test(expected = RequestEntityTooLargeException.class)
+    public void maxKeysTest() throws IOException {
+        decode(new FormUrlEncodedDecoder(0, 2, Charsets.UTF_8), "a=1&b=2&c=3");
+    }
+
+    private Map<String, Object> decode(final FormUrlEncodedDecoder decoder, final String body) throws IOException {
+        final Map<String, Object> parameter = Maps.newHashMap();
+        decoder.decode(stream(body), parameter);
+        return parameter;
+    }
+
+    private InputStream stream(final String body) {
+        return new ByteArrayInputStream(body.getBytes(Charsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.commons.util.Charsets;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class ReadStreamTest {
+
+    @Test
+    public void readJsonTest() throws IOException {
+        final byte[] body = "{\"name\": \"中文\",\n \"ids\": [1, 2]}".getBytes(Charsets.UTF_8);
+        final Map<String, Object> value = ReadStream.read(new ByteArrayInputStream(body), body.length, Charsets.UTF_8,
+                new TypeReference<Map<String, Object>>() { });
+        Assert.assertEquals(value.get("name"), "中文");
+        Assert.assertEquals(((List<?>) value.get("ids")).size(), 2);
+    }
+
+    @Test
+    public void readLargeJsonTest() throws IOException {
+        final List<String> values = Lists.newArrayList();
+        for (int idx = 0; idx < 20000; idx++) {
+            values.add("value-" + idx);
+        }
+
+        final Map<String, Object> map = Maps.newHashMap();
+        map.put("values", values);
+        final byte[] body = JSON.toJSONBytes(map);
+        Assert.assertTrue(body.length > ReadStream.POOLED_BUFFER_SIZE);
+
+        final TypeReference<Map<String, List<String>>> type = new TypeReference<Map<String, List<String>>>() { };
+        Assert.assertEquals(ReadStream.read(new ByteArrayInputStream(body), body.length, Charsets.UTF_8, type).get("values"), values);
+        Assert.assertEquals(ReadStream.read(new ByteArrayInputStream(body), -1, Charsets.UTF_8, type).get("values"), values);
+    }
+
+    @Test
+    public void readBytesTest() throws IOException {
+        final byte[] body = new byte[20000];
+        for (int idx = 0; idx < body.length; idx++) {
+            body[idx] = (byte) idx;
+        }
+
+        Assert.assertArrayEquals(ReadStream.readBytes(new ByteArrayInputStream(body), body.length, 0), body);
+        Assert.assertArrayEquals(ReadStream.readBytes(new ByteArrayInputStream(body), -1, 0), body);
+        Assert.assertArrayEquals(ReadStream.readBytes(new ByteArrayInputStream(body), 100, 0), body);
+        Assert.assertEquals(ReadStream.readBytes(new ByteArrayInputStream(new byte[0]), -1, 0).length, 0);
+    }
+
+    @Test
+    public void maxSizeTest() throws IOException {
+        final byte[] body = new byte[1024];
+        try {
+            ReadStream.readBytes(new ByteArrayInputStream(body), body.length, 512);
+            Assert.fail();
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getMessage().contains("too large"));
+        }
+
+        try {
+            ReadStream.readBytes(new ByteArrayInputStream(body), -1, 512);
+            Assert.fail();
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getMessage().contains("too large"));
+        }
+    }
+}
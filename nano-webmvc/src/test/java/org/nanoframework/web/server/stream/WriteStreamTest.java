@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nanoframework.web.server.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nanoframework.commons.util.Charsets;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ *
+ * @author yanghe
+ * @since 1.4.11
+ */
+public class WriteStreamTest {
+
+    @Test
+    public void writerTest() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        for (int idx = 0; idx < PooledOutputStreamWriter.BUFFER_SIZE; idx++) {
+            builder.append("中😀a");
+        }
+
+        final String value = builder.toString();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final Writer writer = new PooledOutputStreamWriter(output, Charsets.UTF_8)) {
+            // 按奇数长度分块写入，使代理对在块边界处被截断
+            final char[] chars = value.toCharArray();
+            for (int off = 0; off < chars.length; off += 7) {
+                writer.write(chars, off, Math.min(7, chars.length - off));
+            }
+        }
+
+        Assert.assertEquals(new String(output.toByteArray(), Charsets.UTF_8), value);
+    }
+
+    @Test
+    public void writeJsonTest() throws IOException {
+        final List<Map<String, Object>> values = Lists.newArrayList();
+        for (int idx = 0; idx < 10000; idx++) {
+            final Map<String, Object> value = Maps.newLinkedHashMap();
+            value.put("id", idx);
+            value.put("name", "名称-" + idx);
+            value.put("date", new Date(0));
+            values.add(value);
+        }
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WriteStream.writeJson(response(output), values, SerializerFeature.WriteDateUseDateFormat);
+        Assert.assertEquals(new String(output.toByteArray(), Charsets.UTF_8), JSON.toJSONString(values, SerializerFeature.WriteDateUseDateFormat));
+    }
+
+    @Test
+    public void writeJsonpTest() throws IOException {
+        final Map<String, Object> value = Maps.newHashMap();
+        value.put("name", "nano");
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WriteStream.writeJsonp(response(output), "cb", value);
+        Assert.assertEquals(new String(output.toByteArray(), Charsets.UTF_8), "cb({\"name\":\"nano\"})");
+    }
+
+    private ServletResponse response(final ByteArrayOutputStream output) {
+        final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                output.write(b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                output.write(b, off, len);
+            }
+        };
+
+        return (ServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ServletResponse.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getOutputStream":
+                            return stream;
+                        case "getCharacterEncoding":
+                            return Charsets.UTF_8.name();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}